@@ -7,17 +7,27 @@ import org.slf4j.LoggerFactory;
 import ru.kontur.vostok.hercules.curator.CuratorClient;
 import ru.kontur.vostok.hercules.curator.LatchWatcher;
 import ru.kontur.vostok.hercules.meta.auth.blacklist.Blacklist;
-import ru.kontur.vostok.hercules.util.PatternMatcher;
+import ru.kontur.vostok.hercules.util.PatternTrie;
 import ru.kontur.vostok.hercules.util.concurrent.RenewableTask;
 import ru.kontur.vostok.hercules.util.concurrent.RenewableTaskScheduler;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Auth manager checks rights of api keys.
+ * <p>
+ * Rules of each api key are compiled into {@link PatternTrie} on update.
+ * Also, auth decisions are cached per api key. Compiled rules and cached decisions are replaced at once
+ * when rules are updated, thus stale decisions are never returned.
+ * Blacklist is checked on each call.
+ *
  * @author Gregory Koshelev
  */
 public final class AuthManager {
@@ -30,9 +40,12 @@ public final class AuthManager {
 
     private final RenewableTaskScheduler scheduler;
 
-    private final AtomicReference<ConcurrentHashMap<String, List<PatternMatcher>>> readRules = new AtomicReference<>(new ConcurrentHashMap<>());
-    private final AtomicReference<ConcurrentHashMap<String, List<PatternMatcher>>> writeRules = new AtomicReference<>(new ConcurrentHashMap<>());
-    private final AtomicReference<ConcurrentHashMap<String, List<PatternMatcher>>> manageRules = new AtomicReference<>(new ConcurrentHashMap<>());
+    /**
+     * Max count of cached decisions per api key and right.
+     */
+    private static final int MAX_CACHED_DECISIONS = 1_024;
+
+    private final AtomicReference<Rules> rules = new AtomicReference<>(Rules.EMPTY);
 
     private final Blacklist blacklist;
 
@@ -76,34 +89,35 @@ public final class AuthManager {
      * @return {@code true} if the api key exists or {@code false} otherwise
      */
     public boolean hasApiKey(@NotNull String apiKey) {
-        return readRules.get().containsKey(apiKey)
-                || writeRules.get().containsKey(apiKey)
-                || manageRules.get().containsKey(apiKey);
+        Rules currentRules = rules.get();
+        return currentRules.read.containsKey(apiKey)
+                || currentRules.write.containsKey(apiKey)
+                || currentRules.manage.containsKey(apiKey);
     }
 
     public AuthResult authRead(String apiKey, String name) {
-        return auth(apiKey, name, readRules.get());
+        return auth(apiKey, name, rules.get().read);
     }
 
     public AuthResult authWrite(String apiKey, String name) {
-        return auth(apiKey, name, writeRules.get());
+        return auth(apiKey, name, rules.get().write);
     }
 
     public AuthResult authManage(String apiKey, String name) {
-        return auth(apiKey, name, manageRules.get());
+        return auth(apiKey, name, rules.get().manage);
     }
 
-    private AuthResult auth(String apiKey, String name, ConcurrentHashMap<String, List<PatternMatcher>> rules) {
+    private AuthResult auth(String apiKey, String name, Map<String, ApiKeyRules> rules) {
         if (blacklist.contains(apiKey)) {
             return AuthResult.denied();
         }
 
-        List<PatternMatcher> matchers = rules.get(apiKey);
-        if (matchers == null) {
+        ApiKeyRules apiKeyRules = rules.get(apiKey);
+        if (apiKeyRules == null) {
             return AuthResult.unknown();
         }
 
-        return PatternMatcher.matchesAnyOf(name, matchers) ? AuthResult.ok() : AuthResult.denied();
+        return apiKeyRules.matches(name) ? AuthResult.ok() : AuthResult.denied();
     }
 
     private void update() {
@@ -115,9 +129,9 @@ public final class AuthManager {
             return;
         }
 
-        ConcurrentHashMap<String, List<PatternMatcher>> newReadRules = new ConcurrentHashMap<>();
-        ConcurrentHashMap<String, List<PatternMatcher>> newWriteRules = new ConcurrentHashMap<>();
-        ConcurrentHashMap<String, List<PatternMatcher>> newManageRules = new ConcurrentHashMap<>();
+        Map<String, List<String>> newReadRules = new HashMap<>();
+        Map<String, List<String>> newWriteRules = new HashMap<>();
+        Map<String, List<String>> newManageRules = new HashMap<>();
 
         for (String rule : rules) {
             String[] split = rule.split("\\.");
@@ -141,13 +155,91 @@ public final class AuthManager {
             }
         }
 
-        readRules.set(newReadRules);
-        writeRules.set(newWriteRules);
-        manageRules.set(newManageRules);
+        Rules newRules;
+        try {
+            newRules = new Rules(compile(newReadRules), compile(newWriteRules), compile(newManageRules));
+        } catch (IllegalArgumentException ex) {
+            LOGGER.error("Error on compiling rules", ex);
+            return;
+        }
+        this.rules.set(newRules);
+    }
+
+    private void insertRule(Map<String, List<String>> rules, String apiKey, String pattern) {
+        List<String> patterns = rules.computeIfAbsent(apiKey, (k) -> new ArrayList<>());
+        patterns.add(pattern);
+    }
+
+    private static Map<String, ApiKeyRules> compile(Map<String, List<String>> rules) {
+        Map<String, ApiKeyRules> compiled = new HashMap<>(rules.size() * 2);
+        for (Map.Entry<String, List<String>> entry : rules.entrySet()) {
+            compiled.put(entry.getKey(), new ApiKeyRules(PatternTrie.compile(entry.getValue())));
+        }
+        return compiled;
+    }
+
+    /**
+     * Immutable snapshot of rules for all rights.
+     */
+    private static final class Rules {
+        static final Rules EMPTY = new Rules(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+        final Map<String, ApiKeyRules> read;
+        final Map<String, ApiKeyRules> write;
+        final Map<String, ApiKeyRules> manage;
+
+        Rules(Map<String, ApiKeyRules> read, Map<String, ApiKeyRules> write, Map<String, ApiKeyRules> manage) {
+            this.read = read;
+            this.write = write;
+            this.manage = manage;
+        }
+    }
+
+    /**
+     * Compiled patterns of the api key for the single right with the bounded cache of decisions.
+     * <p>
+     * The cache evicts the least recently used decision when its size is exceeded.
+     */
+    private static final class ApiKeyRules {
+        final PatternTrie patterns;
+        final Decisions decisions = new Decisions(MAX_CACHED_DECISIONS);
+
+        ApiKeyRules(PatternTrie patterns) {
+            this.patterns = patterns;
+        }
+
+        boolean matches(String name) {
+            if (name == null) {
+                return false;
+            }
+
+            Boolean decision;
+            synchronized (decisions) {
+                decision = decisions.get(name);
+            }
+            if (decision != null) {
+                return decision;
+            }
+
+            boolean matches = patterns.matches(name);
+            synchronized (decisions) {
+                decisions.put(name, matches);
+            }
+            return matches;
+        }
     }
 
-    private void insertRule(ConcurrentHashMap<String, List<PatternMatcher>> rules, String apiKey, String pattern) {
-        List<PatternMatcher> matchers = rules.computeIfAbsent(apiKey, (k) -> new ArrayList<>());
-        matchers.add(new PatternMatcher(pattern));
+    private static final class Decisions extends LinkedHashMap<String, Boolean> {
+        private final int maxSize;
+
+        Decisions(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > maxSize;
+        }
     }
 }
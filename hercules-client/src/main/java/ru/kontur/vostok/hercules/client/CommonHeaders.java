@@ -12,6 +12,11 @@ public final class CommonHeaders {
      */
     public static final String API_KEY = "apiKey";
 
+    /**
+     * Uncompressed content length if content is compressed
+     */
+    public static final String ORIGINAL_CONTENT_LENGTH = "Original-Content-Length";
+
     private CommonHeaders() {
         /* static class */
     }
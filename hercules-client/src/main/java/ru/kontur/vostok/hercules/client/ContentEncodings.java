@@ -0,0 +1,21 @@
+package ru.kontur.vostok.hercules.client;
+
+/**
+ * Content encodings are supported by the client
+ */
+public final class ContentEncodings {
+
+    /**
+     * LZ4 block compression
+     */
+    public static final String LZ4 = "lz4";
+
+    /**
+     * Sequence of LZ4 blocks, each block is prefixed with original and compressed lengths
+     */
+    public static final String LZ4_BLOCKS = "lz4-blocks";
+
+    private ContentEncodings() {
+        /* static class */
+    }
+}
@@ -0,0 +1,171 @@
+package ru.kontur.vostok.hercules.client;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
+import ru.kontur.vostok.hercules.client.exceptions.HerculesClientException;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
+import ru.kontur.vostok.hercules.util.compression.Decompressor;
+import ru.kontur.vostok.hercules.util.compression.Lz4Decompressor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads response bodies into pooled buffers.
+ * <p>
+ * Buffers are acquired from {@link ByteBufferPool}, thus they should be released after use.
+ */
+public final class ResponseBodyUtil {
+    private static final Decompressor LZ4_DECOMPRESSOR = new Lz4Decompressor();
+
+    /**
+     * Read the response body into the pooled buffer.
+     * <p>
+     * The body is decompressed if it has been compressed with LZ4.
+     *
+     * @param response the response
+     * @return the buffer with the body, it should be released to {@link ByteBufferPool}
+     * @throws IOException             if the body cannot be read or decompressed
+     * @throws HerculesClientException if the content encoding is not supported
+     */
+    public static ByteBuffer readBody(HttpResponse response) throws IOException, HerculesClientException {
+        HttpEntity entity = response.getEntity();
+        if (!isLz4(response)) {
+            return read(entity);
+        }
+
+        int originalContentLength = originalContentLength(response);
+        ByteBuffer compressed = read(entity);
+        try {
+            ByteBuffer body = ByteBufferPool.acquire(originalContentLength);
+            try {
+                LZ4_DECOMPRESSOR.decompress(compressed, body);
+            } catch (RuntimeException ex) {
+                ByteBufferPool.release(body);
+                throw new IOException("Cannot decompress the body", ex);
+            }
+            return body;
+        } finally {
+            ByteBufferPool.release(compressed);
+        }
+    }
+
+    /**
+     * Check if the response body has been compressed with LZ4.
+     *
+     * @param response the response
+     * @return {@code true} if the body has been compressed with LZ4, otherwise {@code false}
+     * @throws HerculesClientException if the content encoding is not supported
+     */
+    public static boolean isLz4(HttpResponse response) throws HerculesClientException {
+        Header contentEncoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding == null) {
+            return false;
+        }
+        if (!ContentEncodings.LZ4.equals(contentEncoding.getValue())) {
+            throw new HerculesClientException("Unsupported content encoding '" + contentEncoding.getValue() + "'");
+        }
+        return true;
+    }
+
+    /**
+     * Read the LZ4 block from the stream into the pooled buffer.
+     * <p>
+     * The block has the following format:
+     * <pre>
+     * Block           OriginalLength, CompressedLength, CompressedBytes
+     * </pre>
+     *
+     * @param in the input stream
+     * @return the buffer with the decompressed block or {@code null} if the stream has ended,
+     * the buffer should be released to {@link ByteBufferPool}
+     * @throws IOException if the block cannot be read or decompressed
+     */
+    public static ByteBuffer readLz4Block(InputStream in) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES);
+        ReadableByteChannel channel = Channels.newChannel(in);
+        if (channel.read(header) < 0) {
+            return null;
+        }
+        readFully(channel, header);
+        header.flip();
+        int originalLength = header.getInt();
+        int compressedLength = header.getInt();
+        if (originalLength < 0 || compressedLength < 0) {
+            throw new IOException("Invalid block header");
+        }
+
+        ByteBuffer compressed = ByteBufferPool.acquire(compressedLength);
+        try {
+            readFully(channel, compressed);
+            compressed.flip();
+
+            ByteBuffer block = ByteBufferPool.acquire(originalLength);
+            try {
+                LZ4_DECOMPRESSOR.decompress(compressed, block);
+            } catch (RuntimeException ex) {
+                ByteBufferPool.release(block);
+                throw new IOException("Cannot decompress the block", ex);
+            }
+            return block;
+        } finally {
+            ByteBufferPool.release(compressed);
+        }
+    }
+
+    private static ByteBuffer read(HttpEntity entity) throws IOException {
+        long contentLength = entity.getContentLength();
+        if (contentLength < 0 || contentLength > Integer.MAX_VALUE) {
+            byte[] bytes = EntityUtils.toByteArray(entity);
+            ByteBuffer buffer = ByteBufferPool.acquire(bytes.length);
+            buffer.put(bytes);
+            buffer.flip();
+            return buffer;
+        }
+
+        ByteBuffer buffer = ByteBufferPool.acquire((int) contentLength);
+        try (InputStream in = entity.getContent()) {
+            readFully(Channels.newChannel(in), buffer);
+        } catch (IOException ex) {
+            ByteBufferPool.release(buffer);
+            throw ex;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Unexpected end of the body");
+            }
+        }
+    }
+
+    private static int originalContentLength(HttpResponse response) throws IOException {
+        Header header = response.getFirstHeader(CommonHeaders.ORIGINAL_CONTENT_LENGTH);
+        if (header == null) {
+            throw new IOException("Compressed body has no " + CommonHeaders.ORIGINAL_CONTENT_LENGTH + " header");
+        }
+        try {
+            int length = Integer.parseInt(header.getValue());
+            if (length < 0) {
+                throw new IOException("Invalid " + CommonHeaders.ORIGINAL_CONTENT_LENGTH + " header '" + header.getValue() + "'");
+            }
+            return length;
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid " + CommonHeaders.ORIGINAL_CONTENT_LENGTH + " header '" + header.getValue() + "'", ex);
+        }
+    }
+
+    private ResponseBodyUtil() {
+        /* static class */
+    }
+}
@@ -0,0 +1,166 @@
+package ru.kontur.vostok.hercules.client.stream.api;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import ru.kontur.vostok.hercules.client.ContentEncodings;
+import ru.kontur.vostok.hercules.client.ResponseBodyUtil;
+import ru.kontur.vostok.hercules.client.exceptions.HerculesClientException;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.StreamReadState;
+import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
+import ru.kontur.vostok.hercules.protocol.decoder.EventReader;
+import ru.kontur.vostok.hercules.protocol.decoder.StreamReadStateReader;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.Consumer;
+
+/**
+ * Reads chunked stream content from the response.
+ * <p>
+ * Chunked stream content has the following format:
+ * <pre>
+ * Content         Chunk*, Trailer
+ * Chunk           Count, Event*
+ * Trailer         Zero, StreamReadState
+ * </pre>
+ * If the response has content encoding {@link ContentEncodings#LZ4_BLOCKS},
+ * then each chunk and the trailer are sent as separate LZ4 blocks.
+ * Thus, only the single block is kept in memory at once.
+ * Otherwise, the content is decoded as it is received using the buffer which is enough to keep the single event.
+ * <p>
+ * Events are decoded with copying of tags, so they stay valid after the block buffer is released.
+ */
+final class ChunkedStreamContentReader {
+    private static final EventReader EVENT_READER = EventReader.readAllTags();
+    private static final StreamReadStateReader STATE_READER = new StreamReadStateReader();
+
+    private static final int BUFFER_SIZE_BYTES = 64 * 1024;
+
+    /**
+     * Read chunked stream content and pass events to the consumer.
+     *
+     * @param response the response
+     * @param consumer the event consumer
+     * @return the stream read state from the trailer
+     * @throws IOException             if the response body cannot be read
+     * @throws HerculesClientException if the response body has no trailer or the content encoding is not supported
+     */
+    static StreamReadState read(HttpResponse response, Consumer<Event> consumer) throws IOException, HerculesClientException {
+        if (!isLz4Blocks(response)) {
+            try (InputStream in = response.getEntity().getContent()) {
+                return readChunks(in, consumer);
+            }
+        }
+
+        try (InputStream in = response.getEntity().getContent()) {
+            ByteBuffer block;
+            while ((block = ResponseBodyUtil.readLz4Block(in)) != null) {
+                try {
+                    StreamReadState state = readChunks(block, consumer);
+                    if (state != null) {
+                        return state;
+                    }
+                } finally {
+                    ByteBufferPool.release(block);
+                }
+            }
+        }
+        throw new HerculesClientException("Stream content has no trailer");
+    }
+
+    private static boolean isLz4Blocks(HttpResponse response) throws HerculesClientException {
+        Header contentEncoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+        if (contentEncoding == null) {
+            return false;
+        }
+        if (!ContentEncodings.LZ4_BLOCKS.equals(contentEncoding.getValue())) {
+            throw new HerculesClientException("Unsupported content encoding '" + contentEncoding.getValue() + "'");
+        }
+        return true;
+    }
+
+    /**
+     * Read chunks until the end of the buffer or the trailer.
+     *
+     * @return the stream read state if the trailer has been read, otherwise {@code null}
+     */
+    private static StreamReadState readChunks(ByteBuffer buffer, Consumer<Event> consumer) {
+        Decoder decoder = new Decoder(buffer);
+        while (buffer.hasRemaining()) {
+            int count = decoder.readInteger();
+            if (count == 0) {
+                return STATE_READER.read(decoder);
+            }
+            for (int i = 0; i < count; i++) {
+                consumer.accept(EVENT_READER.read(decoder));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read chunks from the stream until the trailer.
+     * <p>
+     * Counts, events and the trailer are decoded one by one. If the buffer has not enough bytes to decode the next one,
+     * then the buffer is refilled from the stream and decoding is retried. The buffer grows if it is full.
+     *
+     * @return the stream read state from the trailer
+     */
+    private static StreamReadState readChunks(InputStream in, Consumer<Event> consumer) throws IOException, HerculesClientException {
+        ReadableByteChannel channel = Channels.newChannel(in);
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE_BYTES);
+        buffer.flip();
+
+        int remainingEvents = 0;
+        while (true) {
+            int position = buffer.position();
+            Event event;
+            try {
+                Decoder decoder = new Decoder(buffer);
+                if (remainingEvents == 0) {
+                    int count = decoder.readInteger();
+                    if (count == 0) {
+                        return STATE_READER.read(decoder);
+                    }
+                    remainingEvents = count;
+                    continue;
+                }
+                event = EVENT_READER.read(decoder);
+            } catch (BufferUnderflowException | IllegalArgumentException ex) {
+                // Incomplete data: Decoder underflows on reads and fails to move the position beyond the limit on skips
+                buffer.position(position);
+                buffer = fill(channel, buffer);
+                continue;
+            }
+            // The consumer is called outside of the try block, thus its exceptions are not treated as incomplete data
+            consumer.accept(event);
+            remainingEvents--;
+        }
+    }
+
+    private static ByteBuffer fill(ReadableByteChannel channel, ByteBuffer buffer) throws IOException, HerculesClientException {
+        buffer.compact();
+        if (!buffer.hasRemaining()) {
+            ByteBuffer grown = ByteBuffer.allocate(2 * buffer.capacity());
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        if (channel.read(buffer) < 0) {
+            throw new HerculesClientException("Stream content has no trailer");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private ChunkedStreamContentReader() {
+        /* static class */
+    }
+}
@@ -1,6 +1,6 @@
 package ru.kontur.vostok.hercules.client.stream.api;
 
-import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -10,13 +10,16 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import ru.kontur.vostok.hercules.client.CommonHeaders;
 import ru.kontur.vostok.hercules.client.CommonParameters;
+import ru.kontur.vostok.hercules.client.ContentEncodings;
 import ru.kontur.vostok.hercules.client.LogicalShardState;
+import ru.kontur.vostok.hercules.client.ResponseBodyUtil;
 import ru.kontur.vostok.hercules.client.exceptions.BadRequestException;
 import ru.kontur.vostok.hercules.client.exceptions.ForbiddenException;
 import ru.kontur.vostok.hercules.client.exceptions.HerculesClientException;
 import ru.kontur.vostok.hercules.client.exceptions.HerculesClientExceptionUtil;
 import ru.kontur.vostok.hercules.client.exceptions.NotFoundException;
 import ru.kontur.vostok.hercules.client.exceptions.UnauthorizedException;
+import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.protocol.EventStreamContent;
 import ru.kontur.vostok.hercules.protocol.StreamReadState;
 import ru.kontur.vostok.hercules.protocol.Type;
@@ -24,13 +27,14 @@ import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
 import ru.kontur.vostok.hercules.protocol.decoder.EventStreamContentReader;
 import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
 import ru.kontur.vostok.hercules.protocol.encoder.StreamReadStateWriter;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
 import ru.kontur.vostok.hercules.util.throwable.ThrowableUtil;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -122,19 +126,57 @@ public class StreamApiClient {
             UnauthorizedException,
             ForbiddenException,
             NotFoundException {
-        URI uri = ThrowableUtil.toUnchecked(() -> new URIBuilder(server.resolve(Resources.STREAM_READ))
-                .addParameter(Parameters.STREAM, stream)
-                .addParameter(Parameters.RESPONSE_EVENTS_COUNT, String.valueOf(count))
-                .addParameter(CommonParameters.LOGICAL_SHARD_ID, String.valueOf(shardState.getShardId()))
-                .addParameter(CommonParameters.LOGICAL_SHARD_COUNT, String.valueOf(shardState.getShardCount()))
-                .build());
+        HttpPost httpPost = buildReadRequest(stream, streamReadState, count, false);
 
-        ByteBuffer buffer = ByteBuffer.allocate(calculateReadStateSize(streamReadState.getShardCount()));
-        STATE_WRITER.write(new Encoder(buffer), streamReadState);
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            final Optional<HerculesClientException> exception = HerculesClientExceptionUtil.exceptionFromStatus(
+                    response.getStatusLine().getStatusCode(),
+                    stream,
+                    apiKey
+            );
 
-        HttpPost httpPost = new HttpPost(uri);
-        httpPost.setHeader(CommonHeaders.API_KEY, apiKey);
-        httpPost.setEntity(new ByteArrayEntity(buffer.array()));
+            if (exception.isPresent()) {
+                throw exception.get();
+            }
+
+            ByteBuffer body = ResponseBodyUtil.readBody(response);
+            try {
+                return CONTENT_READER.read(new Decoder(body));
+            } finally {
+                ByteBufferPool.release(body);
+            }
+        } catch (IOException e) {
+            throw new HerculesClientException("IOException occurred", e);
+        }
+    }
+
+    /**
+     * Read stream content from Stream API and pass events to the consumer one by one as soon as they are received.
+     * <p>
+     * Events are sent by Stream API in chunks, thus the whole response is never buffered in memory.
+     *
+     * @param stream          stream name
+     * @param streamReadState stream read state
+     * @param count           event count
+     * @param consumer        event consumer
+     * @return the read state to continue reading from
+     * @throws HerculesClientException in case of unspecified error
+     * @throws BadRequestException     in case of incorrect parameters
+     * @throws UnauthorizedException   in case of missing authorization data
+     * @throws ForbiddenException      in case of request of forbidden resource
+     * @throws NotFoundException       in case of not found resource
+     */
+    public StreamReadState readStreamContent(
+            final String stream,
+            final StreamReadState streamReadState,
+            final int count,
+            final Consumer<Event> consumer
+    ) throws HerculesClientException,
+            BadRequestException,
+            UnauthorizedException,
+            ForbiddenException,
+            NotFoundException {
+        HttpPost httpPost = buildReadRequest(stream, streamReadState, count, true);
 
         try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
             final Optional<HerculesClientException> exception = HerculesClientExceptionUtil.exceptionFromStatus(
@@ -147,15 +189,35 @@ public class StreamApiClient {
                 throw exception.get();
             }
 
-            HttpEntity entity = response.getEntity();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) entity.getContentLength());
-            entity.writeTo(outputStream);
-            return CONTENT_READER.read(new Decoder(outputStream.toByteArray()));
+            return ChunkedStreamContentReader.read(response, consumer);
         } catch (IOException e) {
             throw new HerculesClientException("IOException occurred", e);
         }
     }
 
+    private HttpPost buildReadRequest(String stream, StreamReadState streamReadState, int count, boolean chunked) {
+        URI uri = ThrowableUtil.toUnchecked(() -> {
+            URIBuilder builder = new URIBuilder(server.resolve(Resources.STREAM_READ))
+                    .addParameter(Parameters.STREAM, stream)
+                    .addParameter(Parameters.RESPONSE_EVENTS_COUNT, String.valueOf(count))
+                    .addParameter(CommonParameters.LOGICAL_SHARD_ID, String.valueOf(shardState.getShardId()))
+                    .addParameter(CommonParameters.LOGICAL_SHARD_COUNT, String.valueOf(shardState.getShardCount()));
+            if (chunked) {
+                builder.addParameter(Parameters.CHUNKED, String.valueOf(true));
+            }
+            return builder.build();
+        });
+
+        ByteBuffer buffer = ByteBuffer.allocate(calculateReadStateSize(streamReadState.getShardCount()));
+        STATE_WRITER.write(new Encoder(buffer), streamReadState);
+
+        HttpPost httpPost = new HttpPost(uri);
+        httpPost.setHeader(CommonHeaders.API_KEY, apiKey);
+        httpPost.setHeader(HttpHeaders.ACCEPT_ENCODING, chunked ? ContentEncodings.LZ4_BLOCKS : ContentEncodings.LZ4);
+        httpPost.setEntity(new ByteArrayEntity(buffer.array()));
+        return httpPost;
+    }
+
     /**
      * @return true if ping was performed without errors
      */
@@ -216,5 +278,10 @@ public class StreamApiClient {
          * Event count
          */
         static final String RESPONSE_EVENTS_COUNT = "take";
+
+        /**
+         * Send events in chunks as soon as they are read
+         */
+        static final String CHUNKED = "chunked";
     }
 }
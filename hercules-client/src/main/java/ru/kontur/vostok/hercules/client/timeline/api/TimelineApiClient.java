@@ -1,6 +1,6 @@
 package ru.kontur.vostok.hercules.client.timeline.api;
 
-import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -10,28 +10,33 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import ru.kontur.vostok.hercules.client.CommonHeaders;
 import ru.kontur.vostok.hercules.client.CommonParameters;
+import ru.kontur.vostok.hercules.client.ContentEncodings;
 import ru.kontur.vostok.hercules.client.LogicalShardState;
+import ru.kontur.vostok.hercules.client.ResponseBodyUtil;
 import ru.kontur.vostok.hercules.client.exceptions.BadRequestException;
 import ru.kontur.vostok.hercules.client.exceptions.ForbiddenException;
 import ru.kontur.vostok.hercules.client.exceptions.HerculesClientException;
 import ru.kontur.vostok.hercules.client.exceptions.HerculesClientExceptionUtil;
 import ru.kontur.vostok.hercules.client.exceptions.NotFoundException;
 import ru.kontur.vostok.hercules.client.exceptions.UnauthorizedException;
+import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.protocol.TimelineContent;
 import ru.kontur.vostok.hercules.protocol.TimelineState;
 import ru.kontur.vostok.hercules.protocol.Type;
 import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
 import ru.kontur.vostok.hercules.protocol.decoder.EventReader;
 import ru.kontur.vostok.hercules.protocol.decoder.TimelineContentReader;
+import ru.kontur.vostok.hercules.protocol.decoder.TimelineStateReader;
 import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
 import ru.kontur.vostok.hercules.protocol.encoder.TimelineStateWriter;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
 import ru.kontur.vostok.hercules.util.throwable.ThrowableUtil;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -42,7 +47,9 @@ import java.util.function.Supplier;
 public class TimelineApiClient {
 
     private static final TimelineStateWriter STATE_WRITER = new TimelineStateWriter();
-    private static final TimelineContentReader CONTENT_READER = new TimelineContentReader(EventReader.readAllTags());
+    private static final TimelineStateReader STATE_READER = new TimelineStateReader();
+    private static final EventReader EVENT_READER = EventReader.readAllTags();
+    private static final TimelineContentReader CONTENT_READER = new TimelineContentReader(EVENT_READER);
 
     private final CloseableHttpClient httpClient;
     private final URI server;
@@ -126,21 +133,59 @@ public class TimelineApiClient {
             ForbiddenException,
             NotFoundException {
 
-        URI uri = ThrowableUtil.toUnchecked(() -> new URIBuilder(server.resolve(Resources.TIMELINE_READ))
-                .addParameter(Parameters.TIMELINE, timeline)
-                .addParameter(Parameters.RESPONSE_EVENTS_COUNT, String.valueOf(count))
-                .addParameter(CommonParameters.LOGICAL_SHARD_ID, String.valueOf(shardState.getShardId()))
-                .addParameter(CommonParameters.LOGICAL_SHARD_COUNT, String.valueOf(shardState.getShardCount()))
-                .addParameter(Parameters.LEFT_TIME_BOUND, String.valueOf(timeInterval.getFrom()))
-                .addParameter(Parameters.RIGHT_TIME_BOUND, String.valueOf(timeInterval.getTo()))
-                .build());
+        HttpPost httpPost = buildReadRequest(timeline, timelineState, timeInterval, count);
 
-        ByteBuffer buffer = ByteBuffer.allocate(calculateReadStateSize(timelineState.getSliceCount()));
-        STATE_WRITER.write(new Encoder(buffer), timelineState);
+        try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            final Optional<HerculesClientException> exception = HerculesClientExceptionUtil.exceptionFromStatus(
+                    response.getStatusLine().getStatusCode(),
+                    timeline,
+                    apiKey
+            );
 
-        HttpPost httpPost = new HttpPost(uri);
-        httpPost.setHeader(CommonHeaders.API_KEY, apiKey);
-        httpPost.setEntity(new ByteArrayEntity(buffer.array()));
+            if (exception.isPresent()) {
+                throw exception.get();
+            }
+
+            ByteBuffer body = ResponseBodyUtil.readBody(response);
+            try {
+                return CONTENT_READER.read(new Decoder(body));
+            } finally {
+                ByteBufferPool.release(body);
+            }
+        } catch (IOException e) {
+            throw new HerculesClientException("IO Exception occurred", e);
+        }
+    }
+
+    /**
+     * Read timeline content from timeline API and pass events to the consumer one by one.
+     * <p>
+     * Events are decoded directly from the response body, thus no intermediate array of events is built.
+     *
+     * @param timeline      timeline name
+     * @param timelineState read state
+     * @param timeInterval  time interval
+     * @param count         count of events
+     * @param consumer      event consumer
+     * @return the read state to continue reading from
+     * @throws HerculesClientException in case of unspecified error
+     * @throws BadRequestException     in case of incorrect parameters
+     * @throws UnauthorizedException   in case of missing authorization data
+     * @throws ForbiddenException      in case of request of forbidden resource
+     * @throws NotFoundException       in case of not found resource
+     */
+    public TimelineState readTimelineContent(
+            final String timeline,
+            final TimelineState timelineState,
+            final TimeInterval timeInterval,
+            final int count,
+            final Consumer<Event> consumer
+    ) throws HerculesClientException,
+            BadRequestException,
+            UnauthorizedException,
+            ForbiddenException,
+            NotFoundException {
+        HttpPost httpPost = buildReadRequest(timeline, timelineState, timeInterval, count);
 
         try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
             final Optional<HerculesClientException> exception = HerculesClientExceptionUtil.exceptionFromStatus(
@@ -153,15 +198,43 @@ public class TimelineApiClient {
                 throw exception.get();
             }
 
-            HttpEntity entity = response.getEntity();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) entity.getContentLength());
-            entity.writeTo(outputStream);
-            return CONTENT_READER.read(new Decoder(outputStream.toByteArray()));
+            ByteBuffer body = ResponseBodyUtil.readBody(response);
+            try {
+                Decoder decoder = new Decoder(body);
+                TimelineState state = STATE_READER.read(decoder);
+                int eventCount = decoder.readInteger();
+                for (int i = 0; i < eventCount; i++) {
+                    consumer.accept(EVENT_READER.read(decoder));
+                }
+                return state;
+            } finally {
+                ByteBufferPool.release(body);
+            }
         } catch (IOException e) {
             throw new HerculesClientException("IO Exception occurred", e);
         }
     }
 
+    private HttpPost buildReadRequest(String timeline, TimelineState timelineState, TimeInterval timeInterval, int count) {
+        URI uri = ThrowableUtil.toUnchecked(() -> new URIBuilder(server.resolve(Resources.TIMELINE_READ))
+                .addParameter(Parameters.TIMELINE, timeline)
+                .addParameter(Parameters.RESPONSE_EVENTS_COUNT, String.valueOf(count))
+                .addParameter(CommonParameters.LOGICAL_SHARD_ID, String.valueOf(shardState.getShardId()))
+                .addParameter(CommonParameters.LOGICAL_SHARD_COUNT, String.valueOf(shardState.getShardCount()))
+                .addParameter(Parameters.LEFT_TIME_BOUND, String.valueOf(timeInterval.getFrom()))
+                .addParameter(Parameters.RIGHT_TIME_BOUND, String.valueOf(timeInterval.getTo()))
+                .build());
+
+        ByteBuffer buffer = ByteBuffer.allocate(calculateReadStateSize(timelineState.getSliceCount()));
+        STATE_WRITER.write(new Encoder(buffer), timelineState);
+
+        HttpPost httpPost = new HttpPost(uri);
+        httpPost.setHeader(CommonHeaders.API_KEY, apiKey);
+        httpPost.setHeader(HttpHeaders.ACCEPT_ENCODING, ContentEncodings.LZ4);
+        httpPost.setEntity(new ByteArrayEntity(buffer.array()));
+        return httpPost;
+    }
+
     /**
      * @return true if ping was performed without errors
      */
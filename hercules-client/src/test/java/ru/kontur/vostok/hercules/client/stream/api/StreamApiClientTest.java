@@ -1,24 +1,43 @@
 package ru.kontur.vostok.hercules.client.stream.api;
 
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHeader;
 import org.junit.Test;
+import ru.kontur.vostok.hercules.client.CommonHeaders;
 import ru.kontur.vostok.hercules.client.LogicalShardState;
+import ru.kontur.vostok.hercules.client.exceptions.HerculesClientException;
 import ru.kontur.vostok.hercules.client.test.util.TestUtil;
 import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.protocol.EventStreamContent;
 import ru.kontur.vostok.hercules.protocol.StreamReadState;
 import ru.kontur.vostok.hercules.protocol.StreamShardReadState;
+import ru.kontur.vostok.hercules.protocol.Variant;
+import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
 import ru.kontur.vostok.hercules.protocol.encoder.EventStreamContentWriter;
+import ru.kontur.vostok.hercules.protocol.encoder.EventWriter;
+import ru.kontur.vostok.hercules.protocol.encoder.StreamReadStateWriter;
 import ru.kontur.vostok.hercules.protocol.EventBuilder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -84,4 +103,256 @@ public class StreamApiClientTest {
         assertEquals(UUID.fromString("05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1"), content.getEvents()[0].getUuid());
         assertEquals(UUID.fromString("0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1"), content.getEvents()[1].getUuid());
     }
+
+    @Test
+    public void readLz4CompressedContent() throws Exception {
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+
+        EventStreamContent original = new EventStreamContent(
+                new StreamReadState(
+                        new StreamShardReadState[]{
+                                new StreamShardReadState(0, 2)
+                        }),
+                new Event[]{
+                        EventBuilder.create(0, "05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1").build(),
+                        EventBuilder.create(0, "0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1").build()
+                });
+        byte[] bytes = TestUtil.toBytes(original, new EventStreamContentWriter(), original.sizeOf());
+        when(responseMock.getEntity()).thenReturn(new ByteArrayEntity(TestUtil.lz4(bytes)));
+        when(responseMock.getFirstHeader(HttpHeaders.CONTENT_ENCODING)).thenReturn(new BasicHeader(HttpHeaders.CONTENT_ENCODING, "lz4"));
+        when(responseMock.getFirstHeader(CommonHeaders.ORIGINAL_CONTENT_LENGTH)).thenReturn(new BasicHeader(CommonHeaders.ORIGINAL_CONTENT_LENGTH, String.valueOf(bytes.length)));
+
+        CloseableHttpClient clientMock = mock(CloseableHttpClient.class);
+        when(clientMock.execute(any(HttpUriRequest.class))).thenReturn(responseMock);
+
+        StreamApiClient client = new StreamApiClient(
+                () -> clientMock,
+                URI.create("http://test/"),
+                new LogicalShardState(0, 1),
+                "test"
+        );
+
+        EventStreamContent content = client.getStreamContent(
+                "test",
+                new StreamReadState(new StreamShardReadState[]{}),
+                2
+        );
+
+        assertEquals(2, content.getEvents().length);
+        assertEquals(UUID.fromString("05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1"), content.getEvents()[0].getUuid());
+        assertEquals(UUID.fromString("0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1"), content.getEvents()[1].getUuid());
+        assertEquals(2, content.getState().getShardStates()[0].getOffset());
+    }
+
+    @Test
+    public void readChunkedContent() throws Exception {
+        Event first = EventBuilder.create(0, "05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1").build();
+        Event second = EventBuilder.create(0, "0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1").build();
+        StreamReadState state = new StreamReadState(new StreamShardReadState[]{new StreamShardReadState(0, 2)});
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(chunk(first));
+        body.write(chunk(second));
+        body.write(trailer(state));
+
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+        when(responseMock.getEntity()).thenReturn(new ByteArrayEntity(body.toByteArray()));
+
+        List<Event> events = new ArrayList<>();
+        StreamReadState readState = createClient(responseMock).readStreamContent(
+                "test",
+                new StreamReadState(new StreamShardReadState[]{}),
+                2,
+                events::add
+        );
+
+        assertEquals(2, events.size());
+        assertEquals(first.getUuid(), events.get(0).getUuid());
+        assertEquals(second.getUuid(), events.get(1).getUuid());
+        assertEquals(2, readState.getShardStates()[0].getOffset());
+    }
+
+    @Test
+    public void readChunkedLz4CompressedContent() throws Exception {
+        Event first = EventBuilder.create(0, "05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1").build();
+        Event second = EventBuilder.create(0, "0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1").build();
+        StreamReadState state = new StreamReadState(new StreamShardReadState[]{new StreamShardReadState(0, 2)});
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(TestUtil.lz4Block(chunk(first, second)));
+        body.write(TestUtil.lz4Block(trailer(state)));
+
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+        when(responseMock.getEntity()).thenReturn(new ByteArrayEntity(body.toByteArray()));
+        when(responseMock.getFirstHeader(HttpHeaders.CONTENT_ENCODING)).thenReturn(new BasicHeader(HttpHeaders.CONTENT_ENCODING, "lz4-blocks"));
+
+        List<Event> events = new ArrayList<>();
+        StreamReadState readState = createClient(responseMock).readStreamContent(
+                "test",
+                new StreamReadState(new StreamShardReadState[]{}),
+                2,
+                events::add
+        );
+
+        assertEquals(2, events.size());
+        assertEquals(first.getUuid(), events.get(0).getUuid());
+        assertEquals(second.getUuid(), events.get(1).getUuid());
+        assertEquals(2, readState.getShardStates()[0].getOffset());
+    }
+
+    @Test
+    public void readChunkedContentReceivedByPieces() throws Exception {
+        Event first = EventBuilder.create(0, "05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1").build();
+        Event large = EventBuilder.create(0, "0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1")
+                .tag("message", Variant.ofString(new byte[200 * 1024]))
+                .build();
+        StreamReadState state = new StreamReadState(new StreamShardReadState[]{new StreamShardReadState(0, 2)});
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(chunk(first, large));
+        body.write(trailer(state));
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(body.toByteArray())) {
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                return super.read(bytes, offset, Math.min(length, 7));
+            }
+        };
+
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+        when(responseMock.getEntity()).thenReturn(new InputStreamEntity(in));
+
+        List<Event> events = new ArrayList<>();
+        StreamReadState readState = createClient(responseMock).readStreamContent(
+                "test",
+                new StreamReadState(new StreamShardReadState[]{}),
+                2,
+                events::add
+        );
+
+        assertEquals(2, events.size());
+        assertEquals(first.getUuid(), events.get(0).getUuid());
+        assertEquals(large.getUuid(), events.get(1).getUuid());
+        assertArrayEquals(large.getBytes(), events.get(1).getBytes());
+        assertEquals(2, readState.getShardStates()[0].getOffset());
+    }
+
+    @Test
+    public void shouldPropagateConsumerException() throws Exception {
+        Event first = EventBuilder.create(0, "05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1").build();
+        Event second = EventBuilder.create(0, "0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1").build();
+        StreamReadState state = new StreamReadState(new StreamShardReadState[]{new StreamShardReadState(0, 2)});
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write(chunk(first, second));
+        body.write(trailer(state));
+
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+        when(responseMock.getEntity()).thenReturn(new InputStreamEntity(new ByteArrayInputStream(body.toByteArray())));
+
+        List<Event> events = new ArrayList<>();
+        try {
+            createClient(responseMock).readStreamContent(
+                    "test",
+                    new StreamReadState(new StreamShardReadState[]{}),
+                    2,
+                    event -> {
+                        events.add(event);
+                        throw new IllegalArgumentException("Invalid event");
+                    }
+            );
+            fail("Exception of the consumer should be propagated");
+        } catch (IllegalArgumentException ex) {
+            assertEquals("Invalid event", ex.getMessage());
+        }
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void shouldRejectUnsupportedContentEncoding() throws Exception {
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+        when(responseMock.getEntity()).thenReturn(new ByteArrayEntity(new byte[0]));
+        when(responseMock.getFirstHeader(HttpHeaders.CONTENT_ENCODING)).thenReturn(new BasicHeader(HttpHeaders.CONTENT_ENCODING, "gzip"));
+
+        try {
+            createClient(responseMock).getStreamContent(
+                    "test",
+                    new StreamReadState(new StreamShardReadState[]{}),
+                    2
+            );
+            fail("Unsupported content encoding should be rejected");
+        } catch (HerculesClientException ex) {
+            assertEquals("Unsupported content encoding 'gzip'", ex.getMessage());
+        }
+    }
+
+    @Test(expected = HerculesClientException.class)
+    public void shouldRejectSingleBlockLz4ForChunkedContent() throws Exception {
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+        when(responseMock.getEntity()).thenReturn(new ByteArrayEntity(new byte[0]));
+        when(responseMock.getFirstHeader(HttpHeaders.CONTENT_ENCODING)).thenReturn(new BasicHeader(HttpHeaders.CONTENT_ENCODING, "lz4"));
+
+        createClient(responseMock).readStreamContent(
+                "test",
+                new StreamReadState(new StreamShardReadState[]{}),
+                2,
+                event -> {
+                });
+    }
+
+    @Test(expected = HerculesClientException.class)
+    public void shouldFailIfChunkedContentHasNoTrailer() throws Exception {
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+        when(responseMock.getEntity()).thenReturn(new ByteArrayEntity(chunk(EventBuilder.create(0, "05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1").build())));
+
+        createClient(responseMock).readStreamContent(
+                "test",
+                new StreamReadState(new StreamShardReadState[]{}),
+                2,
+                event -> {
+                }
+        );
+    }
+
+    private static StreamApiClient createClient(CloseableHttpResponse response) throws Exception {
+        CloseableHttpClient clientMock = mock(CloseableHttpClient.class);
+        when(clientMock.execute(any(HttpUriRequest.class))).thenReturn(response);
+
+        return new StreamApiClient(
+                () -> clientMock,
+                URI.create("http://test/"),
+                new LogicalShardState(0, 1),
+                "test"
+        );
+    }
+
+    private static byte[] chunk(Event... events) {
+        int size = Integer.BYTES;
+        for (Event event : events) {
+            size += event.sizeOf();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        Encoder encoder = new Encoder(buffer);
+        encoder.writeInteger(events.length);
+        EventWriter writer = new EventWriter();
+        for (Event event : events) {
+            writer.write(encoder, event);
+        }
+        return buffer.array();
+    }
+
+    private static byte[] trailer(StreamReadState state) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + state.sizeOf());
+        Encoder encoder = new Encoder(buffer);
+        encoder.writeInteger(0);
+        new StreamReadStateWriter().write(encoder, state);
+        return buffer.array();
+    }
 }
@@ -6,6 +6,7 @@ import org.apache.http.StatusLine;
 import org.apache.http.message.BasicStatusLine;
 import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
 import ru.kontur.vostok.hercules.protocol.encoder.Writer;
+import ru.kontur.vostok.hercules.util.compression.Lz4Compressor;
 
 import java.nio.ByteBuffer;
 
@@ -25,6 +26,36 @@ public final class TestUtil {
         return buffer.array();
     }
 
+    /**
+     * Compress bytes with LZ4.
+     *
+     * @param bytes bytes to compress
+     * @return compressed bytes
+     */
+    public static byte[] lz4(byte[] bytes) {
+        Lz4Compressor compressor = new Lz4Compressor();
+        ByteBuffer compressed = ByteBuffer.allocate(compressor.maxCompressedLength(bytes.length));
+        compressor.compress(ByteBuffer.wrap(bytes), compressed);
+        byte[] result = new byte[compressed.remaining()];
+        compressed.get(result);
+        return result;
+    }
+
+    /**
+     * Compress bytes into the LZ4 block: {@code OriginalLength, CompressedLength, CompressedBytes}.
+     *
+     * @param bytes bytes to compress
+     * @return the block
+     */
+    public static byte[] lz4Block(byte[] bytes) {
+        byte[] compressed = lz4(bytes);
+        ByteBuffer block = ByteBuffer.allocate(2 * Integer.BYTES + compressed.length);
+        block.putInt(bytes.length);
+        block.putInt(compressed.length);
+        block.put(compressed);
+        return block.array();
+    }
+
     private TestUtil() {
         /* static class */
     }
@@ -1,10 +1,13 @@
 package ru.kontur.vostok.hercules.client.timeline.api;
 
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHeader;
 import org.junit.Test;
+import ru.kontur.vostok.hercules.client.CommonHeaders;
 import ru.kontur.vostok.hercules.client.LogicalShardState;
 import ru.kontur.vostok.hercules.client.test.util.TestUtil;
 import ru.kontur.vostok.hercules.protocol.Event;
@@ -16,6 +19,8 @@ import ru.kontur.vostok.hercules.protocol.EventBuilder;
 import ru.kontur.vostok.hercules.protocol.util.EventUtil;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.Assert.assertEquals;
@@ -71,6 +76,50 @@ public class TimelineApiClientTest {
         assertEquals(UUID.fromString("0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1"), content.getEvents()[1].getUuid());
     }
 
+    @Test
+    public void readLz4CompressedTimelineContent() throws Exception {
+        CloseableHttpResponse responseMock = mock(CloseableHttpResponse.class);
+        when(responseMock.getStatusLine()).thenReturn(TestUtil._200_OK);
+
+        TimelineContent original = new TimelineContent(
+                new TimelineState(
+                        new TimelineSliceState[]{
+                                new TimelineSliceState(0, 123456789, EventUtil.eventIdAsBytes(137_620_098_108_949_610L, UUID.fromString("05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1")))
+                        }),
+                new Event[]{
+                        EventBuilder.create(0, "05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1").build(),
+                        EventBuilder.create(0, "0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1").build()
+                });
+        byte[] bytes = TestUtil.toBytes(original, new TimelineContentWriter(), original.sizeOf());
+        when(responseMock.getEntity()).thenReturn(new ByteArrayEntity(TestUtil.lz4(bytes)));
+        when(responseMock.getFirstHeader(HttpHeaders.CONTENT_ENCODING)).thenReturn(new BasicHeader(HttpHeaders.CONTENT_ENCODING, "lz4"));
+        when(responseMock.getFirstHeader(CommonHeaders.ORIGINAL_CONTENT_LENGTH)).thenReturn(new BasicHeader(CommonHeaders.ORIGINAL_CONTENT_LENGTH, String.valueOf(bytes.length)));
+
+        CloseableHttpClient clientMock = mock(CloseableHttpClient.class);
+        when(clientMock.execute(any(HttpUriRequest.class))).thenReturn(responseMock);
+
+        TimelineApiClient client = new TimelineApiClient(
+                () -> clientMock,
+                URI.create("http://test/"),
+                new LogicalShardState(0, 1),
+                "test"
+        );
+
+        List<Event> events = new ArrayList<>();
+        TimelineState state = client.readTimelineContent(
+                "test_tl_0",
+                new TimelineState(new TimelineSliceState[]{}),
+                new TimeInterval(1542758400000L, 1542759400000L),
+                100,
+                events::add
+        );
+
+        assertEquals(2, events.size());
+        assertEquals(UUID.fromString("05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1"), events.get(0).getUuid());
+        assertEquals(UUID.fromString("0b9e32b4-ecc0-11e8-8eb2-f2801f1b9fd1"), events.get(1).getUuid());
+        assertEquals(123456789, state.getSliceStates()[0].getTtOffset());
+    }
+
     @Test
     public void ping() throws Exception {
 
@@ -6,14 +6,21 @@ import ru.kontur.vostok.hercules.application.Application;
 import ru.kontur.vostok.hercules.configuration.PropertiesLoader;
 import ru.kontur.vostok.hercules.configuration.Scopes;
 import ru.kontur.vostok.hercules.configuration.util.ArgsParser;
+import ru.kontur.vostok.hercules.curator.CuratorClient;
 import ru.kontur.vostok.hercules.elastic.adapter.gate.GateSender;
 import ru.kontur.vostok.hercules.elastic.adapter.handler.BulkHandler;
 import ru.kontur.vostok.hercules.elastic.adapter.handler.IndexHandler;
 import ru.kontur.vostok.hercules.elastic.adapter.index.IndexManager;
+import ru.kontur.vostok.hercules.elastic.adapter.kafka.KafkaSender;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.SenderType;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.StreamSender;
+import ru.kontur.vostok.hercules.health.CacheMetrics;
 import ru.kontur.vostok.hercules.health.CommonMetrics;
 import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.http.HttpServer;
 import ru.kontur.vostok.hercules.http.handler.RouteHandler;
+import ru.kontur.vostok.hercules.meta.stream.StreamRepository;
+import ru.kontur.vostok.hercules.meta.stream.StreamStorage;
 import ru.kontur.vostok.hercules.undertow.util.UndertowHttpServer;
 import ru.kontur.vostok.hercules.undertow.util.handlers.InstrumentedRouteHandlerBuilder;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
@@ -30,7 +37,8 @@ public class ElasticAdapterApplication {
     private static final Logger LOGGER = LoggerFactory.getLogger(ElasticAdapterApplication.class);
 
     private static MetricsCollector metricsCollector;
-    private static GateSender gateSender;
+    private static CuratorClient curatorClient;
+    private static StreamSender sender;
     private static IndexManager indexManager;
     private static HttpServer httpServer;
 
@@ -45,7 +53,7 @@ public class ElasticAdapterApplication {
             Properties properties = PropertiesLoader.load(parameters.getOrDefault("application.properties", "file://application.properties"));
 
             Properties metricsProperties = PropertiesUtil.ofScope(properties, Scopes.METRICS);
-            Properties gateClientProperties = PropertiesUtil.ofScope(properties, Scopes.GATE_CLIENT);
+            Properties senderProperties = PropertiesUtil.ofScope(properties, Scopes.SENDER);
             Properties indexManagerProperties = PropertiesUtil.ofScope(properties, "index.manager");
             Properties httpServerProperties = PropertiesUtil.ofScope(properties, Scopes.HTTP_SERVER);
 
@@ -53,7 +61,7 @@ public class ElasticAdapterApplication {
             metricsCollector.start();
             CommonMetrics.registerCommonMetrics(metricsCollector);
 
-            gateSender = new GateSender(gateClientProperties);
+            sender = createSender(properties, senderProperties);
 
             indexManager = new IndexManager(indexManagerProperties);
 
@@ -85,11 +93,19 @@ public class ElasticAdapterApplication {
         }
 
         try {
-            if (gateSender != null) {
-                gateSender.close();
+            if (sender != null) {
+                sender.close();
             }
         } catch (Throwable t) {
-            LOGGER.error("Error onn gate client serice shutdown", t);
+            LOGGER.error("Error on sender shutdown", t);
+        }
+
+        try {
+            if (curatorClient != null) {
+                curatorClient.stop();
+            }
+        } catch (Throwable t) {
+            LOGGER.error("Error on curator client shutdown", t);
         }
 
         try {
@@ -103,12 +119,32 @@ public class ElasticAdapterApplication {
         LOGGER.info("Finished Elastic Adapter shutdown for {} millis", System.currentTimeMillis() - start);
     }
 
+    /**
+     * Create the sender of events.
+     * <p>
+     * Events are sent through Gate by default.
+     * The sender of type {@link SenderType#KAFKA} sends events to Apache Kafka directly,
+     * thus it requires access to ZooKeeper to read stream metadata.
+     */
+    private static StreamSender createSender(Properties properties, Properties senderProperties) {
+        SenderType type = PropertiesUtil.get(Props.TYPE, senderProperties).get();
+        if (type == SenderType.GATE) {
+            return new GateSender(PropertiesUtil.ofScope(properties, Scopes.GATE_CLIENT));
+        }
+
+        curatorClient = new CuratorClient(PropertiesUtil.ofScope(properties, Scopes.CURATOR));
+        curatorClient.start();
+        StreamStorage streamStorage =
+                new StreamStorage(new StreamRepository(curatorClient), new CacheMetrics("streams", metricsCollector));
+        return new KafkaSender(PropertiesUtil.ofScope(properties, "kafka.sender"), streamStorage, metricsCollector);
+    }
+
     private static HttpServer createHttpServer(Properties httpServerProperties) {
         RouteHandler handler = new InstrumentedRouteHandlerBuilder(httpServerProperties, metricsCollector).
-                post("/_bulk", new BulkHandler(indexManager, gateSender)).
-                post("/:index/_bulk", new BulkHandler(indexManager, gateSender)).
-                post("/:index/_doc/_bulk", new BulkHandler(indexManager, gateSender)).
-                post("/:index/_doc/", new IndexHandler(indexManager, gateSender)).
+                post("/_bulk", new BulkHandler(indexManager, sender)).
+                post("/:index/_bulk", new BulkHandler(indexManager, sender)).
+                post("/:index/_doc/_bulk", new BulkHandler(indexManager, sender)).
+                post("/:index/_doc/", new IndexHandler(indexManager, sender)).
                 build();
 
         return new UndertowHttpServer(
@@ -117,4 +153,11 @@ public class ElasticAdapterApplication {
                 httpServerProperties,
                 handler);
     }
+
+    private static class Props {
+        static final Parameter<SenderType> TYPE =
+                Parameter.enumParameter("type", SenderType.class).
+                        withDefault(SenderType.GATE).
+                        build();
+    }
 }
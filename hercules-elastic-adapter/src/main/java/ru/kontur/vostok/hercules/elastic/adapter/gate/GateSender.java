@@ -2,6 +2,8 @@ package ru.kontur.vostok.hercules.elastic.adapter.gate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.SendStatus;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.StreamSender;
 import ru.kontur.vostok.hercules.gate.client.GateClient;
 import ru.kontur.vostok.hercules.gate.client.exception.BadRequestException;
 import ru.kontur.vostok.hercules.gate.client.exception.UnavailableClusterException;
@@ -16,9 +18,11 @@ import java.util.List;
 import java.util.Properties;
 
 /**
+ * Sends events to Gate over HTTP.
+ *
  * @author Gregory Koshelev
  */
-public class GateSender {
+public class GateSender implements StreamSender {
     private static final Logger LOGGER = LoggerFactory.getLogger(GateSender.class);
 
     private final String apiKey;
@@ -32,25 +36,23 @@ public class GateSender {
         this.client = new GateClient(properties, whiteList);
     }
 
-    public GateStatus send(List<Event> events, boolean async, String stream) {
+    @Override
+    public SendStatus send(List<Event> events, String stream) {
         byte[] data = EventUtil.toBytes(events);
 
         try {
-            if (async) {
-                client.sendAsync(apiKey, stream, data);
-            } else {
-                client.send(apiKey, stream, data);
-            }
-            return GateStatus.OK;
+            client.send(apiKey, stream, data);
+            return SendStatus.OK;
         } catch (BadRequestException e) {
             LOGGER.error("Got exception from Gate", e);
-            return GateStatus.BAD_REQUEST;
+            return SendStatus.BAD_REQUEST;
         } catch (UnavailableClusterException e) {
             LOGGER.error("No one of addresses is available." + Arrays.toString(urls));
-            return GateStatus.GATE_UNAVAILABLE;
+            return SendStatus.UNAVAILABLE;
         }
     }
 
+    @Override
     public void close() {
         client.close();
     }
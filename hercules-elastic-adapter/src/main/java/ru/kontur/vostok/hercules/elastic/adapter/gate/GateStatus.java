@@ -1,10 +0,0 @@
-package ru.kontur.vostok.hercules.elastic.adapter.gate;
-
-/**
- * @author Gregory Koshelev
- */
-public enum GateStatus {
-    OK,
-    BAD_REQUEST,
-    GATE_UNAVAILABLE;
-}
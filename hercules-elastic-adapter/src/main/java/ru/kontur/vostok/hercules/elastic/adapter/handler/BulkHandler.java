@@ -6,10 +6,10 @@ import ru.kontur.vostok.hercules.elastic.adapter.bulk.BulkReader;
 import ru.kontur.vostok.hercules.elastic.adapter.bulk.IndexRequest;
 import ru.kontur.vostok.hercules.elastic.adapter.format.EventValidator;
 import ru.kontur.vostok.hercules.elastic.adapter.format.JsonToEventFormatter;
-import ru.kontur.vostok.hercules.elastic.adapter.gate.GateSender;
-import ru.kontur.vostok.hercules.elastic.adapter.gate.GateStatus;
 import ru.kontur.vostok.hercules.elastic.adapter.index.IndexManager;
 import ru.kontur.vostok.hercules.elastic.adapter.index.IndexMeta;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.SendStatus;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.StreamSender;
 import ru.kontur.vostok.hercules.http.HttpServerRequest;
 import ru.kontur.vostok.hercules.http.HttpStatusCodes;
 import ru.kontur.vostok.hercules.http.handler.HttpHandler;
@@ -32,13 +32,13 @@ public class BulkHandler implements HttpHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(BulkHandler.class);
 
     private final IndexManager indexManager;
-    private final GateSender gateSender;
+    private final StreamSender sender;
 
     private final EventValidator validator;
 
-    public BulkHandler(IndexManager indexManager, GateSender gateSender) {
+    public BulkHandler(IndexManager indexManager, StreamSender sender) {
         this.indexManager = indexManager;
-        this.gateSender = gateSender;
+        this.sender = sender;
 
         validator = new EventValidator();
     }
@@ -86,15 +86,16 @@ public class BulkHandler implements HttpHandler {
             }
         }
 
-        for (Map.Entry<String, List<Event>> batch : events.entrySet()) {
-            GateStatus status = gateSender.send(batch.getValue(), false, batch.getKey());
-            if (status == GateStatus.GATE_UNAVAILABLE) {
-                LOGGER.warn("Gate is unavailable: didn't send " + batch.getValue().size() + " events to the stream " + batch.getKey());
-                tryComplete(request, HttpStatusCodes.SERVICE_UNAVAILABLE);
-            } else if (status == GateStatus.BAD_REQUEST) {
-                LOGGER.error("Got bad request from Gate while sending events to the stream " + batch.getKey());
-                tryComplete(request, HttpStatusCodes.INTERNAL_SERVER_ERROR);
-            }
+        SendStatus status = sender.send(events);
+        if (status == SendStatus.UNAVAILABLE) {
+            LOGGER.warn("Sender is unavailable: didn't send events to the streams " + events.keySet());
+            tryComplete(request, HttpStatusCodes.SERVICE_UNAVAILABLE);
+            return;
+        }
+        if (status == SendStatus.BAD_REQUEST) {
+            LOGGER.error("Got bad request while sending events to the streams " + events.keySet());
+            tryComplete(request, HttpStatusCodes.INTERNAL_SERVER_ERROR);
+            return;
         }
 
         tryComplete(request, HttpStatusCodes.OK);//TODO: Make response like Elasticsearch does
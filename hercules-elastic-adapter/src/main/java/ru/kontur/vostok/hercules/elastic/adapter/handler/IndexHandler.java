@@ -6,10 +6,10 @@ import ru.kontur.vostok.hercules.elastic.adapter.format.JsonToEventFormatter;
 import ru.kontur.vostok.hercules.json.Document;
 import ru.kontur.vostok.hercules.json.DocumentReader;
 import ru.kontur.vostok.hercules.elastic.adapter.format.EventValidator;
-import ru.kontur.vostok.hercules.elastic.adapter.gate.GateSender;
-import ru.kontur.vostok.hercules.elastic.adapter.gate.GateStatus;
 import ru.kontur.vostok.hercules.elastic.adapter.index.IndexManager;
 import ru.kontur.vostok.hercules.elastic.adapter.index.IndexMeta;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.SendStatus;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.StreamSender;
 import ru.kontur.vostok.hercules.http.HttpServerRequest;
 import ru.kontur.vostok.hercules.http.HttpStatusCodes;
 import ru.kontur.vostok.hercules.http.handler.HttpHandler;
@@ -29,25 +29,25 @@ import java.util.Map;
  */
 public class IndexHandler implements HttpHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(IndexHandler.class);
-    private static final Map<GateStatus, Integer> statusCodes;
+    private static final Map<SendStatus, Integer> statusCodes;
 
     static {
-        Map<GateStatus, Integer> map = new EnumMap<>(GateStatus.class);
-        map.put(GateStatus.OK, HttpStatusCodes.OK);
-        map.put(GateStatus.BAD_REQUEST, HttpStatusCodes.INTERNAL_SERVER_ERROR);
-        map.put(GateStatus.GATE_UNAVAILABLE, HttpStatusCodes.SERVICE_UNAVAILABLE);
+        Map<SendStatus, Integer> map = new EnumMap<>(SendStatus.class);
+        map.put(SendStatus.OK, HttpStatusCodes.OK);
+        map.put(SendStatus.BAD_REQUEST, HttpStatusCodes.INTERNAL_SERVER_ERROR);
+        map.put(SendStatus.UNAVAILABLE, HttpStatusCodes.SERVICE_UNAVAILABLE);
 
         statusCodes = map;
     }
 
     private final IndexManager indexManager;
-    private final GateSender gateSender;
+    private final StreamSender sender;
 
     private final EventValidator validator;
 
-    public IndexHandler(IndexManager indexManager, GateSender gateSender) {
+    public IndexHandler(IndexManager indexManager, StreamSender sender) {
         this.indexManager = indexManager;
-        this.gateSender = gateSender;
+        this.sender = sender;
 
         validator = new EventValidator();
     }
@@ -89,7 +89,7 @@ public class IndexHandler implements HttpHandler {
 
         Event event = JsonToEventFormatter.format(document, index, meta);
         if (validator.validate(event)) {
-            GateStatus status = gateSender.send(Collections.singletonList(event), false, stream);
+            SendStatus status = sender.send(Collections.singletonList(event), stream);
             tryComplete(request, status);
         } else {
             LOGGER.info("Invalid document with timestamp " + TimeUtil.unixTicksToDateTime(event.getTimestamp()));
@@ -97,7 +97,7 @@ public class IndexHandler implements HttpHandler {
         }
     }
 
-    private void tryComplete(HttpServerRequest request, GateStatus status) {
+    private void tryComplete(HttpServerRequest request, SendStatus status) {
         int code = statusCodes.getOrDefault(status, HttpStatusCodes.INTERNAL_SERVER_ERROR);
         tryComplete(request, code);
     }
@@ -0,0 +1,150 @@
+package ru.kontur.vostok.hercules.elastic.adapter.kafka;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.SendStatus;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.StreamSender;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.kafka.util.producer.EventSender;
+import ru.kontur.vostok.hercules.kafka.util.producer.EventValidator;
+import ru.kontur.vostok.hercules.meta.stream.BaseStream;
+import ru.kontur.vostok.hercules.meta.stream.Stream;
+import ru.kontur.vostok.hercules.meta.stream.StreamStorage;
+import ru.kontur.vostok.hercules.partitioner.HashPartitioner;
+import ru.kontur.vostok.hercules.partitioner.NaiveHasher;
+import ru.kontur.vostok.hercules.partitioner.ShardingKey;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.util.cache.CacheLoadException;
+import ru.kontur.vostok.hercules.util.parameter.Parameter;
+import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
+import ru.kontur.vostok.hercules.util.validation.LongValidators;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends events to Apache Kafka directly.
+ * <p>
+ * Events are validated by the same {@link EventValidator} and partitioned and sent by the same {@link EventSender} as Gate uses.
+ * Thus, events are serialized once and the extra HTTP hop to Gate is skipped.
+ * <p>
+ * Stream metadata is read from the {@link StreamStorage}. Only base streams are allowed as Gate does.
+ */
+public class KafkaSender implements StreamSender {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaSender.class);
+
+    private final StreamStorage streamStorage;
+    private final EventSender eventSender;
+    private final EventValidator eventValidator;
+    private final long sendTimeoutMs;
+
+    public KafkaSender(Properties properties, StreamStorage streamStorage, MetricsCollector metricsCollector) {
+        this(
+                streamStorage,
+                new EventSender(properties, new HashPartitioner(new NaiveHasher()), metricsCollector),
+                new EventValidator(PropertiesUtil.ofScope(properties, "validation")),
+                PropertiesUtil.get(Props.SEND_TIMEOUT_MS, properties).get());
+    }
+
+    KafkaSender(StreamStorage streamStorage, EventSender eventSender, EventValidator eventValidator, long sendTimeoutMs) {
+        this.streamStorage = streamStorage;
+        this.eventSender = eventSender;
+        this.eventValidator = eventValidator;
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    @Override
+    public SendStatus send(List<Event> events, String streamName) {
+        return send(Collections.singletonMap(streamName, events));
+    }
+
+    /**
+     * Send events to streams and wait for the result.
+     * <p>
+     * Streams and events of all the batches are checked before sending, thus nothing is sent if any batch is rejected.
+     * Then batches are sent concurrently and acknowledgements of all of them are awaited with the single timeout.
+     *
+     * @param eventsByStream events by stream names
+     * @return {@link SendStatus#OK} if events have been sent to all the streams, otherwise the first failed status
+     */
+    @Override
+    public SendStatus send(Map<String, List<Event>> eventsByStream) {
+        List<Stream> streams = new ArrayList<>(eventsByStream.size());
+        for (Map.Entry<String, List<Event>> batch : eventsByStream.entrySet()) {
+            String streamName = batch.getKey();
+            Stream stream;
+            try {
+                Optional<Stream> optionalStream = streamStorage.read(streamName);
+                if (!optionalStream.isPresent()) {
+                    LOGGER.error("Stream '" + streamName + "' not found");
+                    return SendStatus.BAD_REQUEST;
+                }
+                stream = optionalStream.get();
+            } catch (CacheLoadException ex) {
+                LOGGER.error("Cannot read Stream '" + streamName + "'", ex);
+                return SendStatus.UNAVAILABLE;
+            }
+            if (!(stream instanceof BaseStream)) {
+                LOGGER.error("Stream '" + streamName + "' is not a base stream");
+                return SendStatus.BAD_REQUEST;
+            }
+
+            for (Event event : batch.getValue()) {
+                if (!eventValidator.validate(event)) {
+                    LOGGER.warn("Invalid event data in the stream '" + streamName + "'");
+                    return SendStatus.BAD_REQUEST;
+                }
+            }
+            streams.add(stream);
+        }
+
+        CompletableFuture<?>[] deliveries = new CompletableFuture<?>[streams.size()];
+        int totalEvents = 0;
+        int i = 0;
+        for (List<Event> events : eventsByStream.values()) {
+            Stream stream = streams.get(i);
+            CompletableFuture<Void> delivery = new CompletableFuture<>();
+            eventSender.send(
+                    events,
+                    stream.getName(),
+                    stream.getPartitions(),
+                    ShardingKey.fromKeyPaths(stream.getShardingKey()),
+                    () -> delivery.complete(null),
+                    () -> delivery.completeExceptionally(new IllegalStateException("Delivery to the stream '" + stream.getName() + "' failed")));
+            deliveries[i++] = delivery;
+            totalEvents += events.size();
+        }
+
+        try {
+            CompletableFuture.allOf(deliveries).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            return SendStatus.OK;
+        } catch (ExecutionException | TimeoutException ex) {
+            LOGGER.warn("Cannot send " + totalEvents + " events to the streams " + eventsByStream.keySet(), ex);
+            return SendStatus.UNAVAILABLE;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return SendStatus.UNAVAILABLE;
+        }
+    }
+
+    @Override
+    public void close() {
+        eventSender.stop(5_000, TimeUnit.MILLISECONDS);
+    }
+
+    private static class Props {
+        static final Parameter<Long> SEND_TIMEOUT_MS =
+                Parameter.longParameter("sendTimeoutMs").
+                        withDefault(30_000L).
+                        withValidator(LongValidators.positive()).
+                        build();
+    }
+}
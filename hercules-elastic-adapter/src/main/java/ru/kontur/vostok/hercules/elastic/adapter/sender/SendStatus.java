@@ -0,0 +1,19 @@
+package ru.kontur.vostok.hercules.elastic.adapter.sender;
+
+/**
+ * The status of sending events to the stream.
+ */
+public enum SendStatus {
+    /**
+     * Events have been sent.
+     */
+    OK,
+    /**
+     * Events have been rejected, thus they should not be sent again.
+     */
+    BAD_REQUEST,
+    /**
+     * Events have not been sent since the backend is unavailable, thus they can be sent again later.
+     */
+    UNAVAILABLE;
+}
@@ -0,0 +1,15 @@
+package ru.kontur.vostok.hercules.elastic.adapter.sender;
+
+/**
+ * The way events are sent to streams.
+ */
+public enum SenderType {
+    /**
+     * Send events to Gate over HTTP.
+     */
+    GATE,
+    /**
+     * Send events to Apache Kafka directly as Gate does.
+     */
+    KAFKA;
+}
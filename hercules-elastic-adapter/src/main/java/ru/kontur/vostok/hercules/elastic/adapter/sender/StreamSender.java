@@ -0,0 +1,43 @@
+package ru.kontur.vostok.hercules.elastic.adapter.sender;
+
+import ru.kontur.vostok.hercules.protocol.Event;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends events to streams.
+ */
+public interface StreamSender {
+    /**
+     * Send events to the stream and wait for the result.
+     *
+     * @param events events
+     * @param stream the stream name
+     * @return the send status
+     */
+    SendStatus send(List<Event> events, String stream);
+
+    /**
+     * Send events to streams and wait for the result.
+     * <p>
+     * Events are sent to streams one by one until the first failure.
+     *
+     * @param eventsByStream events by stream names
+     * @return {@link SendStatus#OK} if events have been sent to all the streams, otherwise the first failed status
+     */
+    default SendStatus send(Map<String, List<Event>> eventsByStream) {
+        for (Map.Entry<String, List<Event>> batch : eventsByStream.entrySet()) {
+            SendStatus status = send(batch.getValue(), batch.getKey());
+            if (status != SendStatus.OK) {
+                return status;
+            }
+        }
+        return SendStatus.OK;
+    }
+
+    /**
+     * Close the sender and release resources.
+     */
+    void close();
+}
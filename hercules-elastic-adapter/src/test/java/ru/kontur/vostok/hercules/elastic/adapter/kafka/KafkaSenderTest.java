@@ -0,0 +1,185 @@
+package ru.kontur.vostok.hercules.elastic.adapter.kafka;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.elastic.adapter.sender.SendStatus;
+import ru.kontur.vostok.hercules.kafka.util.producer.Callback;
+import ru.kontur.vostok.hercules.kafka.util.producer.EventSender;
+import ru.kontur.vostok.hercules.kafka.util.producer.EventValidator;
+import ru.kontur.vostok.hercules.meta.stream.BaseStream;
+import ru.kontur.vostok.hercules.meta.stream.DerivedStream;
+import ru.kontur.vostok.hercules.meta.stream.Stream;
+import ru.kontur.vostok.hercules.meta.stream.StreamStorage;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.EventBuilder;
+import ru.kontur.vostok.hercules.protocol.Variant;
+import ru.kontur.vostok.hercules.util.cache.CacheLoadException;
+import ru.kontur.vostok.hercules.uuid.UuidGenerator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KafkaSenderTest {
+    private StreamStorage streamStorage;
+    private EventSender eventSender;
+    private KafkaSender sender;
+
+    @Before
+    public void setUp() {
+        streamStorage = mock(StreamStorage.class);
+        eventSender = mock(EventSender.class);
+
+        Properties validationProperties = new Properties();
+        validationProperties.setProperty("max.event.size", "1000");
+        sender = new KafkaSender(streamStorage, eventSender, new EventValidator(validationProperties), 100);
+
+        BaseStream stream = new BaseStream();
+        stream.setName("test");
+        stream.setPartitions(3);
+        stream.setShardingKey(new String[0]);
+        when(streamStorage.read("test")).thenReturn(Optional.of(stream));
+
+        BaseStream other = new BaseStream();
+        other.setName("other");
+        other.setPartitions(1);
+        other.setShardingKey(new String[0]);
+        when(streamStorage.read("other")).thenReturn(Optional.of(other));
+    }
+
+    @Test
+    public void shouldSendEvents() {
+        doAnswer(invocation -> {
+            invocation.<Callback>getArgument(4).call();
+            return null;
+        }).when(eventSender).send(anyList(), anyString(), anyInt(), any(), any(), any());
+        List<Event> events = Collections.singletonList(event(1, 0));
+
+        assertEquals(SendStatus.OK, sender.send(events, "test"));
+        verify(eventSender).send(eq(events), eq("test"), eq(3), any(), any(), any());
+    }
+
+    @Test
+    public void shouldBeUnavailableIfDeliveryFailed() {
+        doAnswer(invocation -> {
+            invocation.<Callback>getArgument(5).call();
+            return null;
+        }).when(eventSender).send(anyList(), anyString(), anyInt(), any(), any(), any());
+
+        assertEquals(SendStatus.UNAVAILABLE, sender.send(Collections.singletonList(event(1, 0)), "test"));
+    }
+
+    @Test
+    public void shouldBeUnavailableIfDeliveryTimedOut() {
+        assertEquals(SendStatus.UNAVAILABLE, sender.send(Collections.singletonList(event(1, 0)), "test"));
+    }
+
+    @Test
+    public void shouldRejectIfStreamNotFound() {
+        when(streamStorage.read("unknown")).thenReturn(Optional.empty());
+
+        assertEquals(SendStatus.BAD_REQUEST, sender.send(Collections.singletonList(event(1, 0)), "unknown"));
+        verifyNotSent();
+    }
+
+    @Test
+    public void shouldRejectIfStreamIsNotBase() {
+        Stream stream = new DerivedStream();
+        stream.setName("derived");
+        stream.setPartitions(1);
+        when(streamStorage.read("derived")).thenReturn(Optional.of(stream));
+
+        assertEquals(SendStatus.BAD_REQUEST, sender.send(Collections.singletonList(event(1, 0)), "derived"));
+        verifyNotSent();
+    }
+
+    @Test
+    public void shouldBeUnavailableIfStreamCannotBeRead() {
+        when(streamStorage.read("test")).thenThrow(new CacheLoadException(new IllegalStateException("ZooKeeper is unavailable")));
+
+        assertEquals(SendStatus.UNAVAILABLE, sender.send(Collections.singletonList(event(1, 0)), "test"));
+        verifyNotSent();
+    }
+
+    @Test
+    public void shouldRejectInvalidEvents() {
+        assertEquals(SendStatus.BAD_REQUEST, sender.send(Collections.singletonList(event(2, 0)), "test"));
+        assertEquals(SendStatus.BAD_REQUEST, sender.send(Collections.singletonList(event(1, -1)), "test"));
+        verifyNotSent();
+    }
+
+    @Test
+    public void shouldRejectOversizeEvent() {
+        Event oversize = EventBuilder.create(0, UuidGenerator.getClientInstance().next())
+                .tag("message", Variant.ofString(new byte[1000]))
+                .build();
+
+        assertEquals(SendStatus.BAD_REQUEST, sender.send(Arrays.asList(event(1, 0), oversize), "test"));
+        verifyNotSent();
+    }
+
+    /**
+     * Batches of all the streams should be sent before acknowledgement of any of them is awaited.
+     */
+    @Test
+    public void shouldSendBatchesConcurrently() throws Exception {
+        List<Callback> callbacks = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            callbacks.add(invocation.getArgument(4));
+            return null;
+        }).when(eventSender).send(anyList(), anyString(), anyInt(), any(), any(), any());
+        Map<String, List<Event>> events = new LinkedHashMap<>();
+        events.put("test", Collections.singletonList(event(1, 0)));
+        events.put("other", Collections.singletonList(event(1, 0)));
+        KafkaSender patientSender = new KafkaSender(streamStorage, eventSender, new EventValidator(new Properties()), 10_000);
+
+        CompletableFuture<SendStatus> status = CompletableFuture.supplyAsync(() -> patientSender.send(events));
+        verify(eventSender, timeout(1_000).times(2)).send(anyList(), anyString(), anyInt(), any(), any(), any());
+        assertFalse(status.isDone());
+
+        for (Callback callback : callbacks) {
+            callback.call();
+        }
+        assertEquals(SendStatus.OK, status.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldNotSendAnyBatchIfOneIsRejected() {
+        Map<String, List<Event>> events = new LinkedHashMap<>();
+        events.put("test", Collections.singletonList(event(1, 0)));
+        events.put("unknown", Collections.singletonList(event(1, 0)));
+        when(streamStorage.read("unknown")).thenReturn(Optional.empty());
+
+        assertEquals(SendStatus.BAD_REQUEST, sender.send(events));
+        verifyNotSent();
+    }
+
+    private void verifyNotSent() {
+        verify(eventSender, never()).send(anyList(), anyString(), anyInt(), any(), any(), any());
+    }
+
+    private static Event event(int version, long timestamp) {
+        return EventBuilder.create(timestamp, UuidGenerator.getClientInstance().next()).version(version).build();
+    }
+}
@@ -0,0 +1,238 @@
+package ru.kontur.vostok.hercules.elastic.sink;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import ru.kontur.vostok.hercules.json.DocumentWriter;
+import ru.kontur.vostok.hercules.util.Maps;
+import ru.kontur.vostok.hercules.util.bytes.ChunkedBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Body of the bulk request to Elasticsearch.
+ * <p>
+ * Each document is encoded once into the {@link ChunkedBuffer}. The byte range of the document is kept,
+ * thus the body can be built for any subset of documents (e.g. to retry failed ones) without re-encoding.
+ * <p>
+ * The body can be split into several bulk requests by size and by index, see {@link #split(Set, int)}.
+ * Entities of the body can be sent concurrently.
+ * <p>
+ * Call {@link #release()} when the body is not needed anymore.
+ */
+class BulkBody {
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+
+    private final ChunkedBuffer buffer = new ChunkedBuffer();
+    private final Map<String, DocumentRange> ranges;
+
+    private final List<ChunkedBuffer> compressedBuffers = new ArrayList<>();
+
+    BulkBody(int expectedDocumentCount) {
+        this.ranges = new LinkedHashMap<>(Maps.effectiveHashMapCapacity(expectedDocumentCount));
+    }
+
+    /**
+     * Encode the document with its index action.
+     *
+     * @param document the document
+     * @throws IOException if encoding failed
+     */
+    void add(ElasticDocument document) throws IOException {
+        int from = buffer.size();
+        IndexToElasticJsonWriter.writeIndex(buffer, document.index(), document.id());
+        buffer.write('\n');
+        DocumentWriter.writeTo(buffer, document.document());
+        buffer.write('\n');
+        ranges.put(document.id(), new DocumentRange(document.index(), new Range(from, buffer.size())));
+    }
+
+    /**
+     * Split documents with specified ids into parts, so each part can be sent in the separate bulk request.
+     * <p>
+     * Documents are grouped by index, thus each part touches as few indices as possible.
+     * The size of each part does not exceed {@code maxSizeBytes} unless the part consists of the single document.
+     *
+     * @param ids          ids of documents
+     * @param maxSizeBytes max size of the part in bytes
+     * @return ids of documents for each part
+     */
+    List<Set<String>> split(Set<String> ids, int maxSizeBytes) {
+        Map<String, List<String>> idsByIndex = new LinkedHashMap<>();
+        for (Map.Entry<String, DocumentRange> entry : ranges.entrySet()) {
+            if (ids.contains(entry.getKey())) {
+                idsByIndex.computeIfAbsent(entry.getValue().index, k -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+
+        List<Set<String>> parts = new ArrayList<>();
+        Set<String> part = new HashSet<>();
+        long partSize = 0;
+        for (List<String> indexIds : idsByIndex.values()) {
+            for (String id : indexIds) {
+                int size = ranges.get(id).range.size();
+                if (!part.isEmpty() && partSize + size > maxSizeBytes) {
+                    parts.add(part);
+                    part = new HashSet<>();
+                    partSize = 0;
+                }
+                part.add(id);
+                partSize += size;
+            }
+        }
+        if (!part.isEmpty()) {
+            parts.add(part);
+        }
+        return parts;
+    }
+
+    /**
+     * Build the request entity for documents with specified ids.
+     * <p>
+     * Documents are placed in the order they have been added. Adjacent byte ranges are merged.
+     * If compression is enabled, then documents are compressed straight from their byte ranges.
+     * <p>
+     * The entity is valid until the body is released.
+     *
+     * @param ids  ids of documents
+     * @param gzip should compress the entity with gzip
+     * @return the entity
+     * @throws IOException if compression failed
+     */
+    HttpEntity toEntity(Set<String> ids, boolean gzip) throws IOException {
+        List<Range> selected = new ArrayList<>();
+        Range last = null;
+        for (Map.Entry<String, DocumentRange> entry : ranges.entrySet()) {
+            if (!ids.contains(entry.getKey())) {
+                continue;
+            }
+            Range range = entry.getValue().range;
+            if (last != null && last.to == range.from) {
+                last = new Range(last.from, range.to);
+                selected.set(selected.size() - 1, last);
+            } else {
+                last = range;
+                selected.add(range);
+            }
+        }
+
+        if (!gzip) {
+            return new RangesEntity(buffer, selected);
+        }
+
+        ChunkedBuffer compressed = new ChunkedBuffer();
+        compressedBuffers.add(compressed);
+        byte[] bytes = new byte[COPY_BUFFER_SIZE];
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, COPY_BUFFER_SIZE)) {
+            for (Range range : selected) {
+                copy(buffer.inputStream(range.from, range.to), out, bytes);
+            }
+        }
+        return new RangesEntity(compressed, Collections.singletonList(new Range(0, compressed.size())));
+    }
+
+    /**
+     * Return chunks of underlying buffers into the pool.
+     */
+    void release() {
+        buffer.release();
+        for (ChunkedBuffer compressed : compressedBuffers) {
+            compressed.release();
+        }
+        compressedBuffers.clear();
+        ranges.clear();
+    }
+
+    private static void copy(InputStream in, OutputStream out, byte[] bytes) throws IOException {
+        int read;
+        while ((read = in.read(bytes)) != -1) {
+            out.write(bytes, 0, read);
+        }
+    }
+
+    private static class Range {
+        final int from;
+        final int to;
+
+        Range(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        int size() {
+            return to - from;
+        }
+    }
+
+    private static class DocumentRange {
+        final String index;
+        final Range range;
+
+        DocumentRange(String index, Range range) {
+            this.index = index;
+            this.range = range;
+        }
+    }
+
+    /**
+     * Repeatable entity over byte ranges of the buffer.
+     */
+    private static class RangesEntity extends AbstractHttpEntity {
+        private final ChunkedBuffer buffer;
+        private final List<Range> ranges;
+        private final long length;
+
+        RangesEntity(ChunkedBuffer buffer, List<Range> ranges) {
+            this.buffer = buffer;
+            this.ranges = ranges;
+
+            long length = 0;
+            for (Range range : ranges) {
+                length += range.size();
+            }
+            this.length = length;
+
+            setContentType(ContentType.APPLICATION_JSON.toString());
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return length;
+        }
+
+        @Override
+        public InputStream getContent() {
+            List<InputStream> streams = new ArrayList<>(ranges.size());
+            for (Range range : ranges) {
+                streams.add(buffer.inputStream(range.from, range.to));
+            }
+            return new SequenceInputStream(Collections.enumeration(streams));
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            copy(getContent(), out, new byte[COPY_BUFFER_SIZE]);
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+}
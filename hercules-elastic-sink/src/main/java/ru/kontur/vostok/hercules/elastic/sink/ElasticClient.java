@@ -3,10 +3,9 @@ package ru.kontur.vostok.hercules.elastic.sink;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
-import org.apache.http.entity.ByteArrayEntity;
-import org.apache.http.entity.ContentType;
 import org.apache.http.message.BasicHeader;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import ru.kontur.vostok.hercules.elastic.sink.index.IndexCreator;
@@ -22,16 +21,19 @@ import ru.kontur.vostok.hercules.util.parameter.parsing.Parsers;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * @author Gregory Koshelev
@@ -46,6 +48,9 @@ class ElasticClient {
 
     private final boolean compressionGzipEnable;
 
+    private final int maxBulkSizeBytes;
+    private final Semaphore inFlightRequests;
+
     ElasticClient(Properties properties, IndexPolicy policy, MetricsCollector metricsCollector) {
         final HttpHost[] hosts = PropertiesUtil.get(Props.HOSTS, properties).get();
         final int maxConnections = PropertiesUtil.get(Props.MAX_CONNECTIONS, properties).get();
@@ -76,6 +81,9 @@ class ElasticClient {
         this.elasticsearchRequestErrorsMeter = metricsCollector.meter("elasticsearchRequestErrors");
 
         this.compressionGzipEnable = PropertiesUtil.get(Props.COMPRESSION_GZIP_ENABLE, properties).get();
+
+        this.maxBulkSizeBytes = PropertiesUtil.get(Props.MAX_BULK_SIZE_BYTES, properties).get();
+        this.inFlightRequests = new Semaphore(PropertiesUtil.get(Props.MAX_IN_FLIGHT_REQUESTS, properties).get());
     }
 
     boolean ping() {
@@ -87,41 +95,107 @@ class ElasticClient {
         }
     }
 
-    ElasticResponseHandler.Result index(byte[] dataToIndex) {
+    /**
+     * Index documents from the bulk body.
+     * <p>
+     * Documents are split into several bulk requests by size and by index. Requests are sent concurrently.
+     * The count of in-flight requests is limited for the client.
+     * Method returns when all requests are completed.
+     *
+     * @param bulkBody the bulk body
+     * @param ids      ids of documents to index
+     * @return the merged result of indexing
+     */
+    ElasticResponseHandler.Result index(BulkBody bulkBody, Set<String> ids) {
+        List<CompletableFuture<Response>> futures = new ArrayList<>();
+        try {
+            for (Set<String> part : bulkBody.split(ids, maxBulkSizeBytes)) {
+                futures.add(send(bulkBody.toEntity(part, compressionGzipEnable)));
+            }
+        } catch (IOException | InterruptedException ex) {
+            elasticsearchRequestErrorsMeter.mark();
+            awaitQuietly(futures);
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RuntimeException(ex);
+        }
+
+        awaitQuietly(futures);
 
-        Response response;
-        try (AutoMetricStopwatch requestTime = new AutoMetricStopwatch(elasticsearchRequestTimeTimer, TimeUnit.MILLISECONDS)) {
-            HttpEntity body;
-            if (compressionGzipEnable) {
-                ByteArrayOutputStream compressedDataToIndex = new ByteArrayOutputStream(dataToIndex.length);
-                try (GZIPOutputStream gzipos = new GZIPOutputStream(compressedDataToIndex)) {
-                    gzipos.write(dataToIndex);
+        List<ElasticResponseHandler.Result> results = new ArrayList<>(futures.size());
+        RuntimeException exception = null;
+        for (CompletableFuture<Response> future : futures) {
+            try {
+                Response response = future.join();
+                if (response.getStatusLine().getStatusCode() != HttpStatusCodes.OK) {
+                    elasticsearchRequestErrorsMeter.mark();
+                    exception = new RuntimeException("Bad response");
+                    continue;
                 }
-                body = new ByteArrayEntity(compressedDataToIndex.toByteArray(), ContentType.APPLICATION_JSON);
-            } else {
-                body = new ByteArrayEntity(dataToIndex, ContentType.APPLICATION_JSON);
+                results.add(elasticResponseHandler.process(response.getEntity()));
+            } catch (CompletionException ex) {
+                elasticsearchRequestErrorsMeter.mark();
+                exception = new RuntimeException(ex.getCause());
             }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return ElasticResponseHandler.Result.merge(results);
+    }
+
+    private CompletableFuture<Response> send(HttpEntity body) throws InterruptedException {
+        Header[] headers = compressionGzipEnable
+                ? new BasicHeader[]{new BasicHeader(HttpHeaders.CONTENT_ENCODING, "gzip")}
+                : new BasicHeader[]{};
 
-            Header[] headers = compressionGzipEnable
-                    ? new BasicHeader[]{new BasicHeader(HttpHeaders.CONTENT_ENCODING, "gzip")}
-                    : new BasicHeader[]{};
+        inFlightRequests.acquire();
 
-            response = restClient.performRequest(
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        AutoMetricStopwatch requestTime = new AutoMetricStopwatch(elasticsearchRequestTimeTimer, TimeUnit.MILLISECONDS);
+        try {
+            restClient.performRequestAsync(
                     "POST",
                     "/_bulk",
                     Collections.emptyMap(),
                     body,
-                    headers);
+                    new ResponseListener() {
+                        @Override
+                        public void onSuccess(Response response) {
+                            requestTime.close();
+                            inFlightRequests.release();
+                            future.complete(response);
+                        }
 
-        } catch (IOException ex) {
-            elasticsearchRequestErrorsMeter.mark();
-            throw new RuntimeException(ex);
+                        @Override
+                        public void onFailure(Exception exception) {
+                            requestTime.close();
+                            inFlightRequests.release();
+                            future.completeExceptionally(exception);
+                        }
+                    },
+                    headers);
+        } catch (RuntimeException ex) {
+            inFlightRequests.release();
+            future.completeExceptionally(ex);
         }
-        if (response.getStatusLine().getStatusCode() != HttpStatusCodes.OK) {
-            elasticsearchRequestErrorsMeter.mark();
-            throw new RuntimeException("Bad response");
+        return future;
+    }
+
+    /**
+     * Await requests completion, since their entities must not be released while in flight.
+     *
+     * @param futures futures of requests
+     */
+    private static void awaitQuietly(List<CompletableFuture<Response>> futures) {
+        for (CompletableFuture<Response> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException ex) {
+                /* ignore */
+            }
         }
-        return elasticResponseHandler.process(response.getEntity());
     }
 
     private static class Props {
@@ -181,5 +255,17 @@ class ElasticClient {
                 .booleanParameter("compression.gzip.enable")
                 .withDefault(false)
                 .build();
+
+        static final Parameter<Integer> MAX_BULK_SIZE_BYTES = Parameter
+                .integerParameter("maxBulkSizeBytes")
+                .withValidator(IntegerValidators.positive())
+                .withDefault(16 * 1024 * 1024)
+                .build();
+
+        static final Parameter<Integer> MAX_IN_FLIGHT_REQUESTS = Parameter
+                .integerParameter("maxInFlightRequests")
+                .withValidator(IntegerValidators.positive())
+                .withDefault(4)
+                .build();
     }
 }
@@ -77,6 +77,32 @@ public class ElasticResponseHandler {
         public List<ElasticError> getErrors() {
             return errors;
         }
+
+        /**
+         * Merge results of several bulk requests.
+         *
+         * @param results results to merge
+         * @return merged result
+         */
+        public static Result merge(List<Result> results) {
+            if (results.size() == 1) {
+                return results.get(0);
+            }
+
+            int retryableErrorCount = 0;
+            int nonRetryableErrorCount = 0;
+            int unknownErrorCount = 0;
+            List<ElasticError> errors = new ArrayList<>();
+            for (Result result : results) {
+                retryableErrorCount += result.retryableErrorCount;
+                nonRetryableErrorCount += result.nonRetryableErrorCount;
+                unknownErrorCount += result.unknownErrorCount;
+                errors.addAll(result.errors);
+            }
+            return errors.isEmpty() && retryableErrorCount + nonRetryableErrorCount + unknownErrorCount == 0
+                    ? OK
+                    : new Result(retryableErrorCount, nonRetryableErrorCount, unknownErrorCount, errors);
+        }
     }
 
     static final Set<String> RETRYABLE_ERRORS_CODES = new HashSet<>(Arrays.asList(
@@ -10,7 +10,6 @@ import ru.kontur.vostok.hercules.elastic.sink.index.IndexResolver;
 import ru.kontur.vostok.hercules.health.Meter;
 import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.json.Document;
-import ru.kontur.vostok.hercules.json.DocumentWriter;
 import ru.kontur.vostok.hercules.json.format.EventToJsonFormatter;
 import ru.kontur.vostok.hercules.kafka.util.processing.BackendServiceFailedException;
 import ru.kontur.vostok.hercules.protocol.Event;
@@ -23,8 +22,6 @@ import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 import ru.kontur.vostok.hercules.util.validation.ValidationResult;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,7 +34,6 @@ import java.util.Properties;
 public class ElasticSender extends Sender {
     private static final Logger LOGGER = LoggerFactory.getLogger(ElasticSender.class);
 
-    private static final int EXPECTED_EVENT_SIZE_BYTES = 2_048;
     private static final ValidationResult UNDEFINED_INDEX_VALIDATION_RESULT = ValidationResult.error("Undefined index");
 
     private final IndexPolicy indexPolicy;
@@ -116,21 +112,25 @@ public class ElasticSender extends Sender {
             }
 
             if (!readyToSend.isEmpty()) {
-                int retryCount = retryLimit;
-                do {
-                    ByteArrayOutputStream dataStream = new ByteArrayOutputStream(readyToSend.size() * EXPECTED_EVENT_SIZE_BYTES);//TODO: Replace EXPECTED_EVENT_SIZE_BYTES with heuristic is depending on Hercules event size
+                BulkBody body = new BulkBody(readyToSend.size());
+                try {
                     for (ElasticDocument document : readyToSend.values()) {
-                        writeEventToStream(dataStream, document.index(), document.id(), document.document());
+                        body.add(document);
                     }
 
-                    ElasticResponseHandler.Result result = client.index(dataStream.toByteArray());
-                    if (result.getTotalErrors() != 0) {
-                        resultProcess(result).forEach((eventId, validationResult) ->
-                                nonRetryableErrorsMap.put(readyToSend.remove(eventId), validationResult));
-                    } else {
-                        readyToSend.clear();
-                    }
-                } while (!readyToSend.isEmpty() && 0 < retryCount--);
+                    int retryCount = retryLimit;
+                    do {
+                        ElasticResponseHandler.Result result = client.index(body, readyToSend.keySet());
+                        if (result.getTotalErrors() != 0) {
+                            resultProcess(result).forEach((eventId, validationResult) ->
+                                    nonRetryableErrorsMap.put(readyToSend.remove(eventId), validationResult));
+                        } else {
+                            readyToSend.clear();
+                        }
+                    } while (!readyToSend.isEmpty() && 0 < retryCount--);
+                } finally {
+                    body.release();
+                }
 
                 if (!readyToSend.isEmpty()) {
                     throw new Exception("Have retryable errors in elasticsearch response");
@@ -197,13 +197,6 @@ public class ElasticSender extends Sender {
         }
     }
 
-    private void writeEventToStream(ByteArrayOutputStream stream, String index, String documentId, Document document) throws IOException {
-        IndexToElasticJsonWriter.writeIndex(stream, index, documentId);
-        stream.write('\n');
-        DocumentWriter.writeTo(stream, document);
-        stream.write('\n');
-    }
-
     private static class Props {
         static final Parameter<IndexPolicy> INDEX_POLICY =
                 Parameter.enumParameter("elastic.index.policy", IndexPolicy.class).
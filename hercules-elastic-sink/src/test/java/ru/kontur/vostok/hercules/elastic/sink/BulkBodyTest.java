@@ -0,0 +1,117 @@
+package ru.kontur.vostok.hercules.elastic.sink;
+
+import org.apache.http.HttpEntity;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.json.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class BulkBodyTest {
+    @Test
+    public void shouldBuildEntityForSubsetOfDocuments() throws IOException {
+        BulkBody body = new BulkBody(3);
+        try {
+            body.add(document("a"));
+            body.add(document("b"));
+            body.add(document("c"));
+
+            HttpEntity all = body.toEntity(new HashSet<>(Arrays.asList("c", "a", "b")), false);
+            assertEquals(line("a") + line("b") + line("c"), read(all.getContent()));
+            assertEquals(all.getContentLength(), read(all.getContent()).length());
+
+            HttpEntity retry = body.toEntity(new HashSet<>(Arrays.asList("a", "c")), false);
+            assertEquals(line("a") + line("c"), read(retry.getContent()));
+            assertEquals(line("a") + line("c"), read(retry.getContent()));
+        } finally {
+            body.release();
+        }
+    }
+
+    @Test
+    public void shouldCompressEntity() throws IOException {
+        BulkBody body = new BulkBody(2);
+        try {
+            body.add(document("a"));
+            body.add(document("b"));
+
+            HttpEntity entity = body.toEntity(new HashSet<>(Arrays.asList("b")), true);
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            entity.writeTo(compressed);
+            assertEquals(entity.getContentLength(), compressed.size());
+            assertEquals(line("b"), read(new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))));
+        } finally {
+            body.release();
+        }
+    }
+
+    @Test
+    public void shouldSplitByIndexAndSize() throws IOException {
+        BulkBody body = new BulkBody(4);
+        try {
+            body.add(document("a", "first"));
+            body.add(document("b", "second"));
+            body.add(document("c", "first"));
+            body.add(document("d", "second"));
+
+            Set<String> ids = new HashSet<>(Arrays.asList("a", "b", "c", "d"));
+            assertEquals(
+                    Collections.singletonList(ids),
+                    body.split(ids, Integer.MAX_VALUE));
+
+            int documentSize = line("b", "second").length();
+            assertEquals(
+                    Arrays.asList(
+                            new HashSet<>(Arrays.asList("a", "c")),
+                            new HashSet<>(Arrays.asList("b", "d"))),
+                    body.split(ids, 2 * documentSize + 1));
+
+            assertEquals(
+                    Arrays.asList(
+                            Collections.singleton("a"),
+                            Collections.singleton("c")),
+                    body.split(new HashSet<>(Arrays.asList("c", "a")), 1));
+        } finally {
+            body.release();
+        }
+    }
+
+    private static ElasticDocument document(String id) {
+        return document(id, "index");
+    }
+
+    private static ElasticDocument document(String id, String index) {
+        Document document = new Document();
+        document.putIfAbsent("message", "text of " + id);
+        return new ElasticDocument(id, index, document);
+    }
+
+    private static String line(String id) {
+        return line(id, "index");
+    }
+
+    private static String line(String id, String index) {
+        return "{\"index\":{\"_index\":\"" + index + "\",\"_type\":\"_doc\",\"_id\":\"" + id + "\"}}\n" +
+                "{\"message\":\"text of " + id + "\"}\n";
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] bytes = new byte[16];
+        int read;
+        while ((read = in.read(bytes)) != -1) {
+            out.write(bytes, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
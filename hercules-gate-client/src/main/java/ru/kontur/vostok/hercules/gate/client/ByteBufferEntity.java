@@ -0,0 +1,61 @@
+package ru.kontur.vostok.hercules.gate.client;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Entity with the content between position and limit of the byte buffer.
+ * <p>
+ * The buffer is not modified, thus the entity is repeatable.
+ * The buffer should not be released until the request is completed.
+ */
+class ByteBufferEntity extends AbstractHttpEntity {
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final ByteBuffer buffer;
+
+    ByteBufferEntity(ByteBuffer buffer, ContentType contentType) {
+        this.buffer = buffer.duplicate();
+        setContentType(contentType.toString());
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return buffer.remaining();
+    }
+
+    @Override
+    public InputStream getContent() {
+        byte[] content = new byte[buffer.remaining()];
+        buffer.duplicate().get(content);
+        return new ByteArrayInputStream(content);
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        ByteBuffer src = buffer.duplicate();
+        byte[] chunk = new byte[Math.min(CHUNK_SIZE, src.remaining())];
+        while (src.hasRemaining()) {
+            int length = Math.min(chunk.length, src.remaining());
+            src.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+        out.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
@@ -7,12 +7,14 @@ import ru.kontur.vostok.hercules.gate.client.exception.UnavailableClusterExcepti
 import ru.kontur.vostok.hercules.gate.client.util.EventWriterUtil;
 import ru.kontur.vostok.hercules.protocol.CommonConstants;
 import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
 import ru.kontur.vostok.hercules.util.concurrent.Topology;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 import ru.kontur.vostok.hercules.util.validation.ArrayValidators;
 import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -191,6 +193,8 @@ public class EventPublisher {
 
     /**
      * Create array from subList of <code>events</code> and send its to stream
+     * <p>
+     * Events are encoded into the pooled buffer, which is released after sending.
      *
      * @param events     source events list
      * @param stream     topic name in kafka where should be send data
@@ -207,16 +211,21 @@ public class EventPublisher {
                 .subList(startSlice, endSlice)
                 .toArray(new Event[endSlice - startSlice]);
 
+        ByteBuffer buffer = ByteBufferPool.acquire(EventWriterUtil.sizeOf(size));
         try {
+            EventWriterUtil.write(eventsArray, buffer);
+            buffer.flip();
             gateClient.sendAsync(
                     this.apiKey,
                     stream,
-                    EventWriterUtil.toBytes(size, eventsArray));
+                    buffer);
         } catch (BadRequestException ignored) {
             LOGGER.warn("Failed to send a packet of events");
         } catch (UnavailableClusterException e) {
             LOGGER.warn("No url from cluster is available. Cluster = " + Arrays.toString(this.urls));
             throw new RuntimeException(e);
+        } finally {
+            ByteBufferPool.release(buffer);
         }
     }
 
@@ -1,6 +1,7 @@
 package ru.kontur.vostok.hercules.gate.client;
 
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -12,12 +13,16 @@ import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.kontur.vostok.hercules.gate.client.exception.BadRequestException;
 import ru.kontur.vostok.hercules.gate.client.exception.HttpProtocolException;
 import ru.kontur.vostok.hercules.gate.client.exception.UnavailableClusterException;
 import ru.kontur.vostok.hercules.gate.client.exception.UnavailableHostException;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
+import ru.kontur.vostok.hercules.util.compression.Compressor;
+import ru.kontur.vostok.hercules.util.compression.Lz4Compressor;
 import ru.kontur.vostok.hercules.util.concurrent.ThreadFactories;
 import ru.kontur.vostok.hercules.util.concurrent.Topology;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
@@ -26,6 +31,7 @@ import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Properties;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -47,8 +53,15 @@ public class GateClient implements Closeable {
     private static final String SEND_ACK = "/stream/send";
     private static final String SEND_ASYNC = "/stream/sendAsync";
 
+    private static final String LZ4_CONTENT_ENCODING = "lz4";
+    private static final String ORIGINAL_CONTENT_LENGTH = "Original-Content-Length";
+
     private final CloseableHttpClient client;
 
+    private final boolean compressionEnabled;
+    private final int compressionThresholdBytes;
+    private final Compressor compressor = new Lz4Compressor();
+
     private final BlockingQueue<GreyListTopologyElement> greyList;
     private final Topology<String> whiteList;
     private final int greyListElementsRecoveryTimeMs;
@@ -60,6 +73,8 @@ public class GateClient implements Closeable {
     public GateClient(Properties properties, CloseableHttpClient client, Topology<String> whiteList) {
 
         this.greyListElementsRecoveryTimeMs = PropertiesUtil.get(Props.GREY_LIST_ELEMENTS_RECOVERY_TIME_MS, properties).get();
+        this.compressionEnabled = PropertiesUtil.get(Props.COMPRESSION_ENABLE, properties).get();
+        this.compressionThresholdBytes = PropertiesUtil.get(Props.COMPRESSION_THRESHOLD_BYTES, properties).get();
         this.client = client;
         this.whiteList = whiteList;
         this.greyList = new ArrayBlockingQueue<>(whiteList.size());
@@ -77,6 +92,8 @@ public class GateClient implements Closeable {
         final int connectionCount = PropertiesUtil.get(Props.CONNECTION_COUNT, properties).get();
 
         this.greyListElementsRecoveryTimeMs = PropertiesUtil.get(Props.GREY_LIST_ELEMENTS_RECOVERY_TIME_MS, properties).get();
+        this.compressionEnabled = PropertiesUtil.get(Props.COMPRESSION_ENABLE, properties).get();
+        this.compressionThresholdBytes = PropertiesUtil.get(Props.COMPRESSION_THRESHOLD_BYTES, properties).get();
         this.whiteList = whiteList;
         this.greyList = new ArrayBlockingQueue<>(whiteList.size());
 
@@ -114,10 +131,22 @@ public class GateClient implements Closeable {
      */
     public void sendAsync(String url, String apiKey, String stream, final byte[] data)
             throws BadRequestException, UnavailableHostException, HttpProtocolException {
-        sendToHost(url, urlParam -> {
-            HttpPost httpPost = buildRequest(url, apiKey, SEND_ASYNC, stream, data);
-            return sendRequest(httpPost);
-        });
+        sendAsync(url, apiKey, stream, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Request to {@value #SEND_ASYNC}
+     *
+     * @param url    Gate url
+     * @param apiKey key for sending
+     * @param stream topic name in kafka
+     * @param data   payload between position and limit, the buffer is not modified
+     * @throws BadRequestException      throws if was error on client side: 4xx errors or http protocol errors
+     * @throws UnavailableHostException throws if was error on server side: 5xx errors or connection errors
+     */
+    public void sendAsync(String url, String apiKey, String stream, final ByteBuffer data)
+            throws BadRequestException, UnavailableHostException, HttpProtocolException {
+        sendToHost(url, urlParam -> sendData(url, apiKey, SEND_ASYNC, stream, data));
     }
 
     /**
@@ -132,10 +161,22 @@ public class GateClient implements Closeable {
      */
     public void send(String url, String apiKey, String stream, final byte[] data)
             throws BadRequestException, UnavailableHostException, HttpProtocolException {
-        sendToHost(url, urlParam -> {
-            HttpPost httpPost = buildRequest(url, apiKey, SEND_ACK, stream, data);
-            return sendRequest(httpPost);
-        });
+        send(url, apiKey, stream, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Request to {@value #SEND_ACK}
+     *
+     * @param url    Gate url
+     * @param apiKey key for sending
+     * @param stream topic name in kafka
+     * @param data   payload between position and limit, the buffer is not modified
+     * @throws BadRequestException      throws if was error on client side: 4xx errors or http protocol errors
+     * @throws UnavailableHostException throws if was error on server side: 5xx errors or connection errors
+     */
+    public void send(String url, String apiKey, String stream, final ByteBuffer data)
+            throws BadRequestException, UnavailableHostException, HttpProtocolException {
+        sendToHost(url, urlParam -> sendData(url, apiKey, SEND_ACK, stream, data));
     }
 
     /**
@@ -162,6 +203,21 @@ public class GateClient implements Closeable {
      */
     public void sendAsync(int retryLimit, String apiKey, String stream, final byte[] data)
             throws BadRequestException, UnavailableClusterException {
+        sendAsync(retryLimit, apiKey, stream, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Request to {@value #SEND_ASYNC}
+     *
+     * @param retryLimit count of attempt to send data to one of the <code>urls</code>' hosts
+     * @param apiKey     key for sending
+     * @param stream     topic name in kafka
+     * @param data       payload between position and limit, the buffer is not modified
+     * @throws BadRequestException         throws if was error on client side: 4xx errors or http protocol errors
+     * @throws UnavailableClusterException throws if was error on addresses pool side: no one of address is unavailable
+     */
+    public void sendAsync(int retryLimit, String apiKey, String stream, final ByteBuffer data)
+            throws BadRequestException, UnavailableClusterException {
         sendToPool(retryLimit, url -> sendAsync(url, apiKey, stream, data));
     }
 
@@ -177,6 +233,21 @@ public class GateClient implements Closeable {
      */
     public void send(int retryLimit, String apiKey, String stream, final byte[] data)
             throws BadRequestException, UnavailableClusterException {
+        send(retryLimit, apiKey, stream, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * Request to {@value #SEND_ACK}
+     *
+     * @param retryLimit count of attempt to send data to one of the <code>urls</code>' hosts
+     * @param apiKey     key for sending
+     * @param stream     topic name in kafka
+     * @param data       payload between position and limit, the buffer is not modified
+     * @throws BadRequestException         throws if was error on client side: 4xx errors or http protocol errors
+     * @throws UnavailableClusterException throws if was error on addresses pool side: no one of address is unavailable
+     */
+    public void send(int retryLimit, String apiKey, String stream, final ByteBuffer data)
+            throws BadRequestException, UnavailableClusterException {
         sendToPool(retryLimit, url -> send(url, apiKey, stream, data));
     }
 
@@ -205,6 +276,20 @@ public class GateClient implements Closeable {
         sendAsync(whiteList.size() + 1, apiKey, stream, data);
     }
 
+    /**
+     * Request to {@value #SEND_ASYNC}. Count of retry is <code>whitelist.size() + 1</code>
+     *
+     * @param apiKey key for sending
+     * @param stream topic name in kafka
+     * @param data   payload between position and limit, the buffer is not modified
+     * @throws BadRequestException         throws if was error on client side: 4xx errors or http protocol errors
+     * @throws UnavailableClusterException throws if was error on addresses pool side: no one of address is unavailable
+     */
+    public void sendAsync(String apiKey, String stream, final ByteBuffer data)
+            throws BadRequestException, UnavailableClusterException {
+        sendAsync(whiteList.size() + 1, apiKey, stream, data);
+    }
+
     /**
      * Request to {@value #SEND_ACK}. Count of retry is <code>whitelist.size() + 1</code>
      *
@@ -219,6 +304,20 @@ public class GateClient implements Closeable {
         send(whiteList.size() + 1, apiKey, stream, data);
     }
 
+    /**
+     * Request to {@value #SEND_ACK}. Count of retry is <code>whitelist.size() + 1</code>
+     *
+     * @param apiKey key for sending
+     * @param stream topic name in kafka
+     * @param data   payload between position and limit, the buffer is not modified
+     * @throws BadRequestException         throws if was error on client side: 4xx errors or http protocol errors
+     * @throws UnavailableClusterException throws if was error on addresses pool side: no one of address is unavailable
+     */
+    public void send(String apiKey, String stream, final ByteBuffer data)
+            throws BadRequestException, UnavailableClusterException {
+        send(whiteList.size() + 1, apiKey, stream, data);
+    }
+
     public void close() {
         scheduler.shutdown();
 
@@ -305,11 +404,37 @@ public class GateClient implements Closeable {
         }
     }
 
+    /**
+     * Send the payload. The payload is compressed with LZ4 if compression is enabled and the payload is large enough.
+     * <p>
+     * The compressed payload is stored in the pooled buffer, which is released when the request is completed.
+     */
+    private int sendData(String url, String apiKey, String action, String stream, ByteBuffer data) throws IOException {
+        if (!compressionEnabled || data.remaining() < compressionThresholdBytes) {
+            return sendRequest(buildRequest(url, apiKey, action, stream, data));
+        }
+
+        ByteBuffer compressed = ByteBufferPool.acquire(compressor.maxCompressedLength(data.remaining()));
+        try {
+            compressor.compress(data.duplicate(), compressed);
+
+            HttpPost httpPost = buildRequest(url, apiKey, action, stream, compressed);
+            httpPost.addHeader(HttpHeaders.CONTENT_ENCODING, LZ4_CONTENT_ENCODING);
+            httpPost.addHeader(ORIGINAL_CONTENT_LENGTH, String.valueOf(data.remaining()));
+            return sendRequest(httpPost);
+        } finally {
+            ByteBufferPool.release(compressed);
+        }
+    }
+
+    /**
+     * Execute the request and consume the response entity, thus the connection can be reused.
+     */
     private int sendRequest(HttpUriRequest request) throws IOException {
-        CloseableHttpResponse response = client.execute(request);
-        int statusCode = response.getStatusLine().getStatusCode();
-        response.close();
-        return statusCode;
+        try (CloseableHttpResponse response = client.execute(request)) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            return response.getStatusLine().getStatusCode();
+        }
     }
 
     /**
@@ -322,12 +447,14 @@ public class GateClient implements Closeable {
      * @param data   payload
      * @return formatted http post request
      */
-    private HttpPost buildRequest(String url, String apiKey, String action, String stream, byte[] data) {
+    private HttpPost buildRequest(String url, String apiKey, String action, String stream, ByteBuffer data) {
         HttpPost httpPost = new HttpPost(url + action + "?stream=" + stream);
 
         httpPost.addHeader("apiKey", apiKey);
 
-        HttpEntity entity = new ByteArrayEntity(data, ContentType.APPLICATION_OCTET_STREAM);
+        HttpEntity entity = data.hasArray()
+                ? new ByteArrayEntity(data.array(), data.arrayOffset() + data.position(), data.remaining(), ContentType.APPLICATION_OCTET_STREAM)
+                : new ByteBufferEntity(data, ContentType.APPLICATION_OCTET_STREAM);
         httpPost.setEntity(entity);
 
         return httpPost;
@@ -392,5 +519,16 @@ public class GateClient implements Closeable {
                         .withDefault(GateClientDefaults.DEFAULT_RECOVERY_TIME)
                         .withValidator(IntegerValidators.positive())
                         .build();
+
+        static final Parameter<Boolean> COMPRESSION_ENABLE =
+                Parameter.booleanParameter("compression.enable")
+                        .withDefault(true)
+                        .build();
+
+        static final Parameter<Integer> COMPRESSION_THRESHOLD_BYTES =
+                Parameter.integerParameter("compression.thresholdBytes")
+                        .withDefault(1_024)
+                        .withValidator(IntegerValidators.nonNegative())
+                        .build();
     }
 }
@@ -22,7 +22,7 @@ public class EventWriterUtil {
      * @return events are encoded to bytes
      */
     public static byte[] toBytes(int size, Event[] events) {
-        ByteBuffer buffer = ByteBuffer.allocate(size + Type.INTEGER.size);
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(size));
         Encoder encoder = new Encoder(buffer);
         ARRAY_WRITER.write(encoder, events);
 
@@ -39,6 +39,26 @@ public class EventWriterUtil {
         return toBytes(calculateSize(events), events);
     }
 
+    /**
+     * Encode event array to the buffer
+     *
+     * @param events events to encode
+     * @param buffer the buffer with at least {@link #sizeOf(int) sizeOf(eventsSize)} bytes remaining
+     */
+    public static void write(Event[] events, ByteBuffer buffer) {
+        ARRAY_WRITER.write(new Encoder(buffer), events);
+    }
+
+    /**
+     * Size of encoded event array
+     *
+     * @param eventsSize events size in bytes
+     * @return size of encoded event array in bytes
+     */
+    public static int sizeOf(int eventsSize) {
+        return eventsSize + Type.INTEGER.size;
+    }
+
     private static int calculateSize(Event[] events) {
         int total = 0;
 
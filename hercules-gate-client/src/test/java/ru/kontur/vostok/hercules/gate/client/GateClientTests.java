@@ -1,15 +1,28 @@
 package ru.kontur.vostok.hercules.gate.client;
 
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.junit.Before;
 import org.junit.Test;
 import ru.kontur.vostok.hercules.gate.client.exception.BadRequestException;
 import ru.kontur.vostok.hercules.gate.client.exception.UnavailableClusterException;
+import ru.kontur.vostok.hercules.util.compression.Lz4Decompressor;
 import ru.kontur.vostok.hercules.util.concurrent.Topology;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Properties;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -93,4 +106,51 @@ public class GateClientTests {
 
         assertTrue(timeOfProcessingMs > 5_000 && timeOfProcessingMs < 6_000);
     }
+
+    @Test
+    public void shouldCompressLargePayload() throws Exception {
+        whiteList.add(OK_200_ADDR);
+        CapturingHttpClient httpClient = new CapturingHttpClient();
+        GateClient gateClient = new GateClient(properties, httpClient, whiteList);
+
+        byte[] data = new byte[10_000];
+        Arrays.fill(data, (byte) 'a');
+        gateClient.sendAsync("apiKey", "stream", data);
+
+        assertEquals("lz4", httpClient.request.getFirstHeader("Content-Encoding").getValue());
+        assertEquals("10000", httpClient.request.getFirstHeader("Original-Content-Length").getValue());
+        assertTrue(httpClient.body.length < data.length);
+
+        byte[] decompressed = new byte[data.length];
+        new Lz4Decompressor().decompress(ByteBuffer.wrap(httpClient.body), ByteBuffer.wrap(decompressed));
+        assertArrayEquals(data, decompressed);
+    }
+
+    @Test
+    public void shouldNotCompressSmallPayload() throws Exception {
+        whiteList.add(OK_200_ADDR);
+        CapturingHttpClient httpClient = new CapturingHttpClient();
+        GateClient gateClient = new GateClient(properties, httpClient, whiteList);
+
+        byte[] data = new byte[]{1, 2, 3};
+        gateClient.sendAsync("apiKey", "stream", data);
+
+        assertNull(httpClient.request.getFirstHeader("Content-Encoding"));
+        assertArrayEquals(data, httpClient.body);
+    }
+
+    private static class CapturingHttpClient extends CloseableHttpClientMock {
+        private HttpEntityEnclosingRequest request;
+        private byte[] body;
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) throws IOException {
+            if (request instanceof HttpEntityEnclosingRequest) {
+                this.request = (HttpEntityEnclosingRequest) request;
+                this.body = EntityUtils.toByteArray(this.request.getEntity());
+                return super.doExecute(target, new HttpGet(OK_200_ADDR + "/ping"), context);
+            }
+            return super.doExecute(target, request, context);
+        }
+    }
 }
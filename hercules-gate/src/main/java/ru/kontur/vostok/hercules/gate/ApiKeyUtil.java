@@ -0,0 +1,28 @@
+package ru.kontur.vostok.hercules.gate;
+
+import ru.kontur.vostok.hercules.util.text.StringUtil;
+
+/**
+ * ApiKey util
+ */
+final class ApiKeyUtil {
+    /**
+     * Mask the secret part of the apiKey, thus it can be used in logs and metric names.
+     * <p>
+     * The secret part follows the last underscore {@code _} or is the second half of the apiKey without underscores.
+     *
+     * @param apiKey the apiKey
+     * @return the masked apiKey
+     */
+    static String mask(String apiKey) {
+        int pos = apiKey.lastIndexOf('_') + 1;
+        if (pos > 0) {
+            return StringUtil.mask(apiKey, '*', pos);
+        }
+        return StringUtil.mask(apiKey, '*', apiKey.length() / 2);
+    }
+
+    private ApiKeyUtil() {
+        /* static class */
+    }
+}
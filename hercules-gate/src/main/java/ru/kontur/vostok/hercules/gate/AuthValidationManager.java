@@ -6,6 +6,9 @@ import ru.kontur.vostok.hercules.meta.auth.validation.ValidationSerializer;
 import ru.kontur.vostok.hercules.meta.filter.Filter;
 import ru.kontur.vostok.hercules.protocol.TinyString;
 import ru.kontur.vostok.hercules.util.Maps;
+import ru.kontur.vostok.hercules.util.cache.CacheLoadException;
+import ru.kontur.vostok.hercules.util.cache.CacheStatsRecorder;
+import ru.kontur.vostok.hercules.util.cache.RefreshAheadCache;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -16,19 +19,26 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Provides content validators and tags to validate by api key and stream.
+ * <p>
+ * Validations are reloaded from ZooKeeper in background, thus requests never wait for ZooKeeper.
+ *
  * @author Gregory Koshelev
  */
 public class AuthValidationManager {
+    private static final String VALIDATIONS_KEY = "validations";
+    private static final long REFRESH_AFTER_MS = 10_000;
+
     private final CuratorClient curatorClient;
     private final AtomicReference<State> state = new AtomicReference<>(State.INIT);
     private final ValidationSerializer validationSerializer = new ValidationSerializer();
-    private final AtomicReference<Map<String, Map<String, ContentValidator>>> validators = new AtomicReference<>(new HashMap<>());
-    private final AtomicReference<Map<String, Map<String, Set<TinyString>>>> tags = new AtomicReference<>(new HashMap<>());
+    private final RefreshAheadCache<String, Validations> cache;
 
     private static final ContentValidator EMPTY_VALIDATOR = new ContentValidator(new Validation(null, null, new Filter[0]));
 
-    public AuthValidationManager(CuratorClient curatorClient) {
+    public AuthValidationManager(CuratorClient curatorClient, CacheStatsRecorder stats) {
         this.curatorClient = curatorClient;
+        this.cache = new RefreshAheadCache<>(1, REFRESH_AFTER_MS, Long.MAX_VALUE, key -> load(), stats);
     }
 
     public void start() throws Exception {
@@ -36,16 +46,12 @@ public class AuthValidationManager {
             throw new IllegalStateException("Invalid state of content validator");
         }
 
-        update();
+        cache.get(VALIDATIONS_KEY);
 
         state.set(State.RUNNING);
     }
 
-    private void update() throws Exception {
-        if (state.get() == State.STOPPED) {
-            return;
-        }
-
+    private Validations load() throws Exception {
         List<String> children = curatorClient.children("/hercules/auth/validations");
 
         Map<String, Map<String, ContentValidator>> newValidators = new HashMap<>();
@@ -59,8 +65,7 @@ public class AuthValidationManager {
             Map<String, Set<TinyString>> streamToTagsMap = newTags.computeIfAbsent(validation.getApiKey(), key -> new HashMap<>());
             streamToTagsMap.put(validation.getStream(), extractTags(validation));
         }
-        validators.set(newValidators);
-        tags.set(newTags);
+        return new Validations(newValidators, newTags);
     }
 
     public void stop() {
@@ -68,11 +73,19 @@ public class AuthValidationManager {
     }
 
     public Set<TinyString> getTags(String apiKey, String stream) {
-        return tags.get().getOrDefault(apiKey, Collections.emptyMap()).getOrDefault(stream, Collections.emptySet());
+        return validations().tags.getOrDefault(apiKey, Collections.emptyMap()).getOrDefault(stream, Collections.emptySet());
     }
 
     public ContentValidator validator(String apiKey, String stream) {
-        return validators.get().getOrDefault(apiKey, Collections.emptyMap()).getOrDefault(stream, EMPTY_VALIDATOR);
+        return validations().validators.getOrDefault(apiKey, Collections.emptyMap()).getOrDefault(stream, EMPTY_VALIDATOR);
+    }
+
+    private Validations validations() {
+        try {
+            return cache.get(VALIDATIONS_KEY);
+        } catch (CacheLoadException ex) {
+            return Validations.EMPTY;
+        }
     }
 
     private static Set<TinyString> extractTags(Validation validation) {
@@ -89,6 +102,18 @@ public class AuthValidationManager {
         return tags;
     }
 
+    private static final class Validations {
+        private static final Validations EMPTY = new Validations(Collections.emptyMap(), Collections.emptyMap());
+
+        private final Map<String, Map<String, ContentValidator>> validators;
+        private final Map<String, Map<String, Set<TinyString>>> tags;
+
+        Validations(Map<String, Map<String, ContentValidator>> validators, Map<String, Map<String, Set<TinyString>>> tags) {
+            this.validators = validators;
+            this.tags = tags;
+        }
+    }
+
     private enum State {
         INIT,
         STARTING,
@@ -11,7 +11,7 @@ import ru.kontur.vostok.hercules.configuration.PropertiesLoader;
 import ru.kontur.vostok.hercules.configuration.Scopes;
 import ru.kontur.vostok.hercules.configuration.util.ArgsParser;
 import ru.kontur.vostok.hercules.curator.CuratorClient;
-import ru.kontur.vostok.hercules.gate.validation.EventValidator;
+import ru.kontur.vostok.hercules.health.CacheMetrics;
 import ru.kontur.vostok.hercules.health.CommonMetrics;
 import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.http.HttpServer;
@@ -19,17 +19,22 @@ import ru.kontur.vostok.hercules.http.HttpServerRequest;
 import ru.kontur.vostok.hercules.http.handler.HandlerWrapper;
 import ru.kontur.vostok.hercules.http.handler.HttpHandler;
 import ru.kontur.vostok.hercules.http.handler.RouteHandler;
+import ru.kontur.vostok.hercules.kafka.util.producer.EventSender;
+import ru.kontur.vostok.hercules.kafka.util.producer.EventValidator;
 import ru.kontur.vostok.hercules.meta.stream.StreamRepository;
 import ru.kontur.vostok.hercules.meta.stream.StreamStorage;
 import ru.kontur.vostok.hercules.partitioner.HashPartitioner;
 import ru.kontur.vostok.hercules.partitioner.NaiveHasher;
 import ru.kontur.vostok.hercules.sd.BeaconService;
 import ru.kontur.vostok.hercules.throttling.CapacityThrottle;
+import ru.kontur.vostok.hercules.throttling.FairCapacityThrottle;
+import ru.kontur.vostok.hercules.throttling.Throttle;
 import ru.kontur.vostok.hercules.throttling.ThrottledRequestProcessor;
 import ru.kontur.vostok.hercules.undertow.util.DefaultHttpServerRequestWeigher;
 import ru.kontur.vostok.hercules.undertow.util.DefaultThrottledHttpServerRequestProcessor;
 import ru.kontur.vostok.hercules.undertow.util.UndertowHttpServer;
 import ru.kontur.vostok.hercules.undertow.util.handlers.InstrumentedRouteHandlerBuilder;
+import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 
 import java.util.Collections;
@@ -51,6 +56,7 @@ public class GateApplication {
     private static EventSender eventSender;
     private static EventValidator eventValidator;
     private static SendRequestProcessor sendRequestProcessor;
+    private static SendRateLimiter sendRateLimiter;
     private static HttpServer server;
     private static BeaconService beaconService;
 
@@ -69,6 +75,7 @@ public class GateApplication {
             Properties validationProperties = PropertiesUtil.ofScope(properties, "validation");
             Properties eventSenderProperties = PropertiesUtil.ofScope(properties, "gate.event.sender");
             Properties sendRequestProcessorProperties = PropertiesUtil.ofScope(properties, "gate.send.request.processor");
+            Properties sendRateLimiterProperties = PropertiesUtil.ofScope(properties, "gate.send.rate.limiter");
             Properties httpServerProperties = PropertiesUtil.ofScope(properties, Scopes.HTTP_SERVER);
             Properties sdProperties = PropertiesUtil.ofScope(properties, Scopes.SERVICE_DISCOVERY);
 
@@ -82,18 +89,26 @@ public class GateApplication {
             authManager = new AuthManager(curatorClient);
             authManager.start();
 
-            authValidationManager = new AuthValidationManager(curatorClient);
+            authValidationManager = new AuthValidationManager(curatorClient, new CacheMetrics("authValidations", metricsCollector));
             authValidationManager.start();
 
             StreamRepository streamRepository = new StreamRepository(curatorClient);
-            streamStorage = new StreamStorage(streamRepository);
+            streamStorage = new StreamStorage(streamRepository, new CacheMetrics("streams", metricsCollector));
 
             eventSender = new EventSender(eventSenderProperties, new HashPartitioner(new NaiveHasher()), metricsCollector);
             eventValidator = new EventValidator(validationProperties);
 
-            sendRequestProcessor = new SendRequestProcessor(sendRequestProcessorProperties, eventSender, eventValidator, metricsCollector);
-
-            server = createHttpServer(httpServerProperties);
+            sendRateLimiter = new SendRateLimiter(sendRateLimiterProperties, metricsCollector);
+            ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor = new DefaultThrottledHttpServerRequestProcessor();
+            sendRequestProcessor = new SendRequestProcessor(
+                    sendRequestProcessorProperties,
+                    eventSender,
+                    sendRateLimiter,
+                    throttledRequestProcessor,
+                    eventValidator,
+                    metricsCollector);
+
+            server = createHttpServer(httpServerProperties, throttledRequestProcessor);
             server.start();
 
             beaconService = new BeaconService(sdProperties, curatorClient);
@@ -176,17 +191,15 @@ public class GateApplication {
         LOGGER.info("Finished Gateway shutdown for {}  millis", System.currentTimeMillis() - start);
     }
 
-    private static HttpServer createHttpServer(Properties httpServerProperties) {
+    private static HttpServer createHttpServer(
+            Properties httpServerProperties,
+            ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor) {
         Properties throttlingProperties = PropertiesUtil.ofScope(httpServerProperties, Scopes.THROTTLING);
 
-        CapacityThrottle<HttpServerRequest> throttle = new CapacityThrottle<>(
-                throttlingProperties,
-                new DefaultHttpServerRequestWeigher());
+        Throttle<HttpServerRequest> throttle = createThrottle(throttlingProperties);
         metricsCollector.gauge("throttling.totalCapacity", throttle::totalCapacity);
         metricsCollector.gauge("throttling.availableCapacity", throttle::availableCapacity);
 
-        ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor = new DefaultThrottledHttpServerRequestProcessor();
-
         long maxContentLength = PropertiesUtil.get(HttpServer.Props.MAX_CONTENT_LENGTH, httpServerProperties).get();
 
         AuthProvider authProvider = new AuthProvider(new AdminAuthManager(Collections.emptySet()), authManager);
@@ -198,6 +211,7 @@ public class GateApplication {
                         throttle,
                         throttledRequestProcessor,
                         sendRequestProcessor,
+                        sendRateLimiter,
                         authValidationManager,
                         streamStorage,
                         true,
@@ -209,6 +223,7 @@ public class GateApplication {
                         throttle,
                         throttledRequestProcessor,
                         sendRequestProcessor,
+                        sendRateLimiter,
                         authValidationManager,
                         streamStorage,
                         false,
@@ -226,4 +241,29 @@ public class GateApplication {
                 httpServerProperties,
                 handler);
     }
+
+    private static Throttle<HttpServerRequest> createThrottle(Properties throttlingProperties) {
+        if (!PropertiesUtil.get(Props.THROTTLING_FAIR_ENABLE, throttlingProperties).get()) {
+            return new CapacityThrottle<>(
+                    throttlingProperties,
+                    new DefaultHttpServerRequestWeigher());
+        }
+
+        return new FairCapacityThrottle<>(
+                throttlingProperties,
+                new DefaultHttpServerRequestWeigher(),
+                new SendRequestClassifier(PropertiesUtil.get(Props.THROTTLING_FAIR_KEY, throttlingProperties).get()));
+    }
+
+    private static class Props {
+        static final Parameter<Boolean> THROTTLING_FAIR_ENABLE =
+                Parameter.booleanParameter("fair.enable").
+                        withDefault(false).
+                        build();
+
+        static final Parameter<SendRequestClassifier.Key> THROTTLING_FAIR_KEY =
+                Parameter.enumParameter("fair.key", SendRequestClassifier.Key.class).
+                        withDefault(SendRequestClassifier.Key.STREAM).
+                        build();
+    }
 }
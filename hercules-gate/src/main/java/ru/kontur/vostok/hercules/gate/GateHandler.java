@@ -1,5 +1,7 @@
 package ru.kontur.vostok.hercules.gate;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import ru.kontur.vostok.hercules.auth.AuthProvider;
 import ru.kontur.vostok.hercules.auth.AuthResult;
 import ru.kontur.vostok.hercules.health.AutoMetricStopwatch;
@@ -15,11 +17,12 @@ import ru.kontur.vostok.hercules.meta.stream.StreamStorage;
 import ru.kontur.vostok.hercules.partitioner.ShardingKey;
 import ru.kontur.vostok.hercules.protocol.TinyString;
 import ru.kontur.vostok.hercules.protocol.hpath.HPath;
-import ru.kontur.vostok.hercules.throttling.CapacityThrottle;
+import ru.kontur.vostok.hercules.throttling.Throttle;
 import ru.kontur.vostok.hercules.throttling.ThrottleResult;
 import ru.kontur.vostok.hercules.throttling.ThrottledBy;
 import ru.kontur.vostok.hercules.throttling.ThrottledRequestProcessor;
 import ru.kontur.vostok.hercules.util.Maps;
+import ru.kontur.vostok.hercules.util.cache.CacheLoadException;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.time.TimeSource;
 
@@ -33,10 +36,13 @@ import java.util.concurrent.TimeUnit;
  * @author Gregory Koshelev
  */
 public class GateHandler implements HttpHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GateHandler.class);
+
     private final AuthProvider authProvider;
-    private final CapacityThrottle<HttpServerRequest> throttle;
+    private final Throttle<HttpServerRequest> throttle;
     private final ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor;
     private final SendRequestProcessor sendRequestProcessor;
+    private final SendRateLimiter sendRateLimiter;
     private final StreamStorage streamStorage;
     private final AuthValidationManager authValidationManager;
 
@@ -49,9 +55,10 @@ public class GateHandler implements HttpHandler {
 
     public GateHandler(
             AuthProvider authProvider,
-            CapacityThrottle<HttpServerRequest> throttle,
+            Throttle<HttpServerRequest> throttle,
             ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor,
             SendRequestProcessor sendRequestProcessor,
+            SendRateLimiter sendRateLimiter,
             AuthValidationManager authValidationManager,
             StreamStorage streamStorage,
             boolean async,
@@ -62,6 +69,7 @@ public class GateHandler implements HttpHandler {
                 throttle,
                 throttledRequestProcessor,
                 sendRequestProcessor,
+                sendRateLimiter,
                 authValidationManager,
                 streamStorage,
                 async,
@@ -72,9 +80,10 @@ public class GateHandler implements HttpHandler {
 
     GateHandler(
             AuthProvider authProvider,
-            CapacityThrottle<HttpServerRequest> throttle,
+            Throttle<HttpServerRequest> throttle,
             ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor,
             SendRequestProcessor sendRequestProcessor,
+            SendRateLimiter sendRateLimiter,
             AuthValidationManager authValidationManager,
             StreamStorage streamStorage,
             boolean async,
@@ -85,6 +94,7 @@ public class GateHandler implements HttpHandler {
         this.throttle = throttle;
         this.throttledRequestProcessor = throttledRequestProcessor;
         this.sendRequestProcessor = sendRequestProcessor;
+        this.sendRateLimiter = sendRateLimiter;
         this.authValidationManager = authValidationManager;
         this.streamStorage = streamStorage;
 
@@ -132,17 +142,29 @@ public class GateHandler implements HttpHandler {
             return;
         }
 
-        Optional<Stream> optionalBaseStream = streamStorage.read(stream);
-        if (!optionalBaseStream.isPresent()) {
-            request.complete(HttpStatusCodes.NOT_FOUND);
+        Stream baseStream;
+        try {
+            Optional<Stream> optionalBaseStream = streamStorage.read(stream);
+            if (!optionalBaseStream.isPresent()) {
+                request.complete(HttpStatusCodes.NOT_FOUND);
+                return;
+            }
+            baseStream = optionalBaseStream.get();
+        } catch (CacheLoadException ex) {
+            LOGGER.error("Cannot read Stream", ex);
+            request.complete(HttpStatusCodes.INTERNAL_SERVER_ERROR);
             return;
         }
-        Stream baseStream = optionalBaseStream.get();
         if (!(baseStream instanceof BaseStream)) {
             request.complete(HttpStatusCodes.BAD_REQUEST);
             return;
         }
 
+        if (!sendRateLimiter.tryAcquireBytes(stream, apiKey, contentLength)) {
+            throttledRequestProcessor.process(request, ThrottledBy.RATE_LIMIT);
+            return;
+        }
+
         Set<TinyString> tagsToValidate = authValidationManager.getTags(apiKey, stream);
 
         ShardingKey shardingKey = ShardingKey.fromKeyPaths(baseStream.getShardingKey());
@@ -159,6 +181,7 @@ public class GateHandler implements HttpHandler {
         }
 
         if (throttleResult.reason() != ThrottledBy.NONE) {
+            sendRateLimiter.releaseBytes(stream, apiKey, contentLength);
             throttledRequestProcessor.process(request, throttleResult.reason());
             return;
         }
@@ -0,0 +1,262 @@
+package ru.kontur.vostok.hercules.gate;
+
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.health.MetricsUtil;
+import ru.kontur.vostok.hercules.throttling.rate.SlidingRateLimiter;
+import ru.kontur.vostok.hercules.util.parameter.Parameter;
+import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+import ru.kontur.vostok.hercules.util.validation.LongValidators;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits rate of sending events by stream and by apiKey.
+ * <p>
+ * Rate is limited in events per second and in bytes per second independently.
+ * Each stream and each apiKey has its own token bucket. The bucket capacity is equal to the limit per second,
+ * thus the request which is bigger than the limit is always rejected.
+ * The request is accepted only if both of the stream and the apiKey buckets have enough tokens.
+ * Otherwise, tokens are returned into the bucket which has accepted the request.
+ * <p>
+ * Buckets and metrics of streams and apiKeys which have not been used for {@link #IDLE_TIMEOUT_MS} are removed,
+ * since the idle bucket is full anyway.
+ * <p>
+ * Zero limit means no limit.
+ *
+ * @see SlidingRateLimiter
+ */
+public class SendRateLimiter {
+    private static final String METRICS_SCOPE = SendRateLimiter.class.getSimpleName();
+    private static final long TIME_WINDOW_MS = 1_000L;
+    private static final long IDLE_TIMEOUT_MS = 10 * 60 * 1_000L;
+
+    private final KeyedLimits streamLimits;
+    private final KeyedLimits apiKeyLimits;
+
+    private final TimeSource time;
+
+    public SendRateLimiter(Properties properties, MetricsCollector metricsCollector) {
+        this(properties, metricsCollector, TimeSource.SYSTEM);
+    }
+
+    SendRateLimiter(Properties properties, MetricsCollector metricsCollector, TimeSource time) {
+        Properties streamProperties = PropertiesUtil.ofScope(properties, "stream");
+        Properties apiKeyProperties = PropertiesUtil.ofScope(properties, "apiKey");
+
+        this.streamLimits = new KeyedLimits(
+                PropertiesUtil.get(Props.EVENTS_PER_SECOND, streamProperties).get(),
+                PropertiesUtil.get(Props.BYTES_PER_SECOND, streamProperties).get(),
+                "byStream",
+                metricsCollector);
+        this.apiKeyLimits = new KeyedLimits(
+                PropertiesUtil.get(Props.EVENTS_PER_SECOND, apiKeyProperties).get(),
+                PropertiesUtil.get(Props.BYTES_PER_SECOND, apiKeyProperties).get(),
+                "byApiKey",
+                metricsCollector);
+
+        this.time = time;
+    }
+
+    /**
+     * Acquire bytes for the request before its body is read.
+     *
+     * @param stream the stream
+     * @param apiKey the apiKey
+     * @param bytes  the content length of the request
+     * @return {@code true} if the rate limit is not exceeded, otherwise {@code false}
+     */
+    public boolean tryAcquireBytes(String stream, String apiKey, long bytes) {
+        long nowMs = time.milliseconds();
+        if (!streamLimits.tryAcquireBytes(stream, bytes, nowMs)) {
+            return false;
+        }
+        if (!apiKeyLimits.tryAcquireBytes(ApiKeyUtil.mask(apiKey), bytes, nowMs)) {
+            streamLimits.releaseBytes(stream, bytes);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Release bytes which have been acquired for the request if the request is rejected by other reason.
+     *
+     * @param stream the stream
+     * @param apiKey the apiKey
+     * @param bytes  the content length of the request
+     * @see #tryAcquireBytes(String, String, long)
+     */
+    public void releaseBytes(String stream, String apiKey, long bytes) {
+        streamLimits.releaseBytes(stream, bytes);
+        apiKeyLimits.releaseBytes(ApiKeyUtil.mask(apiKey), bytes);
+    }
+
+    /**
+     * Acquire events for the request when the count of events is known.
+     *
+     * @param stream the stream
+     * @param apiKey the apiKey
+     * @param events the count of events in the request
+     * @return {@code true} if the rate limit is not exceeded, otherwise {@code false}
+     */
+    public boolean tryAcquireEvents(String stream, String apiKey, int events) {
+        long nowMs = time.milliseconds();
+        if (!streamLimits.tryAcquireEvents(stream, events, nowMs)) {
+            return false;
+        }
+        if (!apiKeyLimits.tryAcquireEvents(ApiKeyUtil.mask(apiKey), events, nowMs)) {
+            streamLimits.releaseEvents(stream, events);
+            return false;
+        }
+        return true;
+    }
+
+    private class KeyedLimits {
+        private final long eventsPerSecond;
+        private final long bytesPerSecond;
+        private final String metricsPrefix;
+        private final MetricsCollector metricsCollector;
+
+        private final ConcurrentMap<String, Limits> limits = new ConcurrentHashMap<>();
+        private final AtomicLong nextExpirationAtMs = new AtomicLong();
+
+        KeyedLimits(long eventsPerSecond, long bytesPerSecond, String metricsPrefix, MetricsCollector metricsCollector) {
+            this.eventsPerSecond = eventsPerSecond;
+            this.bytesPerSecond = bytesPerSecond;
+            this.metricsPrefix = metricsPrefix;
+            this.metricsCollector = metricsCollector;
+        }
+
+        boolean tryAcquireEvents(String key, long events, long nowMs) {
+            if (eventsPerSecond == 0) {
+                return true;
+            }
+            Limits limits = limits(key, nowMs);
+            return limits.check(limits.eventsLimiter.updateAndCheck(nowMs, events));
+        }
+
+        void releaseEvents(String key, long events) {
+            Limits limits = this.limits.get(key);
+            if (limits != null && limits.eventsLimiter != null) {
+                limits.eventsLimiter.release(events);
+            }
+        }
+
+        boolean tryAcquireBytes(String key, long bytes, long nowMs) {
+            if (bytesPerSecond == 0) {
+                return true;
+            }
+            Limits limits = limits(key, nowMs);
+            return limits.check(limits.bytesLimiter.updateAndCheck(nowMs, bytes));
+        }
+
+        void releaseBytes(String key, long bytes) {
+            Limits limits = this.limits.get(key);
+            if (limits != null && limits.bytesLimiter != null) {
+                limits.bytesLimiter.release(bytes);
+            }
+        }
+
+        private Limits limits(String key, long nowMs) {
+            expireIdle(nowMs);
+
+            return this.limits.compute(key, (k, keyLimits) -> {
+                if (keyLimits == null) {
+                    return new Limits(k, nowMs);
+                }
+                keyLimits.accessedAtMs = nowMs;
+                return keyLimits;
+            });
+        }
+
+        /**
+         * Remove limits which have not been accessed for {@link #IDLE_TIMEOUT_MS}.
+         * Only one thread scans limits once per {@link #IDLE_TIMEOUT_MS}.
+         * <p>
+         * Access time is updated and checked atomically with the entry, thus limits are never removed
+         * if they have been just accessed by a concurrent request.
+         *
+         * @param nowMs the current time in millis
+         */
+        private void expireIdle(long nowMs) {
+            long expirationAtMs = nextExpirationAtMs.get();
+            if (nowMs < expirationAtMs || !nextExpirationAtMs.compareAndSet(expirationAtMs, nowMs + IDLE_TIMEOUT_MS)) {
+                return;
+            }
+
+            for (String key : limits.keySet()) {
+                limits.computeIfPresent(key, (k, keyLimits) -> {
+                    if (nowMs - keyLimits.accessedAtMs > IDLE_TIMEOUT_MS) {
+                        keyLimits.removeMetrics();
+                        return null;
+                    }
+                    return keyLimits;
+                });
+            }
+        }
+
+        private class Limits {
+            private final String key;
+            private final SlidingRateLimiter eventsLimiter;
+            private final SlidingRateLimiter bytesLimiter;
+
+            private volatile long accessedAtMs;
+            private volatile Meter rejectedRequestsMeter;
+
+            Limits(String key, long nowMs) {
+                this.key = key;
+                this.eventsLimiter = eventsPerSecond != 0 ? new SlidingRateLimiter(eventsPerSecond, TIME_WINDOW_MS, nowMs) : null;
+                this.bytesLimiter = bytesPerSecond != 0 ? new SlidingRateLimiter(bytesPerSecond, TIME_WINDOW_MS, nowMs) : null;
+                this.accessedAtMs = nowMs;
+            }
+
+            boolean check(boolean accepted) {
+                if (!accepted) {
+                    rejectedRequestsMeter().mark();
+                }
+                return accepted;
+            }
+
+            private Meter rejectedRequestsMeter() {
+                Meter meter = rejectedRequestsMeter;
+                if (meter == null) {
+                    synchronized (this) {
+                        meter = rejectedRequestsMeter;
+                        if (meter == null) {
+                            rejectedRequestsMeter = meter = metricsCollector.meter(rejectedRequestsMetricName());
+                        }
+                    }
+                }
+                return meter;
+            }
+
+            private void removeMetrics() {
+                if (rejectedRequestsMeter != null) {
+                    metricsCollector.remove(rejectedRequestsMetricName());
+                }
+            }
+
+            private String rejectedRequestsMetricName() {
+                return MetricsUtil.toMetricPath(METRICS_SCOPE, metricsPrefix, key, "rejectedRequests");
+            }
+        }
+    }
+
+    private static class Props {
+        static final Parameter<Long> EVENTS_PER_SECOND =
+                Parameter.longParameter("eventsPerSecond").
+                        withDefault(0L).
+                        withValidator(LongValidators.nonNegative()).
+                        build();
+
+        static final Parameter<Long> BYTES_PER_SECOND =
+                Parameter.longParameter("bytesPerSecond").
+                        withDefault(0L).
+                        withValidator(LongValidators.nonNegative()).
+                        build();
+    }
+}
@@ -0,0 +1,28 @@
+package ru.kontur.vostok.hercules.gate;
+
+import ru.kontur.vostok.hercules.http.HttpServerRequest;
+import ru.kontur.vostok.hercules.throttling.RequestClassifier;
+
+/**
+ * Classify send requests by the stream or by the apiKey for fair throttling.
+ *
+ * @see ru.kontur.vostok.hercules.throttling.FairCapacityThrottle
+ */
+public class SendRequestClassifier implements RequestClassifier<HttpServerRequest> {
+    private final Key key;
+
+    public SendRequestClassifier(Key key) {
+        this.key = key;
+    }
+
+    @Override
+    public String classify(HttpServerRequest request) {
+        String value = (key == Key.STREAM) ? request.getQueryParameter("stream") : request.getHeader("apiKey");
+        return value != null ? value : "";
+    }
+
+    public enum Key {
+        STREAM,
+        API_KEY;
+    }
+}
@@ -4,30 +4,33 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import ru.kontur.vostok.hercules.configuration.Scopes;
-import ru.kontur.vostok.hercules.gate.validation.EventValidator;
 import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.http.ContentEncodings;
 import ru.kontur.vostok.hercules.http.HttpServerRequest;
 import ru.kontur.vostok.hercules.http.HttpStatusCodes;
 import ru.kontur.vostok.hercules.http.header.HeaderUtil;
 import ru.kontur.vostok.hercules.http.header.HttpHeaders;
+import ru.kontur.vostok.hercules.kafka.util.producer.Callback;
+import ru.kontur.vostok.hercules.kafka.util.producer.EventSender;
+import ru.kontur.vostok.hercules.kafka.util.producer.EventValidator;
 import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
 import ru.kontur.vostok.hercules.protocol.decoder.EventReader;
 import ru.kontur.vostok.hercules.protocol.decoder.ReaderIterator;
 import ru.kontur.vostok.hercules.protocol.decoder.exceptions.InvalidDataException;
+import ru.kontur.vostok.hercules.throttling.ThrottledBy;
+import ru.kontur.vostok.hercules.throttling.ThrottledRequestProcessor;
 import ru.kontur.vostok.hercules.util.ByteBufferPool;
 import ru.kontur.vostok.hercules.util.compression.Lz4Decompressor;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
-import ru.kontur.vostok.hercules.util.text.StringUtil;
 import ru.kontur.vostok.hercules.util.time.TimeSource;
 import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Gregory Koshelev
@@ -42,6 +45,8 @@ public class SendRequestProcessor {
                     build();
 
     private final EventSender eventSender;
+    private final SendRateLimiter sendRateLimiter;
+    private final ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor;
     private final TimeSource time;
 
     private final EventValidator eventValidator;
@@ -49,12 +54,27 @@ public class SendRequestProcessor {
 
     private final SendRequestMetrics metrics;
 
-    public SendRequestProcessor(Properties properties, EventSender eventSender, EventValidator eventValidator, MetricsCollector metricsCollector) {
-        this(properties, eventSender, eventValidator, metricsCollector, TimeSource.SYSTEM);
+    public SendRequestProcessor(
+            Properties properties,
+            EventSender eventSender,
+            SendRateLimiter sendRateLimiter,
+            ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor,
+            EventValidator eventValidator,
+            MetricsCollector metricsCollector) {
+        this(properties, eventSender, sendRateLimiter, throttledRequestProcessor, eventValidator, metricsCollector, TimeSource.SYSTEM);
     }
 
-    SendRequestProcessor(Properties properties, EventSender eventSender, EventValidator eventValidator, MetricsCollector metricsCollector, TimeSource time) {
+    SendRequestProcessor(
+            Properties properties,
+            EventSender eventSender,
+            SendRateLimiter sendRateLimiter,
+            ThrottledRequestProcessor<HttpServerRequest> throttledRequestProcessor,
+            EventValidator eventValidator,
+            MetricsCollector metricsCollector,
+            TimeSource time) {
         this.eventSender = eventSender;
+        this.sendRateLimiter = sendRateLimiter;
+        this.throttledRequestProcessor = throttledRequestProcessor;
         this.eventValidator = eventValidator;
         this.time = time;
         this.metrics = new SendRequestMetrics(PropertiesUtil.ofScope(properties, Scopes.METRICS), metricsCollector);
@@ -151,7 +171,7 @@ public class SendRequestProcessor {
         private void sendEvents(ByteBuffer buffer, Callback callback) {
             ReaderIterator<Event> reader;
             try {
-                reader = new ReaderIterator<>(new Decoder(buffer), EventReader.readTags(context.tags()));
+                reader = new ReaderIterator<>(new Decoder(buffer), EventReader.readTagsWithoutCopying(context.tags()));
             } catch (InvalidDataException ex) {
                 tryComplete(HttpStatusCodes.BAD_REQUEST, callback);
                 LOGGER.error("Request is malformed", ex);
@@ -163,67 +183,58 @@ public class SendRequestProcessor {
                 return;
             }
 
-            AtomicInteger pendingEvents = new AtomicInteger(reader.getTotal());
-            AtomicBoolean processed = new AtomicBoolean(false);
             totalEvents = reader.getTotal();
-            sendingEventsStartedAtMs = time.milliseconds();
+            List<Event> events = new ArrayList<>(reader.getTotal());
             while (reader.hasNext()) {
                 Event event;
                 try {
                     event = reader.next();
                     if (!eventValidator.validate(event)) {
-                        if (processed.compareAndSet(false, true)) {
-                            tryComplete(HttpStatusCodes.BAD_REQUEST, callback);
-                        }
+                        tryComplete(HttpStatusCodes.BAD_REQUEST, callback);
                         //TODO: Metrics are coming!
                         LOGGER.warn("Invalid event data");
                         return;
                     }
                 } catch (Exception ex) {
-                    if (processed.compareAndSet(false, true)) {
-                        tryComplete(HttpStatusCodes.BAD_REQUEST, callback);
-                    }
+                    tryComplete(HttpStatusCodes.BAD_REQUEST, callback);
                     LOGGER.error("Exception on validation event", ex);
                     //TODO: Metrics are coming!
                     return;
                 }
                 if (!context.validator().validate(event)) {
                     //TODO: should to log filtered events
-                    if (pendingEvents.decrementAndGet() == 0 && processed.compareAndSet(false, true)) {
+                    continue;
+                }
+                events.add(event);
+            }
+
+            // Events are acquired after validation, thus invalid requests are not counted by the rate limiter
+            if (!sendRateLimiter.tryAcquireEvents(stream(), request.getHeader("apiKey"), reader.getTotal())) {
+                tryThrottle(ThrottledBy.RATE_LIMIT, callback);
+                return;
+            }
+
+            sendingEventsStartedAtMs = time.milliseconds();
+            eventSender.send(
+                    events,
+                    context.stream(),
+                    context.partitions(),
+                    context.shardingKey(),
+                    () -> {
                         if (!isAsync()) {
                             tryComplete(HttpStatusCodes.OK, callback);
                         } else {
                             callback.call();
                         }
-                    }
-                    continue;
-                }
-                eventSender.send(
-                        event,
-                        event.getUuid(),//TODO: Think hard about this!
-                        context.stream(),
-                        context.partitions(),
-                        context.shardingKey(),
-                        () -> {
-                            if (pendingEvents.decrementAndGet() == 0 && processed.compareAndSet(false, true)) {
-                                if (!isAsync()) {
-                                    tryComplete(HttpStatusCodes.OK, callback);
-                                } else {
-                                    callback.call();
-                                }
-                            }
-                        },
-                        () -> {
-                            if (processed.compareAndSet(false, true)) {
-                                if (!isAsync()) {
-                                    tryComplete(HttpStatusCodes.INTERNAL_SERVER_ERROR, callback);
-                                } else {
-                                    callback.call();
-                                }
-                            }
+                    },
+                    () -> {
+                        if (!isAsync()) {
+                            tryComplete(HttpStatusCodes.INTERNAL_SERVER_ERROR, callback);
+                        } else {
+                            callback.call();
                         }
-                );
-            }
+                    }
+            );
             sendingEventsEndedAtMs = time.milliseconds();
             if (isAsync()) {
                 tryComplete(HttpStatusCodes.OK, Callback.empty());
@@ -242,6 +253,26 @@ public class SendRequestProcessor {
             }
         }
 
+        /**
+         * Complete the throttled request using {@link ThrottledRequestProcessor}.
+         *
+         * @param throttledBy the reason of throttling
+         * @param callback    completion callback
+         */
+        public void tryThrottle(ThrottledBy throttledBy, Callback callback) {
+            try {
+                requestCompletionTimestampMs = time.milliseconds();
+                throttledRequestProcessor.process(request, throttledBy);
+            } catch (Exception ex) {
+                LOGGER.error("Error on request completion", ex);
+            } finally {
+                callback.call();
+                metrics.update(this, throttledBy == ThrottledBy.RATE_LIMIT
+                        ? HttpStatusCodes.TOO_MANY_REQUESTS
+                        : HttpStatusCodes.SERVICE_UNAVAILABLE);
+            }
+        }
+
         public boolean isAsync() {
             return context.isAsync();
         }
@@ -284,18 +315,9 @@ public class SendRequestProcessor {
             return buffer;
         }
 
-        private String getProtectedApiKey() {
-            String apiKey = request.getHeader("apiKey");
-            int pos = apiKey.lastIndexOf('_') + 1;
-            if (pos > 0) {
-                return StringUtil.mask(apiKey, '*', pos);
-            }
-            return StringUtil.mask(apiKey, '*', apiKey.length() / 2);
-        }
-
         private void initMDC() {
             MDC.put("stream", stream());
-            MDC.put("apiKey", getProtectedApiKey());
+            MDC.put("apiKey", ApiKeyUtil.mask(request.getHeader("apiKey")));
         }
 
         private void cleanMDC() {
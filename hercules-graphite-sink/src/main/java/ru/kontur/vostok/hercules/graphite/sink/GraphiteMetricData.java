@@ -1,16 +1,30 @@
 package ru.kontur.vostok.hercules.graphite.sink;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Graphite metric data
  */
 public class GraphiteMetricData {
 
     private String metricName;
+    private byte[] metricNameBytes;
     private long metricUnixTime;
     private double metricValue;
 
     public GraphiteMetricData(String metricName, long metricUnixTime, double metricValue) {
+        this(metricName, null, metricUnixTime, metricValue);
+    }
+
+    /**
+     * @param metricName      the metric name
+     * @param metricNameBytes the metric name encoded in US-ASCII or {@code null} if it has not been encoded
+     * @param metricUnixTime  the metric timestamp in seconds
+     * @param metricValue     the metric value
+     */
+    public GraphiteMetricData(String metricName, byte[] metricNameBytes, long metricUnixTime, double metricValue) {
         this.metricName = metricName;
+        this.metricNameBytes = metricNameBytes;
         this.metricUnixTime = metricUnixTime;
         this.metricValue = metricValue;
     }
@@ -19,6 +33,18 @@ public class GraphiteMetricData {
         return metricName;
     }
 
+    /**
+     * Return the metric name encoded in US-ASCII.
+     *
+     * @return the metric name bytes
+     */
+    public byte[] getMetricNameBytes() {
+        if (metricNameBytes == null) {
+            metricNameBytes = metricName.getBytes(StandardCharsets.US_ASCII);
+        }
+        return metricNameBytes;
+    }
+
     public long getMetricUnixTime() {
         return metricUnixTime;
     }
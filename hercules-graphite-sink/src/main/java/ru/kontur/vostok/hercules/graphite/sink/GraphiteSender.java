@@ -4,6 +4,7 @@ import ru.kontur.vostok.hercules.graphite.sink.connection.Channel;
 import ru.kontur.vostok.hercules.graphite.sink.connection.EndpointException;
 import ru.kontur.vostok.hercules.graphite.sink.converter.MetricConverter;
 import ru.kontur.vostok.hercules.graphite.sink.converter.MetricEventConverter;
+import ru.kontur.vostok.hercules.graphite.sink.converter.MetricNameCache;
 import ru.kontur.vostok.hercules.graphite.sink.converter.MetricWithTagsEventConverter;
 import ru.kontur.vostok.hercules.health.AutoMetricStopwatch;
 import ru.kontur.vostok.hercules.health.MetricsCollector;
@@ -14,6 +15,7 @@ import ru.kontur.vostok.hercules.sink.ProcessorStatus;
 import ru.kontur.vostok.hercules.sink.Sender;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
+import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 
 import java.io.IOException;
 import java.util.List;
@@ -41,7 +43,14 @@ public class GraphiteSender extends Sender {
         this.retryLimit = PropertiesUtil.get(Props.RETRY_LIMIT, properties).get();
 
         final boolean graphiteTagsEnable = PropertiesUtil.get(Props.GRAPHITE_TAGS_ENABLE, properties).get();
-        this.metricsConverter = graphiteTagsEnable ? new MetricWithTagsEventConverter() : new MetricEventConverter();
+        if (graphiteTagsEnable) {
+            final boolean cacheEnable = PropertiesUtil.get(Props.GRAPHITE_TAGS_CACHE_ENABLE, properties).get();
+            final int cacheMaxSize = PropertiesUtil.get(Props.GRAPHITE_TAGS_CACHE_MAX_SIZE, properties).get();
+            this.metricsConverter = new MetricWithTagsEventConverter(
+                    cacheEnable ? new MetricNameCache(cacheMaxSize, metricsCollector) : null);
+        } else {
+            this.metricsConverter = new MetricEventConverter();
+        }
 
         this.connector = new GraphiteConnector(PropertiesUtil.ofScope(properties, "graphite.connector"));
 
@@ -68,6 +77,20 @@ public class GraphiteSender extends Sender {
         return metricsToSend.size();
     }
 
+    /**
+     * Graphite sender is thread-safe: each thread leases its own connection to the endpoint,
+     * metric name cache is synchronized and counters are atomic.
+     * <p>
+     * Note, concurrent sends fail if there is no available connection,
+     * thus connection limit per endpoint should not be less than the number of concurrent sends.
+     *
+     * @return {@code true}
+     */
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
     @Override
     protected ProcessorStatus ping() {
         return connector.isReady() ? ProcessorStatus.AVAILABLE : ProcessorStatus.UNAVAILABLE;
@@ -113,5 +136,15 @@ public class GraphiteSender extends Sender {
                         withDefault(false).
                         build();
 
+        static final Parameter<Boolean> GRAPHITE_TAGS_CACHE_ENABLE =
+                Parameter.booleanParameter("graphite.tags.cache.enable").
+                        withDefault(true).
+                        build();
+
+        static final Parameter<Integer> GRAPHITE_TAGS_CACHE_MAX_SIZE =
+                Parameter.integerParameter("graphite.tags.cache.maxSize").
+                        withDefault(100_000).
+                        withValidator(IntegerValidators.positive()).
+                        build();
     }
 }
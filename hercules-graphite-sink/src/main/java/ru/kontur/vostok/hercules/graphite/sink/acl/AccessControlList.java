@@ -5,7 +5,10 @@ import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.protocol.util.ContainerUtil;
 import ru.kontur.vostok.hercules.tags.MetricsTags;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,15 +18,29 @@ import java.util.Optional;
  * If metric name do not fit any of the patterns in the ACL file, then will return {@code acl.defaultStatements}.
  * <p>
  * ACL filter supports {@code *} in the pattern definition, means {@code any value}.<br>
+ * <p>
+ * Entries are compiled into the trie over pattern segments. Plain segments are looked up in the hash map,
+ * whereas segments with {@code *} are matched one by one. Each node knows the first entry in the ACL order
+ * among all entries below it, thus subtrees which cannot change the result are skipped.
+ * Tag values are extracted from the event once.
  *
  * @author Vladimir Tsypaev
  */
 public class AccessControlList {
-    private final List<AccessControlEntry> list;
+    private static final int NO_ENTRY = Integer.MAX_VALUE;
+
+    private final boolean[] permits;
+    private final Node root;
     private final Statement defaultStatement;
 
     public AccessControlList(List<AccessControlEntry> list, Statement defaultStatement) {
-        this.list = list;
+        this.permits = new boolean[list.size()];
+        this.root = new Node();
+        for (int index = 0; index < list.size(); index++) {
+            AccessControlEntry ace = list.get(index);
+            permits[index] = ace.isPermit();
+            root.add(ace.getPattern(), index);
+        }
         this.defaultStatement = defaultStatement;
     }
 
@@ -34,7 +51,7 @@ public class AccessControlList {
      * @return {@code true} if event should pass filter, otherwise {@code false}
      */
     public boolean isPermit(Event event) {
-        if (list.isEmpty()) {
+        if (permits.length == 0) {
             return defaultStatement.isPermit();
         }
 
@@ -44,65 +61,121 @@ public class AccessControlList {
         }
 
         Container[] tagsVector = optionalTagsVector.get();
+        String[] values = new String[tagsVector.length];
+        for (int i = 0; i < tagsVector.length; i++) {
+            values[i] = ContainerUtil.extract(tagsVector[i], MetricsTags.TAG_VALUE_TAG).orElse("null");
+        }
 
-        for (AccessControlEntry ace : list) {
-            PatternSegment[] pattern = ace.getPattern();
+        int index = root.match(values, 0, NO_ENTRY);
+        return index != NO_ENTRY ? permits[index] : defaultStatement.isPermit();
+    }
 
-            if (!matchingIsPossible(tagsVector, pattern)) {
-                continue;
+    /**
+     * Trie node corresponds to the prefix of patterns.
+     */
+    private static class Node {
+        /**
+         * Children by plain segments.
+         */
+        private final Map<String, Node> children = new HashMap<>();
+        /**
+         * Children by segments with {@code *}.
+         */
+        private final List<WildcardChild> wildcardChildren = new ArrayList<>();
+        /**
+         * The first entry which pattern ends at this node.
+         */
+        private int entry = NO_ENTRY;
+        /**
+         * The first entry which pattern ends at this node with {@code *}.
+         * Such entry matches the metric name with at least one more segment.
+         */
+        private int tailEntry = NO_ENTRY;
+        /**
+         * The first entry among all entries at this node and below.
+         */
+        private int minEntry = NO_ENTRY;
+
+        void add(PatternSegment[] pattern, int index) {
+            Node node = this;
+            for (int i = 0; i < pattern.length; i++) {
+                node.minEntry = Math.min(node.minEntry, index);
+
+                PatternSegment segment = pattern[i];
+                if (i == pattern.length - 1 && segment.isStar()) {
+                    node.tailEntry = Math.min(node.tailEntry, index);
+                    return;
+                }
+                node = segment.containsStar()
+                        ? node.wildcardChild(segment)
+                        : node.children.computeIfAbsent(segment.getSegment(), k -> new Node());
+            }
+            node.minEntry = Math.min(node.minEntry, index);
+            node.entry = Math.min(node.entry, index);
+        }
+
+        /**
+         * Find the first entry which pattern matches values starting from the position.
+         *
+         * @param values metric name segments
+         * @param position the position of the current segment
+         * @param best the first matched entry so far
+         * @return the first matched entry if it precedes {@code best}, otherwise {@code best}
+         */
+        int match(String[] values, int position, int best) {
+            if (minEntry >= best) {
+                return best;
             }
 
-            for (int i = 0; i < tagsVector.length; i++) {
-                String value = ContainerUtil.extract(tagsVector[i], MetricsTags.TAG_VALUE_TAG).orElse("null");
-                PatternSegment patternSegment = pattern[i];
+            int remaining = values.length - position;
+            if (remaining == 0) {
+                return Math.min(best, entry);
+            }
+            best = Math.min(best, tailEntry);
 
-                if (matches(value, patternSegment)) {
-                    if (pattern.length == i + 1) {
-                        return ace.isPermit();
-                    }
-                } else {
-                    break;
+            String value = values[position];
+            Node child = children.get(value);
+            if (child != null) {
+                best = child.match(values, position + 1, best);
+            }
+            for (WildcardChild wildcardChild : wildcardChildren) {
+                if (wildcardChild.node.minEntry < best && matches(value, wildcardChild.segment)) {
+                    best = wildcardChild.node.match(values, position + 1, best);
                 }
             }
+            return best;
         }
-        return defaultStatement.isPermit();
-    }
 
-    /**
-     * Checks that value can matches the pattern
-     *
-     * @param tagsVector array of metric name segments
-     * @param pattern array with pattern segments
-     * @return {@code true} if matching is possible, otherwise {@code false}
-     */
-    private boolean matchingIsPossible(Container[] tagsVector, PatternSegment[] pattern) {
-        if (pattern[pattern.length - 1].isStar()) {
-            return tagsVector.length >= pattern.length;
+        private Node wildcardChild(PatternSegment segment) {
+            for (WildcardChild wildcardChild : wildcardChildren) {
+                if (wildcardChild.segment.getSegment().equals(segment.getSegment())) {
+                    return wildcardChild.node;
+                }
+            }
+            WildcardChild wildcardChild = new WildcardChild(segment, new Node());
+            wildcardChildren.add(wildcardChild);
+            return wildcardChild.node;
         }
-        return tagsVector.length == pattern.length;
     }
 
-    /**
-     * Checks that pattern segment matches the value
-     *
-     * @param value metric name segment
-     * @param segment pattern segment
-     * @return {@code true} if it matches, otherwise {@code false}
-     */
-    private static boolean matches(String value, PatternSegment segment) {
-        return (segment.containsStar())
-                ? starMatches(value, segment)
-                : segment.getSegment().equals(value);
+    private static class WildcardChild {
+        private final PatternSegment segment;
+        private final Node node;
+
+        WildcardChild(PatternSegment segment, Node node) {
+            this.segment = segment;
+            this.node = node;
+        }
     }
 
     /**
-     * Checks the pattern segment which contains star matches the value
+     * Checks that pattern segment which contains star matches the value
      *
      * @param value metric name segment
      * @param segment pattern segment
      * @return {@code true} if it matches, otherwise {@code false}
      */
-    private static boolean starMatches(String value, PatternSegment segment) {
+    private static boolean matches(String value, PatternSegment segment) {
         if (segment.isStar()) {
             return true;
         }
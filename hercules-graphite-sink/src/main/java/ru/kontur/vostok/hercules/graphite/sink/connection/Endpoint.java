@@ -5,16 +5,14 @@ import org.slf4j.LoggerFactory;
 import ru.kontur.vostok.hercules.graphite.sink.GraphiteMetricData;
 import ru.kontur.vostok.hercules.util.time.TimeSource;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.net.InetSocketAddress;
-import java.net.Proxy;
-import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.util.List;
-import java.util.Locale;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -33,6 +31,8 @@ public class Endpoint {
     private final InetSocketAddress address;
     private final int connectionLimit;
     private final int socketTimeoutMs;
+    private final long sendTimeoutMs;
+    private final int bufferSize;
     private final TimeSource time;
 
     private final ConcurrentLinkedQueue<Connection> connections = new ConcurrentLinkedQueue<>();
@@ -45,10 +45,14 @@ public class Endpoint {
             InetSocketAddress address,
             int connectionLimit,
             int socketTimeoutMs,
+            long sendTimeoutMs,
+            int bufferSize,
             TimeSource time) {
         this.address = address;
         this.connectionLimit = connectionLimit;
         this.socketTimeoutMs = socketTimeoutMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.bufferSize = bufferSize;
         this.time = time;
 
         this.frozen = false;
@@ -152,45 +156,62 @@ public class Endpoint {
     /**
      * An internal connection to the endpoint.
      * <p>
-     * A connection wraps {@link Socket}.
+     * A connection wraps non-blocking {@link SocketChannel} and the {@link ByteBuffer buffer}.
+     * The buffer lives as long as the connection, thus it is allocated directly rather than taken from the pool.
+     * Metrics are encoded into the buffer, which is written to the channel as soon as it is full.
+     * Encoding of following metrics is pipelined with sending of previous ones,
+     * since a connection waits for the channel only if there is no space in the buffer.
      */
     class Connection {
-        private final Socket socket;
-        private final Writer writer;
+        private final SocketChannel channel;
+        private final Selector selector;
+        private final ByteBuffer buffer;
         private boolean broken;
 
         private Connection() throws IOException {
-            this.socket = new Socket(Proxy.NO_PROXY);
-            // There is no reason to call #setSoTimeout since SO_TIMEOUT is only used on read from socket.
-            socket.connect(address, socketTimeoutMs);
-            socket.setKeepAlive(true);
-
-            this.writer =
-                    new BufferedWriter(
-                            new OutputStreamWriter(
-                                    socket.getOutputStream(),
-                                    StandardCharsets.US_ASCII));
+            this.channel = SocketChannel.open();
+            Selector selector = null;
+            try {
+                // There is no reason to set SO_TIMEOUT since it is only used on read from socket.
+                channel.socket().connect(address, socketTimeoutMs);
+                channel.socket().setKeepAlive(true);
+                channel.configureBlocking(false);
+
+                selector = Selector.open();
+                channel.register(selector, SelectionKey.OP_WRITE);
+            } catch (IOException | RuntimeException ex) {
+                if (selector != null) {
+                    closeSelector(selector);
+                }
+                channel.close();
+                throw ex;
+            }
+            this.selector = selector;
+
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
             this.broken = false;
         }
 
         /**
          * Send metrics to the endpoint via the connection.
+         * <p>
+         * The metric is skipped if it cannot be encoded into the empty buffer.
          *
          * @param metrics metrics to send
-         * @throws IOException in case of I/O errors
+         * @throws IOException in case of I/O errors or if sending has been timed out
          */
         public void send(List<GraphiteMetricData> metrics) throws IOException {
             try {
                 for (GraphiteMetricData metric : metrics) {
-                    writer.write(
-                            String.format(
-                                    Locale.ENGLISH,
-                                    "%s %f %d\n",
-                                    metric.getMetricName(),
-                                    metric.getMetricValue(),
-                                    metric.getMetricUnixTime()));
+                    while (!GraphiteMetricEncoder.encode(metric, buffer)) {
+                        if (buffer.position() == 0) {
+                            LOGGER.warn("Skip too long metric with name length " + metric.getMetricNameBytes().length);
+                            break;
+                        }
+                        flush(false);
+                    }
                 }
-                writer.flush();
+                flush(true);
             } catch (Exception ex) {
                 broken = true;
                 throw ex;
@@ -201,28 +222,17 @@ public class Endpoint {
          * Release the connection.
          */
         public void release() {
-            try {
-                writer.flush();
-            } catch (IOException ex) {
-                broken = true;
-                LOGGER.warn("Got I/O exception", ex);
-            } finally {
-                releaseConnection(this);
-            }
+            releaseConnection(this);
         }
 
         /**
          * Close the connection.
          */
         public void close() {
-            try {
-                writer.flush();
-            } catch (IOException ex) {
-                LOGGER.warn("Got I/O exception", ex);
-            }
+            closeSelector(selector);
 
             try {
-                socket.close();
+                channel.close();
             } catch (IOException ex) {
                 LOGGER.warn("Closing socket failed with exception", ex);
             }
@@ -238,5 +248,48 @@ public class Endpoint {
         public boolean isBroken() {
             return broken;
         }
+
+        /**
+         * Write encoded metrics from the buffer to the channel.
+         * <p>
+         * If {@code fully} is {@code false}, then return as soon as any bytes have been written.
+         * Thus, there is a room in the buffer to encode following metrics.
+         *
+         * @param fully write all the encoded metrics
+         * @throws IOException in case of I/O errors or if the channel is not writable during the send timeout
+         */
+        private void flush(boolean fully) throws IOException {
+            buffer.flip();
+            try {
+                long deadlineMs = time.milliseconds() + sendTimeoutMs;
+                while (buffer.hasRemaining()) {
+                    if (channel.write(buffer) > 0) {
+                        if (!fully) {
+                            return;
+                        }
+                        continue;
+                    }
+                    awaitWritable(deadlineMs);
+                }
+            } finally {
+                buffer.compact();
+            }
+        }
+
+        private void closeSelector(Selector selector) {
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                LOGGER.warn("Closing selector failed with exception", ex);
+            }
+        }
+
+        private void awaitWritable(long deadlineMs) throws IOException {
+            long timeoutMs = deadlineMs - time.milliseconds();
+            if (timeoutMs <= 0 || selector.select(timeoutMs) == 0) {
+                throw new SocketTimeoutException("Sending to " + address + " has been timed out");
+            }
+            selector.selectedKeys().clear();
+        }
     }
 }
@@ -30,6 +30,8 @@ public class EndpointPool {
 
         int connectionLimitPerEndpoint = PropertiesUtil.get(Props.CONNECTION_LIMIT_PER_ENDPOINT, properties).get();
         int socketTimeoutMs = PropertiesUtil.get(Props.SOCKET_TIMEOUT_MS, properties).get();
+        long sendTimeoutMs = PropertiesUtil.get(Props.SEND_TIMEOUT_MS, properties).get();
+        int bufferSize = PropertiesUtil.get(Props.BUFFER_SIZE, properties).get();
         Endpoint[] endpoints =
                 Stream.of(PropertiesUtil.get(Props.ENDPOINTS, properties).orEmpty(new String[0])).
                         map(hostAndPort ->
@@ -37,6 +39,8 @@ public class EndpointPool {
                                         InetSocketAddressUtil.fromString(hostAndPort, 2003),
                                         connectionLimitPerEndpoint,
                                         socketTimeoutMs,
+                                        sendTimeoutMs,
+                                        bufferSize,
                                         time)).
                         toArray(Endpoint[]::new);
         this.topology = new ThreadLocalTopology<>(endpoints);
@@ -114,6 +118,18 @@ public class EndpointPool {
                         withValidator(IntegerValidators.nonNegative()).
                         build();
 
+        static final Parameter<Long> SEND_TIMEOUT_MS =
+                Parameter.longParameter("send.timeout.ms").
+                        withDefault(10_000L).
+                        withValidator(LongValidators.positive()).
+                        build();
+
+        static final Parameter<Integer> BUFFER_SIZE =
+                Parameter.integerParameter("buffer.size").
+                        withDefault(65_536).
+                        withValidator(IntegerValidators.positive()).
+                        build();
+
         static final Parameter<String[]> ENDPOINTS =
                 Parameter.stringArrayParameter("endpoints").
                         build();
@@ -0,0 +1,129 @@
+package ru.kontur.vostok.hercules.graphite.sink.connection;
+
+import ru.kontur.vostok.hercules.graphite.sink.GraphiteMetricData;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes metrics into the Graphite plaintext protocol: {@code <metric name> <value> <timestamp>\n}.
+ * <p>
+ * Metrics are encoded directly into the byte buffer without intermediate strings.
+ * The value is formatted with exactly 6 digits after the decimal point as {@code %f} does.
+ * Values which absolute value is not less than {@code 10^9}, {@code NaN} and infinities are formatted
+ * using {@link Double#toString(double)}, since the scaled value loses precision.
+ * <p>
+ * Metric name is encoded in US-ASCII, non ASCII chars are replaced with {@code ?}.
+ */
+final class GraphiteMetricEncoder {
+    /**
+     * Max length of the encoded value and the timestamp including separators.
+     * <ul>
+     *     <li>{@code 1} for the space,</li>
+     *     <li>{@code 24} for the value (the longest {@link Double#toString(double)} is {@code -4.9E-324} like values),</li>
+     *     <li>{@code 1} for the space,</li>
+     *     <li>{@code 20} for the timestamp,</li>
+     *     <li>{@code 1} for the line feed.</li>
+     * </ul>
+     */
+    private static final int MAX_SUFFIX_LENGTH = 1 + 24 + 1 + 20 + 1;
+
+    private static final double MAX_FAST_VALUE = 1e9;
+    private static final long SCALE = 1_000_000L;
+    private static final int FRACTION_DIGITS = 6;
+
+    /**
+     * Encode the metric into the buffer.
+     * <p>
+     * The metric is encoded only if there is enough space in the buffer for it. Otherwise, the buffer is not changed.
+     *
+     * @param metric the metric
+     * @param buffer the buffer
+     * @return {@code true} if the metric has been encoded, otherwise {@code false}
+     */
+    static boolean encode(GraphiteMetricData metric, ByteBuffer buffer) {
+        byte[] metricName = metric.getMetricNameBytes();
+        if (buffer.remaining() < maxLength(metricName)) {
+            return false;
+        }
+
+        buffer.put(metricName);
+        buffer.put((byte) ' ');
+        encodeDouble(metric.getMetricValue(), buffer);
+        buffer.put((byte) ' ');
+        encodeLong(metric.getMetricUnixTime(), buffer);
+        buffer.put((byte) '\n');
+        return true;
+    }
+
+    /**
+     * Return the upper bound of the encoded metric length.
+     *
+     * @param metricName the metric name bytes
+     * @return the max length in bytes
+     */
+    static int maxLength(byte[] metricName) {
+        return metricName.length + MAX_SUFFIX_LENGTH;
+    }
+
+    static void encodeDouble(double value, ByteBuffer buffer) {
+        double absValue = Math.abs(value);
+        if (!(absValue < MAX_FAST_VALUE)) {// Also true for NaN
+            encodeAscii(Double.toString(value), buffer);
+            return;
+        }
+
+        long scaled = Math.round(absValue * SCALE);
+        if (value < 0) {
+            buffer.put((byte) '-');
+        }
+        encodeLong(scaled / SCALE, buffer);
+        buffer.put((byte) '.');
+
+        long fraction = scaled % SCALE;
+        int position = buffer.position();
+        for (int i = FRACTION_DIGITS - 1; i >= 0; i--) {
+            buffer.put(position + i, (byte) ('0' + fraction % 10));
+            fraction /= 10;
+        }
+        buffer.position(position + FRACTION_DIGITS);
+    }
+
+    static void encodeLong(long value, ByteBuffer buffer) {
+        if (value == Long.MIN_VALUE) {
+            encodeAscii(Long.toString(value), buffer);
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+
+        int digits = digits(value);
+        int position = buffer.position();
+        for (int i = digits - 1; i >= 0; i--) {
+            buffer.put(position + i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(position + digits);
+    }
+
+    private static void encodeAscii(String value, ByteBuffer buffer) {
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private GraphiteMetricEncoder() {
+        /* static class */
+    }
+}
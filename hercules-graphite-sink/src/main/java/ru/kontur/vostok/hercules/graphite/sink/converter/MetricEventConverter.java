@@ -26,7 +26,7 @@ public class MetricEventConverter implements MetricConverter {
                 .collect(Collectors.joining("."));
 
         long timestamp = TimeUtil.unixTicksToUnixTime(event.getTimestamp());
-        double value = ContainerUtil.extract(event.getPayload(), MetricsTags.METRIC_VALUE_TAG).get();
+        double value = event.getPayload().get(MetricsTags.METRIC_VALUE_TAG.getName()).getDouble();
         return new GraphiteMetricData(name, timestamp, value);
     }
 }
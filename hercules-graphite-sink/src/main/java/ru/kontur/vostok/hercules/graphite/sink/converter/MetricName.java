@@ -0,0 +1,24 @@
+package ru.kontur.vostok.hercules.graphite.sink.converter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sanitized metric name and its US-ASCII encoded bytes.
+ */
+public final class MetricName {
+    private final String name;
+    private final byte[] bytes;
+
+    public MetricName(String name) {
+        this.name = name;
+        this.bytes = name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+}
@@ -0,0 +1,189 @@
+package ru.kontur.vostok.hercules.graphite.sink.converter;
+
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.protocol.Container;
+import ru.kontur.vostok.hercules.protocol.Type;
+import ru.kontur.vostok.hercules.protocol.Variant;
+import ru.kontur.vostok.hercules.tags.MetricsTags;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of metric names by the raw tags vector.
+ * <p>
+ * The cache key consists of raw bytes of keys and values of tags. Thus, a cache hit requires neither
+ * extraction of strings from tags nor sanitizing of them.
+ * <p>
+ * The cache is split into segments to reduce contention between threads.
+ * Each segment evicts the least recently used metric name when its size is exceeded.
+ * <p>
+ * Tags vector is not cached if any key or value of tags is not a string.
+ */
+public class MetricNameCache {
+    private static final int SEGMENT_COUNT = 16;
+    private static final int NULL_LENGTH = -1;
+
+    private final Segment[] segments;
+
+    private final Meter hitsMeter;
+    private final Meter missesMeter;
+
+    /**
+     * @param maxSize          maximum count of cached metric names
+     * @param metricsCollector metrics collector
+     */
+    public MetricNameCache(int maxSize, MetricsCollector metricsCollector) {
+        int segmentSize = Math.max(1, maxSize / SEGMENT_COUNT);
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentSize);
+        }
+
+        this.hitsMeter = metricsCollector.meter("metricNameCacheHits");
+        this.missesMeter = metricsCollector.meter("metricNameCacheMisses");
+        metricsCollector.gauge("metricNameCacheSize", this::size);
+    }
+
+    /**
+     * Get the metric name from the cache or build it if it is absent.
+     *
+     * @param tagsVector the tags vector
+     * @param builder    builds the metric name from the tags vector
+     * @return the metric name
+     */
+    public MetricName get(Container[] tagsVector, Function<Container[], MetricName> builder) {
+        TagsKey key = TagsKey.of(tagsVector);
+        if (key == null) {
+            missesMeter.mark();
+            return builder.apply(tagsVector);
+        }
+
+        Segment segment = segments[(key.hash & 0x7FFFFFFF) % SEGMENT_COUNT];
+        MetricName name;
+        synchronized (segment) {
+            name = segment.get(key);
+        }
+        if (name != null) {
+            hitsMeter.mark();
+            return name;
+        }
+
+        missesMeter.mark();
+        name = builder.apply(tagsVector);
+        synchronized (segment) {
+            segment.put(key, name);
+        }
+        return name;
+    }
+
+    /**
+     * Return the count of cached metric names.
+     *
+     * @return the cache size
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private static class Segment extends LinkedHashMap<TagsKey, MetricName> {
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TagsKey, MetricName> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * Raw bytes of keys and values of tags. Each key and value is prefixed with its length.
+     */
+    private static final class TagsKey {
+        private final byte[] bytes;
+        private final int hash;
+
+        private TagsKey(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        /**
+         * Build the key from the tags vector.
+         *
+         * @param tagsVector the tags vector
+         * @return the key or {@code null} if the tags vector cannot be cached
+         */
+        static TagsKey of(Container[] tagsVector) {
+            int size = 0;
+            for (Container tag : tagsVector) {
+                Variant key = tag.get(MetricsTags.TAG_KEY_TAG.getName());
+                Variant value = tag.get(MetricsTags.TAG_VALUE_TAG.getName());
+                if (!isStringOrNull(key) || !isStringOrNull(value)) {
+                    return null;
+                }
+                size += sizeOf(key) + sizeOf(value);
+            }
+
+            byte[] bytes = new byte[size];
+            int offset = 0;
+            for (Container tag : tagsVector) {
+                offset = write(tag.get(MetricsTags.TAG_KEY_TAG.getName()), bytes, offset);
+                offset = write(tag.get(MetricsTags.TAG_VALUE_TAG.getName()), bytes, offset);
+            }
+            return new TagsKey(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TagsKey)) {
+                return false;
+            }
+            TagsKey other = (TagsKey) obj;
+            return hash == other.hash && Arrays.equals(bytes, other.bytes);
+        }
+
+        private static boolean isStringOrNull(Variant variant) {
+            return variant == null || variant.getType() == Type.STRING;
+        }
+
+        private static int sizeOf(Variant variant) {
+            return variant != null ? 4 + ((byte[]) variant.getValue()).length : 4;
+        }
+
+        private static int write(Variant variant, byte[] bytes, int offset) {
+            byte[] value = variant != null ? (byte[]) variant.getValue() : null;
+            int length = value != null ? value.length : NULL_LENGTH;
+            bytes[offset++] = (byte) (length >>> 24);
+            bytes[offset++] = (byte) (length >>> 16);
+            bytes[offset++] = (byte) (length >>> 8);
+            bytes[offset++] = (byte) length;
+            if (value != null) {
+                System.arraycopy(value, 0, bytes, offset, value.length);
+                offset += value.length;
+            }
+            return offset;
+        }
+    }
+}
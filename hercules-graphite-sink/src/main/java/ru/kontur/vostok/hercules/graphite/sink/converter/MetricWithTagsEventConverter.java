@@ -12,18 +12,42 @@ import ru.kontur.vostok.hercules.util.time.TimeUtil;
  * Metric with tags event converter is used to convert Hercules event to Graphite metric data.
  * Metric name will be composed of tag which key value is "_name"
  * and set of other tags in format: "key=value", ​​separated by ";" symbol.
+ * <p>
+ * Metric names are cached by the tags vector if the cache is provided, since the same series repeats in each event.
  *
  * @author Vladimir Tsypaev
  */
 public class MetricWithTagsEventConverter implements MetricConverter {
+    private final MetricNameCache cache;
+
+    public MetricWithTagsEventConverter() {
+        this(null);
+    }
+
+    /**
+     * @param cache the metric name cache or {@code null} if metric names should not be cached
+     */
+    public MetricWithTagsEventConverter(MetricNameCache cache) {
+        this.cache = cache;
+    }
 
     @Override
     public GraphiteMetricData convert(Event event) {
+        Container[] tagsVector = ContainerUtil.extract(event.getPayload(), MetricsTags.TAGS_VECTOR_TAG).get();
+        MetricName name = cache != null
+                ? cache.get(tagsVector, MetricWithTagsEventConverter::buildMetricName)
+                : buildMetricName(tagsVector);
+
+        long timestamp = TimeUtil.unixTicksToUnixTime(event.getTimestamp());
+        double value = event.getPayload().get(MetricsTags.METRIC_VALUE_TAG.getName()).getDouble();
+        return new GraphiteMetricData(name.name(), name.bytes(), timestamp, value);
+    }
+
+    private static MetricName buildMetricName(Container[] tagsVector) {
         String metricName = "unknown";
         boolean isProjectTagAdded = false;
         boolean isSubprojectTagAdded = false;
         StringBuilder tags = new StringBuilder();
-        Container[] tagsVector = ContainerUtil.extract(event.getPayload(), MetricsTags.TAGS_VECTOR_TAG).get();
         for (Container tag : tagsVector) {
             String key = GraphiteMetricsUtil.sanitizeMetricName(
                     ContainerUtil.extract(tag, MetricsTags.TAG_KEY_TAG).orElse("null"));
@@ -49,9 +73,6 @@ public class MetricWithTagsEventConverter implements MetricConverter {
             tags.append(";subproject=null");
         }
 
-        String name = metricName + tags;
-        long timestamp = TimeUtil.unixTicksToUnixTime(event.getTimestamp());
-        double value = ContainerUtil.extract(event.getPayload(), MetricsTags.METRIC_VALUE_TAG).get();
-        return new GraphiteMetricData(name, timestamp, value);
+        return new MetricName(metricName + tags);
     }
 }
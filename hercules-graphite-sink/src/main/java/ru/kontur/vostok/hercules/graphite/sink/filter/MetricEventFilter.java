@@ -2,6 +2,8 @@ package ru.kontur.vostok.hercules.graphite.sink.filter;
 
 import ru.kontur.vostok.hercules.protocol.Container;
 import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.Type;
+import ru.kontur.vostok.hercules.protocol.Variant;
 import ru.kontur.vostok.hercules.protocol.util.ContainerUtil;
 import ru.kontur.vostok.hercules.sink.filter.EventFilter;
 import ru.kontur.vostok.hercules.tags.MetricsTags;
@@ -29,8 +31,8 @@ public class MetricEventFilter extends EventFilter {
             return false;
         }
 
-        Optional<Double> metricValue = ContainerUtil.extract(event.getPayload(), MetricsTags.METRIC_VALUE_TAG);
-        if (!metricValue.isPresent() || !Double.isFinite(metricValue.get())) {
+        Variant metricValue = event.getPayload().get(MetricsTags.METRIC_VALUE_TAG.getName());
+        if (metricValue == null || metricValue.getType() != Type.DOUBLE || !Double.isFinite(metricValue.getDouble())) {
             return false;
         }
 
@@ -0,0 +1,154 @@
+package ru.kontur.vostok.hercules.graphite.sink;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.health.Timer;
+import ru.kontur.vostok.hercules.protocol.Container;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.EventBuilder;
+import ru.kontur.vostok.hercules.protocol.Variant;
+import ru.kontur.vostok.hercules.protocol.Vector;
+import ru.kontur.vostok.hercules.sink.ProcessorResult;
+import ru.kontur.vostok.hercules.tags.MetricsTags;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class GraphiteSenderTest {
+    private static final int THREADS = 4;
+    private static final int BATCHES_PER_THREAD = 50;
+    private static final int BATCH_SIZE = 10;
+    private static final int METRIC_NAMES = 20;
+
+    /**
+     * Concurrent batches should be sent completely via separate connections and share the metric name cache.
+     */
+    @Test
+    public void shouldSendConcurrently() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            Map<String, AtomicInteger> received = new ConcurrentHashMap<>();
+            List<Thread> readers = new CopyOnWriteArrayList<>();
+            Thread acceptor = new Thread(() -> {
+                while (true) {
+                    Socket socket;
+                    try {
+                        socket = server.accept();
+                    } catch (IOException ex) {
+                        return;
+                    }
+                    Thread reader = new Thread(() -> read(socket, received));
+                    readers.add(reader);
+                    reader.start();
+                }
+            });
+            acceptor.start();
+
+            GraphiteSender sender = new GraphiteSender(properties(server.getLocalPort()), metricsCollector());
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<List<ProcessorResult>>> futures = new ArrayList<>();
+                for (int thread = 0; thread < THREADS; thread++) {
+                    futures.add(executor.submit(() -> {
+                        List<ProcessorResult> results = new ArrayList<>();
+                        for (int batch = 0; batch < BATCHES_PER_THREAD; batch++) {
+                            results.add(sender.process(batch(batch)));
+                        }
+                        return results;
+                    }));
+                }
+                for (Future<List<ProcessorResult>> future : futures) {
+                    for (ProcessorResult result : future.get(30, TimeUnit.SECONDS)) {
+                        Assert.assertTrue(result.isSuccess());
+                        Assert.assertEquals(BATCH_SIZE, result.getProcessedEvents());
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+                sender.stop(1_000, TimeUnit.MILLISECONDS);
+            }
+
+            for (Thread reader : readers) {
+                reader.join(10_000);
+            }
+            server.close();
+            acceptor.join(10_000);
+
+            Assert.assertEquals(METRIC_NAMES, received.size());
+            int expectedPerName = THREADS * BATCHES_PER_THREAD * BATCH_SIZE / METRIC_NAMES;
+            for (AtomicInteger count : received.values()) {
+                Assert.assertEquals(expectedPerName, count.get());
+            }
+        }
+    }
+
+    private static void read(Socket socket, Map<String, AtomicInteger> received) {
+        try (Socket s = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String name = line.substring(0, line.indexOf(' '));
+                received.computeIfAbsent(name, k -> new AtomicInteger()).incrementAndGet();
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static List<Event> batch(int batch) {
+        List<Event> events = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            events.add(event("metric" + (batch * BATCH_SIZE + i) % METRIC_NAMES));
+        }
+        return events;
+    }
+
+    private static Event event(String name) {
+        Container[] tagsVector = new Container[]{
+                Container.builder()
+                        .tag(MetricsTags.TAG_KEY_TAG.getName(), Variant.ofString("_name"))
+                        .tag(MetricsTags.TAG_VALUE_TAG.getName(), Variant.ofString(name))
+                        .build()
+        };
+        return EventBuilder.create(0, UUID.randomUUID())
+                .tag(MetricsTags.METRIC_VALUE_TAG.getName(), Variant.ofDouble(0.5))
+                .tag(MetricsTags.TAGS_VECTOR_TAG.getName(), Variant.ofVector(Vector.ofContainers(tagsVector)))
+                .build();
+    }
+
+    private static Properties properties(int port) {
+        Properties properties = new Properties();
+        properties.setProperty("graphite.tags.enable", "true");
+        properties.setProperty("graphite.connector.local.endpoints", "127.0.0.1:" + port);
+        properties.setProperty("graphite.connector.local.connection.limit.per.endpoint", String.valueOf(THREADS));
+        return properties;
+    }
+
+    private static MetricsCollector metricsCollector() {
+        MetricsCollector metricsCollector = mock(MetricsCollector.class);
+        when(metricsCollector.meter(anyString())).thenReturn(mock(Meter.class));
+        when(metricsCollector.timer(anyString())).thenReturn(mock(Timer.class));
+        return metricsCollector;
+    }
+}
@@ -0,0 +1,104 @@
+package ru.kontur.vostok.hercules.graphite.sink.acl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.kontur.vostok.hercules.protocol.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compiled {@link AccessControlList} with the linear one.
+ * <p>
+ * Run {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessControlListBenchmark {
+    private static final int EVENT_COUNT = 1024;
+
+    @Param({"10", "100", "1000"})
+    private int entries;
+
+    private AccessControlList acl;
+    private LinearAccessControlList linearAcl;
+    private Event[] events;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        List<AccessControlEntry> list = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            String project = "project_" + random.nextInt(entries);
+            String pattern;
+            switch (random.nextInt(4)) {
+                case 0:
+                    pattern = project + ".*";
+                    break;
+                case 1:
+                    pattern = project + ".env_" + random.nextInt(4) + ".*";
+                    break;
+                case 2:
+                    pattern = project + ".*.app_" + random.nextInt(16) + "*";
+                    break;
+                default:
+                    pattern = "*." + project + ".*_total";
+                    break;
+            }
+            list.add(new AccessControlEntry((random.nextBoolean() ? "PERMIT " : "DENY ") + pattern));
+        }
+        acl = new AccessControlList(list, Statement.DENY);
+        linearAcl = new LinearAccessControlList(list, Statement.DENY);
+
+        events = new Event[EVENT_COUNT];
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            events[i] = AccessControlListTest.createMetricEvent(
+                    "project_" + random.nextInt(entries * 2),
+                    "env_" + random.nextInt(4),
+                    "app_" + random.nextInt(32),
+                    "requests_total");
+        }
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return acl.isPermit(nextEvent());
+    }
+
+    @Benchmark
+    public boolean linear() {
+        return linearAcl.isPermit(nextEvent());
+    }
+
+    private Event nextEvent() {
+        return events[next++ & (EVENT_COUNT - 1)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AccessControlListBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -11,6 +11,7 @@ import ru.kontur.vostok.hercules.tags.MetricsTags;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 
 /**
@@ -191,6 +192,55 @@ public class AccessControlListTest {
                 acl.isPermit(event));
     }
 
+    @Test
+    public void shouldBeEquivalentToLinearAcl() {
+        Random random = new Random(42);
+        String[] patternSegments = {"a", "b", "ab", "*", "a*", "*b", "a*b"};
+        String[] valueSegments = {"a", "b", "ab", "ba", "aab", "abb"};
+
+        for (int i = 0; i < 100; i++) {
+            List<AccessControlEntry> list = new ArrayList<>();
+            for (int j = 0; j < 20; j++) {
+                String statement = random.nextBoolean() ? "PERMIT " : "DENY ";
+                list.add(new AccessControlEntry(statement + randomPath(random, patternSegments, 4)));
+            }
+            Statement defaultStatement = random.nextBoolean() ? Statement.PERMIT : Statement.DENY;
+            AccessControlList acl = new AccessControlList(list, defaultStatement);
+            LinearAccessControlList linearAcl = new LinearAccessControlList(list, defaultStatement);
+
+            for (int j = 0; j < 100; j++) {
+                Event event = createMetricEvent(randomPath(random, valueSegments, 5).split("\\."));
+                Assert.assertEquals(linearAcl.isPermit(event), acl.isPermit(event));
+            }
+        }
+    }
+
+    private static String randomPath(Random random, String[] segments, int maxLength) {
+        int length = 1 + random.nextInt(maxLength);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                sb.append('.');
+            }
+            sb.append(segments[random.nextInt(segments.length)]);
+        }
+        return sb.toString();
+    }
+
+    static Event createMetricEvent(String... values) {
+        Container[] tags = new Container[values.length];
+        for (int i = 0; i < values.length; i++) {
+            tags[i] = Container.builder()
+                    .tag(MetricsTags.TAG_KEY_TAG.getName(), Variant.ofString("key_" + i))
+                    .tag(MetricsTags.TAG_VALUE_TAG.getName(), Variant.ofString(values[i]))
+                    .build();
+        }
+        return EventBuilder.create(0, UUID.randomUUID())
+                .tag(MetricsTags.TAGS_VECTOR_TAG.getName(), Variant.ofVector(Vector.ofContainers(tags)))
+                .tag(MetricsTags.METRIC_VALUE_TAG.getName(), Variant.ofDouble(1.5d))
+                .build();
+    }
+
     private Event createMetricEvent() {
         return EventBuilder.create(0, UUID.randomUUID())
                 .tag(MetricsTags.TAGS_VECTOR_TAG.getName(), Variant.ofVector(Vector.ofContainers(
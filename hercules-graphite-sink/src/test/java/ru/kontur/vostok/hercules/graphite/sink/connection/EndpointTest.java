@@ -1,11 +1,26 @@
 package ru.kontur.vostok.hercules.graphite.sink.connection;
 
 import org.junit.Test;
+import ru.kontur.vostok.hercules.graphite.sink.GraphiteMetricData;
 import ru.kontur.vostok.hercules.util.net.InetSocketAddressUtil;
 import ru.kontur.vostok.hercules.util.time.MockTimeSource;
 import ru.kontur.vostok.hercules.util.time.TimeSource;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 /**
@@ -20,6 +35,8 @@ public class EndpointTest {
                         InetSocketAddressUtil.fromString("127.0.0.1", 2003),
                         3,
                         2_000,
+                        10_000,
+                        65_536,
                         time);
 
         assertEquals(0, endpoint.leasedConnections());
@@ -34,4 +51,47 @@ public class EndpointTest {
         assertNull(endpoint.channel());
         assertEquals(0, endpoint.leasedConnections());
     }
+
+    @Test
+    public void shouldSendMetricsLargerThanBuffer() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            CompletableFuture<String> received = CompletableFuture.supplyAsync(() -> {
+                try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    byte[] bytes = new byte[1024];
+                    int read;
+                    while ((read = in.read(bytes)) != -1) {
+                        out.write(bytes, 0, read);
+                    }
+                    return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            });
+
+            Endpoint endpoint =
+                    new Endpoint(
+                            new InetSocketAddress("127.0.0.1", server.getLocalPort()),
+                            1,
+                            2_000,
+                            10_000,
+                            128,
+                            new MockTimeSource());
+
+            List<GraphiteMetricData> metrics = new ArrayList<>();
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 1_000; i++) {
+                metrics.add(new GraphiteMetricData("metric_" + i, 1_577_836_800L + i, i / 4.0));
+                expected.append("metric_").append(i).append(' ').append(String.format(Locale.ENGLISH, "%.6f", i / 4.0)).append(' ').append(1_577_836_800L + i).append('\n');
+            }
+
+            try (Channel channel = endpoint.channel()) {
+                assertNotNull(channel);
+                channel.send(metrics);
+            }
+            endpoint.close();
+
+            assertEquals(expected.toString(), received.get(10, TimeUnit.SECONDS));
+        }
+    }
 }
@@ -0,0 +1,61 @@
+package ru.kontur.vostok.hercules.graphite.sink.connection;
+
+import org.junit.Test;
+import ru.kontur.vostok.hercules.graphite.sink.GraphiteMetricData;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GraphiteMetricEncoderTest {
+    @Test
+    public void shouldEncodeAsStringFormatDoes() {
+        double[] values = {0.0, 1.0, -1.0, 0.5, -0.25, 123456.789, 0.000001, 42.1234565, 999999999.5, -17.000001};
+        long[] timestamps = {0L, 1L, 1_577_836_800L, Long.MAX_VALUE, -1L};
+
+        for (double value : values) {
+            for (long timestamp : timestamps) {
+                GraphiteMetricData metric = new GraphiteMetricData("test.metric_name", timestamp, value);
+                String expected = String.format(Locale.ENGLISH, "%s %f %d\n", "test.metric_name", value, timestamp);
+
+                assertEquals(expected, encode(metric));
+            }
+        }
+    }
+
+    @Test
+    public void shouldEncodeSpecialValues() {
+        assertEquals("metric NaN 1\n", encode(new GraphiteMetricData("metric", 1L, Double.NaN)));
+        assertEquals("metric Infinity 1\n", encode(new GraphiteMetricData("metric", 1L, Double.POSITIVE_INFINITY)));
+        assertEquals("metric 1.0E9 1\n", encode(new GraphiteMetricData("metric", 1L, 1e9)));
+        assertEquals("metric 1.000000 -9223372036854775808\n", encode(new GraphiteMetricData("metric", Long.MIN_VALUE, 1.0)));
+    }
+
+    @Test
+    public void shouldReplaceNonAsciiChars() {
+        assertEquals("metric_?? 1.000000 1\n", encode(new GraphiteMetricData("metric_юé", 1L, 1.0)));
+    }
+
+    @Test
+    public void shouldNotChangeBufferIfNotEnoughSpace() {
+        GraphiteMetricData metric = new GraphiteMetricData("metric", 1L, 1.0);
+        ByteBuffer buffer = ByteBuffer.allocate(GraphiteMetricEncoder.maxLength(metric.getMetricNameBytes()) - 1);
+        buffer.put((byte) 'x');
+
+        assertFalse(GraphiteMetricEncoder.encode(metric, buffer));
+        assertEquals(1, buffer.position());
+
+        assertTrue(GraphiteMetricEncoder.encode(metric, ByteBuffer.allocate(GraphiteMetricEncoder.maxLength(metric.getMetricNameBytes()))));
+    }
+
+    private static String encode(GraphiteMetricData metric) {
+        ByteBuffer buffer = ByteBuffer.allocate(GraphiteMetricEncoder.maxLength(metric.getMetricNameBytes()));
+        assertTrue(GraphiteMetricEncoder.encode(metric, buffer));
+        buffer.flip();
+        return StandardCharsets.US_ASCII.decode(buffer).toString();
+    }
+}
@@ -0,0 +1,159 @@
+package ru.kontur.vostok.hercules.graphite.sink.converter;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.graphite.sink.GraphiteMetricData;
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.protocol.Container;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.EventBuilder;
+import ru.kontur.vostok.hercules.protocol.Variant;
+import ru.kontur.vostok.hercules.protocol.Vector;
+import ru.kontur.vostok.hercules.tags.MetricsTags;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MetricNameCacheTest {
+    private MetricsCollector metricsCollector;
+    private Meter hitsMeter;
+    private Meter missesMeter;
+
+    @Before
+    public void setUp() {
+        metricsCollector = mock(MetricsCollector.class);
+        hitsMeter = mock(Meter.class);
+        missesMeter = mock(Meter.class);
+        when(metricsCollector.meter("metricNameCacheHits")).thenReturn(hitsMeter);
+        when(metricsCollector.meter("metricNameCacheMisses")).thenReturn(missesMeter);
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        MetricNameCache cache = new MetricNameCache(1_000, metricsCollector);
+        CountingBuilder builder = new CountingBuilder();
+
+        MetricName first = cache.get(tags("_name", "a", "host", "h1"), builder);
+        MetricName second = cache.get(tags("_name", "a", "host", "h1"), builder);
+        cache.get(tags("_name", "a", "host", "h2"), builder);
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(2, builder.calls.get());
+        Assert.assertEquals(2, cache.size());
+        verify(hitsMeter, times(1)).mark();
+        verify(missesMeter, times(2)).mark();
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedNames() {
+        // 2 names per segment
+        MetricNameCache cache = new MetricNameCache(32, metricsCollector);
+        CountingBuilder builder = new CountingBuilder();
+
+        Container[] recent = tags("_name", "recent");
+        Container[] stale = tags("_name", "stale");
+        cache.get(recent, builder);
+        cache.get(stale, builder);
+        for (int i = 0; i < 1_000; i++) {
+            cache.get(recent, builder);
+            cache.get(tags("_name", "metric" + i), builder);
+        }
+        Assert.assertEquals(1_002, builder.calls.get());
+        Assert.assertTrue(cache.size() <= 32);
+
+        cache.get(recent, builder);
+        Assert.assertEquals(1_002, builder.calls.get());
+
+        cache.get(stale, builder);
+        Assert.assertEquals(1_003, builder.calls.get());
+    }
+
+    @Test
+    public void shouldDistinguishTagsByLengthPrefix() {
+        MetricNameCache cache = new MetricNameCache(1_000, metricsCollector);
+        CountingBuilder builder = new CountingBuilder();
+
+        cache.get(tags("ab", "c"), builder);
+        cache.get(tags("a", "bc"), builder);
+        cache.get(tags("abc", ""), builder);
+        cache.get(new Container[]{Container.of(MetricsTags.TAG_KEY_TAG.getName(), Variant.ofString("abc"))}, builder);
+        Assert.assertEquals(4, builder.calls.get());
+        Assert.assertEquals(4, cache.size());
+
+        cache.get(tags("ab", "c"), builder);
+        cache.get(tags("a", "bc"), builder);
+        Assert.assertEquals(4, builder.calls.get());
+    }
+
+    @Test
+    public void shouldNotCacheNonStringTags() {
+        MetricNameCache cache = new MetricNameCache(1_000, metricsCollector);
+        CountingBuilder builder = new CountingBuilder();
+
+        Container[] tagsVector = new Container[]{
+                Container.builder()
+                        .tag(MetricsTags.TAG_KEY_TAG.getName(), Variant.ofString("port"))
+                        .tag(MetricsTags.TAG_VALUE_TAG.getName(), Variant.ofInteger(8080))
+                        .build()
+        };
+        cache.get(tagsVector, builder);
+        cache.get(tagsVector, builder);
+
+        Assert.assertEquals(2, builder.calls.get());
+        Assert.assertEquals(0, cache.size());
+        verify(missesMeter, times(2)).mark();
+    }
+
+    @Test
+    public void shouldBuildSameNameAsUncachedConverter() {
+        MetricWithTagsEventConverter cached = new MetricWithTagsEventConverter(new MetricNameCache(1_000, metricsCollector));
+        MetricWithTagsEventConverter uncached = new MetricWithTagsEventConverter();
+
+        Event event = event(tags("_name", "requests", "project", "my project", "host", "a.b:c"));
+        for (int i = 0; i < 2; i++) {
+            GraphiteMetricData expected = uncached.convert(event);
+            GraphiteMetricData actual = cached.convert(event);
+
+            Assert.assertEquals(expected.getMetricName(), actual.getMetricName());
+            Assert.assertArrayEquals(expected.getMetricNameBytes(), actual.getMetricNameBytes());
+        }
+    }
+
+    /**
+     * Build the tags vector from pairs of keys and values.
+     */
+    private static Container[] tags(String... keysAndValues) {
+        Container[] tagsVector = new Container[keysAndValues.length / 2];
+        for (int i = 0; i < tagsVector.length; i++) {
+            tagsVector[i] = Container.builder()
+                    .tag(MetricsTags.TAG_KEY_TAG.getName(), Variant.ofString(keysAndValues[2 * i]))
+                    .tag(MetricsTags.TAG_VALUE_TAG.getName(), Variant.ofString(keysAndValues[2 * i + 1]))
+                    .build();
+        }
+        return tagsVector;
+    }
+
+    private static Event event(Container[] tagsVector) {
+        return EventBuilder.create(0, UUID.randomUUID())
+                .tag(MetricsTags.METRIC_VALUE_TAG.getName(), Variant.ofDouble(0.5))
+                .tag(MetricsTags.TAGS_VECTOR_TAG.getName(), Variant.ofVector(Vector.ofContainers(tagsVector)))
+                .build();
+    }
+
+    private static class CountingBuilder implements Function<Container[], MetricName> {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public MetricName apply(Container[] tagsVector) {
+            return new MetricName("metric" + calls.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.kontur.vostok.hercules.health;
+
+import ru.kontur.vostok.hercules.util.cache.CacheStatsRecorder;
+
+/**
+ * Reports cache statistics as metrics.
+ * <p>
+ * Metrics are grouped by the cache name: {@code caches.<name>.hits}, {@code caches.<name>.misses},
+ * {@code caches.<name>.loadTimeMs} and {@code caches.<name>.loadFailures}.
+ */
+public class CacheMetrics implements CacheStatsRecorder {
+    private final Meter hitsMeter;
+    private final Meter missesMeter;
+    private final Timer loadTimer;
+    private final Meter loadFailuresMeter;
+
+    public CacheMetrics(String cacheName, MetricsCollector metricsCollector) {
+        String metricGroup = "caches." + cacheName + ".";
+
+        this.hitsMeter = metricsCollector.meter(metricGroup + "hits");
+        this.missesMeter = metricsCollector.meter(metricGroup + "misses");
+        this.loadTimer = metricsCollector.timer(metricGroup + "loadTimeMs");
+        this.loadFailuresMeter = metricsCollector.meter(metricGroup + "loadFailures");
+    }
+
+    @Override
+    public void recordHit() {
+        hitsMeter.mark();
+    }
+
+    @Override
+    public void recordMiss() {
+        missesMeter.mark();
+    }
+
+    @Override
+    public void recordLoad(long durationMs) {
+        loadTimer.update(durationMs);
+    }
+
+    @Override
+    public void recordLoadFailure() {
+        loadFailuresMeter.mark();
+    }
+}
@@ -0,0 +1,201 @@
+package ru.kontur.vostok.hercules.http;
+
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends pooled buffers to the response one after another without blocking the caller.
+ * <p>
+ * At most one send operation is in flight. Buffers which are passed while the previous ones are being sent
+ * are queued and sent together when the in-flight operation is completed.
+ * Thus, the producer of buffers never waits for the client, and the order of buffers is preserved.
+ * If memory usage should not depend on the client speed, then the producer may wait
+ * for queued buffers using {@link #awaitQueuedBytes(long)}.
+ * <p>
+ * Buffers should be acquired from {@link ByteBufferPool} and be ready for reading.
+ * The sender owns passed buffers and releases them to the pool when they are sent or sending is failed.
+ * <p>
+ * Class is thread-safe: buffers may be passed from the worker thread while callbacks are called from the IO thread.
+ */
+public final class ChunkedResponseSender {
+    private static final ByteBuffer[] EMPTY = new ByteBuffer[0];
+
+    private final HttpServerResponse response;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    private final Queue<ByteBuffer> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean sending;
+    private boolean finished;
+    private Throwable error;
+
+    private volatile boolean started;
+
+    public ChunkedResponseSender(HttpServerResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * Send the buffer or queue it if the previous buffers are being sent.
+     * <p>
+     * If sending has been failed already, then the buffer is released immediately.
+     *
+     * @param buffer the buffer to send
+     */
+    public void send(ByteBuffer buffer) {
+        synchronized (this) {
+            if (error != null) {
+                ByteBufferPool.release(buffer);
+                return;
+            }
+            if (sending) {
+                queue.add(buffer);
+                queuedBytes += buffer.remaining();
+                return;
+            }
+            sending = true;
+        }
+        doSend(new ByteBuffer[]{buffer});
+    }
+
+    /**
+     * Finish sending.
+     * <p>
+     * The returned future is completed when all buffers are sent or completed exceptionally if sending is failed.
+     *
+     * @return the future of sending
+     */
+    public CompletableFuture<Void> finish() {
+        boolean completed;
+        synchronized (this) {
+            finished = true;
+            completed = !sending && error == null;
+        }
+        if (completed) {
+            completion.complete(null);
+        }
+        return completion;
+    }
+
+    /**
+     * Check if any buffer has been sent.
+     * <p>
+     * The status code and headers cannot be changed if sending has been started.
+     *
+     * @return {@code true} if sending has been started, otherwise {@code false}
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Check if sending has been failed.
+     *
+     * @return {@code true} if sending has been failed, otherwise {@code false}
+     */
+    public synchronized boolean isFailed() {
+        return error != null;
+    }
+
+    /**
+     * Wait until the total size of queued buffers does not exceed {@code maxQueuedBytes} or sending is failed.
+     *
+     * @param maxQueuedBytes the maximum size of queued buffers in bytes
+     * @throws InterruptedException if the current thread has been interrupted while waiting
+     */
+    public synchronized void awaitQueuedBytes(long maxQueuedBytes) throws InterruptedException {
+        while (queuedBytes > maxQueuedBytes && error == null) {
+            wait();
+        }
+    }
+
+    /**
+     * Wait until the total size of queued buffers does not exceed {@code maxQueuedBytes} or sending is failed,
+     * but no longer than the timeout.
+     *
+     * @param maxQueuedBytes the maximum size of queued buffers in bytes
+     * @param timeoutMs      the timeout in millis
+     * @return {@code true} if queued buffers do not exceed {@code maxQueuedBytes} or sending is failed,
+     * {@code false} if the timeout has been expired
+     * @throws InterruptedException if the current thread has been interrupted while waiting
+     */
+    public synchronized boolean awaitQueuedBytes(long maxQueuedBytes, long timeoutMs) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (queuedBytes > maxQueuedBytes && error == null) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMs <= 0) {
+                return false;
+            }
+            wait(remainingMs);
+        }
+        return true;
+    }
+
+    /**
+     * Return the total size of buffers which are waiting for sending.
+     *
+     * @return size in bytes
+     */
+    public synchronized long queuedBytes() {
+        return queuedBytes;
+    }
+
+    private void doSend(ByteBuffer[] buffers) {
+        started = true;
+        response.send(
+                buffers,
+                request -> onSent(buffers),
+                (request, exception) -> onFailed(buffers, exception));
+    }
+
+    private void onSent(ByteBuffer[] buffers) {
+        release(buffers);
+
+        ByteBuffer[] next;
+        boolean completed = false;
+        synchronized (this) {
+            next = queue.toArray(EMPTY);
+            queue.clear();
+            queuedBytes = 0;
+            notifyAll();
+            if (next.length == 0) {
+                sending = false;
+                completed = finished;
+            }
+        }
+
+        if (next.length > 0) {
+            doSend(next);
+        } else if (completed) {
+            completion.complete(null);
+        }
+    }
+
+    private void onFailed(ByteBuffer[] buffers, Throwable exception) {
+        release(buffers);
+
+        ByteBuffer[] queued;
+        synchronized (this) {
+            error = exception;
+            sending = false;
+            queued = queue.toArray(EMPTY);
+            queue.clear();
+            queuedBytes = 0;
+            notifyAll();
+        }
+        release(queued);
+
+        completion.completeExceptionally(exception);
+    }
+
+    private static void release(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            ByteBufferPool.release(buffer);
+        }
+    }
+}
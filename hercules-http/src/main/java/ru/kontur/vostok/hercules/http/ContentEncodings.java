@@ -6,4 +6,8 @@ package ru.kontur.vostok.hercules.http;
 public class ContentEncodings {
     public static final String GZIP = "gzip";
     public static final String LZ4 = "lz4";
+    /**
+     * The body is split into LZ4 blocks, each block is prefixed with original and compressed lengths.
+     */
+    public static final String LZ4_BLOCKS = "lz4-blocks";
 }
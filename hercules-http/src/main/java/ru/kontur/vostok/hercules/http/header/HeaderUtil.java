@@ -22,6 +22,56 @@ public final class HeaderUtil {
         return parameter.from(requestHeader);
     }
 
+    /**
+     * Check if the client accepts the content encoding.
+     * <p>
+     * All {@link HttpHeaders#ACCEPT_ENCODING Accept-Encoding} header values are inspected.
+     * The encoding is accepted only if it is listed explicitly with non-zero quality value.
+     * The wildcard {@code *} is ignored, since non-standard encodings (like {@code lz4})
+     * should not be sent to clients which are not aware of them.
+     *
+     * @param request  the http request
+     * @param encoding the content encoding
+     * @return {@code true} if the encoding is accepted, otherwise {@code false}
+     */
+    public static boolean isEncodingAccepted(HttpServerRequest request, String encoding) {
+        String[] values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String element : value.split(",")) {
+                int paramsOffset = element.indexOf(';');
+                String coding = (paramsOffset < 0 ? element : element.substring(0, paramsOffset)).trim();
+                if (coding.equalsIgnoreCase(encoding)) {
+                    return paramsOffset < 0 || quality(element.substring(paramsOffset + 1)) > 0;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse the quality value from params of the Accept-Encoding element.
+     *
+     * @param params params are separated by {@code ;}
+     * @return the quality value, {@code 1.0} if it is absent and {@code 0.0} if it is invalid
+     */
+    private static double quality(String params) {
+        for (String param : params.split(";")) {
+            int eq = param.indexOf('=');
+            if (eq < 0 || !param.substring(0, eq).trim().equalsIgnoreCase("q")) {
+                continue;
+            }
+            try {
+                return Double.parseDouble(param.substring(eq + 1).trim());
+            } catch (NumberFormatException ex) {
+                return 0.0;
+            }
+        }
+        return 1.0;
+    }
+
     private HeaderUtil() {
         /* static class */
     }
@@ -0,0 +1,173 @@
+package ru.kontur.vostok.hercules.http;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class ChunkedResponseSenderTest {
+    @Test
+    public void shouldSendBuffersInOrderWithOneOperationInFlight() throws Exception {
+        DeferredResponse deferred = new DeferredResponse();
+        ChunkedResponseSender sender = new ChunkedResponseSender(deferred.response);
+
+        sender.send(buffer("a"));
+        sender.send(buffer("b"));
+        sender.send(buffer("c"));
+
+        Assert.assertTrue(sender.isStarted());
+        Assert.assertEquals(1, deferred.operations.size());
+        Assert.assertEquals(2, sender.queuedBytes());
+
+        CompletableFuture<Void> completion = sender.finish();
+        Assert.assertFalse(completion.isDone());
+
+        deferred.complete(0);
+        Assert.assertEquals(2, deferred.operations.size());
+        Assert.assertEquals(0, sender.queuedBytes());
+        Assert.assertFalse(completion.isDone());
+
+        deferred.complete(1);
+        completion.get();
+        Assert.assertEquals("abc", deferred.sent());
+    }
+
+    @Test
+    public void shouldCompleteImmediatelyIfNothingIsInFlight() throws Exception {
+        DeferredResponse deferred = new DeferredResponse();
+        ChunkedResponseSender sender = new ChunkedResponseSender(deferred.response);
+
+        Assert.assertTrue(sender.finish().isDone());
+        Assert.assertFalse(sender.isStarted());
+    }
+
+    @Test
+    public void shouldFailAndDropQueuedBuffers() throws Exception {
+        DeferredResponse deferred = new DeferredResponse();
+        ChunkedResponseSender sender = new ChunkedResponseSender(deferred.response);
+
+        sender.send(buffer("a"));
+        sender.send(buffer("b"));
+        deferred.fail(0);
+
+        Assert.assertTrue(sender.isFailed());
+        Assert.assertEquals(0, sender.queuedBytes());
+
+        sender.send(buffer("c"));
+        Assert.assertEquals(1, deferred.operations.size());
+
+        try {
+            sender.finish().get();
+            Assert.fail("Sending should be failed");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof HttpServerRequestException);
+        }
+    }
+
+    @Test
+    public void shouldAwaitQueuedBuffers() throws Exception {
+        DeferredResponse deferred = new DeferredResponse();
+        ChunkedResponseSender sender = new ChunkedResponseSender(deferred.response);
+
+        sender.send(buffer("a"));
+        sender.send(buffer("b"));
+
+        CompletableFuture<Void> awaiting = CompletableFuture.runAsync(() -> {
+            try {
+                sender.awaitQueuedBytes(0);
+            } catch (InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        try {
+            awaiting.get(100, TimeUnit.MILLISECONDS);
+            Assert.fail("Queued buffers should be awaited");
+        } catch (TimeoutException ex) {
+            /* expected */
+        }
+
+        deferred.complete(0);
+        awaiting.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(0, sender.queuedBytes());
+    }
+
+    @Test
+    public void shouldStopAwaitingQueuedBuffersOnTimeout() throws Exception {
+        DeferredResponse deferred = new DeferredResponse();
+        ChunkedResponseSender sender = new ChunkedResponseSender(deferred.response);
+
+        sender.send(buffer("a"));
+        sender.send(buffer("bc"));
+
+        Assert.assertFalse(sender.awaitQueuedBytes(1, 50));
+        Assert.assertTrue(sender.awaitQueuedBytes(2, 50));
+
+        deferred.complete(0);
+        Assert.assertTrue(sender.awaitQueuedBytes(0, 50));
+    }
+
+    private static ByteBuffer buffer(String value) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer.put((byte) value.charAt(i));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Response completes send operations only on demand.
+     */
+    private static class DeferredResponse {
+        final HttpServerResponse response = mock(HttpServerResponse.class);
+        final List<Operation> operations = new ArrayList<>();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        DeferredResponse() {
+            doAnswer(invocation -> {
+                ByteBuffer[] buffers = invocation.getArgument(0);
+                for (ByteBuffer buffer : buffers) {
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer.get());
+                    }
+                }
+                operations.add(new Operation(invocation.getArgument(1), invocation.getArgument(2)));
+                return null;
+            }).when(response).send(any(ByteBuffer[].class), any(IoCallback.class), any(ErrorCallback.class));
+        }
+
+        void complete(int operation) {
+            operations.get(operation).callback.onComplete(null);
+        }
+
+        void fail(int operation) {
+            operations.get(operation).errorCallback.error(null, new HttpServerRequestException(new IOException("Broken pipe")));
+        }
+
+        String sent() {
+            return new String(out.toByteArray());
+        }
+    }
+
+    private static class Operation {
+        final IoCallback callback;
+        final ErrorCallback errorCallback;
+
+        Operation(IoCallback callback, ErrorCallback errorCallback) {
+            this.callback = callback;
+            this.errorCallback = errorCallback;
+        }
+    }
+}
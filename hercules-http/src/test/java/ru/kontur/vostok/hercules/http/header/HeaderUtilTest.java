@@ -0,0 +1,41 @@
+package ru.kontur.vostok.hercules.http.header;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.http.HttpServerRequest;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HeaderUtilTest {
+    @Test
+    public void shouldAcceptListedEncodings() {
+        HttpServerRequest request = requestWithAcceptEncoding("gzip, deflate", "LZ4");
+
+        Assert.assertTrue(HeaderUtil.isEncodingAccepted(request, "gzip"));
+        Assert.assertTrue(HeaderUtil.isEncodingAccepted(request, "deflate"));
+        Assert.assertTrue(HeaderUtil.isEncodingAccepted(request, "lz4"));
+        Assert.assertFalse(HeaderUtil.isEncodingAccepted(request, "br"));
+    }
+
+    @Test
+    public void shouldRespectQualityValues() {
+        HttpServerRequest request = requestWithAcceptEncoding("lz4;q=0.5, gzip; q=0, br;q=invalid");
+
+        Assert.assertTrue(HeaderUtil.isEncodingAccepted(request, "lz4"));
+        Assert.assertFalse(HeaderUtil.isEncodingAccepted(request, "gzip"));
+        Assert.assertFalse(HeaderUtil.isEncodingAccepted(request, "br"));
+    }
+
+    @Test
+    public void shouldNotAcceptEncodingsByWildcard() {
+        Assert.assertFalse(HeaderUtil.isEncodingAccepted(requestWithAcceptEncoding("*"), "lz4"));
+        Assert.assertFalse(HeaderUtil.isEncodingAccepted(requestWithAcceptEncoding(), "lz4"));
+    }
+
+    private static HttpServerRequest requestWithAcceptEncoding(String... values) {
+        HttpServerRequest request = mock(HttpServerRequest.class);
+        when(request.getHeaders(HttpHeaders.ACCEPT_ENCODING)).thenReturn(values);
+        return request;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.kontur.vostok.hercules.json;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
@@ -43,6 +44,19 @@ public final class DocumentWriter {
         OBJECT_WRITER.writeValue(out, document.document());
     }
 
+    /**
+     * Writes the JSON-document using the {@link JsonGenerator}.
+     * <p>
+     * The generator is not closed, thus the document can be written as a part of an enclosing JSON-document.
+     *
+     * @param generator the JSON-generator
+     * @param document  the JSON-document
+     * @throws IOException IO exception of underlying JSON-writer
+     */
+    public static void writeTo(JsonGenerator generator, Document document) throws IOException {
+        OBJECT_WRITER.writeValue(generator, document.document());
+    }
+
     private DocumentWriter() {
         /* static class */
     }
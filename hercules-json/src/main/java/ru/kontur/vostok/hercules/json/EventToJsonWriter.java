@@ -75,7 +75,31 @@ public final class EventToJsonWriter {
     }
 
     public static void writeVariantValue(JsonGenerator generator, Variant variant) throws IOException {
-        TO_JSON_WRITERS[variant.getType().code].write(generator, variant.getValue());
+        switch (variant.getType()) {
+            case BYTE:
+                generator.writeNumber(variant.getByte());
+                return;
+            case SHORT:
+                generator.writeNumber(variant.getShort());
+                return;
+            case INTEGER:
+                generator.writeNumber(variant.getInteger());
+                return;
+            case LONG:
+                generator.writeNumber(variant.getLong());
+                return;
+            case FLAG:
+                generator.writeBoolean(variant.getFlag());
+                return;
+            case FLOAT:
+                generator.writeNumber(variant.getFloat());
+                return;
+            case DOUBLE:
+                generator.writeNumber(variant.getDouble());
+                return;
+            default:
+                TO_JSON_WRITERS[variant.getType().code].write(generator, variant.getValue());
+        }
     }
 
     public static void writeByte(JsonGenerator generator, Object value) throws IOException {
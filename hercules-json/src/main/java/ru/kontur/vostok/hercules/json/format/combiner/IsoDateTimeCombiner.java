@@ -36,8 +36,8 @@ public class IsoDateTimeCombiner implements Combiner {
         Variant offset = values[1];
 
         ZonedDateTime dateTime = ZonedDateTime.ofInstant(
-                TimeUtil.unixTicksToInstant((Long) timestamp.getValue()),
-                ZoneOffset.ofTotalSeconds((int) TimeUtil.ticksToSeconds((Long) offset.getValue())));
+                TimeUtil.unixTicksToInstant(timestamp.getLong()),
+                ZoneOffset.ofTotalSeconds((int) TimeUtil.ticksToSeconds(offset.getLong())));
         return FORMATTER.format(dateTime);
     }
 }
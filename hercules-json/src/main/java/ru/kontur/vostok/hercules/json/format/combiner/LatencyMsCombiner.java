@@ -25,8 +25,8 @@ public class LatencyMsCombiner implements Combiner {
             return null;
         }
 
-        long beginTimestamp = (long) values[0].getValue();
-        long endTimestamp = (long) values[1].getValue();
+        long beginTimestamp = values[0].getLong();
+        long endTimestamp = values[1].getLong();
 
         return TimeUtil.ticksToMillis(endTimestamp - beginTimestamp);
     }
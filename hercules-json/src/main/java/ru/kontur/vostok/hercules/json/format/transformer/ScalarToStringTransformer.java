@@ -20,14 +20,21 @@ public class ScalarToStringTransformer implements Transformer {
     @Override
     public Object transform(Variant value) {
         switch (value.getType()) {
-            case TYPE:
             case BYTE:
+                return Byte.toString(value.getByte());
             case SHORT:
+                return Short.toString(value.getShort());
             case INTEGER:
+                return Integer.toString(value.getInteger());
             case LONG:
+                return Long.toString(value.getLong());
             case FLAG:
+                return Boolean.toString(value.getFlag());
             case FLOAT:
+                return Float.toString(value.getFloat());
             case DOUBLE:
+                return Double.toString(value.getDouble());
+            case TYPE:
             case UUID:
                 return value.getValue().toString();
             case NULL:
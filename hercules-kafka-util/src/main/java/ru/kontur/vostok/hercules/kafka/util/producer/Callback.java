@@ -1,4 +1,4 @@
-package ru.kontur.vostok.hercules.gate;
+package ru.kontur.vostok.hercules.kafka.util.producer;
 
 /**
  * @author Gregory Koshelev
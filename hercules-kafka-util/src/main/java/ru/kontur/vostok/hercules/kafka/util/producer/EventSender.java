@@ -0,0 +1,148 @@
+package ru.kontur.vostok.hercules.kafka.util.producer;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.kontur.vostok.hercules.configuration.Scopes;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.kafka.util.KafkaConfigs;
+import ru.kontur.vostok.hercules.kafka.util.serialization.UuidSerializer;
+import ru.kontur.vostok.hercules.partitioner.Partitioner;
+import ru.kontur.vostok.hercules.partitioner.ShardingKey;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Gregory Koshelev
+ */
+public class EventSender {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventSender.class);
+
+    private final KafkaProducer<UUID, ByteBuffer> producer;
+    private final Partitioner partitioner;
+
+    private final EventSenderMetrics metrics;
+
+    public EventSender(Properties properties, Partitioner partitioner, MetricsCollector metricsCollector) {
+        Properties producerProperties = PropertiesUtil.ofScope(properties, Scopes.PRODUCER);
+        producerProperties.put(KafkaConfigs.METRICS_COLLECTOR_INSTANCE_CONFIG, metricsCollector);
+        this.producer = new KafkaProducer<>(producerProperties, new UuidSerializer(), new ByteBufferSerializer());
+
+        this.partitioner = partitioner;
+
+        this.metrics = new EventSenderMetrics(metricsCollector);
+    }
+
+    /**
+     * Send events to Kafka.
+     * <p>
+     * Events are grouped by target partitions if the sharding key is used,
+     * thus records of the same partition are appended to the producer's batch one after another.
+     * Delivery of all events is tracked by the single callback.
+     * <p>
+     * Event bytes are serialized synchronously, thus events may be backed by the buffer
+     * which is reused right after this method returns.
+     * Event id is used as Kafka record key.
+     *
+     * @param events        events
+     * @param topic         the topic
+     * @param partitions    the number of topic partitions
+     * @param shardingKey   the sharding key
+     * @param callback      the callback is called once when all events have been delivered
+     * @param errorCallback the callback is called once when delivery of any event has been failed
+     */
+    public void send(List<Event> events, String topic, int partitions, ShardingKey shardingKey, Callback callback, Callback errorCallback) {
+        if (events.isEmpty()) {
+            callback.call();
+            return;
+        }
+
+        BatchCallback batchCallback = new BatchCallback(events.size(), callback, errorCallback);
+        metrics.updateSent(events);
+
+        if (shardingKey.isEmpty()) {
+            for (Event event : events) {
+                send(event, topic, null, batchCallback);
+            }
+            return;
+        }
+
+        Map<Integer, List<Event>> eventsByPartition = new HashMap<>();
+        for (Event event : events) {
+            eventsByPartition.computeIfAbsent(
+                    partitioner.partition(event, shardingKey, partitions),
+                    k -> new ArrayList<>()).add(event);
+        }
+        for (Map.Entry<Integer, List<Event>> entry : eventsByPartition.entrySet()) {
+            for (Event event : entry.getValue()) {
+                send(event, topic, entry.getKey(), batchCallback);
+            }
+        }
+    }
+
+    private void send(Event event, String topic, Integer partition, BatchCallback batchCallback) {
+        ProducerRecord<UUID, ByteBuffer> record =
+                new ProducerRecord<>(
+                        topic,
+                        partition,
+                        System.currentTimeMillis(),// Use current timestamp of the Gate
+                        event.getUuid(),//TODO: Think hard about this!
+                        event.getBuffer()
+                );
+        producer.send(record, batchCallback);
+    }
+
+    public void stop(long timeout, TimeUnit timeUnit) {
+        producer.close(timeout, timeUnit);
+    }
+
+    /**
+     * Tracks delivery of the batch of events.
+     * <p>
+     * Each acknowledged event is counted as delivered, even if delivery of other events of the batch has been failed.
+     */
+    private class BatchCallback implements org.apache.kafka.clients.producer.Callback {
+        private final AtomicInteger pending;
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+        private final Callback callback;
+        private final Callback errorCallback;
+
+        BatchCallback(int total, Callback callback, Callback errorCallback) {
+            this.pending = new AtomicInteger(total);
+            this.callback = callback;
+            this.errorCallback = errorCallback;
+        }
+
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception exception) {
+            if (exception == null) {
+                metrics.markDelivered();
+                if (pending.decrementAndGet() == 0 && completed.compareAndSet(false, true)) {
+                    callback.call();
+                }
+                return;
+            }
+
+            metrics.markFailed();
+            if (completed.compareAndSet(false, true)) {
+                LOGGER.error("Error on event send", exception);
+                //TODO: process exception
+                errorCallback.call();
+            }
+        }
+    }
+}
@@ -1,4 +1,4 @@
-package ru.kontur.vostok.hercules.gate;
+package ru.kontur.vostok.hercules.kafka.util.producer;
 
 import ru.kontur.vostok.hercules.health.Histogram;
 import ru.kontur.vostok.hercules.health.Meter;
@@ -6,6 +6,8 @@ import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.health.MetricsUtil;
 import ru.kontur.vostok.hercules.protocol.Event;
 
+import java.util.List;
+
 /**
  * @author Gregory Koshelev
  */
@@ -30,9 +32,11 @@ public class EventSenderMetrics {
         this.eventSizeHistogram = metricsCollector.histogram(MetricsUtil.toMetricPath(METRICS_SCOPE, "eventSize"));
     }
 
-    public void updateSent(Event event) {
-        sentEventsMeter.mark();
-        eventSizeHistogram.update(event.sizeOf());
+    public void updateSent(List<Event> events) {
+        sentEventsMeter.mark(events.size());
+        for (Event event : events) {
+            eventSizeHistogram.update(event.sizeOf());
+        }
     }
 
     public void markDelivered() {
@@ -1,4 +1,4 @@
-package ru.kontur.vostok.hercules.gate.validation;
+package ru.kontur.vostok.hercules.kafka.util.producer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +10,11 @@ import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 import java.util.Properties;
 
 /**
+ * Validates events before sending them to Apache Kafka.
+ * <p>
+ * Only events of version 1 with non-negative timestamp are allowed.
+ * Event size should not exceed {@code max.event.size} which must be consistent with broker setting {@code max.message.bytes}.
+ *
  * @author Gregory Koshelev
  */
 public class EventValidator {
@@ -22,7 +27,7 @@ public class EventValidator {
     }
 
     public boolean validate(Event event) {
-        if (event.getVersion() != 1) { // Gate supports Event of version 1 only
+        if (event.getVersion() != 1) { // Event of version 1 is supported only
             LOGGER.warn("Event version != 1");
             return false;
         }
@@ -32,7 +37,7 @@ public class EventValidator {
             return false;
         }
 
-        int eventSize = event.getBytes().length;
+        int eventSize = event.sizeOf();
         if (eventSize > maxEventSize) {
             LOGGER.warn("Event size = {} bytes, more then limit = {}", eventSize, maxEventSize);
             return false;
@@ -21,10 +21,10 @@ public class EventDeserializer implements Deserializer<Event> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EventDeserializer.class);
 
-    private final Set<TinyString> tags;
+    private final EventReader reader;
 
-    private EventDeserializer(Set<TinyString> tags) {
-        this.tags = tags;
+    private EventDeserializer(EventReader reader) {
+        this.reader = reader;
     }
 
     @Override
@@ -35,7 +35,6 @@ public class EventDeserializer implements Deserializer<Event> {
     @Override
     public Event deserialize(String topic, byte[] data) {
         try {
-            EventReader reader = EventReader.readTags(tags);
             return reader.read(new Decoder(data));
         } catch (Exception e) {
             LOGGER.warn("Error on deserialize bytes '{}'", ByteUtil.toHexString(data), e);
@@ -49,15 +48,27 @@ public class EventDeserializer implements Deserializer<Event> {
     }
 
     public static EventDeserializer parseNoTags() {
-        return new EventDeserializer(Collections.emptySet());
+        return new EventDeserializer(EventReader.readTags(Collections.emptySet()));
     }
 
     public static EventDeserializer parseAllTags() {
-        return new EventDeserializer(null);
+        return new EventDeserializer(EventReader.readAllTags());
+    }
+
+    /**
+     * Parse all tags lazily.
+     * <p>
+     * Tag values are decoded on demand, thus events can be filtered without decoding the whole payload.
+     *
+     * @return event deserializer
+     * @see EventReader#readAllTagsLazily()
+     */
+    public static EventDeserializer parseAllTagsLazily() {
+        return new EventDeserializer(EventReader.readAllTagsLazily());
     }
 
     public static EventDeserializer parseTags(Set<TinyString> tags) {
         Objects.requireNonNull(tags);
-        return new EventDeserializer(tags);
+        return new EventDeserializer(EventReader.readTags(tags));
     }
 }
@@ -77,11 +77,11 @@ public class Conditions {
 
         @Override
         public boolean test(Variant variant) {
-           if (!isAssignableToLong(variant)) {
+           if (variant == null || !variant.isIntegral()) {
                return false;
            }
-           long value = toLong(variant);
-           return variant != null && (inclusiveLeft ? left <= value : left < value) && (inclusiveRight ? right >= value : right > value);
+           long value = variant.asLong();
+           return (inclusiveLeft ? left <= value : left < value) && (inclusiveRight ? right >= value : right > value);
         }
     }
 
@@ -98,7 +98,7 @@ public class Conditions {
 
         @Override
         public boolean test(Variant variant) {
-            return variant != null && isAssignableToLong(variant) && toLong(variant) == value;
+            return variant != null && variant.isIntegral() && variant.asLong() == value;
         }
     }
 
@@ -141,13 +141,4 @@ public class Conditions {
             return variant != null && variant.getType() == Type.STRING && ByteUtil.isSubarray((byte[]) variant.getValue(), bytes);
         }
     }
-
-    private static boolean isAssignableToLong(Variant variant) {
-        Type type = variant.getType();
-        return type == Type.BYTE || type == Type.SHORT || type == Type.INTEGER || type == Type.LONG;
-    }
-
-    private static long toLong(Variant variant) {
-        return (long) variant.getValue();
-    }
 }
@@ -1,52 +1,45 @@
 package ru.kontur.vostok.hercules.meta.stream;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import ru.kontur.vostok.hercules.util.cache.Cache;
-import ru.kontur.vostok.hercules.util.cache.Cached;
-import ru.kontur.vostok.hercules.util.functional.Result;
+import ru.kontur.vostok.hercules.util.cache.CacheLoadException;
+import ru.kontur.vostok.hercules.util.cache.CacheStatsRecorder;
+import ru.kontur.vostok.hercules.util.cache.RefreshAheadCache;
 
 import java.util.Optional;
 
 /**
  * Stream storage is read-only caching proxy for {@link Stream} metadata.
+ * <p>
+ * Cached streams are refreshed in background, thus requests do not wait for the repository.
  * FIXME: Should use ZK/Curator watchers to reduce cache invalidation latency
  *
  * @author Gregory Koshelev
  */
 public class StreamStorage {
-    private static final Logger LOGGER = LoggerFactory.getLogger(StreamStorage.class);
-
-    private final StreamRepository repository;
-
-    private final Cache<String, Stream> cache;
-
-    public StreamStorage(StreamRepository repository) {
-        this.repository = repository;
-
-        this.cache = new Cache<>(10_000 /* FIXME: Workaround for KAFKA-3450 bug */);
+    private static final int MAX_SIZE = 10_000;
+    private static final long REFRESH_AFTER_MS = 10_000;/* FIXME: Workaround for KAFKA-3450 bug */
+    private static final long EXPIRE_AFTER_MS = 60_000;
+
+    private final RefreshAheadCache<String, Stream> cache;
+
+    public StreamStorage(StreamRepository repository, CacheStatsRecorder stats) {
+        this.cache = new RefreshAheadCache<>(
+                MAX_SIZE,
+                REFRESH_AFTER_MS,
+                EXPIRE_AFTER_MS,
+                name -> repository.read(name).orElse(null),
+                stats);
     }
 
     /**
-     * Get Stream from local cache if possible or read from repository.<br>
-     * If repository throws exception then return expired cached value or empty if it doesn't exist.
+     * Get Stream from local cache if possible or read from repository.
+     * <p>
+     * If repository throws exception then return expired cached value if it exists.
      *
      * @param name of the Stream
      * @return Optional of the found Stream or empty otherwise
+     * @throws CacheLoadException if repository throws exception and there is no cached value
      */
     public Optional<Stream> read(String name) {
-        Cached<Stream> streamCached = cache.cacheAndGet(name, key -> {
-            try {
-                Optional<Stream> stream = repository.read(key);
-                if (stream.isPresent()) {
-                    return Result.ok(stream.get());
-                }
-                return Result.ok(null);
-            } catch (Exception e) {
-                LOGGER.warn("Cannot read from repository", e);
-                return Result.error("Cannot read from repository");
-            }
-        });
-        return streamCached.isCached() ? Optional.of(streamCached.get()) : Optional.empty();
+        return Optional.ofNullable(cache.get(name));
     }
 }
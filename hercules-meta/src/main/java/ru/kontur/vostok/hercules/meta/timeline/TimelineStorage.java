@@ -0,0 +1,42 @@
+package ru.kontur.vostok.hercules.meta.timeline;
+
+import ru.kontur.vostok.hercules.util.cache.CacheStatsRecorder;
+import ru.kontur.vostok.hercules.util.cache.RefreshAheadCache;
+
+import java.util.Optional;
+
+/**
+ * Timeline storage is read-only caching proxy for {@link Timeline} metadata.
+ * <p>
+ * Cached timelines are refreshed in background, thus requests do not wait for the repository.
+ * Use {@link TimelineRepository} directly if the up-to-date timeline is required (e.g. to change it).
+ */
+public class TimelineStorage {
+    private static final int MAX_SIZE = 10_000;
+    private static final long REFRESH_AFTER_MS = 10_000;
+    private static final long EXPIRE_AFTER_MS = 60_000;
+
+    private final RefreshAheadCache<String, Timeline> cache;
+
+    public TimelineStorage(TimelineRepository repository, CacheStatsRecorder stats) {
+        this.cache = new RefreshAheadCache<>(
+                MAX_SIZE,
+                REFRESH_AFTER_MS,
+                EXPIRE_AFTER_MS,
+                name -> repository.read(name).orElse(null),
+                stats);
+    }
+
+    /**
+     * Get Timeline from local cache if possible or read from repository.
+     * <p>
+     * If repository throws exception then return expired cached value if it exists.
+     *
+     * @param name of the Timeline
+     * @return Optional of the found Timeline or empty otherwise
+     * @throws ru.kontur.vostok.hercules.util.cache.CacheLoadException if repository throws exception and there is no cached value
+     */
+    public Optional<Timeline> read(String name) {
+        return Optional.ofNullable(cache.get(name));
+    }
+}
@@ -57,6 +57,36 @@ public class NaiveHasher implements Hasher {
         TYPE_OF_VECTOR_HASH_FUNCTIONS[Type.VECTOR.code] = value -> 0;
     }
 
+    /**
+     * Hash the variant.
+     * <p>
+     * Values of primitive types are hashed without boxing.
+     * The result is the same as {@link #hash(Type, Object)} returns.
+     *
+     * @param variant the variant
+     * @return the hash
+     */
+    public static int hash(Variant variant) {
+        switch (variant.getType()) {
+            case BYTE:
+                return variant.getByte();
+            case SHORT:
+                return variant.getShort();
+            case INTEGER:
+                return variant.getInteger();
+            case LONG:
+                return hash(variant.getLong());
+            case FLAG:
+                return variant.getFlag() ? 2029 : 2027;
+            case FLOAT:
+                return Float.floatToIntBits(variant.getFloat());
+            case DOUBLE:
+                return hash(Double.doubleToLongBits(variant.getDouble()));
+            default:
+                return hash(variant.getType(), variant.getValue());
+        }
+    }
+
     public static int hash(Type type, Object value) {
         return TYPE_HASH_FUNCTIONS[type.code].hash(value);
     }
@@ -84,7 +114,7 @@ public class NaiveHasher implements Hasher {
         int hash = 0;
         for (HPath key : shardingKey.getKeys()) {
             Variant tagValue = key.extract(event.getPayload());
-            hash = 31 * hash + ((tagValue != null) ? hash(tagValue.getType(), tagValue.getValue()) : 0);
+            hash = 31 * hash + ((tagValue != null) ? hash(tagValue) : 0);
         }
         return hash;
     }
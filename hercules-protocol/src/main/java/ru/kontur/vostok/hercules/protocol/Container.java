@@ -17,7 +17,14 @@ public class Container {
     private final Map<TinyString, Variant> tags;
     private final int size;
 
-    private Container(Map<TinyString, Variant> tags, int size) {
+    /**
+     * Inheritors should override {@link #get(TinyString)}, {@link #tags()} and {@link #count()}
+     * if they do not provide tags in constructor.
+     *
+     * @param tags tags
+     * @param size size of Container in bytes
+     */
+    protected Container(Map<TinyString, Variant> tags, int size) {
         this.tags = tags;
         this.size = size;
     }
@@ -1,18 +1,21 @@
 package ru.kontur.vostok.hercules.protocol;
 
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 /**
  * @author Gregory Koshelev
  */
 public class Event {
-    private final byte[] bytes;
+    private final ByteBuffer buffer;
+    private byte[] bytes;
     private final int version;
     private final long timestamp;
     private final UUID uuid;
     private final Container payload;
 
     public Event(byte[] bytes, int version, long timestamp, UUID uuid, Container payload) {
+        this.buffer = null;
         this.bytes = bytes;
         this.version = version;
         this.timestamp = timestamp;
@@ -20,10 +23,55 @@ public class Event {
         this.payload = payload;
     }
 
+    /**
+     * Event is backed by the buffer.
+     * <p>
+     * The buffer is not copied, thus the event is valid until the buffer is reused.
+     * The buffer's content is from the position to the limit.
+     *
+     * @param buffer    the buffer with event bytes
+     * @param version   the event version
+     * @param timestamp the event timestamp
+     * @param uuid      the event uuid
+     * @param payload   the event payload
+     */
+    public Event(ByteBuffer buffer, int version, long timestamp, UUID uuid, Container payload) {
+        this.buffer = buffer;
+        this.bytes = null;
+        this.version = version;
+        this.timestamp = timestamp;
+        this.uuid = uuid;
+        this.payload = payload;
+    }
+
+    /**
+     * Return event bytes.
+     * <p>
+     * If the event is backed by the buffer, then bytes are copied on the first call.
+     * Use {@link #getBuffer()} to avoid copying.
+     *
+     * @return event bytes
+     */
     public byte[] getBytes() {
+        if (bytes == null) {
+            byte[] copy = new byte[buffer.remaining()];
+            buffer.duplicate().get(copy);
+            bytes = copy;
+        }
         return bytes;
     }
 
+    /**
+     * Return event bytes as the buffer without copying.
+     * <p>
+     * Returned buffer shares its content with the event, thus it should not be modified.
+     *
+     * @return event bytes as the buffer
+     */
+    public ByteBuffer getBuffer() {
+        return (buffer != null) ? buffer.duplicate() : ByteBuffer.wrap(bytes);
+    }
+
     public int getVersion() {
         return version;
     }
@@ -41,6 +89,6 @@ public class Event {
     }
 
     public int sizeOf() {
-        return bytes.length;
+        return (buffer != null) ? buffer.remaining() : bytes.length;
     }
 }
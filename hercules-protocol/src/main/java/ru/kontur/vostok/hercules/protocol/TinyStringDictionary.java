@@ -0,0 +1,165 @@
+package ru.kontur.vostok.hercules.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded dictionary of canonical {@link TinyString} instances.
+ * <p>
+ * Dictionary is used to decode tag names without allocations since real streams use the same few dozen tag names.
+ * Canonical tiny strings have pre-computed hash, also they can be compared by reference.
+ * <p>
+ * Dictionary is an open-addressing hash table with limited probing. New tiny strings are added
+ * until the dictionary is full. Tiny strings are never evicted.
+ * <p>
+ * Only trusted names should be interned, since arbitrary input would fill the dictionary permanently.
+ * The default dictionary is seeded with well-known tag names and is extended by tag descriptions only.
+ * <p>
+ * Dictionary is thread-safe.
+ *
+ * @see TinyStringDictionary#getDefault()
+ */
+public final class TinyStringDictionary {
+    private static final int MAX_PROBES = 8;
+
+    private static final TinyStringDictionary DEFAULT = new TinyStringDictionary(4096);
+
+    /**
+     * Well-known tag names of Hercules events.
+     * <p>
+     * Names should be the same as in tag descriptions of hercules-tags, it is checked by the test there.
+     */
+    private static final String[] WELL_KNOWN_TAG_NAMES = {
+            "aggregationType", "annotations", "beginTimestampUtc", "beginTimestampUtcOffset", "column",
+            "elk-index", "endTimestampUtc", "endTimestampUtcOffset", "environment", "exception", "file",
+            "fingerprint", "function", "innerExceptions", "key", "level", "line", "logger", "message",
+            "messageTemplate", "parentSpanId", "platform", "project", "properties", "release", "spanId",
+            "stackFrames", "stackTrace", "subproject", "tags", "traceId", "type", "utcOffset", "value"
+    };
+
+    static {
+        for (String name : WELL_KNOWN_TAG_NAMES) {
+            DEFAULT.intern(TinyString.of(name));
+        }
+    }
+
+    private final AtomicReferenceArray<TinyString> table;
+    private final int mask;
+    private final int maxSize;
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    /**
+     * Dictionary with limited size.
+     *
+     * @param maxSize max count of tiny strings in the dictionary
+     */
+    public TinyStringDictionary(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size should be positive");
+        }
+        int capacity = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+        this.table = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return canonical tiny string which is equal to the bytes from the buffer.
+     * <p>
+     * Buffer position is not changed.
+     *
+     * @param buffer   the buffer
+     * @param position the position of the first byte in the buffer
+     * @param length   the count of bytes
+     * @return canonical tiny string or {@code null} if the dictionary has no such tiny string
+     */
+    public TinyString get(ByteBuffer buffer, int position, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.get(position + i);
+        }
+
+        int index = spread(hash) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            TinyString candidate = table.get(index);
+            if (candidate == null) {
+                return null;
+            }
+            if (candidate.hashCode() == hash && equalsAt(candidate, buffer, position, length)) {
+                return candidate;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Return canonical tiny string which is equal to the passed one.
+     * <p>
+     * If the dictionary has no such tiny string, then it is added if possible.
+     *
+     * @param tinyString the tiny string
+     * @return canonical tiny string or passed one if it cannot be added
+     */
+    public TinyString intern(TinyString tinyString) {
+        int hash = tinyString.hashCode();
+
+        int index = spread(hash) & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            TinyString candidate = table.get(index);
+            if (candidate == null) {
+                if (size.get() >= maxSize) {
+                    return tinyString;
+                }
+                if (table.compareAndSet(index, null, tinyString)) {
+                    size.incrementAndGet();
+                    return tinyString;
+                }
+                candidate = table.get(index);
+            }
+            if (candidate.equals(tinyString)) {
+                return candidate;
+            }
+            index = (index + 1) & mask;
+        }
+        return tinyString;
+    }
+
+    /**
+     * Return count of tiny strings in the dictionary.
+     *
+     * @return count of tiny strings
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Default dictionary is used to decode tag names.
+     * <p>
+     * It is seeded with well-known tag names. Decoder never interns tag names into it.
+     *
+     * @return default dictionary
+     */
+    public static TinyStringDictionary getDefault() {
+        return DEFAULT;
+    }
+
+    private static boolean equalsAt(TinyString tinyString, ByteBuffer buffer, int position, int length) {
+        byte[] bytes = tinyString.getBytes();
+        if (bytes.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != buffer.get(position + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -3,22 +3,130 @@ package ru.kontur.vostok.hercules.protocol;
 import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
+/**
+ * Variant is a typed value.
+ * <p>
+ * Values of primitive types ({@link Type#BYTE}, {@link Type#SHORT}, {@link Type#INTEGER}, {@link Type#LONG},
+ * {@link Type#FLAG}, {@link Type#FLOAT} and {@link Type#DOUBLE}) are stored unboxed.
+ * Use typed accessors like {@link #getLong()} or {@link #getDouble()} to avoid boxing.
+ * Method {@link #getValue()} boxes primitive value on each call.
+ */
 public class Variant {
 
     private final Type type;
     private final Object value;
+    /**
+     * Unboxed value of primitive type.
+     * <p>
+     * Integral types are stored sign-extended, flag is stored as {@code 1} or {@code 0},
+     * float and double are stored as raw bits.
+     */
+    private final long primitive;
 
     public Variant(Type type, Object value) {
         this.type = type;
         this.value = value;
+        this.primitive = isPrimitive(type) ? toPrimitive(type, value) : 0L;
+    }
+
+    private Variant(Type type, long primitive) {
+        this.type = type;
+        this.value = null;
+        this.primitive = primitive;
     }
 
     public Type getType() {
         return type;
     }
 
+    /**
+     * Return the value.
+     * <p>
+     * The value of primitive type is boxed on each call. Use typed accessors instead.
+     *
+     * @return the value
+     */
     public Object getValue() {
-        return value;
+        if (value != null || !isPrimitive(type)) {
+            return value;
+        }
+
+        switch (type) {
+            case BYTE:
+                return getByte();
+            case SHORT:
+                return getShort();
+            case INTEGER:
+                return getInteger();
+            case LONG:
+                return getLong();
+            case FLAG:
+                return getFlag();
+            case FLOAT:
+                return getFloat();
+            case DOUBLE:
+                return getDouble();
+            default:
+                throw new IllegalStateException("Unexpected primitive type " + type);
+        }
+    }
+
+    public byte getByte() {
+        requireType(Type.BYTE);
+        return (byte) primitive;
+    }
+
+    public short getShort() {
+        requireType(Type.SHORT);
+        return (short) primitive;
+    }
+
+    public int getInteger() {
+        requireType(Type.INTEGER);
+        return (int) primitive;
+    }
+
+    public long getLong() {
+        requireType(Type.LONG);
+        return primitive;
+    }
+
+    public boolean getFlag() {
+        requireType(Type.FLAG);
+        return primitive != 0L;
+    }
+
+    public float getFloat() {
+        requireType(Type.FLOAT);
+        return Float.intBitsToFloat((int) primitive);
+    }
+
+    public double getDouble() {
+        requireType(Type.DOUBLE);
+        return Double.longBitsToDouble(primitive);
+    }
+
+    /**
+     * Check if the value is of integral type ({@link Type#BYTE}, {@link Type#SHORT}, {@link Type#INTEGER} or {@link Type#LONG}).
+     *
+     * @return {@code true} if the value is of integral type, otherwise {@code false}
+     * @see #asLong()
+     */
+    public boolean isIntegral() {
+        return type == Type.BYTE || type == Type.SHORT || type == Type.INTEGER || type == Type.LONG;
+    }
+
+    /**
+     * Return the value of integral type widened to long.
+     *
+     * @return the value as long
+     * @see #isIntegral()
+     */
+    public long asLong() {
+        if (!isIntegral()) {
+            throw new IllegalStateException("Expect integral type but got " + type);
+        }
+        return primitive;
     }
 
     public int sizeOf() {
@@ -49,6 +157,12 @@ public class Variant {
 
     }
 
+    private void requireType(Type expected) {
+        if (type != expected) {
+            throw new IllegalStateException("Expect type " + expected + " but got " + type);
+        }
+    }
+
     public static Variant ofContainer(Container container) {
         return new Variant(Type.CONTAINER, container);
     }
@@ -70,15 +184,15 @@ public class Variant {
     }
 
     public static Variant ofFloat(float f) {
-        return new Variant(Type.FLOAT, f);
+        return new Variant(Type.FLOAT, Float.floatToRawIntBits(f));
     }
 
     public static Variant ofDouble(double d) {
-        return new Variant(Type.DOUBLE, d);
+        return new Variant(Type.DOUBLE, Double.doubleToRawLongBits(d));
     }
 
     public static Variant ofFlag(boolean b) {
-        return new Variant(Type.FLAG, b);
+        return new Variant(Type.FLAG, b ? 1L : 0L);
     }
 
     public static Variant ofString(String s) {
@@ -116,8 +230,44 @@ public class Variant {
         if (Type.STRING == type) {
             stringValue = new String((byte[]) value, StandardCharsets.UTF_8);
         } else {
-            stringValue = String.valueOf(value);
+            stringValue = String.valueOf(getValue());
         }
         return String.format("(%s) %s", type.name(), stringValue);
     }
+
+    private static boolean isPrimitive(Type type) {
+        switch (type) {
+            case BYTE:
+            case SHORT:
+            case INTEGER:
+            case LONG:
+            case FLAG:
+            case FLOAT:
+            case DOUBLE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static long toPrimitive(Type type, Object value) {
+        switch (type) {
+            case BYTE:
+                return (Byte) value;
+            case SHORT:
+                return (Short) value;
+            case INTEGER:
+                return (Integer) value;
+            case LONG:
+                return (Long) value;
+            case FLAG:
+                return ((Boolean) value) ? 1L : 0L;
+            case FLOAT:
+                return Float.floatToRawIntBits((Float) value);
+            case DOUBLE:
+                return Double.doubleToRawLongBits((Double) value);
+            default:
+                throw new IllegalArgumentException("Unexpected primitive type " + type);
+        }
+    }
 }
@@ -16,27 +16,76 @@ public class ContainerReader implements Reader<Container> {
 
     private static final VariantReader VARIANT_READER = VariantReader.INSTANCE;
 
-    private final Set<TinyString> tags;
+    private final TinyString[] tagsToRead;
+    private final boolean lazy;
 
-    private ContainerReader(Set<TinyString> tags) {
-        this.tags = tags;
+    private ContainerReader(Set<TinyString> tags, boolean lazy) {
+        this.tagsToRead = (tags != null) ? tags.toArray(new TinyString[0]) : null;
+        this.lazy = lazy;
     }
 
     public static ContainerReader readAllTags() {
-        return new ContainerReader(null);
+        return new ContainerReader(null, false);
     }
 
     public static ContainerReader readTags(Set<TinyString> tags) {
-        return new ContainerReader(tags);
+        return new ContainerReader(tags, false);
+    }
+
+    /**
+     * Read all tags lazily.
+     * <p>
+     * Tag values are not decoded but skipped. Read container is {@link LazyContainer},
+     * it is backed by the decoder's buffer and decodes tag values on demand.
+     *
+     * @return container reader
+     */
+    public static ContainerReader readAllTagsLazily() {
+        return new ContainerReader(null, true);
     }
 
     @Override
     public Container read(Decoder decoder) {
+        if (lazy) {
+            return readLazily(decoder);
+        }
+        if (Objects.nonNull(tagsToRead)) {
+            return readOnly(decoder);
+        }
+
         int length = decoder.readContainerSize();
         Map<TinyString, Variant> variantMap = new HashMap<>(Maps.effectiveHashMapCapacity(length));
         while (0 <= --length) {
             TinyString tagName = decoder.readTinyString();
-            if (Objects.isNull(tags) || tags.contains(tagName)) {
+            Variant variant = VARIANT_READER.read(decoder);
+            variantMap.put(tagName, variant);
+        }
+        return Container.of(variantMap);
+    }
+
+    /**
+     * Read only tags from {@link #tagsToRead}.
+     * <p>
+     * Tag names are matched in place, thus skipped tags cause no allocations.
+     *
+     * @param decoder the decoder
+     * @return container of read tags
+     */
+    private Container readOnly(Decoder decoder) {
+        int length = decoder.readContainerSize();
+        if (tagsToRead.length == 0) {
+            while (0 <= --length) {
+                decoder.skipTinyString();
+                VARIANT_READER.skip(decoder);
+            }
+            return Container.empty();
+        }
+
+        Map<TinyString, Variant> variantMap =
+                new HashMap<>(Maps.effectiveHashMapCapacity(Math.min(length, tagsToRead.length)));
+        while (0 <= --length) {
+            TinyString tagName = decoder.readTinyStringIfAnyOf(tagsToRead);
+            if (tagName != null) {
                 Variant variant = VARIANT_READER.read(decoder);
                 variantMap.put(tagName, variant);
             } else {
@@ -46,6 +95,21 @@ public class ContainerReader implements Reader<Container> {
         return Container.of(variantMap);
     }
 
+    private Container readLazily(Decoder decoder) {
+        int from = decoder.position();
+
+        int length = decoder.readContainerSize();
+        int[] offsets = new int[length];
+        for (int i = 0; i < length; i++) {
+            offsets[i] = decoder.position() - from;
+            decoder.skipTinyString();
+            VARIANT_READER.skip(decoder);
+        }
+
+        int to = decoder.position();
+        return new LazyContainer(decoder.slice(from, to), offsets);
+    }
+
     @Override
     public int skip(Decoder decoder) {
         int position = decoder.position();
@@ -1,6 +1,7 @@
 package ru.kontur.vostok.hercules.protocol.decoder;
 
 import ru.kontur.vostok.hercules.protocol.TinyString;
+import ru.kontur.vostok.hercules.protocol.TinyStringDictionary;
 import ru.kontur.vostok.hercules.protocol.Type;
 
 import java.nio.ByteBuffer;
@@ -19,6 +20,8 @@ import java.util.UUID;
  * @author Gregory Koshelev
  */
 public class Decoder {
+    private static final TinyStringDictionary DICTIONARY = TinyStringDictionary.getDefault();
+
     private final ByteBuffer buffer;
 
     public Decoder(byte[] data) {
@@ -378,14 +381,45 @@ public class Decoder {
 
     /**
      * Read tiny string, which has 1-byte length
+     * <p>
+     * Canonical tiny string from {@link TinyStringDictionary#getDefault()} is returned if possible.
+     * Thus, no allocations are made for common tag names.
+     * Decoded tiny strings are not interned, so arbitrary input cannot fill the dictionary.
      *
      * @return tiny string
      */
     public TinyString readTinyString() {
         int length = readUnsignedByte();
+        TinyString tinyString = DICTIONARY.get(buffer, buffer.position(), length);
+        if (tinyString != null) {
+            skip(length);
+            return tinyString;
+        }
         return TinyString.of(readBytes(length));
     }
 
+    /**
+     * Read tiny string and return the equal one from candidates if any.
+     * <p>
+     * Tag name is compared in place, thus no allocations are made.
+     * If there is no equal candidate, then tiny string is skipped and {@code null} is returned.
+     *
+     * @param candidates tiny strings to compare with
+     * @return the equal candidate or {@code null} otherwise
+     */
+    public TinyString readTinyStringIfAnyOf(TinyString[] candidates) {
+        int length = readUnsignedByte();
+        int position = buffer.position();
+        for (TinyString candidate : candidates) {
+            if (candidate.length() == length && equalsAt(position, candidate.getBytes())) {
+                skip(length);
+                return candidate;
+            }
+        }
+        skip(length);
+        return null;
+    }
+
     public int skipTinyString() {
         int length = readUnsignedByte();
         skip(length);
@@ -435,5 +469,32 @@ public class Decoder {
         return subarray;
     }
 
+    /**
+     * Return a view of underlying buffer without copying.
+     * <p>
+     * The view begins at the index {@code from} and ends to the index {@code toExclusive - 1}.
+     * Content of the view is shared with the underlying buffer,
+     * thus the view is valid until underlying buffer is reused.
+     *
+     * @param from        the beginning index, inclusive
+     * @param toExclusive the ending index, exclusive
+     * @return the view
+     */
+    public ByteBuffer slice(int from, int toExclusive) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.limit(toExclusive);
+        duplicate.position(from);
+        return duplicate.slice();
+    }
+
+    private boolean equalsAt(int position, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (buffer.get(position + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 
 }
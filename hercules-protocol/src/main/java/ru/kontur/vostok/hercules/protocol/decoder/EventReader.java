@@ -4,6 +4,7 @@ import ru.kontur.vostok.hercules.protocol.Container;
 import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.protocol.TinyString;
 
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Objects;
 import java.util.Set;
@@ -14,9 +15,15 @@ public class EventReader implements Reader<Event> {
     private static final ContainerReader CONTAINER_READER = ContainerReader.readTags(Collections.emptySet());
 
     private final ContainerReader containerReader;
+    private final boolean copyBytes;
 
     public EventReader(ContainerReader containerReader) {
+        this(containerReader, true);
+    }
+
+    private EventReader(ContainerReader containerReader, boolean copyBytes) {
         this.containerReader = containerReader;
+        this.copyBytes = copyBytes;
     }
 
     @Override
@@ -29,6 +36,10 @@ public class EventReader implements Reader<Event> {
         Container container = processContainer(decoder);
 
         int to = decoder.position();
+        if (!copyBytes) {
+            ByteBuffer buffer = decoder.slice(from, to);
+            return new Event(buffer, version, timestamp, random, container);
+        }
         byte[] bytes = decoder.subarray(from, to);
 
         return new Event(bytes, version, timestamp, random, container);
@@ -51,7 +62,33 @@ public class EventReader implements Reader<Event> {
         return new EventReader(ContainerReader.readAllTags());
     }
 
+    /**
+     * Read all tags lazily.
+     * <p>
+     * Event payload is {@link LazyContainer}, thus tag values are decoded on demand.
+     * Also, event bytes are not copied.
+     * Read events are backed by the decoder's buffer, thus they are valid until the buffer is reused.
+     *
+     * @return event reader
+     */
+    public static EventReader readAllTagsLazily() {
+        return new EventReader(ContainerReader.readAllTagsLazily(), false);
+    }
+
     public static EventReader readTags(Set<TinyString> tags) {
         return new EventReader(ContainerReader.readTags(tags));
     }
+
+    /**
+     * Read only specified tags without copying event bytes.
+     * <p>
+     * Read events are backed by the decoder's buffer (see {@link Event#getBuffer()}),
+     * thus they are valid until the buffer is reused.
+     *
+     * @param tags tags to read
+     * @return event reader
+     */
+    public static EventReader readTagsWithoutCopying(Set<TinyString> tags) {
+        return new EventReader(ContainerReader.readTags(tags), false);
+    }
 }
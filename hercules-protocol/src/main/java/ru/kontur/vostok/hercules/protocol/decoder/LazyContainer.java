@@ -0,0 +1,122 @@
+package ru.kontur.vostok.hercules.protocol.decoder;
+
+import ru.kontur.vostok.hercules.protocol.Container;
+import ru.kontur.vostok.hercules.protocol.TinyString;
+import ru.kontur.vostok.hercules.protocol.Type;
+import ru.kontur.vostok.hercules.protocol.Variant;
+import ru.kontur.vostok.hercules.util.Maps;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flyweight {@link Container} over raw bytes.
+ * <p>
+ * Lazy container keeps underlying bytes and positions of tags. Tag value is decoded on the first access only.
+ * Nested containers are lazy too. Thus, tags which are never accessed are never decoded.
+ * <p>
+ * Lazy container is thread-safe, but concurrent first access to the same tag may decode it more than once.
+ *
+ * @see ContainerReader#readAllTagsLazily()
+ */
+public class LazyContainer extends Container {
+    private static final VariantReader VARIANT_READER = VariantReader.INSTANCE;
+    private static final ContainerReader LAZY_CONTAINER_READER = ContainerReader.readAllTagsLazily();
+
+    private final ByteBuffer buffer;
+    private final int[] offsets;
+    private final Variant[] values;
+
+    private volatile Map<TinyString, Variant> tags;
+
+    /**
+     * Lazy container.
+     *
+     * @param buffer  bytes of the container (starting with tag count)
+     * @param offsets positions of tag names in the buffer
+     */
+    LazyContainer(ByteBuffer buffer, int[] offsets) {
+        super(null, buffer.remaining());
+
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.values = new Variant[offsets.length];
+    }
+
+    @Override
+    public Variant get(TinyString tag) {
+        for (int i = 0; i < offsets.length; i++) {
+            if (tagEquals(offsets[i], tag)) {
+                return value(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return tags.
+     * <p>
+     * All tags are decoded on the first call.
+     *
+     * @return tags
+     */
+    @Override
+    public Map<TinyString, Variant> tags() {
+        Map<TinyString, Variant> tags = this.tags;
+        if (tags != null) {
+            return tags;
+        }
+
+        Map<TinyString, Variant> map = new HashMap<>(Maps.effectiveHashMapCapacity(offsets.length));
+        for (int i = 0; i < offsets.length; i++) {
+            Decoder decoder = decoderAt(offsets[i]);
+            map.put(decoder.readTinyString(), value(i));
+        }
+        return this.tags = Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public int count() {
+        return offsets.length;
+    }
+
+    private Variant value(int i) {
+        Variant value = values[i];
+        if (value != null) {
+            return value;
+        }
+
+        Decoder decoder = decoderAt(offsets[i]);
+        decoder.skipTinyString();
+        if (Type.valueOf(buffer.get(decoder.position())) == Type.CONTAINER) {
+            decoder.readType();
+            value = Variant.ofContainer(LAZY_CONTAINER_READER.read(decoder));
+        } else {
+            value = VARIANT_READER.read(decoder);
+        }
+        return values[i] = value;
+    }
+
+    private boolean tagEquals(int offset, TinyString tag) {
+        int length = buffer.get(offset) & 0xFF;
+        if (length != tag.length()) {
+            return false;
+        }
+
+        byte[] bytes = tag.getBytes();
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + 1 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Decoder decoderAt(int offset) {
+        Decoder decoder = new Decoder(buffer.duplicate());
+        decoder.skip(offset);
+        return decoder;
+    }
+}
@@ -159,8 +159,25 @@ public class VariantReader implements Reader<Variant> {
     @Override
     public Variant read(Decoder decoder) {
         Type type = decoder.readType();
-        Object value = readValue(decoder, type);
-        return new Variant(type, value);
+        switch (type) {
+            case BYTE:
+                return Variant.ofByte(decoder.readByte());
+            case SHORT:
+                return Variant.ofShort(decoder.readShort());
+            case INTEGER:
+                return Variant.ofInteger(decoder.readInteger());
+            case LONG:
+                return Variant.ofLong(decoder.readLong());
+            case FLAG:
+                return Variant.ofFlag(decoder.readFlag());
+            case FLOAT:
+                return Variant.ofFloat(decoder.readFloat());
+            case DOUBLE:
+                return Variant.ofDouble(decoder.readDouble());
+            default:
+                Object value = readValue(decoder, type);
+                return new Variant(type, value);
+        }
     }
 
     @Override
@@ -173,8 +173,33 @@ public class VariantWriter implements Writer<Variant> {
      */
     @Override
     public void write(Encoder encoder, Variant variant) {
-        encoder.writeType(variant.getType());
-        TYPE_WRITERS[variant.getType().code].accept(encoder, variant.getValue());
+        Type type = variant.getType();
+        encoder.writeType(type);
+        switch (type) {
+            case BYTE:
+                encoder.writeByte(variant.getByte());
+                return;
+            case SHORT:
+                encoder.writeShort(variant.getShort());
+                return;
+            case INTEGER:
+                encoder.writeInteger(variant.getInteger());
+                return;
+            case LONG:
+                encoder.writeLong(variant.getLong());
+                return;
+            case FLAG:
+                encoder.writeFlag(variant.getFlag());
+                return;
+            case FLOAT:
+                encoder.writeFloat(variant.getFloat());
+                return;
+            case DOUBLE:
+                encoder.writeDouble(variant.getDouble());
+                return;
+            default:
+                TYPE_WRITERS[type.code].accept(encoder, variant.getValue());
+        }
     }
 
     private interface ObjectWriter extends BiConsumer<Encoder, Object> {
@@ -1,6 +1,7 @@
 package ru.kontur.vostok.hercules.protocol.util;
 
 import ru.kontur.vostok.hercules.protocol.TinyString;
+import ru.kontur.vostok.hercules.protocol.TinyStringDictionary;
 import ru.kontur.vostok.hercules.protocol.Type;
 
 import java.util.Collections;
@@ -9,6 +10,9 @@ import java.util.function.Function;
 
 /**
  * TagDescription stores tag name and type
+ * <p>
+ * Tag name is interned into {@link TinyStringDictionary#getDefault()},
+ * thus tag descriptions (e.g. from hercules-tags) seed the dictionary which is used to decode tag names.
  *
  * @author Kirill Sulim
  */
@@ -18,7 +22,7 @@ public class TagDescription<T> {
     private final Map<Type, Function<Object, ? extends T>> extractors;
 
     public TagDescription(TinyString name, Map<Type, Function<Object, ? extends T>> extractors) {
-        this.name = name;
+        this.name = TinyStringDictionary.getDefault().intern(name);
         this.extractors = Collections.unmodifiableMap(extractors);
     }
 
@@ -33,12 +33,19 @@ public final class VariantUtil {
     public static Optional<String> extractPrimitiveAsString(Variant variant) {
         switch (variant.getType()) {
             case BYTE:
+                return Optional.of(Byte.toString(variant.getByte()));
             case SHORT:
+                return Optional.of(Short.toString(variant.getShort()));
             case INTEGER:
+                return Optional.of(Integer.toString(variant.getInteger()));
             case LONG:
+                return Optional.of(Long.toString(variant.getLong()));
             case FLAG:
+                return Optional.of(Boolean.toString(variant.getFlag()));
             case FLOAT:
+                return Optional.of(Float.toString(variant.getFloat()));
             case DOUBLE:
+                return Optional.of(Double.toString(variant.getDouble()));
             case UUID:
                 return Optional.of(String.valueOf(variant.getValue()));
             case STRING:
@@ -3,7 +3,9 @@ package ru.kontur.vostok.hercules.protocol;
 import org.junit.Assert;
 import org.junit.Test;
 import ru.kontur.vostok.hercules.protocol.decoder.ContainerReader;
+import ru.kontur.vostok.hercules.protocol.decoder.LazyContainer;
 import ru.kontur.vostok.hercules.protocol.encoder.ContainerWriter;
+import ru.kontur.vostok.hercules.protocol.hpath.HPath;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -78,4 +80,29 @@ public class ContainerWriteReadTest {
 
         pipe.process(container).assertEquals(HerculesProtocolAssert::assertEquals);
     }
+
+    @Test
+    public void shouldReadWriteContainerLazily() {
+        Container innerContainer = Container.builder().
+                tag("first", Variant.ofInteger(1)).
+                tag("second", Variant.ofVector(Vector.ofStrings("a", "b", "c"))).
+                build();
+
+        Container container = Container.builder().
+                tag("int-sample", Variant.ofInteger(123)).
+                tag("text-sample", Variant.ofString("Abc еёю")).
+                tag("inner", Variant.ofContainer(innerContainer)).
+                build();
+
+        WriteReadPipe<Container> lazyPipe = WriteReadPipe.init(new ContainerWriter(), ContainerReader.readAllTagsLazily());
+        Container processed = lazyPipe.process(container).getProcessed();
+
+        Assert.assertTrue(processed instanceof LazyContainer);
+        Assert.assertEquals(container.count(), processed.count());
+        Assert.assertEquals(container.sizeOf(), processed.sizeOf());
+        Assert.assertNull(processed.get(TinyString.of("unknown")));
+        HerculesProtocolAssert.assertEquals(Variant.ofInteger(123), processed.get(TinyString.of("int-sample")));
+        HerculesProtocolAssert.assertEquals(Variant.ofInteger(1), HPath.fromPath("inner/first").extract(processed));
+        HerculesProtocolAssert.assertEquals(container, processed);
+    }
 }
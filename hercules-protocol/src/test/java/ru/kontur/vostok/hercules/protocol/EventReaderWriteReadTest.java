@@ -75,4 +75,33 @@ public class EventReaderWriteReadTest {
 
         Assert.assertArrayEquals(original.getBytes(), processed.getBytes());
     }
+
+    @Test
+    public void shouldWriteReadOneTagWithoutCopying() {
+        WriteReadPipe<Event> pipe = WriteReadPipe.init(new EventWriter(), EventReader.readTagsWithoutCopying(Collections.singleton(TinyString.of("string-tag"))));
+
+        EventBuilder builder = EventBuilder.create(
+                TimeUtil.millisToTicks(123_456_789L),
+                UuidGenerator.getClientInstance().withTicks(TimeUtil.millisToTicks(123_456_789L))
+        )
+                .tag("flag-array-tag", Variant.ofVector(Vector.ofFlags(true, true, false)))
+                .tag("string-tag", Variant.ofString("Abc ЕЁЮ"))
+                .tag("string-tag-2", Variant.ofString("Def"));
+
+        WriteReadPipe.ProcessedCapture<Event> capture = pipe.process(builder.build());
+
+        Event processed = capture.getProcessed();
+        Event original = capture.getOriginal();
+
+        Assert.assertEquals(original.getVersion(), processed.getVersion());
+        Assert.assertEquals(original.getTimestamp(), processed.getTimestamp());
+        Assert.assertEquals(original.getUuid(), processed.getUuid());
+
+        Assert.assertEquals(1, processed.getPayload().count());
+        HerculesProtocolAssert.assertEquals(Variant.ofString("Abc ЕЁЮ"), processed.getPayload().get(TinyString.of("string-tag")));
+
+        Assert.assertEquals(original.sizeOf(), processed.sizeOf());
+        Assert.assertEquals(original.getBuffer(), processed.getBuffer());
+        Assert.assertArrayEquals(original.getBytes(), processed.getBytes());
+    }
 }
@@ -0,0 +1,80 @@
+package ru.kontur.vostok.hercules.protocol;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
+import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class TinyStringDictionaryTest {
+    @Test
+    public void shouldReturnCanonicalTinyString() {
+        TinyStringDictionary dictionary = new TinyStringDictionary(16);
+
+        TinyString canonical = dictionary.intern(TinyString.of("message"));
+        Assert.assertSame(canonical, dictionary.intern(TinyString.of("message")));
+
+        ByteBuffer buffer = ByteBuffer.wrap("xmessage".getBytes(StandardCharsets.UTF_8));
+        Assert.assertSame(canonical, dictionary.get(buffer, 1, 7));
+        Assert.assertEquals(0, buffer.position());
+
+        Assert.assertNull(dictionary.get(buffer, 0, 7));
+        Assert.assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    public void shouldNotExceedMaxSize() {
+        TinyStringDictionary dictionary = new TinyStringDictionary(2);
+
+        dictionary.intern(TinyString.of("a"));
+        dictionary.intern(TinyString.of("b"));
+        TinyString c = TinyString.of("c");
+
+        Assert.assertSame(c, dictionary.intern(c));
+        Assert.assertEquals(2, dictionary.size());
+        Assert.assertNull(dictionary.get(ByteBuffer.wrap(c.getBytes()), 0, 1));
+    }
+
+    @Test
+    public void shouldDecodeCanonicalTagNames() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        Encoder encoder = new Encoder(buffer);
+        encoder.writeTinyString(TinyString.of("level"));
+        encoder.writeTinyString(TinyString.of("level"));
+        buffer.flip();
+
+        Decoder decoder = new Decoder(buffer);
+        TinyString first = decoder.readTinyString();
+        TinyString second = decoder.readTinyString();
+
+        Assert.assertEquals(TinyString.of("level"), first);
+        Assert.assertSame(first, second);
+        Assert.assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void shouldNotInternDecodedTagNames() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        Encoder encoder = new Encoder(buffer);
+        encoder.writeTinyString(TinyString.of("unknown_tag_name"));
+        encoder.writeTinyString(TinyString.of("unknown_tag_name"));
+        buffer.flip();
+
+        int size = TinyStringDictionary.getDefault().size();
+        Decoder decoder = new Decoder(buffer);
+        TinyString first = decoder.readTinyString();
+        TinyString second = decoder.readTinyString();
+
+        Assert.assertEquals(first, second);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(size, TinyStringDictionary.getDefault().size());
+    }
+
+    @Test
+    public void shouldSeedDefaultDictionaryWithWellKnownTagNames() {
+        ByteBuffer buffer = ByteBuffer.wrap("properties".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNotNull(TinyStringDictionary.getDefault().get(buffer, 0, buffer.remaining()));
+    }
+}
@@ -1,5 +1,6 @@
 package ru.kontur.vostok.hercules.protocol;
 
+import org.junit.Assert;
 import org.junit.Test;
 import ru.kontur.vostok.hercules.protocol.decoder.VariantReader;
 import ru.kontur.vostok.hercules.protocol.encoder.VariantWriter;
@@ -169,4 +170,28 @@ public class VariantWriteReadTest {
 
         pipe.process(variant).assertEquals(HerculesProtocolAssert::assertEquals);
     }
+
+    @Test
+    public void shouldReadPrimitivesUnboxed() {
+        Assert.assertEquals((byte) -1, pipe.process(Variant.ofByte((byte) -1)).getProcessed().getByte());
+        Assert.assertEquals((short) -10_000, pipe.process(Variant.ofShort((short) -10_000)).getProcessed().getShort());
+        Assert.assertEquals(-123_456_789, pipe.process(Variant.ofInteger(-123_456_789)).getProcessed().getInteger());
+        Assert.assertEquals(Long.MIN_VALUE, pipe.process(Variant.ofLong(Long.MIN_VALUE)).getProcessed().getLong());
+        Assert.assertTrue(pipe.process(Variant.ofFlag(true)).getProcessed().getFlag());
+        Assert.assertEquals(-0.125f, pipe.process(Variant.ofFloat(-0.125f)).getProcessed().getFloat(), 0f);
+        Assert.assertEquals(Double.NaN, pipe.process(Variant.ofDouble(Double.NaN)).getProcessed().getDouble(), 0.0);
+
+        Assert.assertEquals(-1L, pipe.process(Variant.ofByte((byte) -1)).getProcessed().asLong());
+        Assert.assertEquals(-123_456_789L, pipe.process(Variant.ofInteger(-123_456_789)).getProcessed().asLong());
+        Assert.assertFalse(Variant.ofDouble(1.0).isIntegral());
+
+        Variant boxed = new Variant(Type.INTEGER, 42);
+        Assert.assertEquals(42, boxed.getInteger());
+        Assert.assertEquals(42, Variant.ofInteger(42).getValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailOnTypeMismatch() {
+        Variant.ofInteger(42).getLong();
+    }
 }
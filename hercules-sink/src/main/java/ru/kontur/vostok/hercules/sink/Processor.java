@@ -8,6 +8,13 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Processor processes batches of events polled by {@link Sink}.
+ * <p>
+ * Sinks of the {@link SinkPool} share the same processor, thus {@link #process(List)} is called concurrently
+ * if the pool has more than one Sink. Also, a Sink calls {@link #process(List)} concurrently for different partitions
+ * of the same batch if partition parallelism is enabled and the processor {@link #isConcurrent() supports} it.
+ * Otherwise, a Sink has at most one call of {@link #process(List)} in flight.
+ *
  * @author Gregory Koshelev
  */
 public abstract class Processor {
@@ -60,8 +67,28 @@ public abstract class Processor {
         return isAvailable();
     }
 
+    /**
+     * Process batch of events.
+     * <p>
+     * Should be thread-safe if Sink pool has more than one Sink or {@link #isConcurrent()} returns {@code true}.
+     *
+     * @param events events to be processed
+     * @return result of processing
+     */
     public abstract ProcessorResult process(List<Event> events);
 
+    /**
+     * Check if the processor supports concurrent processing of partitions of the same batch by a Sink.
+     * <p>
+     * Processors are not concurrent by default, thus partition parallelism of Sink is disabled for them.
+     * A processor should override it only if its {@link #process(List)} and metrics are thread-safe.
+     *
+     * @return {@code true} if {@link #process(List)} can be called concurrently by a Sink, otherwise {@code false}
+     */
+    public boolean isConcurrent() {
+        return false;
+    }
+
     /**
      * Disable processor
      */
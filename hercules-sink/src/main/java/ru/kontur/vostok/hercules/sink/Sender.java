@@ -17,6 +17,12 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Sender sends batches of events to some backend.
+ * <p>
+ * The same sender is shared by all Sinks of the pool, thus {@link #send(List)} should be thread-safe
+ * if {@code sink.poolSize} is more than one. Sender which supports concurrent sending of partitions
+ * of the same batch should override {@link #isConcurrent()}, see {@link Processor} for details.
+ *
  * @author Gregory Koshelev
  */
 public abstract class Sender extends Processor {
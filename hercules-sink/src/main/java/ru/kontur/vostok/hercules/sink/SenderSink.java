@@ -27,7 +27,9 @@ public class SenderSink extends Sink {
                         include(PropertiesUtil.get(Props.PATTERN, properties).get()).
                         exclude(PropertiesUtil.get(Props.PATTERN_EXCLUSIONS, properties).get()).
                         build(),
-                EventDeserializer.parseAllTags(),
+                PropertiesUtil.get(Props.PAYLOAD_LAZY_ENABLE, properties).get()
+                        ? EventDeserializer.parseAllTagsLazily()
+                        : EventDeserializer.parseAllTags(),
                 metricsCollector);
     }
 
@@ -41,5 +43,10 @@ public class SenderSink extends Sink {
                 Parameter.stringArrayParameter("pattern.exclusions").
                         withDefault(new String[0]).
                         build();
+
+        static final Parameter<Boolean> PAYLOAD_LAZY_ENABLE =
+                Parameter.booleanParameter("payload.lazy.enable").
+                        withDefault(false).
+                        build();
     }
 }
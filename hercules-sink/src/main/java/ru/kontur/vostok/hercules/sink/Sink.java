@@ -1,7 +1,9 @@
 package ru.kontur.vostok.hercules.sink;
 
 import org.apache.kafka.clients.consumer.CommitFailedException;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
@@ -18,19 +20,29 @@ import ru.kontur.vostok.hercules.kafka.util.serialization.EventDeserializer;
 import ru.kontur.vostok.hercules.kafka.util.serialization.UuidDeserializer;
 import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.sink.filter.EventFilter;
+import ru.kontur.vostok.hercules.util.concurrent.ThreadFactories;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 import ru.kontur.vostok.hercules.util.time.TimeSource;
 import ru.kontur.vostok.hercules.util.time.Timer;
+import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 /**
@@ -40,6 +52,8 @@ public class Sink {
     private static final Logger LOGGER = LoggerFactory.getLogger(Sink.class);
 
     private volatile boolean running = false;
+    private volatile boolean started = false;
+    private final CountDownLatch stopped = new CountDownLatch(1);
 
     private final ExecutorService executor;
     private final Processor processor;
@@ -49,12 +63,30 @@ public class Sink {
     private final long pollTimeoutMs;
     private final int batchSize;
     private final long availabilityTimeoutMs;
+    private final boolean pipelineEnable;
+    private final int partitionParallelism;
+    private final long shutdownTimeoutMs;
 
     private final Pattern pattern;
-    private final KafkaConsumer<UUID, Event> consumer;
+    private final Consumer<UUID, Event> consumer;
 
     private final Timer timer;
 
+    /**
+     * Executor processes batches in pipelined mode, otherwise it is {@code null}.
+     */
+    private final ExecutorService processingExecutor;
+    /**
+     * The batch which is being processed in pipelined mode.
+     */
+    private Batch pendingBatch;
+    private Future<ProcessorResult> pendingResult;
+    /**
+     * Executor processes events of different partitions concurrently if partition parallelism is enabled,
+     * otherwise it is {@code null}.
+     */
+    private final ExecutorService partitionExecutor;
+
     private final Meter droppedEventsMeter;
     private final Meter filteredEventsMeter;
     private final Meter processedEventsMeter;
@@ -69,7 +101,15 @@ public class Sink {
             Subscription subscription,
             EventDeserializer deserializer,
             MetricsCollector metricsCollector) {
-        this(executor, applicationId, properties, processor, subscription, deserializer, metricsCollector, TimeSource.SYSTEM);
+        this(
+                executor,
+                applicationId,
+                properties,
+                processor,
+                subscription,
+                consumerProperties -> new KafkaConsumer<>(consumerProperties, new UuidDeserializer(), deserializer),
+                metricsCollector,
+                TimeSource.SYSTEM);
     }
 
     Sink(
@@ -78,7 +118,7 @@ public class Sink {
             Properties properties,
             Processor processor,
             Subscription subscription,
-            EventDeserializer deserializer,
+            Function<Properties, Consumer<UUID, Event>> consumerFactory,
             MetricsCollector metricsCollector,
             TimeSource time) {
         this.executor = executor;
@@ -89,6 +129,9 @@ public class Sink {
         this.pollTimeoutMs = PropertiesUtil.get(Props.POLL_TIMEOUT_MS, properties).get();
         this.batchSize = PropertiesUtil.get(Props.BATCH_SIZE, properties).get();
         this.availabilityTimeoutMs = PropertiesUtil.get(Props.AVAILABILITY_TIMEOUT_MS, properties).get();
+        this.pipelineEnable = PropertiesUtil.get(Props.PIPELINE_ENABLE, properties).get();
+        this.partitionParallelism = partitionParallelism(PropertiesUtil.get(Props.PARTITION_PARALLELISM, properties).get(), processor);
+        this.shutdownTimeoutMs = PropertiesUtil.get(Props.SHUTDOWN_TIMEOUT_MS, properties).get();
 
         String consumerGroupId =
                 PropertiesUtil.get(Props.GROUP_ID, properties).
@@ -102,12 +145,19 @@ public class Sink {
         consumerProperties.putIfAbsent(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, batchSize);
         consumerProperties.put(KafkaConfigs.METRICS_COLLECTOR_INSTANCE_CONFIG, metricsCollector);
 
-        UuidDeserializer keyDeserializer = new UuidDeserializer();
-
-        this.consumer = new KafkaConsumer<>(consumerProperties, keyDeserializer, deserializer);
+        this.consumer = consumerFactory.apply(consumerProperties);
 
         this.timer = time.timer(pollTimeoutMs);
 
+        this.processingExecutor = pipelineEnable
+                ? Executors.newSingleThreadExecutor(ThreadFactories.newNamedThreadFactory("sink-processor", false))
+                : null;
+        this.partitionExecutor = partitionParallelism > 1
+                ? Executors.newFixedThreadPool(
+                partitionParallelism,
+                ThreadFactories.newNamedThreadFactory("sink-partition", false))
+                : null;
+
         droppedEventsMeter = metricsCollector.meter("droppedEvents");
         filteredEventsMeter = metricsCollector.meter("filteredEvents");
         processedEventsMeter = metricsCollector.meter("processedEvents");
@@ -120,12 +170,15 @@ public class Sink {
      */
     public final void start() {
         running = true;
+        started = true;
 
         executor.execute(this::run);
     }
 
     /**
      * Stop Sink.
+     * <p>
+     * Awaits the main Sink logic is finished, thus offsets of processed events are committed before the consumer is closed.
      */
     public final void stop() {
         running = false;
@@ -136,12 +189,30 @@ public class Sink {
             /* ignore */
         }
 
+        if (started) {
+            try {
+                if (!stopped.await(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    LOGGER.warn("Sink has not been stopped in " + shutdownTimeoutMs + " millis");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         try {
             consumer.close();
         } catch (Exception ex) {
             /* ignore */
         }
 
+        if (processingExecutor != null) {
+            processingExecutor.shutdown();
+        }
+
+        if (partitionExecutor != null) {
+            partitionExecutor.shutdown();
+        }
+
         postStop();
     }
 
@@ -158,8 +229,32 @@ public class Sink {
      * Main Sink logic. Sink poll events from Kafka and processes them using {@link Processor} if possible.
      * <p>
      * Sink awaits availability of {@link Processor}. Also, it controls {@link #isRunning()} during operations.
+     * <p>
+     * In pipelined mode, the next batch is polled while the previous one is being processed.
+     * Offsets of each batch are committed asynchronously when the batch is processed.
+     * Batches are processed and committed in the poll order.
+     * If the batch processing failed, then the next batch is dropped and consumer positions are rewound
+     * to the first offsets of failed partitions, thus no events are skipped.
+     * The last processed batch is committed synchronously on stop.
+     * <p>
+     * If partition parallelism is enabled and the processor {@link Processor#isConcurrent() supports} it,
+     * events of different partitions from the same batch are processed concurrently.
+     * Otherwise, at most one batch is being processed at once.
+     * Offsets are committed for successfully processed partitions only.
+     * Consumer positions of failed partitions are rewound to the first offsets of the batch,
+     * thus their events are re-read by the next poll in the same order.
+     * The batch is a barrier: the next batch is not processed until the current one is completed,
+     * so the committed offset of each partition is the end of its contiguous processed events.
      */
     public final void run() {
+        try {
+            runLoop();
+        } finally {
+            stopped.countDown();
+        }
+    }
+
+    private void runLoop() {
         while (isRunning()) {
             if (processor.isAvailable()) {
                 try {
@@ -167,52 +262,39 @@ public class Sink {
                     subscribe();
 
                     while (processor.isAvailable()) {
-                        List<Event> events = new ArrayList<>(batchSize * 2);
-
-                        int droppedEvents = 0;
-                        int filteredEvents = 0;
-
-                        timer.reset();
+                        Batch batch;
+                        try {
+                            batch = pollBatch();
+                        } catch (WakeupException ex) {
+                            /*
+                             * WakeupException is used to terminate polling
+                             */
+                            return;
+                        }
 
-                        do {
-                            ConsumerRecords<UUID, Event> pollResult;
-                            try {
-                                pollResult = poll(timer.toDuration());
-                            } catch (WakeupException ex) {
+                        if (pipelineEnable) {
+                            Batch failedBatch = completePendingBatch(false);
+                            if (failedBatch != null) {
                                 /*
-                                 * WakeupException is used to terminate polling
+                                 * The polled batch is dropped, since events of the failed batch should be processed first
                                  */
-                                return;
-                            }
-
-                            Set<TopicPartition> partitions = pollResult.partitions();
-
-                            for (TopicPartition partition : partitions) {
-                                List<ConsumerRecord<UUID, Event>> records = pollResult.records(partition);
-                                for (ConsumerRecord<UUID, Event> record : records) {
-                                    Event event = record.value();
-                                    if (event == null) {// Received non-deserializable data, should be ignored
-                                        droppedEvents++;
-                                        continue;
-                                    }
-                                    if (!filter(event)) {
-                                        filteredEvents++;
-                                        continue;
-                                    }
-                                    events.add(event);
-                                }
+                                seek(batch.firstOffsets);
+                                seek(failedBatch.failedOffsets());
+                                continue;
                             }
-                        } while (events.size() < batchSize && !timer.isExpired());
+                            pendingBatch = batch;
+                            pendingResult = processingExecutor.submit(() -> process(batch));
+                            continue;
+                        }
 
-                        ProcessorResult result = processor.process(events);
-                        if (result.isSuccess()) {
+                        ProcessorResult result = process(batch);
+                        if (batch.hasFailedPartitions()) {
+                            seek(batch.failedOffsets());
+                        }
+                        if (!batch.offsets.isEmpty()) {
                             try {
-                                commit();
-                                droppedEventsMeter.mark(droppedEvents);
-                                filteredEventsMeter.mark(filteredEvents);
-                                processedEventsMeter.mark(result.getProcessedEvents());
-                                rejectedEventsMeter.mark(result.getRejectedEvents());
-                                totalEventsMeter.mark(events.size());
+                                commit(batch.offsets);
+                                markProcessed(batch, result);
                             } catch (CommitFailedException ex) {
                                 LOGGER.warn("Commit failed due to rebalancing", ex);
                                 continue;
@@ -222,6 +304,11 @@ public class Sink {
                 } catch (Exception ex) {
                     LOGGER.error("Unspecified exception has been acquired", ex);
                 } finally {
+                    try {
+                        completePendingBatch(true);
+                    } catch (Exception ex) {
+                        LOGGER.error("Cannot complete pending batch", ex);
+                    }
                     unsubscribe();
                 }
             }
@@ -241,7 +328,11 @@ public class Sink {
      * Subscribe Sink. Should be called before polling
      */
     protected final void subscribe() {
-        consumer.subscribe(pattern);
+        if (pipelineEnable) {
+            consumer.subscribe(pattern, new PendingBatchCommitter());
+        } else {
+            consumer.subscribe(pattern);
+        }
     }
 
     /**
@@ -274,6 +365,200 @@ public class Sink {
         consumer.commitSync(offsets);
     }
 
+    /**
+     * Poll the batch of events until it is full or poll timeout is expired.
+     *
+     * @return the batch
+     * @throws WakeupException if poll terminated due to shutdown
+     */
+    private Batch pollBatch() throws WakeupException {
+        Batch batch = new Batch(batchSize * 2);
+
+        timer.reset();
+
+        do {
+            ConsumerRecords<UUID, Event> pollResult = poll(timer.toDuration());
+
+            Set<TopicPartition> partitions = pollResult.partitions();
+
+            for (TopicPartition partition : partitions) {
+                List<ConsumerRecord<UUID, Event>> records = pollResult.records(partition);
+                for (ConsumerRecord<UUID, Event> record : records) {
+                    Event event = record.value();
+                    if (event == null) {// Received non-deserializable data, should be ignored
+                        batch.droppedEvents++;
+                        continue;
+                    }
+                    if (!filter(event)) {
+                        batch.filteredEvents++;
+                        continue;
+                    }
+                    batch.events.add(event);
+                    if (partitionExecutor != null) {
+                        batch.eventsByPartition.computeIfAbsent(partition, p -> new ArrayList<>()).add(event);
+                    }
+                }
+                if (!records.isEmpty()) {
+                    batch.firstOffsets.putIfAbsent(partition, records.get(0).offset());
+                    batch.offsets.put(
+                            partition,
+                            new OffsetAndMetadata(records.get(records.size() - 1).offset() + 1));
+                }
+            }
+        } while (batch.events.size() < batchSize && !timer.isExpired());
+
+        return batch;
+    }
+
+    /**
+     * Await the pending batch processing and commit its offsets of successfully processed partitions.
+     *
+     * @param sync commit synchronously if {@code true}, otherwise commit asynchronously
+     * @return the pending batch if some of its partitions have not been processed, otherwise {@code null}
+     * @throws InterruptedException if interrupted while awaiting
+     * @throws ExecutionException   if processing failed with exception
+     */
+    private Batch completePendingBatch(boolean sync) throws InterruptedException, ExecutionException {
+        if (pendingResult == null) {
+            return null;
+        }
+
+        Batch batch = pendingBatch;
+        Future<ProcessorResult> future = pendingResult;
+        pendingBatch = null;
+        pendingResult = null;
+
+        ProcessorResult result = future.get();
+        Batch failedBatch = batch.hasFailedPartitions() ? batch : null;
+        if (batch.offsets.isEmpty()) {
+            return failedBatch;
+        }
+
+        if (sync) {
+            try {
+                commitSync(batch.offsets);
+                markProcessed(batch, result);
+            } catch (CommitFailedException ex) {
+                LOGGER.warn("Commit failed due to rebalancing", ex);
+            }
+            return failedBatch;
+        }
+
+        consumer.commitAsync(batch.offsets, (offsets, exception) -> {
+            if (exception != null) {
+                LOGGER.warn("Async commit failed", exception);
+                return;
+            }
+            markProcessed(batch, result);
+        });
+        return failedBatch;
+    }
+
+    /**
+     * Commit offsets synchronously even if the consumer has been woken up on stop.
+     */
+    private void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        try {
+            commit(offsets);
+        } catch (WakeupException ex) {
+            commit(offsets);
+        }
+    }
+
+    /**
+     * Rewind consumer positions of assigned partitions.
+     *
+     * @param positions positions by partitions
+     */
+    private void seek(Map<TopicPartition, Long> positions) {
+        Set<TopicPartition> assignment = consumer.assignment();
+        for (Map.Entry<TopicPartition, Long> position : positions.entrySet()) {
+            if (assignment.contains(position.getKey())) {
+                consumer.seek(position.getKey(), position.getValue());
+            }
+        }
+    }
+
+    /**
+     * Process the batch.
+     * <p>
+     * If partition parallelism is enabled, partitions of the batch are distributed among concurrent tasks.
+     * Events of the same partition are processed by the single task in the poll order.
+     * <p>
+     * Offsets of partitions which have not been processed successfully are removed from the batch,
+     * thus they are not committed and their consumer positions should be rewound by the caller.
+     *
+     * @param batch the batch
+     * @return successful result if all events are processed, otherwise failed result
+     * @throws InterruptedException if interrupted while awaiting concurrent tasks
+     * @throws ExecutionException   if processing failed with exception
+     */
+    private ProcessorResult process(Batch batch) throws InterruptedException, ExecutionException {
+        int taskCount = Math.min(partitionParallelism, batch.eventsByPartition.size());
+        if (taskCount <= 1) {
+            ProcessorResult result = processor.process(batch.events);
+            if (!result.isSuccess()) {
+                batch.offsets.clear();
+            }
+            return result;
+        }
+
+        List<List<TopicPartition>> partitions = new ArrayList<>(taskCount);
+        List<List<Event>> events = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            partitions.add(new ArrayList<>());
+            events.add(new ArrayList<>(batch.events.size() / taskCount + 1));
+        }
+        int i = 0;
+        for (Map.Entry<TopicPartition, List<Event>> entry : batch.eventsByPartition.entrySet()) {
+            partitions.get(i).add(entry.getKey());
+            events.get(i).addAll(entry.getValue());
+            i = (i + 1) % taskCount;
+        }
+
+        List<Future<ProcessorResult>> futures = new ArrayList<>(taskCount);
+        for (List<Event> taskEvents : events) {
+            futures.add(partitionExecutor.submit(() -> processor.process(taskEvents)));
+        }
+
+        boolean success = true;
+        int processedEvents = 0;
+        int rejectedEvents = 0;
+        for (int task = 0; task < taskCount; task++) {
+            ProcessorResult result = futures.get(task).get();
+            if (result.isSuccess()) {
+                processedEvents += result.getProcessedEvents();
+                rejectedEvents += result.getRejectedEvents();
+            } else {
+                success = false;
+                partitions.get(task).forEach(batch.offsets::remove);
+            }
+        }
+        return success ? ProcessorResult.ok(processedEvents, rejectedEvents) : ProcessorResult.fail();
+    }
+
+    /**
+     * Partition parallelism is enabled only if the processor supports concurrent processing.
+     */
+    private static int partitionParallelism(int partitionParallelism, Processor processor) {
+        if (partitionParallelism > 1 && !processor.isConcurrent()) {
+            LOGGER.warn("Partition parallelism is disabled since processor " + processor.getClass().getName() + " is not concurrent");
+            return 1;
+        }
+        return partitionParallelism;
+    }
+
+    private void markProcessed(Batch batch, ProcessorResult result) {
+        if (!result.isSuccess()) {
+            return;
+        }
+        droppedEventsMeter.mark(batch.droppedEvents);
+        filteredEventsMeter.mark(batch.filteredEvents);
+        processedEventsMeter.mark(result.getProcessedEvents());
+        rejectedEventsMeter.mark(result.getRejectedEvents());
+        totalEventsMeter.mark(batch.events.size());
+    }
+
     private boolean filter(Event event) {
         for (EventFilter filter : filters) {
             if (!filter.test(event)) {
@@ -283,6 +568,65 @@ public class Sink {
         return true;
     }
 
+    /**
+     * Polled events and offsets to commit after processing.
+     * <p>
+     * Partitions which have not been processed successfully are absent in offsets to commit.
+     */
+    private static class Batch {
+        final List<Event> events;
+        final Map<TopicPartition, List<Event>> eventsByPartition = new HashMap<>();
+        final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        final Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        int droppedEvents;
+        int filteredEvents;
+
+        Batch(int capacity) {
+            this.events = new ArrayList<>(capacity);
+        }
+
+        boolean hasFailedPartitions() {
+            return offsets.size() < firstOffsets.size();
+        }
+
+        /**
+         * Return first offsets of partitions which have not been processed successfully.
+         *
+         * @return first offsets by failed partitions
+         */
+        Map<TopicPartition, Long> failedOffsets() {
+            Map<TopicPartition, Long> failedOffsets = new HashMap<>();
+            for (Map.Entry<TopicPartition, Long> entry : firstOffsets.entrySet()) {
+                if (!offsets.containsKey(entry.getKey())) {
+                    failedOffsets.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return failedOffsets;
+        }
+    }
+
+    /**
+     * Completes the pending batch before partitions are revoked, thus its offsets are not lost on rebalancing.
+     * <p>
+     * Listener is called from {@link KafkaConsumer#poll(Duration)} in the Sink thread.
+     */
+    private class PendingBatchCommitter implements ConsumerRebalanceListener {
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            try {
+                completePendingBatch(true);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                LOGGER.error("Pending batch processing failed", ex);
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        }
+    }
+
     private static class Props {
         static final Parameter<Long> POLL_TIMEOUT_MS =
                 Parameter.longParameter("pollTimeoutMs").
@@ -302,5 +646,21 @@ public class Sink {
                 Parameter.longParameter("availabilityTimeoutMs").
                         withDefault(2_000L).
                         build();
+
+        static final Parameter<Boolean> PIPELINE_ENABLE =
+                Parameter.booleanParameter("pipeline.enable").
+                        withDefault(false).
+                        build();
+
+        static final Parameter<Integer> PARTITION_PARALLELISM =
+                Parameter.integerParameter("partitionParallelism").
+                        withDefault(1).
+                        withValidator(IntegerValidators.positive()).
+                        build();
+
+        static final Parameter<Long> SHUTDOWN_TIMEOUT_MS =
+                Parameter.longParameter("shutdownTimeoutMs").
+                        withDefault(10_000L).
+                        build();
     }
 }
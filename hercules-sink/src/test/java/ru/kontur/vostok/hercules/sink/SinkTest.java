@@ -0,0 +1,416 @@
+package ru.kontur.vostok.hercules.sink;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.EventBuilder;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SinkTest {
+    private static final String TOPIC = "test_stream";
+    private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Events of the failed batch should be re-read by the next poll instead of being skipped.
+     */
+    @Test
+    public void shouldReprocessFailedBatch() {
+        LogConsumer consumer = new LogConsumer(2, PARTITION_0);
+        consumer.append(PARTITION_0, 6);
+        TestProcessor processor = new TestProcessor(new FailOnce(events -> !events.isEmpty()));
+
+        Sink sink = createSink(consumer, processor, properties(false, 1, 100));
+        sink.start();
+        awaitCommitted(consumer, PARTITION_0, 6);
+        sink.stop();
+
+        assertEquals(ids(PARTITION_0, 0, 6), processor.processed());
+        assertEquals(6, consumer.committedOffset(PARTITION_0));
+    }
+
+    /**
+     * Batch N fails while batch N + 1 has been polled already. Events of batch N should not be skipped.
+     */
+    @Test
+    public void shouldReprocessFailedBatchInPipelinedMode() {
+        LogConsumer consumer = new LogConsumer(2, PARTITION_0);
+        consumer.append(PARTITION_0, 6);
+        TestProcessor processor = new TestProcessor(new FailOnce(events -> !events.isEmpty()));
+
+        Sink sink = createSink(consumer, processor, properties(true, 1, 100));
+        sink.start();
+        awaitCommitted(consumer, PARTITION_0, 6);
+        sink.stop();
+
+        assertEquals(ids(PARTITION_0, 0, 6), processor.processed());
+        assertEquals(6, consumer.committedOffset(PARTITION_0));
+    }
+
+    /**
+     * The last processed batch should be committed on stop.
+     */
+    @Test
+    public void shouldCommitPendingBatchOnStop() throws InterruptedException {
+        LogConsumer consumer = new LogConsumer(2, PARTITION_0);
+        consumer.append(PARTITION_0, 2);
+        TestProcessor processor = new TestProcessor(events -> false);
+
+        Sink sink = createSink(consumer, processor, properties(true, 1, 60_000));
+        sink.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (processor.processed().size() < 2) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Events have not been processed");
+            }
+            Thread.sleep(10);
+        }
+        sink.stop();
+
+        assertEquals(2, consumer.committedOffset(PARTITION_0));
+    }
+
+    /**
+     * Events of the failed partition should be re-read, while events of other partitions are committed.
+     */
+    @Test
+    public void shouldReprocessFailedPartition() {
+        shouldReprocessFailedPartition(false);
+    }
+
+    @Test
+    public void shouldReprocessFailedPartitionInPipelinedMode() {
+        shouldReprocessFailedPartition(true);
+    }
+
+    /**
+     * Events of each partition should be processed in offset order, even if partitions are processed concurrently.
+     */
+    @Test
+    public void shouldPreservePartitionOrder() {
+        LogConsumer consumer = new LogConsumer(3, PARTITION_0, PARTITION_1);
+        consumer.append(PARTITION_0, 30);
+        consumer.append(PARTITION_1, 30);
+        TestProcessor processor = new TestProcessor(events -> false);
+
+        Sink sink = createSink(consumer, processor, properties(false, 2, 100));
+        sink.start();
+        awaitCommitted(consumer, PARTITION_0, 30);
+        awaitCommitted(consumer, PARTITION_1, 30);
+        sink.stop();
+
+        assertEquals(ids(PARTITION_0, 0, 30), processor.processed(0));
+        assertEquals(ids(PARTITION_1, 0, 30), processor.processed(1));
+    }
+
+    /**
+     * Partitions should not be processed concurrently if the processor does not support it.
+     */
+    @Test
+    public void shouldNotProcessConcurrentlyIfProcessorIsNotConcurrent() {
+        LogConsumer consumer = new LogConsumer(3, PARTITION_0, PARTITION_1);
+        consumer.append(PARTITION_0, 12);
+        consumer.append(PARTITION_1, 12);
+        TestProcessor processor = new TestProcessor(events -> {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }, false);
+
+        Sink sink = createSink(consumer, processor, properties(false, 2, 100));
+        sink.start();
+        awaitCommitted(consumer, PARTITION_0, 12);
+        awaitCommitted(consumer, PARTITION_1, 12);
+        sink.stop();
+
+        assertEquals(1, processor.maxInFlight());
+        assertEquals(ids(PARTITION_0, 0, 12), processor.processed(0));
+        assertEquals(ids(PARTITION_1, 0, 12), processor.processed(1));
+    }
+
+    private void shouldReprocessFailedPartition(boolean pipelineEnable) {
+        LogConsumer consumer = new LogConsumer(2, PARTITION_0, PARTITION_1);
+        consumer.append(PARTITION_0, 6);
+        consumer.append(PARTITION_1, 6);
+        TestProcessor processor = new TestProcessor(new FailOnce(events -> containsPartition(events, 1)));
+
+        Sink sink = createSink(consumer, processor, properties(pipelineEnable, 2, 100));
+        sink.start();
+        awaitCommitted(consumer, PARTITION_0, 6);
+        awaitCommitted(consumer, PARTITION_1, 6);
+        sink.stop();
+
+        assertEquals(ids(PARTITION_0, 0, 6), processor.processed(0));
+        assertEquals(ids(PARTITION_1, 0, 6), processor.processed(1));
+    }
+
+    private static boolean containsPartition(List<Event> events, int partition) {
+        for (Event event : events) {
+            if (partitionOf(event.getTimestamp()) == partition) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Sink createSink(LogConsumer consumer, TestProcessor processor, Properties properties) {
+        MetricsCollector metricsCollector = mock(MetricsCollector.class);
+        when(metricsCollector.meter(anyString())).thenReturn(mock(Meter.class));
+
+        return new Sink(
+                Executors.newSingleThreadExecutor(),
+                "test",
+                properties,
+                processor,
+                Subscription.builder().include(new String[]{"test_*"}).build(),
+                consumerProperties -> consumer,
+                metricsCollector,
+                TimeSource.SYSTEM);
+    }
+
+    static Properties properties(boolean pipelineEnable, int partitionParallelism, long pollTimeoutMs) {
+        Properties properties = new Properties();
+        properties.setProperty("pollTimeoutMs", String.valueOf(pollTimeoutMs));
+        properties.setProperty("batchSize", "2");
+        properties.setProperty("pipeline.enable", String.valueOf(pipelineEnable));
+        properties.setProperty("partitionParallelism", String.valueOf(partitionParallelism));
+        return properties;
+    }
+
+    static void awaitCommitted(LogConsumer consumer, TopicPartition partition, long offset) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (consumer.committedOffset(partition) < offset) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Offset " + offset + " of " + partition + " has not been committed");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                fail("Interrupted");
+            }
+        }
+    }
+
+    static List<Long> ids(TopicPartition partition, int from, int to) {
+        List<Long> ids = new ArrayList<>();
+        for (int offset = from; offset < to; offset++) {
+            ids.add(id(partition, offset));
+        }
+        return ids;
+    }
+
+    static long id(TopicPartition partition, long offset) {
+        return partition.partition() * 1_000L + offset;
+    }
+
+    static int partitionOf(long id) {
+        return (int) (id / 1_000L);
+    }
+
+    /**
+     * Consumer reads events from the in-memory log and tracks committed offsets across resubscriptions.
+     * <p>
+     * Each poll returns at most {@code maxPollRecords} events of each partition.
+     */
+    static class LogConsumer extends MockConsumer<UUID, Event> {
+        private final int maxPollRecords;
+        private final Map<TopicPartition, List<ConsumerRecord<UUID, Event>>> log = new HashMap<>();
+        private final Map<TopicPartition, Long> committed = new HashMap<>();
+
+        LogConsumer(int maxPollRecords, TopicPartition... partitions) {
+            super(OffsetResetStrategy.EARLIEST);
+            this.maxPollRecords = maxPollRecords;
+
+            List<PartitionInfo> partitionInfos = new ArrayList<>();
+            Map<TopicPartition, Long> beginningOffsets = new HashMap<>();
+            for (TopicPartition partition : partitions) {
+                log.put(partition, new ArrayList<>());
+                partitionInfos.add(new PartitionInfo(partition.topic(), partition.partition(), null, null, null));
+                beginningOffsets.put(partition, 0L);
+            }
+            updatePartitions(TOPIC, partitionInfos);
+            updateBeginningOffsets(beginningOffsets);
+        }
+
+        synchronized void append(TopicPartition partition, int count) {
+            List<ConsumerRecord<UUID, Event>> records = log.get(partition);
+            for (int i = 0; i < count; i++) {
+                long offset = records.size();
+                Event event = EventBuilder.create(id(partition, offset), UUID.randomUUID()).build();
+                records.add(new ConsumerRecord<>(partition.topic(), partition.partition(), offset, null, event));
+            }
+        }
+
+        synchronized long committedOffset(TopicPartition partition) {
+            return committed.getOrDefault(partition, 0L);
+        }
+
+        @Override
+        public synchronized void subscribe(Pattern pattern, ConsumerRebalanceListener listener) {
+            super.subscribe(pattern, listener);
+            seekToCommitted();
+        }
+
+        @Override
+        public synchronized void subscribe(Pattern pattern) {
+            super.subscribe(pattern);
+            seekToCommitted();
+        }
+
+        private void seekToCommitted() {
+            for (TopicPartition partition : assignment()) {
+                seek(partition, committedOffset(partition));
+            }
+        }
+
+        @Override
+        public synchronized ConsumerRecords<UUID, Event> poll(Duration timeout) {
+            for (TopicPartition partition : assignment()) {
+                List<ConsumerRecord<UUID, Event>> records = log.get(partition);
+                long position = position(partition);
+                for (long offset = position; offset < records.size() && offset < position + maxPollRecords; offset++) {
+                    addRecord(records.get((int) offset));
+                }
+            }
+            return super.poll(timeout);
+        }
+
+        @Override
+        public synchronized void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) {
+            super.commitSync(offsets);
+            offsets.forEach((partition, offset) -> committed.put(partition, offset.offset()));
+        }
+
+        @Override
+        public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback callback) {
+            offsets.forEach((partition, offset) -> committed.put(partition, offset.offset()));
+            super.commitAsync(offsets, callback);
+        }
+    }
+
+    /**
+     * Processor records ids of successfully processed events and max count of concurrent calls.
+     */
+    static class TestProcessor extends Processor {
+        private final Predicate<List<Event>> shouldFail;
+        private final boolean concurrent;
+        private final List<Long> processed = new ArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        TestProcessor(Predicate<List<Event>> shouldFail) {
+            this(shouldFail, true);
+        }
+
+        TestProcessor(Predicate<List<Event>> shouldFail, boolean concurrent) {
+            super(TimeSource.SYSTEM);
+            this.shouldFail = shouldFail;
+            this.concurrent = concurrent;
+        }
+
+        @Override
+        public ProcessorResult process(List<Event> events) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if (shouldFail.test(events)) {
+                    return ProcessorResult.fail();
+                }
+                synchronized (processed) {
+                    for (Event event : events) {
+                        processed.add(event.getTimestamp());
+                    }
+                }
+                return ProcessorResult.ok(events.size(), 0);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean isConcurrent() {
+            return concurrent;
+        }
+
+        int maxInFlight() {
+            return maxInFlight.get();
+        }
+
+        List<Long> processed() {
+            synchronized (processed) {
+                return new ArrayList<>(processed);
+            }
+        }
+
+        List<Long> processed(int partition) {
+            List<Long> ids = new ArrayList<>();
+            for (long id : processed()) {
+                if (partitionOf(id) == partition) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Fails the first call which satisfies the predicate.
+     */
+    static class FailOnce implements Predicate<List<Event>> {
+        private final Predicate<List<Event>> predicate;
+        private boolean failed;
+
+        FailOnce(Predicate<List<Event>> predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        public synchronized boolean test(List<Event> events) {
+            if (!failed && predicate.test(events)) {
+                failed = true;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package ru.kontur.vostok.hercules.stream.api;
+
+import ru.kontur.vostok.hercules.http.ChunkedResponseSender;
+import ru.kontur.vostok.hercules.http.HttpServerResponse;
+import ru.kontur.vostok.hercules.protocol.StreamReadState;
+import ru.kontur.vostok.hercules.protocol.Type;
+import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
+import ru.kontur.vostok.hercules.protocol.encoder.StreamReadStateWriter;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
+import ru.kontur.vostok.hercules.util.compression.Compressor;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes stream content to the response by chunks as soon as events are read.
+ * <p>
+ * Response body consists of chunks of events and the trailer with the read state:
+ * <pre>
+ * ResponseBody    Chunk*, Trailer
+ * Chunk           Count, Event*
+ * Trailer         Zero, State
+ * </pre>
+ * Here {@code Count} is a positive integer and {@code Zero} is an integer {@code 0}.
+ * <p>
+ * If compression is used, then each chunk (and the trailer) is compressed separately into the block:
+ * <pre>
+ * Block           OriginalLength, CompressedLength, CompressedBytes
+ * </pre>
+ * Such a body has content encoding {@link ru.kontur.vostok.hercules.http.ContentEncodings#LZ4_BLOCKS}.
+ * <p>
+ * Chunks are sent by {@link ChunkedResponseSender}. The writer waits for the client if more than one chunk is queued,
+ * thus memory usage is bounded by a few chunks per request. Since events are written while the pooled consumer is held,
+ * the writer waits no longer than the send timeout and fails if the client is too slow.
+ * <p>
+ * Class is not thread-safe.
+ *
+ * @see StreamReader#read(ru.kontur.vostok.hercules.meta.stream.Stream, StreamReadState, int, int, int, int, StreamReader.EventSink)
+ */
+class ChunkedResponseWriter implements StreamReader.EventSink {
+    private static final StreamReadStateWriter STATE_WRITER = new StreamReadStateWriter();
+
+    private static final int SIZE_OF_COUNT = Type.INTEGER.size;
+    private static final int SIZE_OF_BLOCK_HEADER = 2 * Type.INTEGER.size;
+
+    private final ChunkedResponseSender sender;
+    private final int chunkSizeBytes;
+    private final long sendTimeoutMs;
+    private final Compressor compressor;
+
+    private ByteBuffer chunk;
+    private int count;
+
+    private int uncompressedSizeBytes;
+    private int compressedSizeBytes;
+    private long compressionTimeMs;
+
+    /**
+     * @param response       the response
+     * @param chunkSizeBytes the size of chunk
+     * @param sendTimeoutMs  the maximum time to wait for the client to take the queued chunk
+     * @param compressor     the compressor or {@code null} if compression is not used
+     */
+    ChunkedResponseWriter(HttpServerResponse response, int chunkSizeBytes, long sendTimeoutMs, Compressor compressor) {
+        this.sender = new ChunkedResponseSender(response);
+        this.chunkSizeBytes = chunkSizeBytes;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.compressor = compressor;
+    }
+
+    /**
+     * Write the event.
+     *
+     * @param event the event
+     * @throws UncheckedIOException if the chunk has not been sent in time or sending has been failed
+     */
+    @Override
+    public void accept(byte[] event) {
+        if (chunk != null && chunk.remaining() < event.length) {
+            flush();
+            awaitClient();
+        }
+        if (chunk == null) {
+            chunk = ByteBufferPool.acquire(Math.max(chunkSizeBytes, SIZE_OF_COUNT + event.length));
+            chunk.position(SIZE_OF_COUNT);
+            count = 0;
+        }
+        chunk.put(event);
+        count++;
+    }
+
+    /**
+     * Send remaining events and the trailer with the read state.
+     * <p>
+     * The returned future is completed when all chunks are sent.
+     *
+     * @param state the read state
+     * @return the future of sending
+     */
+    CompletableFuture<Void> finish(StreamReadState state) {
+        flush();
+
+        ByteBuffer trailer = ByteBufferPool.acquire(SIZE_OF_COUNT + state.sizeOf());
+        Encoder encoder = new Encoder(trailer);
+        encoder.writeInteger(0);
+        STATE_WRITER.write(encoder, state);
+        send(trailer);
+
+        return sender.finish();
+    }
+
+    /**
+     * Check if any chunk has been sent.
+     * <p>
+     * The status code and headers cannot be changed if sending has been started.
+     *
+     * @return {@code true} if sending has been started, otherwise {@code false}
+     */
+    boolean isStarted() {
+        return sender.isStarted();
+    }
+
+    /**
+     * Return the chunk which is not sent back into the pool.
+     * <p>
+     * Sent chunks are released when sending is completed.
+     */
+    void release() {
+        if (chunk != null) {
+            ByteBufferPool.release(chunk);
+            chunk = null;
+        }
+    }
+
+    int uncompressedSizeBytes() {
+        return uncompressedSizeBytes;
+    }
+
+    int compressedSizeBytes() {
+        return compressedSizeBytes;
+    }
+
+    long compressionTimeMs() {
+        return compressionTimeMs;
+    }
+
+    private void flush() {
+        if (chunk == null) {
+            return;
+        }
+
+        chunk.putInt(0, count);
+        ByteBuffer data = chunk;
+        chunk = null;
+        send(data);
+    }
+
+    /**
+     * Wait until at most one chunk is queued while the previous ones are being sent.
+     */
+    private void awaitClient() {
+        try {
+            if (!sender.awaitQueuedBytes(chunkSizeBytes, sendTimeoutMs)) {
+                throw new UncheckedIOException(new IOException("Chunk has not been sent in " + sendTimeoutMs + " millis"));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Interrupted while sending the chunk"));
+        }
+        if (sender.isFailed()) {
+            throw new UncheckedIOException(new IOException("Cannot send the chunk"));
+        }
+    }
+
+    private void send(ByteBuffer data) {
+        data.flip();
+        uncompressedSizeBytes += data.remaining();
+
+        ByteBuffer toSend = data;
+        if (compressor != null) {
+            toSend = compress(data);
+            ByteBufferPool.release(data);
+        }
+        compressedSizeBytes += toSend.remaining();
+
+        sender.send(toSend);
+    }
+
+    private ByteBuffer compress(ByteBuffer data) {
+        int originalLength = data.remaining();
+        ByteBuffer compressed = ByteBufferPool.acquire(SIZE_OF_BLOCK_HEADER + compressor.maxCompressedLength(originalLength));
+        compressed.position(SIZE_OF_BLOCK_HEADER);
+        compressionTimeMs += TimeSource.SYSTEM.measureMs(() -> compressor.compress(data, compressed));
+        compressed.putInt(0, originalLength);
+        compressed.putInt(Type.INTEGER.size, compressed.remaining() - SIZE_OF_BLOCK_HEADER);
+        return compressed;
+    }
+}
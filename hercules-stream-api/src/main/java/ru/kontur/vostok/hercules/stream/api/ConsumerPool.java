@@ -96,7 +96,14 @@ public class ConsumerPool<K, V> {
         }
     }
 
-    private Consumer<K, V> create() {
+    /**
+     * Create the consumer with the same settings as pooled consumers have.
+     * <p>
+     * The consumer is not managed by the pool, thus it should be closed by the caller.
+     *
+     * @return the consumer
+     */
+    Consumer<K, V> create() {
         return new KafkaConsumer<>(consumerProperties, keyDeserializer, valueDeserializer);
     }
 
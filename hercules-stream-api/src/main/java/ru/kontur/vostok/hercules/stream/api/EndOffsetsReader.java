@@ -0,0 +1,215 @@
+package ru.kontur.vostok.hercules.stream.api;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.health.Timer;
+import ru.kontur.vostok.hercules.meta.stream.Stream;
+import ru.kontur.vostok.hercules.util.concurrent.ThreadFactories;
+import ru.kontur.vostok.hercules.util.parameter.Parameter;
+import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+import ru.kontur.vostok.hercules.util.validation.LongValidators;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads end offsets of stream partitions.
+ * <p>
+ * End offsets are requested by the dedicated consumer on the single worker thread,
+ * thus the consumer pool is not used and requests are not blocked.
+ * <p>
+ * End offsets of all the stream partitions are fetched at once and shared between requests as the snapshot.
+ * The snapshot is refreshed on demand if it is older than {@code refreshAfterMs}.
+ * Concurrent requests of the same stream wait for the single fetch.
+ * Since end offsets only grow, the stale snapshot makes a client to re-read a few recent events at most.
+ */
+public class EndOffsetsReader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(EndOffsetsReader.class);
+
+    private final Consumer<?, ?> consumer;
+    private final long refreshAfterMs;
+    private final Duration requestTimeout;
+    private final TimeSource time;
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(ThreadFactories.newDaemonNamedThreadFactory("end-offsets-reader"));
+
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Snapshot>> fetches = new ConcurrentHashMap<>();
+
+    private final Meter snapshotHitsMeter;
+    private final Meter snapshotMissesMeter;
+    private final Timer fetchTimeMsTimer;
+
+    /**
+     * @param properties       reader properties
+     * @param consumer         the consumer is owned by the reader and is closed on {@link #stop(long, TimeUnit)}
+     * @param metricsCollector metrics collector
+     */
+    public EndOffsetsReader(Properties properties, Consumer<?, ?> consumer, MetricsCollector metricsCollector) {
+        this(properties, consumer, metricsCollector, TimeSource.SYSTEM);
+    }
+
+    EndOffsetsReader(Properties properties, Consumer<?, ?> consumer, MetricsCollector metricsCollector, TimeSource time) {
+        this.consumer = consumer;
+        this.refreshAfterMs = PropertiesUtil.get(Props.REFRESH_AFTER_MS, properties).get();
+        this.requestTimeout = Duration.ofMillis(PropertiesUtil.get(Props.REQUEST_TIMEOUT_MS, properties).get());
+        this.time = time;
+
+        this.snapshotHitsMeter = metricsCollector.meter("endOffsetsSnapshotHits");
+        this.snapshotMissesMeter = metricsCollector.meter("endOffsetsSnapshotMisses");
+        this.fetchTimeMsTimer = metricsCollector.timer("endOffsetsFetchTimeMs");
+    }
+
+    /**
+     * Read end offsets of stream partitions.
+     *
+     * @param stream     the stream
+     * @param partitions partitions
+     * @return the future of end offsets by partitions
+     */
+    public CompletableFuture<Map<TopicPartition, Long>> read(Stream stream, int[] partitions) {
+        Snapshot snapshot = snapshots.get(stream.getName());
+        if (snapshot != null && snapshot.isFresh(stream, time.milliseconds() - refreshAfterMs)) {
+            snapshotHitsMeter.mark();
+            return CompletableFuture.completedFuture(snapshot.select(stream.getName(), partitions));
+        }
+
+        snapshotMissesMeter.mark();
+        return fetch(stream).thenApply(s -> s.select(stream.getName(), partitions));
+    }
+
+    public void stop(long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeout, unit)) {
+                consumer.wakeup();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            consumer.wakeup();
+        }
+
+        try {
+            consumer.close(requestTimeout);
+        } catch (Exception ex) {
+            LOGGER.warn("Exception on close", ex);
+        }
+    }
+
+    private CompletableFuture<Snapshot> fetch(Stream stream) {
+        final String topic = stream.getName();
+
+        CompletableFuture<Snapshot> future = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existing = fetches.putIfAbsent(topic, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            executor.execute(() -> {
+                Snapshot snapshot;
+                try {
+                    snapshot = fetchSnapshot(topic, stream.getPartitions());
+                    snapshots.put(topic, snapshot);
+                } catch (Throwable throwable) {
+                    fetches.remove(topic, future);
+                    future.completeExceptionally(throwable);
+                    return;
+                }
+                // The fetch is removed before completion, thus subsequent requests do not reuse the completed one
+                fetches.remove(topic, future);
+                future.complete(snapshot);
+            });
+        } catch (RejectedExecutionException ex) {
+            fetches.remove(topic, future);
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    private Snapshot fetchSnapshot(String topic, int partitionCount) {
+        List<TopicPartition> partitions = new ArrayList<>(partitionCount);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitions.add(new TopicPartition(topic, partition));
+        }
+
+        long fetchStartedAtMs = time.milliseconds();
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, requestTimeout);
+        long fetchedAtMs = time.milliseconds();
+        fetchTimeMsTimer.update(fetchedAtMs - fetchStartedAtMs);
+
+        long[] offsets = new long[partitionCount];
+        for (int partition = 0; partition < partitionCount; partition++) {
+            Long offset = endOffsets.get(partitions.get(partition));
+            if (offset == null) {
+                throw new IllegalStateException("No end offset for partition " + partition + " of topic " + topic);
+            }
+            offsets[partition] = offset;
+        }
+        return new Snapshot(fetchStartedAtMs, offsets);
+    }
+
+    /**
+     * End offsets of all the stream partitions.
+     */
+    private static final class Snapshot {
+        /**
+         * The time the fetch has been started at, thus end offsets are not older than it.
+         */
+        private final long fetchedAtMs;
+        private final long[] offsets;
+
+        Snapshot(long fetchedAtMs, long[] offsets) {
+            this.fetchedAtMs = fetchedAtMs;
+            this.offsets = offsets;
+        }
+
+        /**
+         * The snapshot is fresh if it is not older than the threshold and the partition count of the stream is the same.
+         */
+        boolean isFresh(Stream stream, long thresholdMs) {
+            return fetchedAtMs >= thresholdMs && offsets.length == stream.getPartitions();
+        }
+
+        Map<TopicPartition, Long> select(String topic, int[] partitions) {
+            Map<TopicPartition, Long> endOffsets = new HashMap<>(partitions.length * 2);
+            for (int partition : partitions) {
+                if (partition >= offsets.length) {
+                    throw new IllegalStateException("No end offset for partition " + partition + " of topic " + topic);
+                }
+                endOffsets.put(new TopicPartition(topic, partition), offsets[partition]);
+            }
+            return endOffsets;
+        }
+    }
+
+    private static class Props {
+        static final Parameter<Long> REFRESH_AFTER_MS =
+                Parameter.longParameter("refreshAfterMs").
+                        withDefault(1_000L).
+                        withValidator(LongValidators.nonNegative()).
+                        build();
+
+        static final Parameter<Long> REQUEST_TIMEOUT_MS =
+                Parameter.longParameter("requestTimeoutMs").
+                        withDefault(5_000L).
+                        withValidator(LongValidators.positive()).
+                        build();
+    }
+}
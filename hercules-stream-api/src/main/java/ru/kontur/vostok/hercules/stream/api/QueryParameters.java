@@ -35,4 +35,9 @@ public class QueryParameters {
                     withDefault(1_000).
                     withValidator(IntegerValidators.rangeInclusive(500, 10_000)).
                     build();
+
+    public static final Parameter<Boolean> CHUNKED =
+            Parameter.booleanParameter("chunked").
+                    withDefault(false).
+                    build();
 }
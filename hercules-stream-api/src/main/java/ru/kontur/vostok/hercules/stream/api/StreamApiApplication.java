@@ -12,6 +12,7 @@ import ru.kontur.vostok.hercules.configuration.PropertiesLoader;
 import ru.kontur.vostok.hercules.configuration.Scopes;
 import ru.kontur.vostok.hercules.configuration.util.ArgsParser;
 import ru.kontur.vostok.hercules.curator.CuratorClient;
+import ru.kontur.vostok.hercules.health.CacheMetrics;
 import ru.kontur.vostok.hercules.health.CommonMetrics;
 import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.http.HttpServer;
@@ -20,6 +21,7 @@ import ru.kontur.vostok.hercules.http.handler.HttpHandler;
 import ru.kontur.vostok.hercules.http.handler.RouteHandler;
 import ru.kontur.vostok.hercules.kafka.util.serialization.VoidDeserializer;
 import ru.kontur.vostok.hercules.meta.stream.StreamRepository;
+import ru.kontur.vostok.hercules.meta.stream.StreamStorage;
 import ru.kontur.vostok.hercules.undertow.util.UndertowHttpServer;
 import ru.kontur.vostok.hercules.undertow.util.handlers.InstrumentedRouteHandlerBuilder;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
@@ -38,6 +40,7 @@ public class StreamApiApplication {
     private static MetricsCollector metricsCollector;
     private static AuthManager authManager;
     private static ConsumerPool<Void, byte[]> consumerPool;
+    private static EndOffsetsReader endOffsetsReader;
     private static StreamReader streamReader;
     private static StreamReadRequestProcessor streamReadRequestProcessor;
     private static HttpServer server;
@@ -73,6 +76,11 @@ public class StreamApiApplication {
                     metricsCollector);
             consumerPool.start();
 
+            endOffsetsReader = new EndOffsetsReader(
+                    PropertiesUtil.ofScope(properties, "stream.api.end.offsets.reader"),
+                    consumerPool.create(),
+                    metricsCollector);
+
             streamReader = new StreamReader(
                     PropertiesUtil.ofScope(properties, "stream.api.reader"),
                     consumerPool,
@@ -108,6 +116,14 @@ public class StreamApiApplication {
             //TODO: Process error
         }
 
+        try {
+            if (endOffsetsReader != null) {
+                endOffsetsReader.stop(5_000, TimeUnit.MILLISECONDS);
+            }
+        } catch (Throwable t) {
+            LOGGER.error("Error on stopping end offsets reader", t);
+        }
+
         try {
             if (consumerPool != null) {
                 consumerPool.stop(5_000, TimeUnit.MILLISECONDS);
@@ -148,15 +164,17 @@ public class StreamApiApplication {
     }
 
     private static HttpServer createHttpServer(Properties httpServerProperties) {
-        StreamRepository repository = new StreamRepository(curatorClient);
+        StreamStorage streamStorage = new StreamStorage(
+                new StreamRepository(curatorClient),
+                new CacheMetrics("streams", metricsCollector));
 
         AuthProvider authProvider = new AuthProvider(new AdminAuthManager(Collections.emptySet()), authManager);
         HandlerWrapper authHandlerWrapper = new OrdinaryAuthHandlerWrapper(authProvider);
 
         HttpHandler readStreamHandler = authHandlerWrapper.wrap(
-                new StreamReadHandler(authProvider, repository, streamReadRequestProcessor));
+                new StreamReadHandler(authProvider, streamStorage, streamReadRequestProcessor));
         HttpHandler seekToEndHandler = authHandlerWrapper.wrap(
-                new SeekToEndHandler(authProvider, repository, consumerPool));
+                new SeekToEndHandler(authProvider, streamStorage, endOffsetsReader));
 
         RouteHandler handler = new InstrumentedRouteHandlerBuilder(httpServerProperties, metricsCollector).
                 post("/stream/read", readStreamHandler).
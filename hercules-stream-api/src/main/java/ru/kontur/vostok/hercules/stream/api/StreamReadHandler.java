@@ -4,15 +4,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.kontur.vostok.hercules.auth.AuthProvider;
 import ru.kontur.vostok.hercules.auth.AuthResult;
-import ru.kontur.vostok.hercules.curator.exception.CuratorException;
 import ru.kontur.vostok.hercules.http.HttpServerRequest;
 import ru.kontur.vostok.hercules.http.HttpStatusCodes;
 import ru.kontur.vostok.hercules.http.MimeTypes;
 import ru.kontur.vostok.hercules.http.handler.HttpHandler;
 import ru.kontur.vostok.hercules.http.query.QueryUtil;
-import ru.kontur.vostok.hercules.meta.serialization.DeserializationException;
 import ru.kontur.vostok.hercules.meta.stream.Stream;
-import ru.kontur.vostok.hercules.meta.stream.StreamRepository;
+import ru.kontur.vostok.hercules.meta.stream.StreamStorage;
+import ru.kontur.vostok.hercules.util.cache.CacheLoadException;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 
 import java.util.Optional;
@@ -25,14 +24,14 @@ public class StreamReadHandler implements HttpHandler {
 
     private final AuthProvider authProvider;
     private final StreamReadRequestProcessor processor;
-    private final StreamRepository streamRepository;
+    private final StreamStorage streamStorage;
 
     public StreamReadHandler(
             AuthProvider authProvider,
-            StreamRepository streamRepository,
+            StreamStorage streamStorage,
             StreamReadRequestProcessor processor) {
         this.authProvider = authProvider;
-        this.streamRepository = streamRepository;
+        this.streamStorage = streamStorage;
         this.processor = processor;
     }
 
@@ -100,18 +99,14 @@ public class StreamReadHandler implements HttpHandler {
 
         Stream stream;
         try {
-            Optional<Stream> optionalStream = streamRepository.read(streamName.get());
+            Optional<Stream> optionalStream = streamStorage.read(streamName.get());
             if (!optionalStream.isPresent()) {
                 request.complete(HttpStatusCodes.NOT_FOUND);
                 return;
             }
             stream = optionalStream.get();
-        } catch (CuratorException ex) {
-            LOGGER.error("Curator exception when read Stream", ex);
-            request.complete(HttpStatusCodes.INTERNAL_SERVER_ERROR);
-            return;
-        } catch (DeserializationException ex) {
-            LOGGER.error("Deserialization exception of Stream", ex);
+        } catch (CacheLoadException ex) {
+            LOGGER.error("Cannot read Stream", ex);
             request.complete(HttpStatusCodes.INTERNAL_SERVER_ERROR);
             return;
         }
@@ -125,6 +120,19 @@ public class StreamReadHandler implements HttpHandler {
             return;
         }
 
-        processor.processAsync(request, stream, shardIndex.get(), shardCount.get(), take.get(), timeoutMs.get());
+        Parameter<Boolean>.ParameterValue chunked = QueryUtil.get(QueryParameters.CHUNKED, request);
+        if (!chunked.isOk()) {
+            request.complete(
+                    HttpStatusCodes.BAD_REQUEST,
+                    MimeTypes.TEXT_PLAIN,
+                    "Parameter " + QueryParameters.CHUNKED.name() + " error: " + chunked.result().error());
+            return;
+        }
+
+        if (chunked.get()) {
+            processor.processChunkedAsync(request, stream, shardIndex.get(), shardCount.get(), take.get(), timeoutMs.get());
+        } else {
+            processor.processAsync(request, stream, shardIndex.get(), shardCount.get(), take.get(), timeoutMs.get());
+        }
     }
 }
@@ -7,19 +7,23 @@ import ru.kontur.vostok.hercules.http.ContentEncodings;
 import ru.kontur.vostok.hercules.http.HttpServerRequest;
 import ru.kontur.vostok.hercules.http.HttpStatusCodes;
 import ru.kontur.vostok.hercules.http.MimeTypes;
+import ru.kontur.vostok.hercules.http.header.HeaderUtil;
 import ru.kontur.vostok.hercules.http.header.HttpHeaders;
 import ru.kontur.vostok.hercules.meta.stream.Stream;
 import ru.kontur.vostok.hercules.protocol.ByteStreamContent;
+import ru.kontur.vostok.hercules.protocol.StreamReadState;
 import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
 import ru.kontur.vostok.hercules.protocol.decoder.StreamReadStateReader;
 import ru.kontur.vostok.hercules.protocol.encoder.ByteStreamContentWriter;
 import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
 import ru.kontur.vostok.hercules.util.ByteBufferPool;
-import ru.kontur.vostok.hercules.util.collection.ArrayUtil;
 import ru.kontur.vostok.hercules.util.compression.Compressor;
 import ru.kontur.vostok.hercules.util.compression.Lz4Compressor;
+import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 import ru.kontur.vostok.hercules.util.time.TimeSource;
+import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
+import ru.kontur.vostok.hercules.util.validation.LongValidators;
 
 import java.nio.ByteBuffer;
 import java.util.Properties;
@@ -37,6 +41,9 @@ public class StreamReadRequestProcessor {
 
     private final StreamReader streamReader;
 
+    private final int chunkSizeBytes;
+    private final long chunkSendTimeoutMs;
+
     private final TimeSource time;
 
     private final StreamReadRequestMetrics metrics;
@@ -47,6 +54,8 @@ public class StreamReadRequestProcessor {
 
     StreamReadRequestProcessor(Properties properties, StreamReader streamReader, MetricsCollector metricsCollector, TimeSource time) {
         this.streamReader = streamReader;
+        this.chunkSizeBytes = PropertiesUtil.get(Props.CHUNK_SIZE_BYTES, properties).get();
+        this.chunkSendTimeoutMs = PropertiesUtil.get(Props.CHUNK_SEND_TIMEOUT_MS, properties).get();
         this.time = time;
 
         this.metrics = new StreamReadRequestMetrics(PropertiesUtil.ofScope(properties, "metrics"), metricsCollector);
@@ -56,6 +65,18 @@ public class StreamReadRequestProcessor {
         new StreamReadRequest(request, stream, shardIndex, shardCount, take, timeoutMs).processAsync();
     }
 
+    /**
+     * Process the request and send events by chunks as soon as they are read.
+     * <p>
+     * Memory usage per request is bounded by a few chunks instead of the total size of events,
+     * since reading waits for the client if it is slower than reading.
+     *
+     * @see ChunkedResponseWriter
+     */
+    public void processChunkedAsync(HttpServerRequest request, Stream stream, int shardIndex, int shardCount, int take, int timeoutMs) {
+        new StreamReadRequest(request, stream, shardIndex, shardCount, take, timeoutMs).processChunkedAsync();
+    }
+
     public class StreamReadRequest {
         private final HttpServerRequest request;
 
@@ -111,6 +132,81 @@ public class StreamReadRequestProcessor {
                             }));
         }
 
+        public void processChunkedAsync() {
+            request.readBodyAsync(
+                    (r, bytes) -> request.dispatchAsync(
+                            () -> {
+                                ChunkedResponseWriter writer = null;
+                                try {
+                                    StreamReadState state = STATE_READER.read(new Decoder(bytes));
+
+                                    request.getResponse().setContentType(MimeTypes.APPLICATION_OCTET_STREAM);
+                                    Compressor chunkCompressor = null;
+                                    if (HeaderUtil.isEncodingAccepted(request, ContentEncodings.LZ4_BLOCKS)) {
+                                        chunkCompressor = compressor;
+                                        request.getResponse().setHeader(HttpHeaders.CONTENT_ENCODING, ContentEncodings.LZ4_BLOCKS);
+                                    }
+                                    writer = new ChunkedResponseWriter(request.getResponse(), chunkSizeBytes, chunkSendTimeoutMs, chunkCompressor);
+
+                                    readingStartedAtMs = sendingStartedAtMs = time.milliseconds();
+                                    StreamReadState nextState = streamReader.read(
+                                            stream,
+                                            state,
+                                            shardIndex,
+                                            shardCount,
+                                            take,
+                                            timeoutMs,
+                                            writer);
+                                    readingEndedAtMs = time.milliseconds();
+
+                                    final ChunkedResponseWriter completedWriter = writer;
+                                    writer.finish(nextState).whenComplete((v, exception) -> {
+                                        processingEndedAtMs = sendingEndedAtMs = TimeSource.SYSTEM.milliseconds();
+                                        if (exception != null) {
+                                            LOGGER.error("Error when send response", exception);
+                                        }
+                                        request.complete();
+                                        updateMetrics(completedWriter);
+                                    });
+                                } catch (IllegalArgumentException e) {
+                                    completeWithError(writer, HttpStatusCodes.BAD_REQUEST);
+                                } catch (Exception e) {
+                                    LOGGER.error("Error on processing request", e);
+                                    completeWithError(writer, HttpStatusCodes.INTERNAL_SERVER_ERROR);
+                                }
+                            }));
+        }
+
+        /**
+         * Complete the request with the error.
+         * <p>
+         * If some chunks have been sent already, then the status code cannot be changed.
+         * Thus, the response is ended without the trailer and the client should treat it as failed.
+         *
+         * @param writer the writer or {@code null} if it has not been created yet
+         * @param code   the status code
+         */
+        private void completeWithError(ChunkedResponseWriter writer, int code) {
+            if (writer == null) {
+                request.complete(code);
+                return;
+            }
+
+            writer.release();
+            if (writer.isStarted()) {
+                request.complete();
+            } else {
+                request.complete(code);
+            }
+        }
+
+        private void updateMetrics(ChunkedResponseWriter writer) {
+            uncompressedSizeBytes = writer.uncompressedSizeBytes();
+            compressedSizeBytes = writer.compressedSizeBytes();
+            compressionTimeMs = writer.compressionTimeMs();
+            metrics.update(this);
+        }
+
         /**
          * Asynchronously send response to the client.
          * <p>
@@ -129,7 +225,7 @@ public class StreamReadRequestProcessor {
             buffer.flip();
 
             // FIXME: Should be replaced with generic solution to support multiple compression algorithms
-            if (ArrayUtil.contains(request.getHeaders(HttpHeaders.ACCEPT_ENCODING), ContentEncodings.LZ4)) {
+            if (HeaderUtil.isEncodingAccepted(request, ContentEncodings.LZ4)) {
                 ByteBuffer compressed = compressLz4(buffer);
                 compressedSizeBytes = compressed.remaining();
                 ByteBufferPool.release(buffer);
@@ -200,4 +296,18 @@ public class StreamReadRequestProcessor {
             return compressedSizeBytes;
         }
     }
+
+    private static class Props {
+        static final Parameter<Integer> CHUNK_SIZE_BYTES =
+                Parameter.integerParameter("chunkSizeBytes").
+                        withDefault(65_536).
+                        withValidator(IntegerValidators.positive()).
+                        build();
+
+        static final Parameter<Long> CHUNK_SEND_TIMEOUT_MS =
+                Parameter.longParameter("chunkSendTimeoutMs").
+                        withDefault(30_000L).
+                        withValidator(LongValidators.positive()).
+                        build();
+    }
 }
@@ -8,6 +8,7 @@ import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.meta.stream.Stream;
 import ru.kontur.vostok.hercules.protocol.ByteStreamContent;
 import ru.kontur.vostok.hercules.protocol.StreamReadState;
+import ru.kontur.vostok.hercules.protocol.StreamShardReadState;
 import ru.kontur.vostok.hercules.util.Maps;
 import ru.kontur.vostok.hercules.util.time.TimeSource;
 import ru.kontur.vostok.hercules.util.time.Timer;
@@ -45,10 +46,30 @@ public class StreamReader {
     }
 
     public ByteStreamContent read(Stream stream, StreamReadState state, int shardIndex, int shardCount, int take, int timeoutMs) {
+        List<byte[]> events = new ArrayList<>(take);
+        StreamReadState nextState = read(stream, state, shardIndex, shardCount, take, timeoutMs, events::add);
+        return new ByteStreamContent(nextState, events.toArray(new byte[0][]));
+    }
+
+    /**
+     * Read events from the stream and pass each of them to the sink as soon as it is polled.
+     * <p>
+     * Events are not accumulated by the reader, thus memory usage depends on the sink only.
+     *
+     * @param stream     the stream
+     * @param state      the read state
+     * @param shardIndex the logical shard index
+     * @param shardCount the total logical shards
+     * @param take       max count of events to read
+     * @param timeoutMs  the reading timeout in millis
+     * @param sink       the sink of events
+     * @return the new read state
+     */
+    public StreamReadState read(Stream stream, StreamReadState state, int shardIndex, int shardCount, int take, int timeoutMs, EventSink sink) {
         List<TopicPartition> partitions = StreamUtil.getTopicPartitions(stream, shardIndex, shardCount);
 
         if (partitions.isEmpty()) {
-            return ByteStreamContent.empty();
+            return new StreamReadState(new StreamShardReadState[]{});
         }
 
         Timer timer = time.timer(timeoutMs);
@@ -86,14 +107,12 @@ public class StreamReader {
             consumer.assign(partitionsToRead);
             seekToNextOffsets(consumer, partitionsToRead, nextOffsets);
 
-            List<byte[]> events = pollAndUpdateNextOffsets(consumer, nextOffsets, take, timer);
+            CountingEventSink countingSink = new CountingEventSink(sink);
+            pollAndUpdateNextOffsets(consumer, nextOffsets, take, timer, countingSink);
 
-            metrics.update(stream.getName(), events);
+            metrics.update(stream.getName(), countingSink.count, countingSink.sizeBytes);
 
-            return new ByteStreamContent(
-                    StreamReadStateUtil.stateFromMap(stream.getName(), nextOffsets),
-                    events.toArray(new byte[0][])
-            );
+            return StreamReadStateUtil.stateFromMap(stream.getName(), nextOffsets);
         } catch (InterruptedException | TimeoutException ex) {
             throw new RuntimeException(ex);
         } finally {
@@ -109,22 +128,22 @@ public class StreamReader {
         }
     }
 
-    private static <K, V> List<V> pollAndUpdateNextOffsets(Consumer<K, V> consumer,
-                                                           Map<TopicPartition, Long> nextOffsets,
-                                                           int take,
-                                                           Timer timer) {
-        List<V> events = new ArrayList<>(take);
+    private static <K> void pollAndUpdateNextOffsets(Consumer<K, byte[]> consumer,
+                                                     Map<TopicPartition, Long> nextOffsets,
+                                                     int take,
+                                                     Timer timer,
+                                                     EventSink sink) {
         int count = 0;
 
         do {
             Duration timeout = timer.toDuration();
 
-            ConsumerRecords<K, V> records = consumer.poll(timeout);
+            ConsumerRecords<K, byte[]> records = consumer.poll(timeout);
             for (TopicPartition partition : records.partitions()) {
                 long nextOffset = nextOffsets.get(partition);
-                for (ConsumerRecord<K, V> record : records.records(partition)) {
+                for (ConsumerRecord<K, byte[]> record : records.records(partition)) {
                     if (++count <= take) {
-                        events.add(record.value());
+                        sink.accept(record.value());
                         nextOffset = record.offset() + 1;
                     } else {
                         break;
@@ -137,7 +156,35 @@ public class StreamReader {
             }
         }
         while ((count < take) && !timer.isExpired());
+    }
+
+    /**
+     * Accepts events in the order they are read.
+     */
+    @FunctionalInterface
+    public interface EventSink {
+        /**
+         * Accept the event.
+         *
+         * @param event the event bytes
+         */
+        void accept(byte[] event);
+    }
 
-        return events;
+    private static class CountingEventSink implements EventSink {
+        private final EventSink sink;
+        private int count;
+        private int sizeBytes;
+
+        CountingEventSink(EventSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(byte[] event) {
+            sink.accept(event);
+            count++;
+            sizeBytes += event.length;
+        }
     }
 }
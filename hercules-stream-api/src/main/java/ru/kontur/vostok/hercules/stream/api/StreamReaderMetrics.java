@@ -5,7 +5,6 @@ import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.health.MetricsUtil;
 import ru.kontur.vostok.hercules.health.Timer;
 
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -39,20 +38,16 @@ public class StreamReaderMetrics {
     /**
      * Update metrics for the stream with events were read.
      *
-     * @param stream the stream
-     * @param events events
+     * @param stream       the stream
+     * @param eventCount   count of events
+     * @param sizeOfEvents total size of events in bytes
      */
-    public void update(String stream, List<byte[]> events) {
-        receivedEventsCountMeter.mark(events.size());
+    public void update(String stream, int eventCount, int sizeOfEvents) {
+        receivedEventsCountMeter.mark(eventCount);
         receivedEventsCountMeterByStream.computeIfAbsent(
                 stream,
                 (k) -> metricsCollector.meter(MetricsUtil.toMetricPath(metricsScope, "byStream", k, "receivedEventsCount"))
-        ).mark(events.size());
-
-        int sizeOfEvents = 0;
-        for (byte[] event : events) {
-            sizeOfEvents += event.length;
-        }
+        ).mark(eventCount);
 
         receivedBytesCountMeter.mark(sizeOfEvents);
         receivedBytesCountMeterByStream.computeIfAbsent(
@@ -0,0 +1,197 @@
+package ru.kontur.vostok.hercules.stream.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.http.ErrorCallback;
+import ru.kontur.vostok.hercules.http.HttpServerResponse;
+import ru.kontur.vostok.hercules.http.IoCallback;
+import ru.kontur.vostok.hercules.protocol.StreamReadState;
+import ru.kontur.vostok.hercules.protocol.StreamShardReadState;
+import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
+import ru.kontur.vostok.hercules.protocol.decoder.StreamReadStateReader;
+import ru.kontur.vostok.hercules.util.compression.Lz4Compressor;
+import ru.kontur.vostok.hercules.util.compression.Lz4Decompressor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+public class ChunkedResponseWriterTest {
+    private static final StreamReadState STATE = new StreamReadState(new StreamShardReadState[]{
+            new StreamShardReadState(0, 3),
+            new StreamShardReadState(1, 42)
+    });
+
+    @Test
+    public void shouldWriteChunksAndTrailer() throws Exception {
+        Response response = new Response(true);
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(response.response, 4 + 2 * 4, 10_000, null);
+
+        writer.accept(event(1));
+        writer.accept(event(2));
+        writer.accept(event(3));
+        writer.finish(STATE).get();
+
+        List<ByteBuffer> chunks = response.operations();
+        Assert.assertEquals(3, chunks.size());
+        assertChunk(chunks.get(0), 1, 2);
+        assertChunk(chunks.get(1), 3);
+        assertTrailer(chunks.get(2));
+        Assert.assertEquals(writer.uncompressedSizeBytes(), writer.compressedSizeBytes());
+    }
+
+    @Test
+    public void shouldCompressEachChunkIntoBlock() throws Exception {
+        Response response = new Response(true);
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(response.response, 4 + 2 * 4, 10_000, new Lz4Compressor());
+
+        writer.accept(event(1));
+        writer.accept(event(2));
+        writer.accept(event(3));
+        writer.finish(STATE).get();
+
+        List<ByteBuffer> blocks = response.operations();
+        Assert.assertEquals(3, blocks.size());
+        assertChunk(decompress(blocks.get(0)), 1, 2);
+        assertChunk(decompress(blocks.get(1)), 3);
+        assertTrailer(decompress(blocks.get(2)));
+        Assert.assertEquals(4 + 2 * 4 + 4 + 4 + 4 + STATE.sizeOf(), writer.uncompressedSizeBytes());
+    }
+
+    /**
+     * Writing should wait for the client if the chunk is queued while the previous one is being sent.
+     */
+    @Test
+    public void shouldWaitForClient() throws Exception {
+        Response response = new Response(false);
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(response.response, 4 + 4, 10_000, null);
+
+        writer.accept(event(0));
+        writer.accept(event(1));
+        writer.accept(event(2));
+        Assert.assertTrue(writer.isStarted());
+        Assert.assertEquals(1, response.callbacks.size());
+
+        CompletableFuture<Void> writing = CompletableFuture.runAsync(() -> writer.accept(event(3)));
+        try {
+            writing.get(100, TimeUnit.MILLISECONDS);
+            Assert.fail("Writing should wait until the queued chunk is sent");
+        } catch (TimeoutException ex) {
+            /* expected */
+        }
+
+        response.callbacks.get(0).onComplete(null);
+        writing.get(10, TimeUnit.SECONDS);
+
+        CompletableFuture<Void> completion = writer.finish(STATE);
+        while (!completion.isDone()) {
+            response.callbacks.get(response.callbacks.size() - 1).onComplete(null);
+        }
+        completion.get();
+
+        ByteBuffer body = ByteBuffer.wrap(response.out.toByteArray());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(1, body.getInt());
+            Assert.assertEquals(i, body.getInt());
+        }
+        assertTrailer(body);
+    }
+
+    @Test
+    public void shouldFailIfClientIsTooSlow() {
+        Response response = new Response(false);
+        ChunkedResponseWriter writer = new ChunkedResponseWriter(response.response, 4 + 4, 50, null);
+
+        writer.accept(event(0));
+        writer.accept(event(1));
+        writer.accept(event(2));
+        try {
+            writer.accept(event(3));
+            Assert.fail("Writing should fail if the client does not take chunks in time");
+        } catch (UncheckedIOException ex) {
+            /* expected */
+        } finally {
+            writer.release();
+        }
+    }
+
+    private static byte[] event(int id) {
+        return ByteBuffer.allocate(4).putInt(id).array();
+    }
+
+    private static void assertChunk(ByteBuffer chunk, int... ids) {
+        Assert.assertEquals(ids.length, chunk.getInt());
+        for (int id : ids) {
+            Assert.assertEquals(id, chunk.getInt());
+        }
+        Assert.assertFalse(chunk.hasRemaining());
+    }
+
+    private static void assertTrailer(ByteBuffer trailer) {
+        Assert.assertEquals(0, trailer.getInt());
+        StreamReadState state = new StreamReadStateReader().read(new Decoder(trailer));
+        Assert.assertEquals(2, state.getShardCount());
+        Assert.assertEquals(1, state.getShardStates()[1].getPartition());
+        Assert.assertEquals(42, state.getShardStates()[1].getOffset());
+        Assert.assertFalse(trailer.hasRemaining());
+    }
+
+    private static ByteBuffer decompress(ByteBuffer block) {
+        int originalLength = block.getInt();
+        int compressedLength = block.getInt();
+        Assert.assertEquals(compressedLength, block.remaining());
+        ByteBuffer decompressed = ByteBuffer.allocate(originalLength);
+        new Lz4Decompressor().decompress(block, decompressed);
+        return decompressed;
+    }
+
+    /**
+     * Response captures bytes of each send operation and completes it either immediately or on demand.
+     */
+    private static class Response {
+        final HttpServerResponse response = mock(HttpServerResponse.class);
+        final List<byte[]> sent = new CopyOnWriteArrayList<>();
+        final List<IoCallback> callbacks = new CopyOnWriteArrayList<>();
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Response(boolean completeImmediately) {
+            doAnswer(invocation -> {
+                ByteBuffer[] buffers = invocation.getArgument(0);
+                ByteArrayOutputStream operation = new ByteArrayOutputStream();
+                for (ByteBuffer buffer : buffers) {
+                    while (buffer.hasRemaining()) {
+                        operation.write(buffer.get());
+                    }
+                }
+                sent.add(operation.toByteArray());
+                out.write(operation.toByteArray());
+
+                IoCallback callback = invocation.getArgument(1);
+                if (completeImmediately) {
+                    callback.onComplete(null);
+                } else {
+                    callbacks.add(callback);
+                }
+                return null;
+            }).when(response).send(any(ByteBuffer[].class), any(IoCallback.class), any(ErrorCallback.class));
+        }
+
+        List<ByteBuffer> operations() {
+            List<ByteBuffer> operations = new ArrayList<>(sent.size());
+            for (byte[] bytes : sent) {
+                operations.add(ByteBuffer.wrap(bytes));
+            }
+            return operations;
+        }
+    }
+}
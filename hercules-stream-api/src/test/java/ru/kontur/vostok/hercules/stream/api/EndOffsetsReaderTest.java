@@ -0,0 +1,147 @@
+package ru.kontur.vostok.hercules.stream.api;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.health.Timer;
+import ru.kontur.vostok.hercules.meta.stream.BaseStream;
+import ru.kontur.vostok.hercules.meta.stream.Stream;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EndOffsetsReaderTest {
+    private Consumer<?, ?> consumer;
+    private long nowMs;
+    private EndOffsetsReader reader;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        consumer = mock(Consumer.class);
+        when(consumer.endOffsets(any(), any(Duration.class))).thenAnswer(invocation -> offsets(invocation.getArgument(0)));
+
+        MetricsCollector metricsCollector = mock(MetricsCollector.class);
+        when(metricsCollector.meter(anyString())).thenReturn(mock(Meter.class));
+        when(metricsCollector.timer(anyString())).thenReturn(mock(Timer.class));
+
+        TimeSource time = mock(TimeSource.class);
+        when(time.milliseconds()).thenAnswer(invocation -> nowMs);
+
+        Properties properties = new Properties();
+        properties.setProperty("refreshAfterMs", "1000");
+        reader = new EndOffsetsReader(properties, consumer, metricsCollector, time);
+    }
+
+    @After
+    public void tearDown() {
+        reader.stop(1_000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldReuseSnapshotWithinRefreshInterval() throws Exception {
+        Stream stream = stream("test", 2);
+
+        Map<TopicPartition, Long> first = reader.read(stream, new int[]{0, 1}).get(1, TimeUnit.SECONDS);
+        nowMs += 1_000;
+        Map<TopicPartition, Long> second = reader.read(stream, new int[]{1}).get(1, TimeUnit.SECONDS);
+
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(1, second.size());
+        Assert.assertEquals(first.get(new TopicPartition("test", 1)), second.get(new TopicPartition("test", 1)));
+        verify(consumer, times(1)).endOffsets(any(), any(Duration.class));
+
+        nowMs += 1;
+        reader.read(stream, new int[]{0}).get(1, TimeUnit.SECONDS);
+        verify(consumer, times(2)).endOffsets(any(), any(Duration.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldFetchOnceForConcurrentMisses() throws Exception {
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch fetchAllowed = new CountDownLatch(1);
+        when(consumer.endOffsets(any(), any(Duration.class))).thenAnswer(invocation -> {
+            fetchStarted.countDown();
+            fetchAllowed.await();
+            return offsets(invocation.getArgument(0));
+        });
+        Stream stream = stream("test", 2);
+
+        CompletableFuture<Map<TopicPartition, Long>> first = reader.read(stream, new int[]{0});
+        Assert.assertTrue(fetchStarted.await(1, TimeUnit.SECONDS));
+        CompletableFuture<Map<TopicPartition, Long>> second = reader.read(stream, new int[]{1});
+        Assert.assertFalse(first.isDone());
+        Assert.assertFalse(second.isDone());
+
+        fetchAllowed.countDown();
+
+        Assert.assertEquals(Long.valueOf(100), first.get(1, TimeUnit.SECONDS).get(new TopicPartition("test", 0)));
+        Assert.assertEquals(Long.valueOf(101), second.get(1, TimeUnit.SECONDS).get(new TopicPartition("test", 1)));
+        verify(consumer, times(1)).endOffsets(any(), any(Duration.class));
+    }
+
+    @Test
+    public void shouldRefetchIfPartitionCountChanged() throws Exception {
+        reader.read(stream("test", 2), new int[]{0, 1}).get(1, TimeUnit.SECONDS);
+
+        Map<TopicPartition, Long> endOffsets = reader.read(stream("test", 3), new int[]{2}).get(1, TimeUnit.SECONDS);
+
+        Assert.assertEquals(Long.valueOf(102), endOffsets.get(new TopicPartition("test", 2)));
+        verify(consumer, times(2)).endOffsets(any(), any(Duration.class));
+    }
+
+    @Test
+    public void shouldFailReadAfterStop() throws Exception {
+        reader.stop(1_000, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<Map<TopicPartition, Long>> future = reader.read(stream("test", 2), new int[]{0});
+
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            Assert.fail("Read should fail after stop");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    private static Stream stream(String name, int partitions) {
+        BaseStream stream = new BaseStream();
+        stream.setName(name);
+        stream.setPartitions(partitions);
+        stream.setShardingKey(new String[0]);
+        return stream;
+    }
+
+    /**
+     * End offset of the partition is {@code 100 + partition}.
+     */
+    private static Map<TopicPartition, Long> offsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            offsets.put(partition, 100L + partition.partition());
+        }
+        return offsets;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.kontur.vostok.hercules.tags;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.protocol.TinyStringDictionary;
+import ru.kontur.vostok.hercules.protocol.util.TagDescription;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Well-known tag names which the default {@link TinyStringDictionary} is seeded with should match tag descriptions.
+ */
+public class WellKnownTagNamesTest {
+    private static final Class<?>[] TAG_CLASSES = {
+            CommonTags.class,
+            ElasticSearchTags.class,
+            ExceptionTags.class,
+            LogEventTags.class,
+            MetricsTags.class,
+            SentryTags.class,
+            StackFrameTags.class,
+            TraceSpanTags.class
+    };
+
+    @Test
+    public void shouldSeedDictionaryWithAllTagNames() throws Exception {
+        Set<String> tagNames = new TreeSet<>();
+        for (Class<?> tagClass : TAG_CLASSES) {
+            for (Field field : tagClass.getFields()) {
+                if (Modifier.isStatic(field.getModifiers()) && TagDescription.class.isAssignableFrom(field.getType())) {
+                    tagNames.add(((TagDescription<?>) field.get(null)).getName().toString());
+                }
+            }
+        }
+
+        Field field = TinyStringDictionary.class.getDeclaredField("WELL_KNOWN_TAG_NAMES");
+        field.setAccessible(true);
+        Set<String> wellKnownTagNames = new TreeSet<>(Arrays.asList((String[]) field.get(null)));
+
+        Assert.assertEquals(tagNames, wellKnownTagNames);
+    }
+}
@@ -13,7 +13,7 @@ import java.util.concurrent.TimeUnit;
 /**
  * @author Gregory Koshelev
  */
-public class CapacityThrottle<R> {
+public class CapacityThrottle<R> implements Throttle<R> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CapacityThrottle.class);
 
@@ -44,6 +44,7 @@ public class CapacityThrottle<R> {
      *
      * @param request a request
      */
+    @Override
     public ThrottleResult throttle(R request) {
         int weight = weigher.weigh(request);
         if (weight < 0) {
@@ -65,6 +66,7 @@ public class CapacityThrottle<R> {
         }
     }
 
+    @Override
     public void release(ThrottleResult result) {
         semaphore.release(result.capacity());
     }
@@ -83,10 +85,12 @@ public class CapacityThrottle<R> {
                         build();
     }
 
+    @Override
     public long totalCapacity() {
         return capacity;
     }
 
+    @Override
     public long availableCapacity() {
         return semaphore.availablePermits();
     }
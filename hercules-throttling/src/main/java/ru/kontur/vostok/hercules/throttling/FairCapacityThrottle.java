@@ -0,0 +1,240 @@
+package ru.kontur.vostok.hercules.throttling;
+
+import ru.kontur.vostok.hercules.util.parameter.Parameter;
+import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
+import ru.kontur.vostok.hercules.util.validation.LongValidators;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Capacity throttle with fair queuing of requests by their classes.
+ * <p>
+ * Requests are passed immediately if there are no waiting requests and capacity is enough.
+ * Otherwise, the request waits in the queue of its class (e.g. the stream or the apiKey).
+ * Queues are served in the deficit round robin order. Each queue gets {@code quantum} of capacity per round,
+ * thus classes share capacity equally in bytes no matter how many requests each of them sends.
+ * <p>
+ * The head request of the current queue blocks other queues until there is enough capacity for it.
+ * Thus, big requests are not starved by a flood of small ones.
+ * <p>
+ * The request is throttled if it has not been passed within {@code requestTimeout} milliseconds.
+ * Also, the request is throttled immediately if it is heavier than total capacity.
+ *
+ * @param <R> type of requests
+ * @see CapacityThrottle
+ */
+public class FairCapacityThrottle<R> implements Throttle<R> {
+    private final long capacity;
+    private final long requestTimeoutMs;
+    private final long quantum;
+
+    private final RequestWeigher<R> weigher;
+    private final RequestClassifier<R> classifier;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, RequestQueue> queues = new HashMap<>();
+    private final ArrayDeque<RequestQueue> activeQueues = new ArrayDeque<>();
+    private long availableCapacity;
+
+    /**
+     * @param properties configuration properties
+     * @param weigher    request's weigher to weigh resources are used to process request
+     * @param classifier request's classifier to determine the queue of request
+     */
+    public FairCapacityThrottle(
+            Properties properties,
+            RequestWeigher<R> weigher,
+            RequestClassifier<R> classifier) {
+        this.capacity = PropertiesUtil.get(Props.CAPACITY, properties).get();
+        this.requestTimeoutMs = PropertiesUtil.get(Props.REQUEST_TIMEOUT_MS, properties).get();
+        this.quantum = PropertiesUtil.get(Props.QUANTUM, properties).get();
+
+        this.weigher = weigher;
+        this.classifier = classifier;
+
+        this.availableCapacity = capacity;
+    }
+
+    @Override
+    public ThrottleResult throttle(R request) {
+        int weight = weigher.weigh(request);
+        if (weight < 0) {
+            throw new IllegalStateException("Request is invalid");
+        }
+        if (weight > capacity) {
+            return ThrottleResult.expired();
+        }
+
+        lock.lock();
+        try {
+            if (activeQueues.isEmpty() && availableCapacity >= weight) {
+                availableCapacity -= weight;
+                return ThrottleResult.passed(weight);
+            }
+
+            RequestQueue queue = queues.computeIfAbsent(classifier.classify(request), RequestQueue::new);
+            Waiter waiter = new Waiter(weight, lock.newCondition());
+            if (queue.waiters.isEmpty()) {
+                activeQueues.addLast(queue);
+            }
+            queue.waiters.addLast(waiter);
+            dispatch();
+
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs);
+            try {
+                while (!waiter.passed && remainingNanos > 0L) {
+                    remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                if (waiter.passed) {
+                    availableCapacity += weight;
+                } else {
+                    remove(queue, waiter);
+                }
+                dispatch();
+                return ThrottleResult.interrupted();
+            }
+
+            if (waiter.passed) {
+                return ThrottleResult.passed(weight);
+            }
+            remove(queue, waiter);
+            dispatch();
+            return ThrottleResult.expired();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(ThrottleResult result) {
+        lock.lock();
+        try {
+            availableCapacity += result.capacity();
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long totalCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public long availableCapacity() {
+        lock.lock();
+        try {
+            return availableCapacity;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pass waiting requests in the deficit round robin order while capacity is enough.
+     * <p>
+     * Should be called under the lock.
+     */
+    private void dispatch() {
+        while (!activeQueues.isEmpty()) {
+            RequestQueue queue = activeQueues.peekFirst();
+            Waiter head = queue.waiters.peekFirst();
+
+            if (!queue.inTurn) {
+                queue.deficit += quantum;
+                queue.inTurn = true;
+            }
+
+            if (queue.deficit < head.weight) {
+                queue.inTurn = false;
+                activeQueues.addLast(activeQueues.pollFirst());
+                continue;
+            }
+
+            if (availableCapacity < head.weight) {
+                return;
+            }
+
+            queue.waiters.pollFirst();
+            queue.deficit -= head.weight;
+            availableCapacity -= head.weight;
+            head.passed = true;
+            head.condition.signal();
+
+            if (queue.waiters.isEmpty()) {
+                activeQueues.pollFirst();
+                deactivate(queue);
+            }
+        }
+    }
+
+    /**
+     * Remove throttled request from the queue.
+     * <p>
+     * Should be called under the lock.
+     */
+    private void remove(RequestQueue queue, Waiter waiter) {
+        queue.waiters.remove(waiter);
+        if (queue.waiters.isEmpty()) {
+            activeQueues.remove(queue);
+            deactivate(queue);
+        }
+    }
+
+    private void deactivate(RequestQueue queue) {
+        queue.deficit = 0L;
+        queue.inTurn = false;
+        queues.remove(queue.key);
+    }
+
+    private static class RequestQueue {
+        final String key;
+        final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        long deficit;
+        boolean inTurn;
+
+        RequestQueue(String key) {
+            this.key = key;
+        }
+    }
+
+    private static class Waiter {
+        final int weight;
+        final Condition condition;
+        boolean passed;
+
+        Waiter(int weight, Condition condition) {
+            this.weight = weight;
+            this.condition = condition;
+        }
+    }
+
+    private static class Props {
+        static final Parameter<Long> CAPACITY =
+                Parameter.longParameter(ThrottlingProperties.CAPACITY).
+                        withDefault(ThrottlingDefaults.DEFAULT_CAPACITY).
+                        withValidator(LongValidators.positive()).
+                        build();
+
+        static final Parameter<Long> REQUEST_TIMEOUT_MS =
+                Parameter.longParameter(ThrottlingProperties.REQUEST_TIMEOUT).
+                        withDefault(ThrottlingDefaults.DEFAULT_REQUEST_TIMEOUT).
+                        withValidator(LongValidators.positive()).
+                        build();
+
+        static final Parameter<Long> QUANTUM =
+                Parameter.longParameter(ThrottlingProperties.QUANTUM).
+                        withDefault(ThrottlingDefaults.DEFAULT_QUANTUM).
+                        withValidator(LongValidators.positive()).
+                        build();
+    }
+}
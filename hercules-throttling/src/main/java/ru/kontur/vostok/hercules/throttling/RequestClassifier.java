@@ -0,0 +1,17 @@
+package ru.kontur.vostok.hercules.throttling;
+
+/**
+ * Classify request to determine the queue it should wait in.
+ *
+ * @param <R> type of requests
+ * @see FairCapacityThrottle
+ */
+public interface RequestClassifier<R> {
+    /**
+     * Classify request.
+     *
+     * @param request the request
+     * @return the class of the request
+     */
+    String classify(R request);
+}
@@ -0,0 +1,43 @@
+package ru.kontur.vostok.hercules.throttling;
+
+/**
+ * Throttle limits resources are used to process requests concurrently.
+ * <p>
+ * Each passed request should be released when it has been processed.
+ *
+ * @param <R> type of requests
+ * @see CapacityThrottle
+ * @see FairCapacityThrottle
+ */
+public interface Throttle<R> {
+    /**
+     * Throttle the request.
+     * <p>
+     * Method blocks until the request is passed or throttled.
+     *
+     * @param request the request
+     * @return the throttle result
+     */
+    ThrottleResult throttle(R request);
+
+    /**
+     * Release resources were acquired by the passed request.
+     *
+     * @param result the throttle result of the passed request
+     */
+    void release(ThrottleResult result);
+
+    /**
+     * Total amount of resources.
+     *
+     * @return total capacity
+     */
+    long totalCapacity();
+
+    /**
+     * Amount of resources are available at the moment.
+     *
+     * @return available capacity
+     */
+    long availableCapacity();
+}
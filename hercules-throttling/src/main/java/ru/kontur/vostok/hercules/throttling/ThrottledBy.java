@@ -7,5 +7,6 @@ public enum ThrottledBy {
     NONE,
     EXPIRATION,
     QUEUE_OVERFLOW,
-    INTERRUPTION;
+    INTERRUPTION,
+    RATE_LIMIT;
 }
@@ -9,6 +9,7 @@ public final class ThrottlingDefaults {
     public static final long DEFAULT_CAPACITY = 100_000_000L;
     public static final SizeUnit DEFAULT_CAPACITY_UNIT = SizeUnit.BYTES;
     public static final long DEFAULT_REQUEST_TIMEOUT = 5_000L;
+    public static final long DEFAULT_QUANTUM = 1_048_576L;
 
     private ThrottlingDefaults() {}
 }
@@ -12,4 +12,8 @@ public final class ThrottlingProperties {
      * request's timeout. Timeout is measured in milliseconds
      */
     public static final String REQUEST_TIMEOUT = "requestTimeout";
+    /**
+     * capacity is granted to each queue per round of fair queuing
+     */
+    public static final String QUANTUM = "quantum";
 }
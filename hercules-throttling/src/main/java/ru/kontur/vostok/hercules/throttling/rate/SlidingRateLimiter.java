@@ -43,6 +43,21 @@ public class SlidingRateLimiter {
      * @return {@code true} if rate doesn't exceed limit, otherwise {@code false}
      */
     public boolean updateAndCheck(long timeMs) {
+        return updateAndCheck(timeMs, 1);
+    }
+
+    /**
+     * Update rate and check if rate doesn't exceed limit if {@code count} events are appeared at once.
+     * <p>
+     * Events are accepted or denied all together. Thus, more than {@code limit} events are never accepted at once.
+     *
+     * @param timeMs events timestamp in milliseconds
+     * @param count  the count of events
+     * @return {@code true} if rate doesn't exceed limit, otherwise {@code false}
+     */
+    public boolean updateAndCheck(long timeMs, long count) {
+        long requiredTokens = count * eventTokens;
+
         long currentUpdatedAtMs;
         do {
             currentUpdatedAtMs = updatedAtMs.get();
@@ -59,9 +74,27 @@ public class SlidingRateLimiter {
 
         do {
             currentAvailableTokens = availableTokens.get();
-            newAvailableTokens = currentAvailableTokens - eventTokens;
+            newAvailableTokens = currentAvailableTokens - requiredTokens;
         } while (newAvailableTokens >= 0 && !availableTokens.compareAndSet(currentAvailableTokens, newAvailableTokens));
 
         return newAvailableTokens >= 0;
     }
+
+    /**
+     * Return tokens of {@code count} events which have been accepted but then have been rejected by other reason.
+     * <p>
+     * Available tokens never exceed the maximum.
+     *
+     * @param count the count of events
+     */
+    public void release(long count) {
+        long releasedTokens = count * eventTokens;
+
+        long currentAvailableTokens;
+        long newAvailableTokens;
+        do {
+            currentAvailableTokens = availableTokens.get();
+            newAvailableTokens = Math.min(currentAvailableTokens + releasedTokens, maximumTokens);
+        } while (!availableTokens.compareAndSet(currentAvailableTokens, newAvailableTokens));
+    }
 }
@@ -0,0 +1,97 @@
+package ru.kontur.vostok.hercules.throttling;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+
+public class FairCapacityThrottleTest {
+    @Test
+    public void shouldPassImmediatelyIfCapacityIsEnough() {
+        FairCapacityThrottle<Request> throttle = createThrottle(10, 2, 100);
+
+        ThrottleResult result = throttle.throttle(new Request("a", "a", 4));
+        assertEquals(ThrottledBy.NONE, result.reason());
+        assertEquals(6, throttle.availableCapacity());
+
+        throttle.release(result);
+        assertEquals(10, throttle.availableCapacity());
+    }
+
+    @Test
+    public void shouldExpireIfCapacityIsNotEnough() {
+        FairCapacityThrottle<Request> throttle = createThrottle(10, 2, 100);
+
+        assertEquals(ThrottledBy.EXPIRATION, throttle.throttle(new Request("a", "a", 11)).reason());
+
+        ThrottleResult result = throttle.throttle(new Request("a", "a", 10));
+        assertEquals(ThrottledBy.EXPIRATION, throttle.throttle(new Request("b", "b", 1)).reason());
+        throttle.release(result);
+    }
+
+    /**
+     * The flood of requests of the class {@code a} should not delay the request of the class {@code b}.
+     */
+    @Test
+    public void shouldServeQueuesInRoundRobinOrder() throws InterruptedException {
+        FairCapacityThrottle<Request> throttle = createThrottle(2, 2, 10_000);
+        List<String> passed = Collections.synchronizedList(new ArrayList<>());
+
+        ThrottleResult initial = throttle.throttle(new Request("initial", "x", 2));
+
+        List<Thread> threads = new ArrayList<>();
+        for (Request request : Arrays.asList(
+                new Request("a1", "a", 2),
+                new Request("a2", "a", 2),
+                new Request("a3", "a", 2),
+                new Request("b1", "b", 2))) {
+            Thread thread = new Thread(() -> {
+                ThrottleResult result = throttle.throttle(request);
+                passed.add(request.name);
+                throttle.release(result);
+            });
+            thread.start();
+            awaitWaiting(thread);
+            threads.add(thread);
+        }
+
+        throttle.release(initial);
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        assertEquals(Arrays.asList("a1", "b1", "a2", "a3"), passed);
+        assertEquals(2, throttle.availableCapacity());
+    }
+
+    private static FairCapacityThrottle<Request> createThrottle(long capacity, long quantum, long requestTimeoutMs) {
+        Properties properties = new Properties();
+        properties.setProperty(ThrottlingProperties.CAPACITY, String.valueOf(capacity));
+        properties.setProperty(ThrottlingProperties.REQUEST_TIMEOUT, String.valueOf(requestTimeoutMs));
+        properties.setProperty(ThrottlingProperties.QUANTUM, String.valueOf(quantum));
+        return new FairCapacityThrottle<>(properties, request -> request.weight, request -> request.key);
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        while (thread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static class Request {
+        final String name;
+        final String key;
+        final int weight;
+
+        Request(String name, String key, int weight) {
+            this.name = name;
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+}
@@ -71,6 +71,41 @@ public class SlidingRateLimiterTest {
         assertFalse(service.updateAndCheck(TIME.milliseconds()));
     }
 
+    /**
+     * 1 000 events per second limit with events are appeared by batches.
+     */
+    @Test
+    public void shouldLimitBatchesOfEvents() {
+        SlidingRateLimiter limiter = new SlidingRateLimiter(1_000, 1_000L, TIME.milliseconds());
+
+        assertTrue(limiter.updateAndCheck(TIME.milliseconds(), 600));
+        assertFalse(limiter.updateAndCheck(TIME.milliseconds(), 600));
+        assertTrue(limiter.updateAndCheck(TIME.milliseconds(), 400));
+
+        TIME.sleep(500);
+        assertTrue(limiter.updateAndCheck(TIME.milliseconds(), 500));
+        assertFalse(limiter.updateAndCheck(TIME.milliseconds(), 1));
+
+        TIME.sleep(2_000);
+        assertFalse(limiter.updateAndCheck(TIME.milliseconds(), 1_001));
+        assertTrue(limiter.updateAndCheck(TIME.milliseconds(), 1_000));
+    }
+
+    @Test
+    public void shouldReturnReleasedEvents() {
+        SlidingRateLimiter limiter = new SlidingRateLimiter(1_000, 1_000L, TIME.milliseconds());
+
+        assertTrue(limiter.updateAndCheck(TIME.milliseconds(), 600));
+        assertFalse(limiter.updateAndCheck(TIME.milliseconds(), 600));
+
+        limiter.release(600);
+        assertTrue(limiter.updateAndCheck(TIME.milliseconds(), 600));
+
+        limiter.release(2_000);
+        assertFalse(limiter.updateAndCheck(TIME.milliseconds(), 1_001));
+        assertTrue(limiter.updateAndCheck(TIME.milliseconds(), 1_000));
+    }
+
     @Test
     public void shouldDropExtraLoad() {
         SlidingRateLimiter service = new SlidingRateLimiter(10_000, 3_000L, TIME.milliseconds());
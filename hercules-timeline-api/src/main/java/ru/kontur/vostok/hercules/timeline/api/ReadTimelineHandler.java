@@ -4,22 +4,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.kontur.vostok.hercules.auth.AuthProvider;
 import ru.kontur.vostok.hercules.auth.AuthResult;
-import ru.kontur.vostok.hercules.curator.exception.CuratorException;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.http.ContentEncodings;
 import ru.kontur.vostok.hercules.http.HttpServerRequest;
 import ru.kontur.vostok.hercules.http.HttpStatusCodes;
 import ru.kontur.vostok.hercules.http.MimeTypes;
 import ru.kontur.vostok.hercules.http.handler.HttpHandler;
+import ru.kontur.vostok.hercules.http.header.HeaderUtil;
+import ru.kontur.vostok.hercules.http.header.HttpHeaders;
 import ru.kontur.vostok.hercules.http.query.QueryUtil;
-import ru.kontur.vostok.hercules.meta.serialization.DeserializationException;
 import ru.kontur.vostok.hercules.meta.timeline.Timeline;
-import ru.kontur.vostok.hercules.meta.timeline.TimelineRepository;
+import ru.kontur.vostok.hercules.meta.timeline.TimelineStorage;
 import ru.kontur.vostok.hercules.protocol.TimelineByteContent;
 import ru.kontur.vostok.hercules.protocol.TimelineState;
 import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
 import ru.kontur.vostok.hercules.protocol.decoder.TimelineStateReader;
 import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
 import ru.kontur.vostok.hercules.protocol.encoder.TimelineByteContentWriter;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
+import ru.kontur.vostok.hercules.util.cache.CacheLoadException;
+import ru.kontur.vostok.hercules.util.compression.Compressor;
+import ru.kontur.vostok.hercules.util.compression.GzipCompressor;
+import ru.kontur.vostok.hercules.util.compression.Lz4Compressor;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
 import ru.kontur.vostok.hercules.util.time.TimeUtil;
 
 import java.nio.ByteBuffer;
@@ -34,16 +42,25 @@ public class ReadTimelineHandler implements HttpHandler {
     private static final TimelineStateReader STATE_READER = new TimelineStateReader();
     private static final TimelineByteContentWriter CONTENT_WRITER = new TimelineByteContentWriter();
 
-    private final TimelineRepository timelineRepository;
+    private static final Compressor LZ4_COMPRESSOR = new Lz4Compressor();
+    private static final Compressor GZIP_COMPRESSOR = new GzipCompressor();
+
+    private final TimelineStorage timelineStorage;
     private final TimelineReader timelineReader;
     private final int timetrapCountLimit;
     private final AuthProvider authProvider;
+    private final TimelineReadRequestMetrics metrics;
 
-    public ReadTimelineHandler(AuthProvider authProvider, TimelineRepository timelineRepository, TimelineReader timelineReader) {
+    public ReadTimelineHandler(
+            AuthProvider authProvider,
+            TimelineStorage timelineStorage,
+            TimelineReader timelineReader,
+            MetricsCollector metricsCollector) {
         this.authProvider = authProvider;
-        this.timelineRepository = timelineRepository;
+        this.timelineStorage = timelineStorage;
         this.timelineReader = timelineReader;
         this.timetrapCountLimit = timelineReader.getTimetrapCountLimit();
+        this.metrics = new TimelineReadRequestMetrics(metricsCollector);
     }
 
     public static boolean isTimetrapCountLimitExceeded(long from, long to, long timetrapSize, int timetrapCountLimit) {
@@ -132,18 +149,14 @@ public class ReadTimelineHandler implements HttpHandler {
 
         Timeline timeline;
         try {
-            Optional<Timeline> optionalTimeline = timelineRepository.read(timelineName.get());
+            Optional<Timeline> optionalTimeline = timelineStorage.read(timelineName.get());
             if (!optionalTimeline.isPresent()) {
                 request.complete(HttpStatusCodes.NOT_FOUND);
                 return;
             }
             timeline = optionalTimeline.get();
-        } catch (CuratorException ex) {
-            LOGGER.error("Curator exception when read Stream", ex);
-            request.complete(HttpStatusCodes.INTERNAL_SERVER_ERROR);
-            return;
-        } catch (DeserializationException ex) {
-            LOGGER.error("Deserialization exception of Stream", ex);
+        } catch (CacheLoadException ex) {
+            LOGGER.error("Cannot read Timeline", ex);
             request.complete(HttpStatusCodes.INTERNAL_SERVER_ERROR);
             return;
         }
@@ -161,6 +174,7 @@ public class ReadTimelineHandler implements HttpHandler {
                     try {
                         TimelineState readState = STATE_READER.read(new Decoder(bytes));
 
+                        long readingStartedAtMs = TimeSource.SYSTEM.milliseconds();
                         TimelineByteContent byteContent = timelineReader.readTimeline(
                                 timeline,
                                 readState,
@@ -169,16 +183,91 @@ public class ReadTimelineHandler implements HttpHandler {
                                 take.get(),
                                 from.get(),
                                 to.get());
+                        long readingTimeMs = TimeSource.SYSTEM.milliseconds() - readingStartedAtMs;
 
-                        ByteBuffer buffer = ByteBuffer.allocate(byteContent.sizeOf());
-                        Encoder encoder = new Encoder(buffer);
-                        CONTENT_WRITER.write(encoder, byteContent);
-                        buffer.flip();
-                        request.getResponse().send(buffer);
+                        sendAsync(request, byteContent, readingTimeMs);
                     } catch (Exception e) {
                         LOGGER.error("Error on processing request", e);
                         request.complete(HttpStatusCodes.INTERNAL_SERVER_ERROR);
                     }
                 }));
     }
+
+    /**
+     * Asynchronously send the timeline content to the client.
+     * <p>
+     * The content is encoded into the pooled buffer and compressed if the client accepts compression.
+     * LZ4 is preferred over GZIP since it is much cheaper, while GZIP is supported by any HTTP client.
+     *
+     * @param request       the request
+     * @param byteContent   the timeline content
+     * @param readingTimeMs the time of reading the content
+     */
+    private void sendAsync(HttpServerRequest request, TimelineByteContent byteContent, long readingTimeMs) {
+        final int uncompressedSizeBytes = byteContent.sizeOf();
+        ByteBuffer buffer = ByteBufferPool.acquire(uncompressedSizeBytes);
+        try {
+            Encoder encoder = new Encoder(buffer);
+            CONTENT_WRITER.write(encoder, byteContent);
+        } catch (RuntimeException ex) {
+            ByteBufferPool.release(buffer);
+            throw ex;
+        }
+        buffer.flip();
+
+        String encoding = negotiateEncoding(request);
+        if (encoding != null) {
+            Compressor compressor = ContentEncodings.LZ4.equals(encoding) ? LZ4_COMPRESSOR : GZIP_COMPRESSOR;
+            ByteBuffer compressed = ByteBufferPool.acquire(compressor.maxCompressedLength(uncompressedSizeBytes));
+            try {
+                final ByteBuffer src = buffer;
+                long compressionTimeMs = TimeSource.SYSTEM.measureMs(() -> compressor.compress(src, compressed));
+                metrics.updateCompression(encoding, compressionTimeMs, uncompressedSizeBytes, compressed.remaining());
+            } catch (RuntimeException ex) {
+                ByteBufferPool.release(compressed);
+                throw ex;
+            } finally {
+                ByteBufferPool.release(buffer);
+            }
+            buffer = compressed;
+
+            request.getResponse().setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+            request.getResponse().setHeader(HttpHeaders.ORIGINAL_CONTENT_LENGTH, String.valueOf(uncompressedSizeBytes));
+        }
+
+        final ByteBuffer bufferToSend = buffer;
+        final int compressedSizeBytes = bufferToSend.remaining();
+        final long sendingStartedAtMs = TimeSource.SYSTEM.milliseconds();
+        request.getResponse().setContentType(MimeTypes.APPLICATION_OCTET_STREAM);
+        request.getResponse().setContentLength(compressedSizeBytes);
+        request.getResponse().send(
+                bufferToSend,
+                req -> {
+                    request.complete();
+                    ByteBufferPool.release(bufferToSend);
+                    metrics.update(readingTimeMs, TimeSource.SYSTEM.milliseconds() - sendingStartedAtMs, uncompressedSizeBytes, compressedSizeBytes);
+                },
+                (req, exception) -> {
+                    LOGGER.error("Error when send response", exception);
+                    request.complete();
+                    ByteBufferPool.release(bufferToSend);
+                    metrics.update(readingTimeMs, TimeSource.SYSTEM.milliseconds() - sendingStartedAtMs, uncompressedSizeBytes, compressedSizeBytes);
+                });
+    }
+
+    /**
+     * Choose the content encoding accepted by the client.
+     *
+     * @param request the request
+     * @return the content encoding or {@code null} if the response should not be compressed
+     */
+    private static String negotiateEncoding(HttpServerRequest request) {
+        if (HeaderUtil.isEncodingAccepted(request, ContentEncodings.LZ4)) {
+            return ContentEncodings.LZ4;
+        }
+        if (HeaderUtil.isEncodingAccepted(request, ContentEncodings.GZIP)) {
+            return ContentEncodings.GZIP;
+        }
+        return null;
+    }
 }
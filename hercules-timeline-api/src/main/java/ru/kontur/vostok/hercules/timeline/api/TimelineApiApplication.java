@@ -12,6 +12,7 @@ import ru.kontur.vostok.hercules.configuration.PropertiesLoader;
 import ru.kontur.vostok.hercules.configuration.Scopes;
 import ru.kontur.vostok.hercules.configuration.util.ArgsParser;
 import ru.kontur.vostok.hercules.curator.CuratorClient;
+import ru.kontur.vostok.hercules.health.CacheMetrics;
 import ru.kontur.vostok.hercules.health.CommonMetrics;
 import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.http.HttpServer;
@@ -19,6 +20,7 @@ import ru.kontur.vostok.hercules.http.handler.HandlerWrapper;
 import ru.kontur.vostok.hercules.http.handler.HttpHandler;
 import ru.kontur.vostok.hercules.http.handler.RouteHandler;
 import ru.kontur.vostok.hercules.meta.timeline.TimelineRepository;
+import ru.kontur.vostok.hercules.meta.timeline.TimelineStorage;
 import ru.kontur.vostok.hercules.undertow.util.UndertowHttpServer;
 import ru.kontur.vostok.hercules.undertow.util.handlers.InstrumentedRouteHandlerBuilder;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
@@ -144,13 +146,15 @@ public class TimelineApiApplication {
     }
 
     private static HttpServer createHttpServer(Properties httpServerProperties) {
-        TimelineRepository repository = new TimelineRepository(curatorClient);
+        TimelineStorage timelineStorage = new TimelineStorage(
+                new TimelineRepository(curatorClient),
+                new CacheMetrics("timelines", metricsCollector));
 
         AuthProvider authProvider = new AuthProvider(new AdminAuthManager(Collections.emptySet()), authManager);
         HandlerWrapper authHandlerWrapper = new OrdinaryAuthHandlerWrapper(authProvider);
 
         HttpHandler readTimelineHandler = authHandlerWrapper.wrap(
-                new ReadTimelineHandler(authProvider, repository, timelineReader));
+                new ReadTimelineHandler(authProvider, timelineStorage, timelineReader, metricsCollector));
 
         RouteHandler handler = new InstrumentedRouteHandlerBuilder(httpServerProperties, metricsCollector).
                 post("/timeline/read", readTimelineHandler).
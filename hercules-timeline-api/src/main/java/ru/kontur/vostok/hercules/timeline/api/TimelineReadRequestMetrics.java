@@ -0,0 +1,92 @@
+package ru.kontur.vostok.hercules.timeline.api;
+
+import ru.kontur.vostok.hercules.health.Histogram;
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.health.MetricsUtil;
+import ru.kontur.vostok.hercules.health.Timer;
+import ru.kontur.vostok.hercules.http.ContentEncodings;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metrics of timeline read requests.
+ * <p>
+ * Compression metrics are reported for each content encoding separately.
+ * The compression ratio is reported as the compressed size in percents of the uncompressed size.
+ */
+public class TimelineReadRequestMetrics {
+    private static final String METRICS_SCOPE = TimelineReadRequestMetrics.class.getSimpleName();
+
+    private final Timer readingTimeMsTimer;
+    private final Timer sendingTimeMsTimer;
+
+    private final Meter throughputUncompressedBytesMeter;
+    private final Meter throughputCompressedBytesMeter;
+
+    private final Histogram uncompressedSizeBytesHistogram;
+
+    private final Map<String, CompressionMetrics> compressionMetrics = new HashMap<>();
+
+    public TimelineReadRequestMetrics(MetricsCollector metricsCollector) {
+        this.readingTimeMsTimer = metricsCollector.timer(MetricsUtil.toMetricPath(METRICS_SCOPE, "readingTimeMs"));
+        this.sendingTimeMsTimer = metricsCollector.timer(MetricsUtil.toMetricPath(METRICS_SCOPE, "sendingTimeMs"));
+
+        this.throughputUncompressedBytesMeter = metricsCollector.meter(MetricsUtil.toMetricPath(METRICS_SCOPE, "throughput", "uncompressedBytes"));
+        this.throughputCompressedBytesMeter = metricsCollector.meter(MetricsUtil.toMetricPath(METRICS_SCOPE, "throughput", "compressedBytes"));
+
+        this.uncompressedSizeBytesHistogram = metricsCollector.histogram(MetricsUtil.toMetricPath(METRICS_SCOPE, "uncompressedSizeBytes"));
+
+        for (String encoding : new String[]{ContentEncodings.LZ4, ContentEncodings.GZIP}) {
+            compressionMetrics.put(encoding, new CompressionMetrics(metricsCollector, encoding));
+        }
+    }
+
+    /**
+     * Update metrics of the processed request.
+     *
+     * @param readingTimeMs         the time of reading events from the storage
+     * @param sendingTimeMs         the time of sending the response
+     * @param uncompressedSizeBytes the response body size before compression
+     * @param compressedSizeBytes   the response body size after compression or the uncompressed size if compression was not used
+     */
+    public void update(long readingTimeMs, long sendingTimeMs, int uncompressedSizeBytes, int compressedSizeBytes) {
+        readingTimeMsTimer.update(readingTimeMs);
+        sendingTimeMsTimer.update(sendingTimeMs);
+
+        throughputUncompressedBytesMeter.mark(uncompressedSizeBytes);
+        throughputCompressedBytesMeter.mark(compressedSizeBytes);
+
+        uncompressedSizeBytesHistogram.update(uncompressedSizeBytes);
+    }
+
+    /**
+     * Update compression metrics.
+     *
+     * @param encoding              the content encoding
+     * @param compressionTimeMs     the compression time
+     * @param uncompressedSizeBytes the size before compression
+     * @param compressedSizeBytes   the size after compression
+     */
+    public void updateCompression(String encoding, long compressionTimeMs, int uncompressedSizeBytes, int compressedSizeBytes) {
+        CompressionMetrics metrics = compressionMetrics.get(encoding);
+        if (metrics == null) {
+            return;
+        }
+        metrics.timeMsTimer.update(compressionTimeMs);
+        if (uncompressedSizeBytes > 0) {
+            metrics.ratioPercentHistogram.update(100L * compressedSizeBytes / uncompressedSizeBytes);
+        }
+    }
+
+    private static class CompressionMetrics {
+        private final Timer timeMsTimer;
+        private final Histogram ratioPercentHistogram;
+
+        CompressionMetrics(MetricsCollector metricsCollector, String encoding) {
+            this.timeMsTimer = metricsCollector.timer(MetricsUtil.toMetricPath(METRICS_SCOPE, "compression", encoding, "timeMs"));
+            this.ratioPercentHistogram = metricsCollector.histogram(MetricsUtil.toMetricPath(METRICS_SCOPE, "compression", encoding, "ratioPercent"));
+        }
+    }
+}
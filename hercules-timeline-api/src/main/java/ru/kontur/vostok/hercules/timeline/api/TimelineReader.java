@@ -1,9 +1,10 @@
 package ru.kontur.vostok.hercules.timeline.api;
 
 import com.datastax.oss.driver.api.core.CqlSession;
-import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.Row;
-import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.kontur.vostok.hercules.cassandra.util.CassandraConnector;
@@ -21,20 +22,31 @@ import ru.kontur.vostok.hercules.util.bytes.ByteUtil;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 import ru.kontur.vostok.hercules.util.time.TimeUtil;
+import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Read event timeline from Cassandra cluster
  * <p>
+ * Cells of slice and tt_offset grid are queried concurrently using prepared statements.
+ * The count of concurrent queries per read is limited.
+ * Query results are handled in the grid order, thus the read is equivalent to the sequential one.
+ * <p>
  * FIXME: Should be revised and refactored
  */
 public class TimelineReader {
@@ -102,6 +114,19 @@ public class TimelineReader {
         }
     }
 
+    /**
+     * Query of the grid cell which is in flight
+     */
+    private static class CellQuery {
+        final Parameters params;
+        final CompletionStage<AsyncResultSet> result;
+
+        CellQuery(Parameters params, CompletionStage<AsyncResultSet> result) {
+            this.params = params;
+            this.result = result;
+        }
+    }
+
     /**
      * Iterable to create GridIterator
      */
@@ -138,15 +163,15 @@ public class TimelineReader {
             " %s" +
             " " +
             "WHERE" +
-            " slice = %d AND" +
-            " tt_offset = %d AND" +
-            " event_id > %s AND" + // Lower bound
-            " event_id < %s" + // Upper bound
+            " slice = ? AND" +
+            " tt_offset = ? AND" +
+            " event_id > ? AND" + // Lower bound
+            " event_id < ?" + // Upper bound
             " " +
             "ORDER BY" +
             " event_id" +
             " " +
-            "LIMIT %d;";
+            "LIMIT ?;";
 
     private static final String SELECT_EVENTS_START_READING_SLICE = "" +
             "SELECT" +
@@ -157,18 +182,25 @@ public class TimelineReader {
             " %s" +
             " " +
             "WHERE" +
-            " slice = %d AND" +
-            " tt_offset = %d AND" +
-            " event_id >= %s AND" + // Lower bound
-            " event_id < %s" + // Upper bound
+            " slice = ? AND" +
+            " tt_offset = ? AND" +
+            " event_id >= ? AND" + // Lower bound
+            " event_id < ?" + // Upper bound
             " " +
             "ORDER BY" +
             " event_id" +
             " " +
-            "LIMIT %d;";
+            "LIMIT ?;";
 
     private final CqlSession session;
     private final int timetrapCountLimit;
+    private final int concurrentQueryLimit;
+
+    /**
+     * Prepared statements per table
+     */
+    private final Map<String, PreparedStatement> selectEventsStatements = new ConcurrentHashMap<>();
+    private final Map<String, PreparedStatement> selectEventsStartReadingSliceStatements = new ConcurrentHashMap<>();
 
     private final MetricsCollector metricsCollector;
     private final Meter receivedEventsCountMeter;
@@ -181,6 +213,7 @@ public class TimelineReader {
             MetricsCollector metricsCollector) {
         this.session = connector.session();
         this.timetrapCountLimit = PropertiesUtil.get(Props.TIMETRAP_COUNT_LIMIT, properties).get();
+        this.concurrentQueryLimit = PropertiesUtil.get(Props.CONCURRENT_QUERY_LIMIT, properties).get();
         this.metricsCollector = metricsCollector;
         this.receivedEventsCountMeter = metricsCollector.meter("receivedEventsCount");
         this.receivedBytesCountMeter = metricsCollector.meter("receivedBytesCount");
@@ -220,39 +253,69 @@ public class TimelineReader {
         }
         long[] timetrapOffsets = TimeTrapUtil.getTimetrapOffsets(from, toInclusive, timetrapSize);
 
+        Map<Integer, TimelineShardReadStateOffset> initialOffsetMap = toMap(readState);
         Map<Integer, TimelineShardReadStateOffset> offsetMap = toMap(readState);
 
-        List<byte[]> result = new LinkedList<>();
-
-        for (Parameters params : new Grid(partitions, timetrapOffsets)) {
-            TimelineShardReadStateOffset offset = offsetMap.computeIfAbsent(
-                    params.slice,
-                    i -> getEmptyReadStateOffset(params.ttOffset)
-            );
-            if (params.ttOffset < offset.ttOffset) {
-                continue; // Skip already red timetrap offsets
-            } else if (offset.ttOffset < params.ttOffset) {
-                offsetMap.put(params.slice, getEmptyReadStateOffset(params.ttOffset));
-                offset = offsetMap.get(params.slice);
+        List<byte[]> result = new ArrayList<>();
+
+        final int limit = take;
+        Iterator<Parameters> cells = new Grid(partitions, timetrapOffsets).iterator();
+        Deque<CellQuery> queries = new ArrayDeque<>(concurrentQueryLimit);
+        try {
+            while (take > 0) {
+                while (queries.size() < concurrentQueryLimit && cells.hasNext()) {
+                    Parameters params = cells.next();
+                    TimelineShardReadStateOffset initialOffset = initialOffsetMap.get(params.slice);
+                    if (initialOffset != null && params.ttOffset < initialOffset.ttOffset) {
+                        continue; // Skip already red timetrap offsets
+                    }
+                    /*
+                     * The slice state is reset for each subsequent timetrap offset of the slice,
+                     * thus the lower bound depends on the initial state only.
+                     */
+                    byte[] lowerEventId = initialOffset != null && initialOffset.ttOffset == params.ttOffset
+                            ? initialOffset.eventId
+                            : NIL;
+                    BoundStatement statement = bindStatement(timeline, params, lowerEventId, limit, from, to);
+
+                    LOGGER.debug("Executing slice = {}, tt_offset = {}", params.slice, params.ttOffset);
+
+                    queries.add(new CellQuery(params, session.executeAsync(statement)));
+                }
+
+                CellQuery query = queries.poll();
+                if (query == null) {
+                    break;
+                }
+                Parameters params = query.params;
+
+                TimelineShardReadStateOffset offset = offsetMap.computeIfAbsent(
+                        params.slice,
+                        i -> getEmptyReadStateOffset(params.ttOffset)
+                );
+                if (params.ttOffset < offset.ttOffset) {
+                    continue; // Skip already red timetrap offsets
+                } else if (offset.ttOffset < params.ttOffset) {
+                    offsetMap.put(params.slice, getEmptyReadStateOffset(params.ttOffset));
+                    offset = offsetMap.get(params.slice);
+                }
+
+                for (Row row : await(query.result).currentPage()) {
+                    if (take <= 0) {
+                        break;
+                    }
+                    offset.eventId = ByteUtil.fromByteBuffer(row.getByteBuffer(EVENT_ID));
+                    result.add(row.getByteBuffer(PAYLOAD).array());
+                    --take;
+                }
+                // If no rows were fetched increment tt_offset to mark partition (slice, offset_id) as red
+                if (isNil(offset.eventId)) {
+                    offset.ttOffset += timeline.getTimetrapSize();
+                }
             }
-
-            SimpleStatement statement = generateStatement(timeline, params, offset, take, from, to);
-
-            LOGGER.info("Executing '{}'", statement.toString());
-
-            ResultSet rows = session.execute(statement);
-            for (Row row : rows) {
-                offset.eventId = ByteUtil.fromByteBuffer(row.getByteBuffer(EVENT_ID));
-                result.add(row.getByteBuffer(PAYLOAD).array());
-                --take;
-            }
-            // If no rows were fetched increment tt_offset to mark partition (slice, offset_id) as red
-            if (isNil(offset.eventId)) {
-                offset.ttOffset += timeline.getTimetrapSize();
-            }
-
-            if (take <= 0) {
-                break;
+        } finally {
+            for (CellQuery query : queries) {
+                query.result.toCompletableFuture().cancel(false);
             }
         }
 
@@ -283,27 +346,50 @@ public class TimelineReader {
         return new TimelineShardReadStateOffset(ttOffset, NIL);
     }
 
-    private static SimpleStatement generateStatement(Timeline timeline, Parameters params, TimelineShardReadStateOffset offset, int take, long from, long to) {
-        if (!isNil(offset.eventId)) {
-            return SimpleStatement.builder(String.format(
-                    SELECT_EVENTS,
+    private BoundStatement bindStatement(Timeline timeline, Parameters params, byte[] lowerEventId, int take, long from, long to) {
+        ByteBuffer upperEventId = ByteBuffer.wrap(EventUtil.minEventIdForTimestampAsBytes(
+                Math.min(to, TimeUtil.millisToTicks(params.ttOffset + timeline.getTimetrapSize()))));
+        if (!isNil(lowerEventId)) {
+            return selectEventsStatements.computeIfAbsent(
                     timeline.getName(),
+                    table -> session.prepare(String.format(SELECT_EVENTS, table))
+            ).bind(
                     params.slice,
                     params.ttOffset,
-                    EventUtil.eventIdOfBytesAsHexString(offset.eventId),
-                    EventUtil.minEventIdForTimestampAsHexString(Math.min(to, TimeUtil.millisToTicks(params.ttOffset + timeline.getTimetrapSize()))),
+                    ByteBuffer.wrap(lowerEventId),
+                    upperEventId,
                     take
-            )).setPageSize(take).build();
+            ).setPageSize(take);
         } else {
-            return SimpleStatement.builder(String.format(
-                    SELECT_EVENTS_START_READING_SLICE,
+            return selectEventsStartReadingSliceStatements.computeIfAbsent(
                     timeline.getName(),
+                    table -> session.prepare(String.format(SELECT_EVENTS_START_READING_SLICE, table))
+            ).bind(
                     params.slice,
                     params.ttOffset,
-                    EventUtil.minEventIdForTimestampAsHexString(Math.max(from, TimeUtil.millisToTicks(params.ttOffset))),
-                    EventUtil.minEventIdForTimestampAsHexString(Math.min(to, TimeUtil.millisToTicks(params.ttOffset + timeline.getTimetrapSize()))),
+                    ByteBuffer.wrap(EventUtil.minEventIdForTimestampAsBytes(Math.max(from, TimeUtil.millisToTicks(params.ttOffset)))),
+                    upperEventId,
                     take
-            )).setPageSize(take).build();
+            ).setPageSize(take);
+        }
+    }
+
+    /**
+     * Await query result.
+     * <p>
+     * Since the page size is equal to the limit, the first page contains all the rows.
+     *
+     * @param result the query result
+     * @return the result set
+     */
+    private static AsyncResultSet await(CompletionStage<AsyncResultSet> result) {
+        try {
+            return result.toCompletableFuture().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
         }
     }
 
@@ -334,5 +420,11 @@ public class TimelineReader {
                 Parameter.integerParameter("timetrapCountLimit").
                         withDefault(30).
                         build();
+
+        static final Parameter<Integer> CONCURRENT_QUERY_LIMIT =
+                Parameter.integerParameter("concurrentQueryLimit").
+                        withDefault(16).
+                        withValidator(IntegerValidators.positive()).
+                        build();
     }
 }
@@ -1,8 +1,10 @@
 package ru.kontur.vostok.hercules.timeline.api;
 
 import com.datastax.oss.driver.api.core.CqlSession;
-import com.datastax.oss.driver.api.core.cql.ResultSet;
-import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
@@ -12,27 +14,36 @@ import ru.kontur.vostok.hercules.health.Meter;
 import ru.kontur.vostok.hercules.health.MetricsCollector;
 import ru.kontur.vostok.hercules.health.Timer;
 import ru.kontur.vostok.hercules.meta.timeline.Timeline;
+import ru.kontur.vostok.hercules.protocol.TimelineByteContent;
 import ru.kontur.vostok.hercules.protocol.TimelineSliceState;
 import ru.kontur.vostok.hercules.protocol.TimelineState;
 import ru.kontur.vostok.hercules.protocol.util.EventUtil;
 import ru.kontur.vostok.hercules.util.time.TimeUtil;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class TimelineReaderTest {
 
-    private static class StatementMatcher implements ArgumentMatcher<SimpleStatement> {
+    private static class StatementMatcher implements ArgumentMatcher<String> {
 
         private final ArgumentMatcher<Object> cqlMatcher;
         private final String regexp;
@@ -43,8 +54,8 @@ public class TimelineReaderTest {
         }
 
         @Override
-        public boolean matches(SimpleStatement argument) {
-            return cqlMatcher.matches(argument.getQuery());
+        public boolean matches(String argument) {
+            return cqlMatcher.matches(argument);
         }
 
         @Override
@@ -53,8 +64,6 @@ public class TimelineReaderTest {
         }
     }
 
-    private static final String EVENT_ID_REGEXP = "0x[0-9a-zA-Z]{48}";
-
     private static final Timeline TIMELINE = new Timeline();
     static {
         TIMELINE.setName("test-timeline");
@@ -64,7 +73,9 @@ public class TimelineReaderTest {
 
     private TimelineReader timelineReader;
     private CqlSession session = mock(CqlSession.class);
-    private ResultSet resultSet = mock(ResultSet.class);
+    private PreparedStatement preparedStatement = mock(PreparedStatement.class);
+    private BoundStatement boundStatement = mock(BoundStatement.class);
+    private AsyncResultSet resultSet = mock(AsyncResultSet.class);
     private MetricsCollector metricsCollector = mock(MetricsCollector.class);
 
     @Before
@@ -72,9 +83,12 @@ public class TimelineReaderTest {
         CassandraConnector connector = mock(CassandraConnector.class);
         when(connector.session()).thenReturn(session);
 
-        mockIterable(resultSet);
+        when(resultSet.currentPage()).thenReturn(Collections.emptyList());
 
-        when(session.execute(any(SimpleStatement.class))).thenReturn(resultSet);
+        when(session.prepare(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.bind(any(), any(), any(), any(), any())).thenReturn(boundStatement);
+        when(boundStatement.setPageSize(anyInt())).thenReturn(boundStatement);
+        when(session.executeAsync(any(BoundStatement.class))).thenReturn(CompletableFuture.completedFuture(resultSet));
 
         when(metricsCollector.meter(anyString())).thenReturn(n -> {
         });
@@ -101,8 +115,8 @@ public class TimelineReaderTest {
                 10_000_000
         );
 
-        verify(session).execute(argThat(cql(".+ slice = 0 .+")));
-        verify(session).execute(argThat(cql(".+ slice = 1 .+")));
+        verify(preparedStatement).bind(eq(0), anyLong(), any(), any(), eq(10));
+        verify(preparedStatement).bind(eq(1), anyLong(), any(), any(), eq(10));
     }
 
     @Test
@@ -117,8 +131,8 @@ public class TimelineReaderTest {
                 10_000_000
         );
 
-        verify(session).execute(argThat(cql(
-                ".+ event_id >= " + EVENT_ID_REGEXP + " AND event_id < " + EVENT_ID_REGEXP + " .+"
+        verify(session).prepare(argThat(cql(
+                ".+ event_id >= \\? AND event_id < \\? .+"
         )));
     }
 
@@ -136,8 +150,8 @@ public class TimelineReaderTest {
                 10_000_000
         );
 
-        verify(session).execute(argThat(cql(
-                ".+ event_id > " + EVENT_ID_REGEXP + " AND event_id < " + EVENT_ID_REGEXP + " .+"
+        verify(session).prepare(argThat(cql(
+                ".+ event_id > \\? AND event_id < \\? .+"
         )));
     }
 
@@ -154,34 +168,70 @@ public class TimelineReaderTest {
                 from,
                 to);
 
-        verify(session).execute(argThat(cql(
-                ".+ event_id >= " + EventUtil.minEventIdForTimestampAsHexString(from) + " AND " +
-                        "event_id < " + EventUtil.minEventIdForTimestampAsHexString(to) + " .+")));
+        verify(preparedStatement).bind(
+                eq(0),
+                eq(0L),
+                eq(ByteBuffer.wrap(EventUtil.minEventIdForTimestampAsBytes(from))),
+                eq(ByteBuffer.wrap(EventUtil.minEventIdForTimestampAsBytes(to))),
+                eq(1));
     }
 
-    public static <T> void mockIterable(Iterable<T> iterable, T... values) {
-        Iterator<T> mockIterator = mock(Iterator.class);
-        when(iterable.iterator()).thenReturn(mockIterator);
-
-        if (values.length == 0) {
-            when(mockIterator.hasNext()).thenReturn(false);
-            return;
-        } else if (values.length == 1) {
-            when(mockIterator.hasNext()).thenReturn(true, false);
-            when(mockIterator.next()).thenReturn(values[0]);
-        } else {
-            // build boolean array for hasNext()
-            Boolean[] hasNextResponses = new Boolean[values.length];
-            for (int i = 0; i < hasNextResponses.length - 1; i++) {
-                hasNextResponses[i] = true;
-            }
-            hasNextResponses[hasNextResponses.length - 1] = false;
-            when(mockIterator.hasNext()).thenReturn(true, hasNextResponses);
-            T[] valuesMinusTheFirst = Arrays.copyOfRange(values, 1, values.length);
-            when(mockIterator.next()).thenReturn(values[0], valuesMinusTheFirst);
+    @Test
+    public void shouldRespectTakeInSliceOrder() {
+        Timeline timeline = new Timeline();
+        timeline.setName("test-timeline");
+        timeline.setSlices(2);
+        timeline.setTimetrapSize(1_000);
+
+        byte[] firstEventId = EventUtil.eventIdAsBytes(1_000L, UUID.randomUUID());
+        byte[] secondEventId = EventUtil.eventIdAsBytes(2_000L, UUID.randomUUID());
+        byte[] thirdEventId = EventUtil.eventIdAsBytes(3_000L, UUID.randomUUID());
+
+        BoundStatement firstSliceStatement = mock(BoundStatement.class);
+        BoundStatement secondSliceStatement = mock(BoundStatement.class);
+        when(firstSliceStatement.setPageSize(anyInt())).thenReturn(firstSliceStatement);
+        when(secondSliceStatement.setPageSize(anyInt())).thenReturn(secondSliceStatement);
+        when(preparedStatement.bind(eq(0), any(), any(), any(), any())).thenReturn(firstSliceStatement);
+        when(preparedStatement.bind(eq(1), any(), any(), any(), any())).thenReturn(secondSliceStatement);
+
+        AsyncResultSet firstSliceRows = mock(AsyncResultSet.class);
+        AsyncResultSet secondSliceRows = mock(AsyncResultSet.class);
+        List<Row> firstSlicePage = Arrays.asList(row(firstEventId, 1), row(secondEventId, 2));
+        List<Row> secondSlicePage = Arrays.asList(row(thirdEventId, 3), row(thirdEventId, 4));
+        when(firstSliceRows.currentPage()).thenReturn(firstSlicePage);
+        when(secondSliceRows.currentPage()).thenReturn(secondSlicePage);
+        when(session.executeAsync(firstSliceStatement)).thenReturn(CompletableFuture.completedFuture(firstSliceRows));
+        when(session.executeAsync(secondSliceStatement)).thenReturn(CompletableFuture.completedFuture(secondSliceRows));
+
+        TimelineByteContent content = timelineReader.readTimeline(
+                timeline,
+                new TimelineState(new TimelineSliceState[]{}),
+                0,
+                1,
+                3,
+                0,
+                10_000_000
+        );
+
+        assertEquals(3, content.getRawEvents().length);
+        assertArrayEquals(new byte[]{1}, content.getRawEvents()[0]);
+        assertArrayEquals(new byte[]{2}, content.getRawEvents()[1]);
+        assertArrayEquals(new byte[]{3}, content.getRawEvents()[2]);
+
+        assertEquals(2, content.getReadState().getSliceStates().length);
+        for (TimelineSliceState state : content.getReadState().getSliceStates()) {
+            assertEquals(0L, state.getTtOffset());
+            assertArrayEquals(state.getSlice() == 0 ? secondEventId : thirdEventId, state.getEventId());
         }
     }
 
+    private static Row row(byte[] eventId, int payload) {
+        Row row = mock(Row.class);
+        when(row.getByteBuffer("event_id")).thenReturn(ByteBuffer.wrap(eventId));
+        when(row.getByteBuffer("payload")).thenReturn(ByteBuffer.wrap(new byte[]{(byte) payload}));
+        return row;
+    }
+
     public static StatementMatcher cql(String regexp) {
         return new StatementMatcher(regexp);
     }
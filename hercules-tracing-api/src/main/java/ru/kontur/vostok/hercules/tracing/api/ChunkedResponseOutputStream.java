@@ -0,0 +1,118 @@
+package ru.kontur.vostok.hercules.tracing.api;
+
+import ru.kontur.vostok.hercules.http.ChunkedResponseSender;
+import ru.kontur.vostok.hercules.http.HttpServerResponse;
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Output stream sends written bytes to the response by chunks of the fixed size.
+ * <p>
+ * Chunks are sent by {@link ChunkedResponseSender}. Writing blocks until the previous chunk is taken for sending,
+ * thus memory usage is bounded by the couple of chunks per request.
+ * <p>
+ * The chunk is sent only when it is full or when {@link #finish()} is called, so {@link #flush()} does nothing.
+ * <p>
+ * Class is not thread-safe.
+ */
+class ChunkedResponseOutputStream extends OutputStream {
+    private final ChunkedResponseSender sender;
+    private final int chunkSizeBytes;
+
+    private ByteBuffer chunk;
+
+    ChunkedResponseOutputStream(HttpServerResponse response, int chunkSizeBytes) {
+        this.sender = new ChunkedResponseSender(response);
+        this.chunkSizeBytes = chunkSizeBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureChunk();
+        chunk.put((byte) b);
+        if (!chunk.hasRemaining()) {
+            sendChunk();
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureChunk();
+            int count = Math.min(length, chunk.remaining());
+            chunk.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+            if (!chunk.hasRemaining()) {
+                sendChunk();
+            }
+        }
+    }
+
+    /**
+     * Send remaining bytes.
+     * <p>
+     * The returned future is completed when all chunks are sent.
+     *
+     * @return the future of sending
+     * @throws IOException if sending of the previous chunk has been failed
+     */
+    CompletableFuture<Void> finish() throws IOException {
+        sendChunk();
+        return sender.finish();
+    }
+
+    /**
+     * Check if any chunk has been sent.
+     * <p>
+     * The status code and headers cannot be changed if sending has been started.
+     *
+     * @return {@code true} if sending has been started, otherwise {@code false}
+     */
+    boolean isStarted() {
+        return sender.isStarted();
+    }
+
+    /**
+     * Return the chunk which is not sent back into the pool.
+     * <p>
+     * Sent chunks are released when sending is completed.
+     */
+    void release() {
+        if (chunk != null) {
+            ByteBufferPool.release(chunk);
+            chunk = null;
+        }
+    }
+
+    private void ensureChunk() {
+        if (chunk == null) {
+            chunk = ByteBufferPool.acquire(chunkSizeBytes);
+        }
+    }
+
+    private void sendChunk() throws IOException {
+        if (chunk == null) {
+            return;
+        }
+
+        ByteBuffer data = chunk;
+        chunk = null;
+        data.flip();
+        sender.send(data);
+
+        try {
+            sender.awaitQueuedBytes(0);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending the chunk", ex);
+        }
+        if (sender.isFailed()) {
+            throw new IOException("Cannot send the chunk");
+        }
+    }
+}
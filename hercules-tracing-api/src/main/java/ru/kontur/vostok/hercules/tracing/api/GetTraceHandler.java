@@ -1,30 +1,35 @@
 package ru.kontur.vostok.hercules.tracing.api;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import ru.kontur.vostok.hercules.http.HttpServerRequest;
 import ru.kontur.vostok.hercules.http.HttpStatusCodes;
 import ru.kontur.vostok.hercules.http.MimeTypes;
 import ru.kontur.vostok.hercules.http.handler.HttpHandler;
 import ru.kontur.vostok.hercules.http.query.QueryUtil;
-import ru.kontur.vostok.hercules.json.Document;
 import ru.kontur.vostok.hercules.json.DocumentWriter;
 import ru.kontur.vostok.hercules.json.format.EventToJsonFormatter;
-import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
+import java.io.UncheckedIOException;
 import java.util.UUID;
 
 /**
  * GetTraceHandler
+ * <p>
+ * Spans are streamed to the response by chunks, thus memory usage does not depend on the count of spans.
  *
  * @author Gregory Koshelev
  */
 public class GetTraceHandler implements HttpHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GetTraceHandler.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private static final int CHUNK_SIZE_BYTES = 64 * 1024;
+
     private final TracingReader tracingReader;
     private final EventToJsonFormatter eventFormatter;
 
@@ -67,49 +72,69 @@ public class GetTraceHandler implements HttpHandler {
             request.complete(
                     HttpStatusCodes.BAD_REQUEST,
                     MimeTypes.TEXT_PLAIN,
-                    "Parameter " + QueryParameters.PAGING_STATE.name() + " error: " + limit.result().error());
+                    "Parameter " + QueryParameters.PAGING_STATE.name() + " error: " + pagingState.result().error());
             return;
         }
 
-        final Page<Event> traceSpans;
-        if (!parentSpanId.isEmpty()) {
-            traceSpans = tracingReader.getTraceSpansByTraceIdAndParentSpanId(
-                    traceId.get(),
-                    parentSpanId.get(),
-                    limit.get(),
-                    pagingState.orEmpty(null));
-        } else {
-            traceSpans = tracingReader.getTraceSpansByTraceId(
-                    traceId.get(),
-                    limit.get(),
-                    pagingState.orEmpty(null));
-        }
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        try {
-            DocumentWriter.writeTo(outputStream, createDocument(traceSpans));
-        } catch (IOException ex) {
-            request.complete(
-                    HttpStatusCodes.INTERNAL_SERVER_ERROR,
-                    MimeTypes.TEXT_PLAIN,
-                    "Error of writing the JSON-document to the OutputStream");
-            return;
-        }
-        ByteBuffer byteBuffer = ByteBuffer.wrap(outputStream.toByteArray());
-        request.getResponse().setContentType(MimeTypes.APPLICATION_JSON);
-        request.getResponse().send(byteBuffer);
+        request.dispatchAsync(
+                () -> writeTraceSpans(
+                        request,
+                        traceId.get(),
+                        parentSpanId.orEmpty(null),
+                        limit.get(),
+                        pagingState.orEmpty(null)));
     }
 
-    private Document createDocument(Page<Event> page) {
-        Document document = new Document();
-        if (page.state() != null) {
-            document.putIfAbsent("pagingState", page.state());
-        }
-        List<Map<String, Object>> eventList = new LinkedList<>();
-        document.putIfAbsent("result", eventList);
-        for (Event event : page.elements()) {
-            Document eventDocument = eventFormatter.format(event);
-            eventList.add(eventDocument.document());
+    /**
+     * Write trace spans to the response as soon as they are read.
+     * <p>
+     * Response body is the JSON-object with the array of spans {@code result}
+     * and the optional {@code pagingState} after it, since the paging state is known only when all spans are read.
+     */
+    private void writeTraceSpans(HttpServerRequest request, UUID traceId, UUID parentSpanId, int limit, String pagingState) {
+        ChunkedResponseOutputStream out = new ChunkedResponseOutputStream(request.getResponse(), CHUNK_SIZE_BYTES);
+        try {
+            request.getResponse().setContentType(MimeTypes.APPLICATION_JSON);
+
+            JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("result");
+
+            TracingReader.SpanSink sink = span -> {
+                try {
+                    DocumentWriter.writeTo(generator, eventFormatter.format(span));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            };
+            String nextPagingState = parentSpanId != null
+                    ? tracingReader.readTraceSpansByTraceIdAndParentSpanId(traceId, parentSpanId, limit, pagingState, sink)
+                    : tracingReader.readTraceSpansByTraceId(traceId, limit, pagingState, sink);
+
+            generator.writeEndArray();
+            if (nextPagingState != null) {
+                generator.writeStringField("pagingState", nextPagingState);
+            }
+            generator.writeEndObject();
+            generator.close();
+
+            out.finish().whenComplete((v, ex) -> {
+                if (ex != null) {
+                    LOGGER.warn("Cannot send the response", ex);
+                }
+                request.complete();
+            });
+        } catch (Exception ex) {
+            LOGGER.error("Error on processing request", ex);
+            out.release();
+            if (out.isStarted()) {
+                request.complete();
+            } else {
+                request.complete(
+                        HttpStatusCodes.INTERNAL_SERVER_ERROR,
+                        MimeTypes.TEXT_PLAIN,
+                        "Error of writing the JSON-document to the response");
+            }
         }
-        return document;
     }
 }
@@ -0,0 +1,58 @@
+package ru.kontur.vostok.hercules.tracing.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.kontur.vostok.hercules.http.HttpServerRequest;
+import ru.kontur.vostok.hercules.http.HttpStatusCodes;
+import ru.kontur.vostok.hercules.http.MimeTypes;
+import ru.kontur.vostok.hercules.http.handler.HttpHandler;
+import ru.kontur.vostok.hercules.http.query.QueryUtil;
+import ru.kontur.vostok.hercules.util.parameter.Parameter;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Returns the whole trace as the tree of spans.
+ *
+ * @see TraceTreeReader
+ */
+public class GetTraceTreeHandler implements HttpHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GetTraceTreeHandler.class);
+
+    private final TraceTreeReader traceTreeReader;
+
+    public GetTraceTreeHandler(TraceTreeReader traceTreeReader) {
+        this.traceTreeReader = traceTreeReader;
+    }
+
+    @Override
+    public void handle(HttpServerRequest request) {
+        Parameter<UUID>.ParameterValue traceId = QueryUtil.get(QueryParameters.TRACE_ID, request);
+        if (traceId.isError()) {
+            request.complete(
+                    HttpStatusCodes.BAD_REQUEST,
+                    MimeTypes.TEXT_PLAIN,
+                    "Parameter " + QueryParameters.TRACE_ID.name() + " error: " + traceId.result().error());
+            return;
+        }
+
+        request.dispatchAsync(() -> {
+            byte[] tree;
+            try {
+                tree = traceTreeReader.read(traceId.get());
+            } catch (Exception ex) {
+                LOGGER.error("Error on reading the trace tree", ex);
+                request.complete(
+                        HttpStatusCodes.INTERNAL_SERVER_ERROR,
+                        MimeTypes.TEXT_PLAIN,
+                        "Error of reading the trace tree");
+                return;
+            }
+
+            request.getResponse().setStatusCode(HttpStatusCodes.OK);
+            request.getResponse().setContentType(MimeTypes.APPLICATION_JSON);
+            request.getResponse().send(ByteBuffer.wrap(tree));
+        });
+    }
+}
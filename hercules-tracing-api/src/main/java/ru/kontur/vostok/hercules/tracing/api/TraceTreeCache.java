@@ -0,0 +1,110 @@
+package ru.kontur.vostok.hercules.tracing.api;
+
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache of serialized trace trees.
+ * <p>
+ * The cache is bounded by the total size of cached trees in bytes.
+ * The least recently used trees are evicted if the size is exceeded.
+ * Also, the tree is evicted when its time to live has been elapsed since the tree was assembled.
+ * <p>
+ * Class is thread-safe.
+ */
+class TraceTreeCache {
+    private final long maxSizeBytes;
+    private final long ttlMs;
+    private final TimeSource time;
+
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes;
+
+    TraceTreeCache(long maxSizeBytes, long ttlMs, TimeSource time) {
+        this.maxSizeBytes = maxSizeBytes;
+        this.ttlMs = ttlMs;
+        this.time = time;
+    }
+
+    /**
+     * Get the tree if it is cached and has not been expired.
+     *
+     * @param traceId the trace id
+     * @return the serialized tree or {@code null} if absent
+     */
+    synchronized byte[] get(UUID traceId) {
+        Entry entry = entries.get(traceId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMs <= time.milliseconds()) {
+            remove(traceId);
+            return null;
+        }
+        return entry.tree;
+    }
+
+    /**
+     * Put the tree into the cache.
+     * <p>
+     * The tree is not cached if it is larger than the cache itself.
+     *
+     * @param traceId the trace id
+     * @param tree    the serialized tree
+     */
+    synchronized void put(UUID traceId, byte[] tree) {
+        if (tree.length > maxSizeBytes) {
+            return;
+        }
+
+        remove(traceId);
+        entries.put(traceId, new Entry(tree, time.milliseconds() + ttlMs));
+        sizeBytes += tree.length;
+
+        evict();
+    }
+
+    synchronized long sizeBytes() {
+        return sizeBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Evict expired trees and then the least recently used ones while the size is exceeded.
+     */
+    private void evict() {
+        long nowMs = time.milliseconds();
+        Iterator<Map.Entry<UUID, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next().getValue();
+            if (entry.expiresAtMs <= nowMs || sizeBytes > maxSizeBytes) {
+                it.remove();
+                sizeBytes -= entry.tree.length;
+            }
+        }
+    }
+
+    private void remove(UUID traceId) {
+        Entry entry = entries.remove(traceId);
+        if (entry != null) {
+            sizeBytes -= entry.tree.length;
+        }
+    }
+
+    private static class Entry {
+        private final byte[] tree;
+        private final long expiresAtMs;
+
+        Entry(byte[] tree, long expiresAtMs) {
+            this.tree = tree;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+}
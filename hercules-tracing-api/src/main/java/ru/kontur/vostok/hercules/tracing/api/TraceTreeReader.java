@@ -0,0 +1,300 @@
+package ru.kontur.vostok.hercules.tracing.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.json.Document;
+import ru.kontur.vostok.hercules.json.format.EventToJsonFormatter;
+import ru.kontur.vostok.hercules.protocol.util.ContainerUtil;
+import ru.kontur.vostok.hercules.tags.TraceSpanTags;
+import ru.kontur.vostok.hercules.util.parameter.Parameter;
+import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+import ru.kontur.vostok.hercules.util.validation.IntegerValidators;
+import ru.kontur.vostok.hercules.util.validation.LongValidators;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reads the whole trace and assembles spans into the tree by parent span id.
+ * <p>
+ * Assembled trees are serialized to JSON and cached, since the same trace is usually requested several times
+ * in a short period. Concurrent requests of the same trace share the single read from the storage.
+ * <p>
+ * The tree is serialized as follows:
+ * <pre>
+ * {
+ *   "traceId": "...",
+ *   "spanCount": 2,
+ *   "truncated": false,
+ *   "result": [
+ *     {"spanId": "...", ..., "children": [{"spanId": "...", ..., "children": []}]}
+ *   ]
+ * }
+ * </pre>
+ * Roots of the tree are spans without parent or which parent is absent in the trace.
+ * If the trace has more than {@code maxSpans} spans, then the tree is built from first {@code maxSpans} spans
+ * and {@code truncated} is {@code true}.
+ * <p>
+ * The tree is serialized iteratively, thus the depth of the tree is not limited by the stack size.
+ */
+public class TraceTreeReader {
+    private static final JsonFactory JSON_FACTORY = new MappingJsonFactory();
+    private static final String CHILDREN_FIELD = "children";
+
+    private final TracingReader tracingReader;
+    private final EventToJsonFormatter eventFormatter;
+
+    private final int pageSize;
+    private final int maxSpans;
+
+    private final TraceTreeCache cache;
+    private final ConcurrentMap<UUID, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final Meter cacheHitsMeter;
+    private final Meter cacheMissesMeter;
+
+    public TraceTreeReader(
+            Properties properties,
+            TracingReader tracingReader,
+            EventToJsonFormatter eventFormatter,
+            MetricsCollector metricsCollector) {
+        this.tracingReader = tracingReader;
+        this.eventFormatter = eventFormatter;
+
+        this.pageSize = PropertiesUtil.get(Props.PAGE_SIZE, properties).get();
+        this.maxSpans = PropertiesUtil.get(Props.MAX_SPANS, properties).get();
+
+        Properties cacheProperties = PropertiesUtil.ofScope(properties, "cache");
+        this.cache = new TraceTreeCache(
+                PropertiesUtil.get(Props.CACHE_MAX_SIZE_BYTES, cacheProperties).get(),
+                PropertiesUtil.get(Props.CACHE_TTL_MS, cacheProperties).get(),
+                TimeSource.SYSTEM);
+
+        this.cacheHitsMeter = metricsCollector.meter("traceTreeCacheHits");
+        this.cacheMissesMeter = metricsCollector.meter("traceTreeCacheMisses");
+        metricsCollector.gauge("traceTreeCacheSizeBytes", cache::sizeBytes);
+        metricsCollector.gauge("traceTreeCacheSize", cache::size);
+    }
+
+    /**
+     * Read the trace tree.
+     *
+     * @param traceId the trace id
+     * @return the trace tree serialized to JSON
+     */
+    public byte[] read(UUID traceId) {
+        byte[] tree = cache.get(traceId);
+        if (tree != null) {
+            cacheHitsMeter.mark();
+            return tree;
+        }
+        cacheMissesMeter.mark();
+
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(traceId, future);
+        if (existing != null) {
+            return existing.join();
+        }
+
+        try {
+            tree = assemble(traceId);
+            cache.put(traceId, tree);
+            future.complete(tree);
+            return tree;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(traceId, future);
+        }
+    }
+
+    private byte[] assemble(UUID traceId) {
+        List<Span> spans = new ArrayList<>();
+        String pagingState = null;
+        do {
+            int limit = Math.min(pageSize, maxSpans - spans.size());
+            pagingState = tracingReader.readTraceSpansByTraceId(
+                    traceId,
+                    limit,
+                    pagingState,
+                    event -> spans.add(
+                            new Span(
+                                    ContainerUtil.extract(event.getPayload(), TraceSpanTags.SPAN_ID_TAG).orElse(null),
+                                    ContainerUtil.extract(event.getPayload(), TraceSpanTags.PARENT_SPAN_ID_TAG).orElse(null),
+                                    eventFormatter.format(event))));
+        } while (pagingState != null && spans.size() < maxSpans);
+        boolean truncated = pagingState != null;
+
+        List<Span> roots = buildTree(spans);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("traceId", traceId.toString());
+            generator.writeNumberField("spanCount", spans.size());
+            generator.writeBooleanField("truncated", truncated);
+            generator.writeArrayFieldStart("result");
+            writeTree(generator, roots);
+            generator.writeEndArray();
+            generator.writeEndObject();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Link spans to their parents.
+     * <p>
+     * Spans without parent or which parent is absent are roots.
+     * Also, the link to the parent is broken if the span is not reachable from roots (the trace has a cycle),
+     * thus the span becomes the root as well.
+     *
+     * @param spans spans
+     * @return roots of the tree
+     */
+    private static List<Span> buildTree(List<Span> spans) {
+        Map<UUID, Span> spansById = new HashMap<>(spans.size() * 2);
+        for (Span span : spans) {
+            if (span.spanId != null) {
+                spansById.putIfAbsent(span.spanId, span);
+            }
+        }
+
+        List<Span> roots = new ArrayList<>();
+        for (Span span : spans) {
+            Span parent = span.parentSpanId != null ? spansById.get(span.parentSpanId) : null;
+            if (parent != null && parent != span) {
+                span.parent = parent;
+                parent.children.add(span);
+            } else {
+                roots.add(span);
+            }
+        }
+
+        Set<Span> reachable = Collections.newSetFromMap(new IdentityHashMap<>(spans.size() * 2));
+        for (Span root : roots) {
+            markReachable(root, reachable);
+        }
+        for (Span span : spans) {
+            if (!reachable.contains(span)) {
+                span.parent.children.remove(span);
+                span.parent = null;
+                roots.add(span);
+                markReachable(span, reachable);
+            }
+        }
+        return roots;
+    }
+
+    /**
+     * Write spans with their children using the explicit stack instead of recursion.
+     * <p>
+     * The field {@code children} of the span document is replaced with children from the tree.
+     *
+     * @param generator the JSON-generator
+     * @param roots     roots of the tree
+     * @throws IOException IO exception of underlying JSON-writer
+     */
+    private static void writeTree(JsonGenerator generator, List<Span> roots) throws IOException {
+        Deque<Iterator<Span>> stack = new ArrayDeque<>();
+        stack.push(roots.iterator());
+        while (!stack.isEmpty()) {
+            Iterator<Span> siblings = stack.peek();
+            if (!siblings.hasNext()) {
+                stack.pop();
+                if (!stack.isEmpty()) {
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+                continue;
+            }
+
+            Span span = siblings.next();
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> field : span.document.document().entrySet()) {
+                if (CHILDREN_FIELD.equals(field.getKey())) {
+                    continue;
+                }
+                generator.writeFieldName(field.getKey());
+                generator.writeObject(field.getValue());
+            }
+            generator.writeArrayFieldStart(CHILDREN_FIELD);
+            stack.push(span.children.iterator());
+        }
+    }
+
+    private static void markReachable(Span root, Set<Span> reachable) {
+        Deque<Span> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Span span = stack.pop();
+            if (reachable.add(span)) {
+                for (Span child : span.children) {
+                    stack.push(child);
+                }
+            }
+        }
+    }
+
+    private static class Span {
+        private final UUID spanId;
+        private final UUID parentSpanId;
+        private final Document document;
+        private Span parent;
+        private final List<Span> children = new ArrayList<>();
+
+        Span(UUID spanId, UUID parentSpanId, Document document) {
+            this.spanId = spanId;
+            this.parentSpanId = parentSpanId;
+            this.document = document;
+        }
+    }
+
+    private static class Props {
+        static final Parameter<Integer> PAGE_SIZE =
+                Parameter.integerParameter("pageSize").
+                        withDefault(10_000).
+                        withValidator(IntegerValidators.positive()).
+                        build();
+
+        static final Parameter<Integer> MAX_SPANS =
+                Parameter.integerParameter("maxSpans").
+                        withDefault(100_000).
+                        withValidator(IntegerValidators.positive()).
+                        build();
+
+        static final Parameter<Long> CACHE_MAX_SIZE_BYTES =
+                Parameter.longParameter("maxSizeBytes").
+                        withDefault(256L * 1024 * 1024).
+                        withValidator(LongValidators.positive()).
+                        build();
+
+        static final Parameter<Long> CACHE_TTL_MS =
+                Parameter.longParameter("ttlMs").
+                        withDefault(300_000L).
+                        withValidator(LongValidators.positive()).
+                        build();
+    }
+}
@@ -30,6 +30,7 @@ public class TracingApiApplication {
     private static MetricsCollector metricsCollector;
     private static TracingReader tracingReader;
     private static EventToJsonFormatter eventFormatter;
+    private static TraceTreeReader traceTreeReader;
     private static HttpServer server;
 
     public static void main(String[] args) {
@@ -54,6 +55,12 @@ public class TracingApiApplication {
 
             eventFormatter = new EventToJsonFormatter(PropertiesUtil.ofScope(properties, "tracing.format"));
 
+            traceTreeReader = new TraceTreeReader(
+                    PropertiesUtil.ofScope(properties, "tree"),
+                    tracingReader,
+                    eventFormatter,
+                    metricsCollector);
+
             server = createHttpServer(httpServerProperties);
             server.start();
         } catch (Throwable t) {
@@ -103,6 +110,7 @@ public class TracingApiApplication {
     private static HttpServer createHttpServer(Properties httpServerProperties) {
         RouteHandler handler = new InstrumentedRouteHandlerBuilder(httpServerProperties, metricsCollector).
                 get("/trace", new GetTraceHandler(tracingReader, eventFormatter)).
+                get("/trace/tree", new GetTraceTreeHandler(traceTreeReader)).
                 build();
 
         return new UndertowHttpServer(
@@ -8,6 +8,8 @@ import ru.kontur.vostok.hercules.tracing.api.clickhouse.ClickHouseTracingReader;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
 
@@ -23,10 +25,14 @@ public interface TracingReader {
      * @param pagingState page state returned in previous fetch or {@code null} on first fetch
      * @return page of trace spans
      */
-    Page<Event> getTraceSpansByTraceId(
+    default Page<Event> getTraceSpansByTraceId(
             @NotNull UUID traceId,
             int limit,
-            @Nullable String pagingState);
+            @Nullable String pagingState) {
+        List<Event> spans = new ArrayList<>(limit);
+        String nextPagingState = readTraceSpansByTraceId(traceId, limit, pagingState, spans::add);
+        return new Page<>(spans, nextPagingState);
+    }
 
     /**
      * Get trace spans by trace id and parent span id.
@@ -37,11 +43,53 @@ public interface TracingReader {
      * @param pagingState  page state returned in previous fetch or {@code null} on first fetch
      * @return page of trace spans
      */
-    Page<Event> getTraceSpansByTraceIdAndParentSpanId(
+    default Page<Event> getTraceSpansByTraceIdAndParentSpanId(
+            @NotNull UUID traceId,
+            @NotNull UUID parentSpanId,
+            int limit,
+            @Nullable String pagingState) {
+        List<Event> spans = new ArrayList<>(limit);
+        String nextPagingState = readTraceSpansByTraceIdAndParentSpanId(traceId, parentSpanId, limit, pagingState, spans::add);
+        return new Page<>(spans, nextPagingState);
+    }
+
+    /**
+     * Read trace spans by trace id.
+     * <p>
+     * Spans are passed to the sink one by one as soon as they are read from the storage.
+     *
+     * @param traceId     trace id
+     * @param limit       max count of fetched spans
+     * @param pagingState page state returned in previous fetch or {@code null} on first fetch
+     * @param sink        the sink of spans
+     * @return the page state to fetch next spans or {@code null} if there are no more spans
+     */
+    @Nullable
+    String readTraceSpansByTraceId(
+            @NotNull UUID traceId,
+            int limit,
+            @Nullable String pagingState,
+            @NotNull SpanSink sink);
+
+    /**
+     * Read trace spans by trace id and parent span id.
+     * <p>
+     * Spans are passed to the sink one by one as soon as they are read from the storage.
+     *
+     * @param traceId      trace id
+     * @param parentSpanId parent span id
+     * @param limit        max count of fetched spans
+     * @param pagingState  page state returned in previous fetch or {@code null} on first fetch
+     * @param sink         the sink of spans
+     * @return the page state to fetch next spans or {@code null} if there are no more spans
+     */
+    @Nullable
+    String readTraceSpansByTraceIdAndParentSpanId(
             @NotNull UUID traceId,
             @NotNull UUID parentSpanId,
             int limit,
-            @Nullable String pagingState);
+            @Nullable String pagingState,
+            @NotNull SpanSink sink);
 
     void close();
 
@@ -58,6 +106,14 @@ public interface TracingReader {
         }
     }
 
+    /**
+     * Accepts trace spans which are read from the storage.
+     */
+    @FunctionalInterface
+    interface SpanSink {
+        void accept(Event span);
+    }
+
     class Props {
         static final Parameter<Source> SOURCE =
                 Parameter.enumParameter("source", Source.class).
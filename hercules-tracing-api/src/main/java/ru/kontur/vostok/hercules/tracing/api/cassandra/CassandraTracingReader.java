@@ -12,15 +12,12 @@ import ru.kontur.vostok.hercules.configuration.Scopes;
 import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
 import ru.kontur.vostok.hercules.protocol.decoder.EventReader;
-import ru.kontur.vostok.hercules.tracing.api.Page;
 import ru.kontur.vostok.hercules.tracing.api.TracingReader;
 import ru.kontur.vostok.hercules.util.bytes.ByteUtil;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Properties;
 import java.util.UUID;
 
@@ -54,46 +51,33 @@ public class CassandraTracingReader implements TracingReader {
                         " WHERE trace_id = ? AND parent_span_id = ?");
     }
 
-    /**
-     * Get trace spans by trace id
-     *
-     * @param traceId     trace id
-     * @param limit       max count of fetched events
-     * @param pagingState page state returned in previous fetch or null on first fetch
-     * @return list of events
-     */
     @Override
-    public Page<Event> getTraceSpansByTraceId(
+    public String readTraceSpansByTraceId(
             @NotNull final UUID traceId,
             final int limit,
-            @Nullable final String pagingState) {
+            @Nullable final String pagingState,
+            @NotNull final SpanSink sink) {
         return select(
                 selectTraceSpansByTraceIdQuery,
                 limit,
                 pagingState,
+                sink,
                 traceId
         );
     }
 
-    /**
-     * Get trace spans by span id and parent span id
-     *
-     * @param traceId      trace id
-     * @param parentSpanId parent span id
-     * @param limit        max count of fetched events
-     * @param pagingState  page state returned in previous fetch or null on first fetch
-     * @return list of events
-     */
     @Override
-    public Page<Event> getTraceSpansByTraceIdAndParentSpanId(
+    public String readTraceSpansByTraceIdAndParentSpanId(
             @NotNull final UUID traceId,
             @NotNull final UUID parentSpanId,
             final int limit,
-            @Nullable final String pagingState) {
+            @Nullable final String pagingState,
+            @NotNull final SpanSink sink) {
         return select(
                 selectTraceSpansByTraceIdAndParentSpanIdQuery,
                 limit,
                 pagingState,
+                sink,
                 traceId,
                 parentSpanId);
     }
@@ -103,10 +87,11 @@ public class CassandraTracingReader implements TracingReader {
         connector.close();
     }
 
-    private Page<Event> select(
+    private String select(
             @NotNull final PreparedStatement selectQuery,
             final int limit,
             @Nullable final String pagingStateString,
+            @NotNull final SpanSink sink,
             Object... params) {
 
         BoundStatementBuilder statementBuilder = selectQuery.boundStatementBuilder(params);
@@ -130,9 +115,8 @@ public class CassandraTracingReader implements TracingReader {
         //
         // Cassandra will fetch next records on iteration, so we need to forcibly break the iteration
         int remaining = Math.min(resultSet.getAvailableWithoutFetching(), limit);
-        final List<Event> events = new ArrayList<>(remaining);
         for (Row row : resultSet) {
-            events.add(convert(row));
+            sink.accept(convert(row));
 
             // Forcibly break the iteration
             if (--remaining == 0) {
@@ -142,9 +126,7 @@ public class CassandraTracingReader implements TracingReader {
 
         final ByteBuffer pagingState = resultSet.getExecutionInfo().getPagingState();
 
-        return new Page<>(
-                events,
-                pagingState != null ? ByteUtil.toHexString(pagingState) : null);
+        return pagingState != null ? ByteUtil.toHexString(pagingState) : null;
     }
 
     private static Event convert(final Row row) {
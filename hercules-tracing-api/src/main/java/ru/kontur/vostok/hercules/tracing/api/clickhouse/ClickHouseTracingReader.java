@@ -9,7 +9,6 @@ import ru.kontur.vostok.hercules.configuration.Scopes;
 import ru.kontur.vostok.hercules.protocol.Event;
 import ru.kontur.vostok.hercules.protocol.decoder.Decoder;
 import ru.kontur.vostok.hercules.protocol.decoder.EventReader;
-import ru.kontur.vostok.hercules.tracing.api.Page;
 import ru.kontur.vostok.hercules.tracing.api.TracingReader;
 import ru.kontur.vostok.hercules.util.parameter.Parameter;
 import ru.kontur.vostok.hercules.util.properties.PropertiesUtil;
@@ -19,13 +18,18 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.UUID;
 
 /**
+ * Reads trace spans from ClickHouse.
+ * <p>
+ * Pages are fetched using keyset pagination. The paging state is the last fetched pair of
+ * {@code parent_span_id} and {@code span_id} in form {@code <parentSpanId>_<spanId>},
+ * so the next page starts right after it in the table sort order. Thus, the cost of fetching the page
+ * does not depend on the page number.
+ *
  * @author Gregory Koshelev
  */
 public class ClickHouseTracingReader implements TracingReader {
@@ -35,57 +39,99 @@ public class ClickHouseTracingReader implements TracingReader {
 
     private final ClickHouseConnector connector;
     private final String selectByTraceIdQuery;
+    private final String selectByTraceIdAfterQuery;
     private final String selectByTraceIdAndParentSpanIdQuery;
+    private final String selectByTraceIdAndParentSpanIdAfterQuery;
 
     public ClickHouseTracingReader(Properties properties) {
-        Properties clickHouseProperties = PropertiesUtil.ofScope(properties, Scopes.CLICKHOUSE);
-
-        this.connector = new ClickHouseConnector(clickHouseProperties);
+        this(
+                new ClickHouseConnector(PropertiesUtil.ofScope(properties, Scopes.CLICKHOUSE)),
+                PropertiesUtil.get(Props.TABLE, properties).get());
+    }
 
-        String table = PropertiesUtil.get(Props.TABLE, properties).get();
+    ClickHouseTracingReader(ClickHouseConnector connector, String table) {
+        this.connector = connector;
 
-        this.selectByTraceIdQuery = "SELECT payload" +
+        this.selectByTraceIdQuery = "SELECT parent_span_id, span_id, payload" +
                 " FROM " + table +
                 " WHERE trace_id = ?" +
                 " ORDER BY parent_span_id, span_id" +
-                " LIMIT ? OFFSET ?";
-        this.selectByTraceIdAndParentSpanIdQuery = "SELECT payload" +
+                " LIMIT ?";
+        this.selectByTraceIdAfterQuery = "SELECT parent_span_id, span_id, payload" +
+                " FROM " + table +
+                " WHERE trace_id = ? AND (parent_span_id > ? OR (parent_span_id = ? AND span_id > ?))" +
+                " ORDER BY parent_span_id, span_id" +
+                " LIMIT ?";
+        this.selectByTraceIdAndParentSpanIdQuery = "SELECT parent_span_id, span_id, payload" +
                 " FROM " + table +
                 " WHERE trace_id = ? AND parent_span_id = ?" +
                 " ORDER BY span_id" +
-                " LIMIT ? OFFSET ?";
+                " LIMIT ?";
+        this.selectByTraceIdAndParentSpanIdAfterQuery = "SELECT parent_span_id, span_id, payload" +
+                " FROM " + table +
+                " WHERE trace_id = ? AND parent_span_id = ? AND span_id > ?" +
+                " ORDER BY span_id" +
+                " LIMIT ?";
     }
 
     @Override
-    public Page<Event> getTraceSpansByTraceId(@NotNull UUID traceId, int limit, @Nullable String pagingState) {
-        long offset = pagingStateToOffset(pagingState);
-        return select(selectByTraceIdQuery, limit, offset, traceId, limit, offset);
+    public String readTraceSpansByTraceId(
+            @NotNull UUID traceId,
+            int limit,
+            @Nullable String pagingState,
+            @NotNull SpanSink sink) {
+        SpanKey after = SpanKey.fromPagingState(pagingState);
+        if (after == null) {
+            return select(selectByTraceIdQuery, limit, sink, traceId, limit);
+        }
+        return select(
+                selectByTraceIdAfterQuery,
+                limit,
+                sink,
+                traceId, after.parentSpanId, after.parentSpanId, after.spanId, limit);
     }
 
     @Override
-    public Page<Event> getTraceSpansByTraceIdAndParentSpanId(@NotNull UUID traceId, @NotNull UUID parentSpanId, int limit, @Nullable String pagingState) {
-        long offset = pagingStateToOffset(pagingState);
-        return select(selectByTraceIdAndParentSpanIdQuery, limit, offset, traceId, parentSpanId, limit, offset);
+    public String readTraceSpansByTraceIdAndParentSpanId(
+            @NotNull UUID traceId,
+            @NotNull UUID parentSpanId,
+            int limit,
+            @Nullable String pagingState,
+            @NotNull SpanSink sink) {
+        SpanKey after = SpanKey.fromPagingState(pagingState);
+        if (after == null) {
+            return select(selectByTraceIdAndParentSpanIdQuery, limit, sink, traceId, parentSpanId, limit);
+        }
+        return select(
+                selectByTraceIdAndParentSpanIdAfterQuery,
+                limit,
+                sink,
+                traceId, parentSpanId, after.spanId, limit);
     }
+
     @Override
     public void close() {
         connector.close();
     }
 
-    private Page<Event> select(String sql, int limit, long offset, Object... params) {
+    private String select(String sql, int limit, SpanSink sink, Object... params) {
         Optional<Connection> connection = connector.connection();
         try (PreparedStatement select = connection.orElseThrow(IllegalStateException::new).prepareStatement(sql)) {
             for (int i = 0; i < params.length; i++) {
                 select.setObject(i + 1, params[i]);
             }
-            ResultSet resultSet = select.executeQuery();
-            int rowCounter = 0;
-            List<Event> events = new ArrayList<>(limit);
-            while (resultSet.next()) {
-                events.add(convert(resultSet.getBytes(1)));
-                rowCounter++;
+            try (ResultSet resultSet = select.executeQuery()) {
+                int rowCounter = 0;
+                String lastParentSpanId = null;
+                String lastSpanId = null;
+                while (resultSet.next()) {
+                    lastParentSpanId = resultSet.getString(1);
+                    lastSpanId = resultSet.getString(2);
+                    sink.accept(convert(resultSet.getBytes(3)));
+                    rowCounter++;
+                }
+                return rowCounter == limit ? SpanKey.toPagingState(lastParentSpanId, lastSpanId) : null;
             }
-            return new Page<>(events, rowCounter == limit ? offsetToPagingState(offset + limit) : null);
         } catch (SQLException ex) {
             //TODO: Process SQL Exception
             LOGGER.error("Read failed with exception", ex);
@@ -93,23 +139,54 @@ public class ClickHouseTracingReader implements TracingReader {
         }
     }
 
-    private static long pagingStateToOffset(@Nullable String pagingState) {
-        if (StringUtil.isNullOrEmpty(pagingState)) {
-            return 0;
-        }
-        try {
-            return Long.parseLong(pagingState);
-        } catch (NumberFormatException ex) {
-            return 0;
-        }
+    private static Event convert(byte[] payload) {
+        return EVENT_READER.read(new Decoder(payload));
     }
 
-    private static String offsetToPagingState(long offset) {
-        return String.valueOf(offset);
-    }
+    /**
+     * The key of the span in the table sort order.
+     * <p>
+     * The paging state of the previous version is the numeric offset. Such a paging state is treated as empty,
+     * thus fetching is restarted from the first page.
+     */
+    static class SpanKey {
+        private static final char SEPARATOR = '_';
+
+        final UUID parentSpanId;
+        final UUID spanId;
+
+        private SpanKey(UUID parentSpanId, UUID spanId) {
+            this.parentSpanId = parentSpanId;
+            this.spanId = spanId;
+        }
 
-    private static Event convert(byte[] payload) {
-        return EVENT_READER.read(new Decoder(payload));
+        /**
+         * Parse the paging state.
+         *
+         * @param pagingState the paging state
+         * @return the key of the last fetched span or {@code null} if the paging state is empty or invalid
+         */
+        @Nullable
+        static SpanKey fromPagingState(@Nullable String pagingState) {
+            if (StringUtil.isNullOrEmpty(pagingState)) {
+                return null;
+            }
+            int separatorPosition = pagingState.indexOf(SEPARATOR);
+            if (separatorPosition < 0) {
+                return null;
+            }
+            try {
+                return new SpanKey(
+                        UUID.fromString(pagingState.substring(0, separatorPosition)),
+                        UUID.fromString(pagingState.substring(separatorPosition + 1)));
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+
+        static String toPagingState(String parentSpanId, String spanId) {
+            return parentSpanId + SEPARATOR + spanId;
+        }
     }
 
     private static class Props {
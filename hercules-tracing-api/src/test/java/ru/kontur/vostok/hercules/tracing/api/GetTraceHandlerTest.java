@@ -0,0 +1,180 @@
+package ru.kontur.vostok.hercules.tracing.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.http.ErrorCallback;
+import ru.kontur.vostok.hercules.http.HttpServerRequest;
+import ru.kontur.vostok.hercules.http.HttpServerResponse;
+import ru.kontur.vostok.hercules.http.HttpStatusCodes;
+import ru.kontur.vostok.hercules.http.IoCallback;
+import ru.kontur.vostok.hercules.json.Document;
+import ru.kontur.vostok.hercules.json.format.EventToJsonFormatter;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.EventBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GetTraceHandlerTest {
+    private static final String TRACE_ID = "1a2b3c4d-9bec-40b0-839b-cc51e2abcdef";
+    private static final String PAGING_STATE = "abcdef12-acde-4675-9322-f96cc1234567_7a99a678-def0-4567-abad-ba7fc38ffa13";
+    private static final String PADDING = new String(new char[1_000]).replace('\0', 'x');
+
+    private HttpServerRequest request;
+    private ByteArrayOutputStream body;
+    private int sendCount;
+    private EventToJsonFormatter formatter;
+
+    @Before
+    public void setUp() {
+        request = mock(HttpServerRequest.class);
+        HttpServerResponse response = mock(HttpServerResponse.class);
+        when(request.getResponse()).thenReturn(response);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(request).dispatchAsync(any(Runnable.class));
+
+        body = new ByteArrayOutputStream();
+        doAnswer(invocation -> {
+            ByteBuffer[] buffers = invocation.getArgument(0);
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    body.write(buffer.get());
+                }
+            }
+            sendCount++;
+            ((IoCallback) invocation.getArgument(1)).onComplete(request);
+            return null;
+        }).when(response).send(any(ByteBuffer[].class), any(IoCallback.class), any(ErrorCallback.class));
+
+        formatter = mock(EventToJsonFormatter.class);
+        when(formatter.format(any(Event.class))).thenAnswer(invocation -> {
+            Document document = new Document();
+            document.putIfAbsent("traceId", TRACE_ID);
+            document.putIfAbsent("padding", PADDING);
+            return document;
+        });
+    }
+
+    @Test
+    public void shouldStreamSpansAndWritePagingStateAfterResult() throws Exception {
+        when(request.getQueryParameter("traceId")).thenReturn(TRACE_ID);
+
+        new GetTraceHandler(new Reader(200, PAGING_STATE, false), formatter).handle(request);
+
+        Assert.assertTrue("Spans should be sent by chunks", sendCount > 1);
+        verify(request).complete();
+        verify(request, never()).complete(anyInt(), anyString(), anyString());
+
+        String json = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(json.indexOf("\"result\"") < json.indexOf("\"pagingState\""));
+        JsonNode node = new ObjectMapper().readTree(json);
+        Assert.assertEquals(200, node.get("result").size());
+        Assert.assertEquals(TRACE_ID, node.get("result").get(199).get("traceId").asText());
+        Assert.assertEquals(PAGING_STATE, node.get("pagingState").asText());
+    }
+
+    @Test
+    public void shouldOmitPagingStateIfNoMoreSpans() throws Exception {
+        when(request.getQueryParameter("traceId")).thenReturn(TRACE_ID);
+
+        new GetTraceHandler(new Reader(1, null, false), formatter).handle(request);
+
+        JsonNode node = new ObjectMapper().readTree(body.toByteArray());
+        Assert.assertEquals(1, node.get("result").size());
+        Assert.assertFalse(node.has("pagingState"));
+    }
+
+    @Test
+    public void shouldRespondWithErrorIfReadingFailsBeforeSending() {
+        when(request.getQueryParameter("traceId")).thenReturn(TRACE_ID);
+
+        new GetTraceHandler(new Reader(1, null, true), formatter).handle(request);
+
+        Assert.assertEquals(0, sendCount);
+        verify(request).complete(eq(HttpStatusCodes.INTERNAL_SERVER_ERROR), anyString(), anyString());
+    }
+
+    @Test
+    public void shouldAbortResponseIfReadingFailsAfterSending() {
+        when(request.getQueryParameter("traceId")).thenReturn(TRACE_ID);
+
+        new GetTraceHandler(new Reader(200, null, true), formatter).handle(request);
+
+        Assert.assertTrue(sendCount > 0);
+        verify(request).complete();
+        verify(request, never()).complete(anyInt(), anyString(), anyString());
+    }
+
+    @Test
+    public void shouldRejectInvalidTraceId() {
+        when(request.getQueryParameter("traceId")).thenReturn("not uuid");
+
+        new GetTraceHandler(new Reader(1, null, false), formatter).handle(request);
+
+        verify(request).complete(eq(HttpStatusCodes.BAD_REQUEST), anyString(), anyString());
+        verify(request, never()).dispatchAsync(any(Runnable.class));
+    }
+
+    /**
+     * Reads the given count of spans and optionally fails after that.
+     */
+    private static class Reader implements TracingReader {
+        private final int count;
+        private final String pagingState;
+        private final boolean fail;
+
+        Reader(int count, String pagingState, boolean fail) {
+            this.count = count;
+            this.pagingState = pagingState;
+            this.fail = fail;
+        }
+
+        @Override
+        public String readTraceSpansByTraceId(
+                @NotNull UUID traceId,
+                int limit,
+                @Nullable String pagingState,
+                @NotNull SpanSink sink) {
+            for (int i = 0; i < count; i++) {
+                sink.accept(EventBuilder.create(0, UUID.randomUUID()).build());
+            }
+            if (fail) {
+                throw new RuntimeException("Read failed");
+            }
+            return this.pagingState;
+        }
+
+        @Override
+        public String readTraceSpansByTraceIdAndParentSpanId(
+                @NotNull UUID traceId,
+                @NotNull UUID parentSpanId,
+                int limit,
+                @Nullable String pagingState,
+                @NotNull SpanSink sink) {
+            return readTraceSpansByTraceId(traceId, limit, pagingState, sink);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.kontur.vostok.hercules.tracing.api;
+
+import org.junit.Assert;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.util.time.MockTimeSource;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+
+import java.util.UUID;
+
+public class TraceTreeCacheTest {
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+    private static final UUID THIRD = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+    @Test
+    public void shouldExpireTreeAfterTtl() {
+        TimeSource time = new MockTimeSource();
+        TraceTreeCache cache = new TraceTreeCache(1_000, 1_000, time);
+
+        cache.put(FIRST, new byte[10]);
+        time.sleep(999);
+        Assert.assertNotNull(cache.get(FIRST));
+
+        time.sleep(1);
+        Assert.assertNull(cache.get(FIRST));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.sizeBytes());
+    }
+
+    @Test
+    public void shouldBoundSizeInBytes() {
+        TraceTreeCache cache = new TraceTreeCache(100, 60_000, new MockTimeSource());
+
+        cache.put(FIRST, new byte[101]);
+        Assert.assertNull(cache.get(FIRST));
+        Assert.assertEquals(0, cache.sizeBytes());
+
+        cache.put(FIRST, new byte[60]);
+        cache.put(SECOND, new byte[60]);
+        Assert.assertNull(cache.get(FIRST));
+        Assert.assertNotNull(cache.get(SECOND));
+        Assert.assertEquals(60, cache.sizeBytes());
+
+        cache.put(SECOND, new byte[40]);
+        Assert.assertEquals(40, cache.sizeBytes());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedTree() {
+        TraceTreeCache cache = new TraceTreeCache(100, 60_000, new MockTimeSource());
+
+        cache.put(FIRST, new byte[40]);
+        cache.put(SECOND, new byte[40]);
+        Assert.assertNotNull(cache.get(FIRST));
+
+        cache.put(THIRD, new byte[40]);
+        Assert.assertNotNull(cache.get(FIRST));
+        Assert.assertNull(cache.get(SECOND));
+        Assert.assertNotNull(cache.get(THIRD));
+        Assert.assertEquals(80, cache.sizeBytes());
+    }
+}
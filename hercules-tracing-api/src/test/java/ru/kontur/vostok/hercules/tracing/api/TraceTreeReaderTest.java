@@ -0,0 +1,295 @@
+package ru.kontur.vostok.hercules.tracing.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.health.Meter;
+import ru.kontur.vostok.hercules.health.MetricsCollector;
+import ru.kontur.vostok.hercules.json.Document;
+import ru.kontur.vostok.hercules.json.format.EventToJsonFormatter;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.EventBuilder;
+import ru.kontur.vostok.hercules.protocol.Variant;
+import ru.kontur.vostok.hercules.protocol.util.ContainerUtil;
+import ru.kontur.vostok.hercules.tags.TraceSpanTags;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TraceTreeReaderTest {
+    private static final UUID TRACE_ID = UUID.fromString("1a2b3c4d-9bec-40b0-839b-cc51e2abcdef");
+
+    private MetricsCollector metricsCollector;
+    private EventToJsonFormatter formatter;
+
+    @Before
+    public void setUp() {
+        metricsCollector = mock(MetricsCollector.class);
+        when(metricsCollector.meter(anyString())).thenReturn(mock(Meter.class));
+
+        formatter = mock(EventToJsonFormatter.class);
+        when(formatter.format(any(Event.class))).thenAnswer(invocation -> {
+            Event event = invocation.getArgument(0);
+            Document document = new Document();
+            document.putIfAbsent(
+                    "spanId",
+                    ContainerUtil.extract(event.getPayload(), TraceSpanTags.SPAN_ID_TAG).map(UUID::toString).orElse(null));
+            document.putIfAbsent("children", "should be replaced");
+            return document;
+        });
+    }
+
+    @Test
+    public void shouldBuildTreeByParentSpanId() throws Exception {
+        Reader reader = new Reader(
+                span(1, 0),
+                span(2, 1),
+                span(3, 1),
+                span(4, 3));
+
+        JsonNode tree = read(createReader(reader, 10, 100));
+
+        Assert.assertEquals(4, tree.get("spanCount").asInt());
+        Assert.assertFalse(tree.get("truncated").asBoolean());
+        Assert.assertEquals(1, tree.get("result").size());
+        JsonNode root = tree.get("result").get(0);
+        Assert.assertEquals(id(1).toString(), root.get("spanId").asText());
+        Assert.assertEquals(2, root.get("children").size());
+        Assert.assertEquals(id(4).toString(), root.get("children").get(1).get("children").get(0).get("spanId").asText());
+    }
+
+    @Test
+    public void shouldTreatOrphansAsRoots() throws Exception {
+        Reader reader = new Reader(
+                span(1, 0),
+                span(2, 100),
+                span(3, 2));
+
+        JsonNode tree = read(createReader(reader, 10, 100));
+
+        Assert.assertEquals(2, tree.get("result").size());
+        Assert.assertEquals(id(1).toString(), tree.get("result").get(0).get("spanId").asText());
+        Assert.assertEquals(id(2).toString(), tree.get("result").get(1).get("spanId").asText());
+        Assert.assertEquals(1, tree.get("result").get(1).get("children").size());
+    }
+
+    @Test
+    public void shouldBreakCycles() throws Exception {
+        Reader reader = new Reader(
+                span(1, 0),
+                span(2, 3),
+                span(3, 2),
+                span(4, 4));
+
+        JsonNode tree = read(createReader(reader, 10, 100));
+
+        Assert.assertEquals(4, tree.get("spanCount").asInt());
+        Set<String> spanIds = new HashSet<>();
+        collectSpanIds(tree.get("result"), spanIds);
+        Assert.assertEquals(4, spanIds.size());
+        Assert.assertEquals(3, tree.get("result").size());
+    }
+
+    @Test
+    public void shouldTruncateTreeIfTooManySpans() throws Exception {
+        Reader reader = new Reader(
+                span(1, 0),
+                span(2, 1),
+                span(3, 1),
+                span(4, 1),
+                span(5, 1));
+
+        JsonNode tree = read(createReader(reader, 2, 3));
+
+        Assert.assertEquals(3, tree.get("spanCount").asInt());
+        Assert.assertTrue(tree.get("truncated").asBoolean());
+        Assert.assertEquals(2, tree.get("result").get(0).get("children").size());
+        Assert.assertEquals(2, reader.calls.get());
+    }
+
+    @Test
+    public void shouldWriteDeepTreeWithoutRecursion() throws Exception {
+        int depth = 100_000;
+        Event[] spans = new Event[depth];
+        for (int i = 0; i < depth; i++) {
+            spans[i] = span(i + 1, i);
+        }
+
+        byte[] tree = createReader(new Reader(spans), depth, depth).read(TRACE_ID);
+
+        int objects = 0;
+        int maxDepth = 0;
+        int currentDepth = 0;
+        try (JsonParser parser = new JsonFactory().createParser(tree)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    objects++;
+                    maxDepth = Math.max(maxDepth, ++currentDepth);
+                } else if (token == JsonToken.END_OBJECT) {
+                    currentDepth--;
+                }
+            }
+        }
+        Assert.assertEquals(depth + 1, objects);
+        Assert.assertEquals(depth + 1, maxDepth);
+    }
+
+    @Test
+    public void shouldCacheTree() throws Exception {
+        Reader reader = new Reader(span(1, 0));
+        TraceTreeReader treeReader = createReader(reader, 10, 100);
+
+        byte[] first = treeReader.read(TRACE_ID);
+        byte[] second = treeReader.read(TRACE_ID);
+
+        Assert.assertSame(first, second);
+        Assert.assertEquals(1, reader.calls.get());
+    }
+
+    @Test
+    public void shouldFailConcurrentReadsOnError() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        TracingReader failing = new Reader() {
+            @Override
+            public String readTraceSpansByTraceId(
+                    @NotNull UUID traceId,
+                    int limit,
+                    @Nullable String pagingState,
+                    @NotNull SpanSink sink) {
+                if (reads.incrementAndGet() == 1) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        throw new RuntimeException(ex);
+                    }
+                    throw new AssertionError("Read failed");
+                }
+                return null;
+            }
+        };
+        TraceTreeReader treeReader = createReader(failing, 10, 100);
+
+        CompletableFuture<byte[]> first = CompletableFuture.supplyAsync(() -> treeReader.read(TRACE_ID));
+        Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<byte[]> second = CompletableFuture.supplyAsync(() -> treeReader.read(TRACE_ID));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertFailedWith(first, AssertionError.class);
+        assertFailedWith(second, AssertionError.class);
+
+        Assert.assertNotNull(treeReader.read(TRACE_ID));
+        Assert.assertEquals(2, reads.get());
+    }
+
+    private TraceTreeReader createReader(TracingReader reader, int pageSize, int maxSpans) {
+        Properties properties = new Properties();
+        properties.setProperty("pageSize", String.valueOf(pageSize));
+        properties.setProperty("maxSpans", String.valueOf(maxSpans));
+        return new TraceTreeReader(properties, reader, formatter, metricsCollector);
+    }
+
+    private static JsonNode read(TraceTreeReader reader) throws Exception {
+        return new ObjectMapper().readTree(reader.read(TRACE_ID));
+    }
+
+    private static void collectSpanIds(JsonNode spans, Set<String> spanIds) {
+        for (JsonNode span : spans) {
+            Assert.assertTrue("Span occurs twice", spanIds.add(span.get("spanId").asText()));
+            collectSpanIds(span.get("children"), spanIds);
+        }
+    }
+
+    private static void assertFailedWith(CompletableFuture<?> future, Class<? extends Throwable> type) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("Read should be failed");
+        } catch (ExecutionException ex) {
+            Assert.assertTrue("Unexpected " + ex.getCause(), type.isInstance(ex.getCause()));
+        }
+    }
+
+    /**
+     * Build the span with the given id and parent id. Zero parent id means no parent.
+     */
+    private static Event span(int spanId, int parentSpanId) {
+        EventBuilder builder = EventBuilder.create(0, UUID.randomUUID())
+                .tag(TraceSpanTags.SPAN_ID_TAG.getName(), Variant.ofUuid(id(spanId)));
+        if (parentSpanId != 0) {
+            builder.tag(TraceSpanTags.PARENT_SPAN_ID_TAG.getName(), Variant.ofUuid(id(parentSpanId)));
+        }
+        return builder.build();
+    }
+
+    private static UUID id(int id) {
+        return new UUID(0, id);
+    }
+
+    /**
+     * Reads spans by pages. The paging state is the offset of the next page.
+     */
+    private static class Reader implements TracingReader {
+        final AtomicInteger calls = new AtomicInteger();
+        private final List<Event> spans = new ArrayList<>();
+
+        Reader(Event... spans) {
+            for (Event span : spans) {
+                this.spans.add(span);
+            }
+        }
+
+        @Override
+        public String readTraceSpansByTraceId(
+                @NotNull UUID traceId,
+                int limit,
+                @Nullable String pagingState,
+                @NotNull SpanSink sink) {
+            calls.incrementAndGet();
+            int from = pagingState != null ? Integer.parseInt(pagingState) : 0;
+            int to = Math.min(from + limit, spans.size());
+            for (int i = from; i < to; i++) {
+                sink.accept(spans.get(i));
+            }
+            return to < spans.size() ? String.valueOf(to) : null;
+        }
+
+        @Override
+        public String readTraceSpansByTraceIdAndParentSpanId(
+                @NotNull UUID traceId,
+                @NotNull UUID parentSpanId,
+                int limit,
+                @Nullable String pagingState,
+                @NotNull SpanSink sink) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package ru.kontur.vostok.hercules.tracing.api.clickhouse;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import ru.kontur.vostok.hercules.clickhouse.util.ClickHouseConnector;
+import ru.kontur.vostok.hercules.protocol.Event;
+import ru.kontur.vostok.hercules.protocol.EventBuilder;
+import ru.kontur.vostok.hercules.protocol.encoder.Encoder;
+import ru.kontur.vostok.hercules.protocol.encoder.EventWriter;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ClickHouseTracingReaderTest {
+    private static final UUID TRACE_ID = UUID.fromString("1a2b3c4d-9bec-40b0-839b-cc51e2abcdef");
+    private static final UUID PARENT_SPAN_ID = UUID.fromString("abcdef12-acde-4675-9322-f96cc1234567");
+    private static final UUID SPAN_ID = UUID.fromString("7a99a678-def0-4567-abad-ba7fc38ffa13");
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private ClickHouseTracingReader reader;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+
+        ClickHouseConnector connector = mock(ClickHouseConnector.class);
+        when(connector.connection()).thenReturn(Optional.of(connection));
+
+        reader = new ClickHouseTracingReader(connector, "spans");
+    }
+
+    @Test
+    public void shouldSelectFirstPageByTraceId() throws Exception {
+        rows(2);
+
+        List<Event> spans = new ArrayList<>();
+        String pagingState = reader.readTraceSpansByTraceId(TRACE_ID, 2, null, spans::add);
+
+        verify(connection).prepareStatement("SELECT parent_span_id, span_id, payload" +
+                " FROM spans" +
+                " WHERE trace_id = ?" +
+                " ORDER BY parent_span_id, span_id" +
+                " LIMIT ?");
+        verify(statement).setObject(1, TRACE_ID);
+        verify(statement).setObject(2, 2);
+        Assert.assertEquals(2, spans.size());
+        Assert.assertEquals(PARENT_SPAN_ID + "_" + SPAN_ID, pagingState);
+    }
+
+    @Test
+    public void shouldSelectNextPageByTraceIdAfterLastSpan() throws Exception {
+        rows(1);
+
+        List<Event> spans = new ArrayList<>();
+        String pagingState = reader.readTraceSpansByTraceId(TRACE_ID, 2, PARENT_SPAN_ID + "_" + SPAN_ID, spans::add);
+
+        verify(connection).prepareStatement("SELECT parent_span_id, span_id, payload" +
+                " FROM spans" +
+                " WHERE trace_id = ? AND (parent_span_id > ? OR (parent_span_id = ? AND span_id > ?))" +
+                " ORDER BY parent_span_id, span_id" +
+                " LIMIT ?");
+        verify(statement).setObject(1, TRACE_ID);
+        verify(statement).setObject(2, PARENT_SPAN_ID);
+        verify(statement).setObject(3, PARENT_SPAN_ID);
+        verify(statement).setObject(4, SPAN_ID);
+        verify(statement).setObject(5, 2);
+        Assert.assertEquals(1, spans.size());
+        Assert.assertNull(pagingState);
+    }
+
+    @Test
+    public void shouldSelectNextPageByTraceIdAndParentSpanIdAfterLastSpan() throws Exception {
+        rows(2);
+
+        List<Event> spans = new ArrayList<>();
+        String pagingState = reader.readTraceSpansByTraceIdAndParentSpanId(
+                TRACE_ID,
+                PARENT_SPAN_ID,
+                2,
+                PARENT_SPAN_ID + "_" + SPAN_ID,
+                spans::add);
+
+        verify(connection).prepareStatement("SELECT parent_span_id, span_id, payload" +
+                " FROM spans" +
+                " WHERE trace_id = ? AND parent_span_id = ? AND span_id > ?" +
+                " ORDER BY span_id" +
+                " LIMIT ?");
+        verify(statement).setObject(1, TRACE_ID);
+        verify(statement).setObject(2, PARENT_SPAN_ID);
+        verify(statement).setObject(3, SPAN_ID);
+        verify(statement).setObject(4, 2);
+        Assert.assertEquals(2, spans.size());
+        Assert.assertEquals(PARENT_SPAN_ID + "_" + SPAN_ID, pagingState);
+    }
+
+    @Test
+    public void shouldRestartFromFirstPageIfPagingStateIsNumeric() throws Exception {
+        rows(0);
+
+        String pagingState = reader.readTraceSpansByTraceIdAndParentSpanId(TRACE_ID, PARENT_SPAN_ID, 2, "100", span -> {
+        });
+
+        verify(connection).prepareStatement("SELECT parent_span_id, span_id, payload" +
+                " FROM spans" +
+                " WHERE trace_id = ? AND parent_span_id = ?" +
+                " ORDER BY span_id" +
+                " LIMIT ?");
+        verify(statement).setObject(1, TRACE_ID);
+        verify(statement).setObject(2, PARENT_SPAN_ID);
+        verify(statement).setObject(3, 2);
+        Assert.assertNull(pagingState);
+    }
+
+    @Test
+    public void shouldParsePagingState() {
+        ClickHouseTracingReader.SpanKey key = ClickHouseTracingReader.SpanKey.fromPagingState(
+                ClickHouseTracingReader.SpanKey.toPagingState(PARENT_SPAN_ID.toString(), SPAN_ID.toString()));
+
+        Assert.assertNotNull(key);
+        Assert.assertEquals(PARENT_SPAN_ID, key.parentSpanId);
+        Assert.assertEquals(SPAN_ID, key.spanId);
+    }
+
+    @Test
+    public void shouldTreatInvalidPagingStateAsEmpty() {
+        Assert.assertNull(ClickHouseTracingReader.SpanKey.fromPagingState(null));
+        Assert.assertNull(ClickHouseTracingReader.SpanKey.fromPagingState(""));
+        Assert.assertNull(ClickHouseTracingReader.SpanKey.fromPagingState("10000"));
+        Assert.assertNull(ClickHouseTracingReader.SpanKey.fromPagingState("not_uuid"));
+        Assert.assertNull(ClickHouseTracingReader.SpanKey.fromPagingState(PARENT_SPAN_ID + "_"));
+    }
+
+    private void rows(int count) throws Exception {
+        byte[] payload = payload();
+        Boolean[] next = new Boolean[count];
+        for (int i = 0; i < count; i++) {
+            next[i] = i < count - 1;
+        }
+        if (count > 0) {
+            when(resultSet.next()).thenReturn(true, next);
+        } else {
+            when(resultSet.next()).thenReturn(false);
+        }
+        when(resultSet.getString(1)).thenReturn(PARENT_SPAN_ID.toString());
+        when(resultSet.getString(2)).thenReturn(SPAN_ID.toString());
+        when(resultSet.getBytes(3)).thenReturn(payload);
+    }
+
+    private static byte[] payload() {
+        Event event = EventBuilder.create(0, "05bd046a-ecc0-11e8-8eb2-f2801f1b9fd1").build();
+        ByteBuffer buffer = ByteBuffer.allocate(event.sizeOf());
+        new EventWriter().write(new Encoder(buffer), event);
+        return buffer.array();
+    }
+}
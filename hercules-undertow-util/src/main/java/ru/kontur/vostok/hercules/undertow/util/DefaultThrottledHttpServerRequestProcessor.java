@@ -16,6 +16,10 @@ public class DefaultThrottledHttpServerRequestProcessor implements ThrottledRequ
     @Override
     public void process(HttpServerRequest request, ThrottledBy throttledBy) {
         LOGGER.warn("Throttle request by " + throttledBy);
+        if (throttledBy == ThrottledBy.RATE_LIMIT) {
+            request.complete(HttpStatusCodes.TOO_MANY_REQUESTS);
+            return;
+        }
         request.complete(HttpStatusCodes.SERVICE_UNAVAILABLE);
     }
 }
@@ -73,8 +73,11 @@ public final class ByteBufferPool {
                 return;
             }
         } while (!totalCapacity.compareAndSet(currentTotalCapacity, currentTotalCapacity + capacity));
-        count.incrementAndGet();
-        buffers.add(ByteBufferWrapper.wrap(buffer));
+        if (buffers.add(ByteBufferWrapper.wrap(buffer))) {
+            count.incrementAndGet();
+        } else {
+            totalCapacity.addAndGet(-capacity);
+        }
     }
 
     /**
@@ -133,14 +136,21 @@ public final class ByteBufferPool {
     /**
      * Class provides comparable wrapper over byte buffer with identity equals.
      * Class is used to put byte buffers into {@link NavigableSet}.
+     * <p>
+     * Wrappers are ordered by capacity, wrappers of the same capacity are ordered by the unique sequence number.
+     * Thus, buffers of the same capacity are not considered duplicates by the set.
      */
     private static class ByteBufferWrapper implements Comparable<ByteBufferWrapper> {
+        private static final AtomicLong sequence = new AtomicLong(0);
+
         private final ByteBuffer buffer;
         private final int capacity;
+        private final long id;
 
-        private ByteBufferWrapper(ByteBuffer buffer, int capacity) {
+        private ByteBufferWrapper(ByteBuffer buffer, int capacity, long id) {
             this.buffer = buffer;
             this.capacity = capacity;
+            this.id = id;
         }
 
         /**
@@ -152,7 +162,7 @@ public final class ByteBufferPool {
          * @return stub wrapper
          */
         static ByteBufferWrapper stub(int capacity) {
-            return new ByteBufferWrapper(null, capacity);
+            return new ByteBufferWrapper(null, capacity, -1L);// Stub precedes any buffer of the same capacity
         }
 
         /**
@@ -162,12 +172,13 @@ public final class ByteBufferPool {
          * @return wrapper
          */
         static ByteBufferWrapper wrap(ByteBuffer buffer) {
-            return new ByteBufferWrapper(buffer, buffer.capacity());
+            return new ByteBufferWrapper(buffer, buffer.capacity(), sequence.getAndIncrement());
         }
 
         @Override
         public int compareTo(@NotNull ByteBufferPool.ByteBufferWrapper o) {
-            return capacity - o.capacity;
+            int result = Integer.compare(capacity, o.capacity);
+            return result != 0 ? result : Long.compare(id, o.id);
         }
     }
 }
@@ -0,0 +1,183 @@
+package ru.kontur.vostok.hercules.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compiled set of patterns.
+ * <p>
+ * Patterns have the same syntax as {@link PatternMatcher} does:
+ * chars {@code [a-z0-9_]} match themselves, {@code ?} matches any single char and {@code *} matches any sequence of chars.
+ * <p>
+ * Patterns are merged into the single trie, thus common prefixes are matched once.
+ * The value is matched against all the patterns in one pass by simulation of the non-deterministic automaton,
+ * so matching time depends on the value length and the trie width rather than on the count of patterns.
+ * <p>
+ * Pattern trie is immutable and thread-safe.
+ *
+ * @see PatternMatcher
+ */
+public final class PatternTrie {
+    private static final int ALPHABET_SIZE = 10 + 26 + 1;
+
+    private final Node root;
+    private final int nodeCount;
+
+    private PatternTrie(Node root, int nodeCount) {
+        this.root = root;
+        this.nodeCount = nodeCount;
+    }
+
+    /**
+     * Compile patterns into the trie.
+     *
+     * @param patterns patterns
+     * @return the pattern trie
+     * @throws IllegalArgumentException if any pattern contains prohibited chars
+     */
+    public static PatternTrie compile(Collection<String> patterns) {
+        Builder builder = new Builder();
+        for (String pattern : patterns) {
+            builder.add(pattern);
+        }
+        return new PatternTrie(builder.root, builder.nodeCount);
+    }
+
+    /**
+     * Check if the value matches any of patterns.
+     *
+     * @param value the value
+     * @return {@code true} if the value matches any of patterns, otherwise {@code false}
+     */
+    public boolean matches(String value) {
+        if (value == null) {
+            return false;
+        }
+
+        int[] seenAtStep = new int[nodeCount];
+        List<Node> current = new ArrayList<>();
+        List<Node> next = new ArrayList<>();
+        addWithClosure(current, root, seenAtStep, 1);
+
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            int index = indexOf(value.charAt(i));
+            if (index < 0) {
+                return false;
+            }
+
+            int step = i + 2;
+            for (Node node : current) {
+                if (node.loop) {
+                    addWithClosure(next, node, seenAtStep, step);
+                }
+                if (node.children != null && node.children[index] != null) {
+                    addWithClosure(next, node.children[index], seenAtStep, step);
+                }
+                if (node.anyChar != null) {
+                    addWithClosure(next, node.anyChar, seenAtStep, step);
+                }
+            }
+            if (next.isEmpty()) {
+                return false;
+            }
+
+            List<Node> tmp = current;
+            current = next;
+            next = tmp;
+            next.clear();
+        }
+
+        for (Node node : current) {
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add the node and nodes are reachable from it without consuming chars (through {@code *}).
+     */
+    private static void addWithClosure(List<Node> nodes, Node node, int[] seenAtStep, int step) {
+        while (node != null && seenAtStep[node.id] != step) {
+            seenAtStep[node.id] = step;
+            nodes.add(node);
+            node = node.anySequence;
+        }
+    }
+
+    private static int indexOf(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return 10 + (c - 'a');
+        }
+        if (c == '_') {
+            return ALPHABET_SIZE - 1;
+        }
+        return -1;
+    }
+
+    private static final class Node {
+        final int id;
+        /**
+         * Node matches any sequence of chars, i.e. it is the target of {@code *}.
+         */
+        final boolean loop;
+        Node[] children;
+        Node anyChar;
+        Node anySequence;
+        boolean terminal;
+
+        Node(int id, boolean loop) {
+            this.id = id;
+            this.loop = loop;
+        }
+    }
+
+    private static final class Builder {
+        final Node root = new Node(0, false);
+        int nodeCount = 1;
+
+        void add(String pattern) {
+            Node node = root;
+            final int length = pattern.length();
+            for (int i = 0; i < length; i++) {
+                char c = pattern.charAt(i);
+                if (c == '*') {
+                    if (node.loop) {
+                        continue;// Consecutive stars are equal to the single one
+                    }
+                    if (node.anySequence == null) {
+                        node.anySequence = new Node(nodeCount++, true);
+                    }
+                    node = node.anySequence;
+                    continue;
+                }
+                if (c == '?') {
+                    if (node.anyChar == null) {
+                        node.anyChar = new Node(nodeCount++, false);
+                    }
+                    node = node.anyChar;
+                    continue;
+                }
+
+                int index = indexOf(c);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Pattern contains prohibited chars");
+                }
+                if (node.children == null) {
+                    node.children = new Node[ALPHABET_SIZE];
+                }
+                if (node.children[index] == null) {
+                    node.children[index] = new Node(nodeCount++, false);
+                }
+                node = node.children[index];
+            }
+            node.terminal = true;
+        }
+    }
+}
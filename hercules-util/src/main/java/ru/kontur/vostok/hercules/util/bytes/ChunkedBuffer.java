@@ -0,0 +1,163 @@
+package ru.kontur.vostok.hercules.util.bytes;
+
+import ru.kontur.vostok.hercules.util.ByteBufferPool;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable buffer consists of fixed-size chunks.
+ * <p>
+ * Chunks are acquired from {@link ByteBufferPool}, thus the buffer grows without copying of written bytes.
+ * Written bytes can be read by ranges without copying them into the single array.
+ * <p>
+ * Call {@link #release()} to return chunks into the pool when the buffer is not needed anymore.
+ * <p>
+ * Class is not thread-safe.
+ */
+public class ChunkedBuffer extends OutputStream {
+    private static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int size;
+
+    public ChunkedBuffer() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedBuffer(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public void write(int b) {
+        current().put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            ByteBuffer chunk = current();
+            int count = Math.min(length, chunk.remaining());
+            chunk.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+            size += count;
+        }
+    }
+
+    /**
+     * Closing has no effect. Use {@link #release()} instead.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Return count of written bytes.
+     *
+     * @return count of written bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Input stream over written bytes from {@code from} (inclusive) to {@code to} (exclusive).
+     * <p>
+     * The stream is valid until the buffer is released.
+     *
+     * @param from the first position
+     * @param to   the last position (exclusive)
+     * @return input stream
+     */
+    public InputStream inputStream(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Invalid range [" + from + ", " + to + ") for size " + size);
+        }
+        return new RangeInputStream(from, to);
+    }
+
+    /**
+     * Return chunks into the pool. The buffer becomes empty.
+     */
+    public void release() {
+        for (ByteBuffer chunk : chunks) {
+            ByteBufferPool.release(chunk);
+        }
+        chunks.clear();
+        size = 0;
+    }
+
+    private ByteBuffer current() {
+        if (chunks.isEmpty() || !chunks.get(chunks.size() - 1).hasRemaining()) {
+            chunks.add(ByteBufferPool.acquire(chunkSize));
+        }
+        return chunks.get(chunks.size() - 1);
+    }
+
+    private class RangeInputStream extends InputStream {
+        private int position;
+        private final int to;
+
+        RangeInputStream(int from, int to) {
+            this.position = from;
+            this.to = to;
+        }
+
+        @Override
+        public int read() {
+            if (position >= to) {
+                return -1;
+            }
+            int b = chunks.get(position / chunkSize).get(position % chunkSize) & 0xFF;
+            position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= to) {
+                return -1;
+            }
+
+            int count = Math.min(length, to - position);
+            int remaining = count;
+            while (remaining > 0) {
+                ByteBuffer chunk = chunks.get(position / chunkSize).duplicate();
+                int chunkOffset = position % chunkSize;
+                int n = Math.min(remaining, chunkSize - chunkOffset);
+                chunk.limit(chunkOffset + n);
+                chunk.position(chunkOffset);
+                chunk.get(bytes, offset, n);
+                offset += n;
+                position += n;
+                remaining -= n;
+            }
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return to - position;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.min(Math.max(n, 0), to - position);
+            position += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.kontur.vostok.hercules.util.cache;
+
+/**
+ * The value cannot be loaded into the cache.
+ */
+public class CacheLoadException extends RuntimeException {
+    public CacheLoadException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,49 @@
+package ru.kontur.vostok.hercules.util.cache;
+
+/**
+ * Records cache statistics.
+ */
+public interface CacheStatsRecorder {
+    /**
+     * The recorder ignores all the statistics.
+     */
+    CacheStatsRecorder DISABLED = new CacheStatsRecorder() {
+        @Override
+        public void recordHit() {
+        }
+
+        @Override
+        public void recordMiss() {
+        }
+
+        @Override
+        public void recordLoad(long durationMs) {
+        }
+
+        @Override
+        public void recordLoadFailure() {
+        }
+    };
+
+    /**
+     * Record the value has been found in the cache.
+     */
+    void recordHit();
+
+    /**
+     * Record the value has not been found in the cache or has been expired.
+     */
+    void recordMiss();
+
+    /**
+     * Record the value has been loaded.
+     *
+     * @param durationMs the load duration in millis
+     */
+    void recordLoad(long durationMs);
+
+    /**
+     * Record the value has not been loaded due to the error.
+     */
+    void recordLoadFailure();
+}
@@ -0,0 +1,271 @@
+package ru.kontur.vostok.hercules.util.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.kontur.vostok.hercules.util.concurrent.ThreadFactories;
+import ru.kontur.vostok.hercules.util.time.TimeSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thread-safe bounded cache with refresh-ahead.
+ * <p>
+ * The value is reloaded asynchronously when it is older than {@code refreshAfterMs}, the cached value is returned meanwhile.
+ * Thus, frequently requested keys never wait for the loader.
+ * The value older than {@code expireAfterMs} (e.g. the key is rarely requested) is reloaded synchronously.
+ * If the loader fails, then the last cached value is returned if any.
+ * Otherwise, {@link CacheLoadException} is thrown.
+ * <p>
+ * Concurrent loads of the same key are merged into the single one.
+ * <p>
+ * The least recently accessed values are evicted when the cache size exceeds {@code maxSize}.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class RefreshAheadCache<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    private final int maxSize;
+    private final long refreshAfterMs;
+    private final long expireAfterMs;
+    private final Loader<K, V> loader;
+    private final CacheStatsRecorder stats;
+    private final Executor executor;
+    private final TimeSource time;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+    private final Object evictionLock = new Object();
+
+    /**
+     * Values are refreshed in the common pool of daemon threads.
+     *
+     * @param maxSize        max count of cached values
+     * @param refreshAfterMs the value is reloaded asynchronously if it is older than this time
+     * @param expireAfterMs  the value is reloaded synchronously if it is older than this time
+     * @param loader         loads values by keys
+     * @param stats          records cache statistics
+     */
+    public RefreshAheadCache(int maxSize, long refreshAfterMs, long expireAfterMs, Loader<K, V> loader, CacheStatsRecorder stats) {
+        this(maxSize, refreshAfterMs, expireAfterMs, loader, stats, CommonExecutorHolder.EXECUTOR, TimeSource.SYSTEM);
+    }
+
+    /**
+     * @param maxSize        max count of cached values
+     * @param refreshAfterMs the value is reloaded asynchronously if it is older than this time
+     * @param expireAfterMs  the value is reloaded synchronously if it is older than this time
+     * @param loader         loads values by keys
+     * @param stats          records cache statistics
+     * @param executor       executes asynchronous refreshes
+     * @param time           time source
+     */
+    public RefreshAheadCache(
+            int maxSize,
+            long refreshAfterMs,
+            long expireAfterMs,
+            Loader<K, V> loader,
+            CacheStatsRecorder stats,
+            Executor executor,
+            TimeSource time) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size should be positive");
+        }
+        if (refreshAfterMs > expireAfterMs) {
+            throw new IllegalArgumentException("Refresh time should not exceed expiration time");
+        }
+
+        this.maxSize = maxSize;
+        this.refreshAfterMs = refreshAfterMs;
+        this.expireAfterMs = expireAfterMs;
+        this.loader = loader;
+        this.stats = stats;
+        this.executor = executor;
+        this.time = time;
+    }
+
+    /**
+     * Get the value by the key.
+     * <p>
+     * The value is loaded synchronously if it is absent in the cache or has been expired.
+     *
+     * @param key the key
+     * @return the value or {@code null} if it does not exist
+     * @throws CacheLoadException if the value cannot be loaded and there is no cached value
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            stats.recordMiss();
+            return loadNow(key, null);
+        }
+
+        long nowMs = time.milliseconds();
+        entry.accessedAtMs = nowMs;
+        long ageMs = nowMs - entry.loadedAtMs;
+        if (ageMs >= expireAfterMs) {
+            stats.recordMiss();
+            return loadNow(key, entry.value);
+        }
+
+        stats.recordHit();
+        if (ageMs >= refreshAfterMs && !loads.containsKey(key)) {
+            load(key, true);
+        }
+        return entry.value;
+    }
+
+    /**
+     * Remove the value by the key from the cache.
+     *
+     * @param key the key
+     */
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove all the values from the cache.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Return the count of cached values.
+     *
+     * @return the cache size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private V loadNow(K key, V staleValue) {
+        try {
+            return load(key, false).join();
+        } catch (CompletionException ex) {
+            if (staleValue != null) {
+                return staleValue;
+            }
+            throw new CacheLoadException(ex.getCause());
+        }
+    }
+
+    /**
+     * Load the value by the key. If the key is loading already, then the same load is returned.
+     *
+     * @param key   the key
+     * @param async load in the executor if {@code true}, otherwise in the current thread
+     * @return the future of the value
+     */
+    private CompletableFuture<V> load(K key, boolean async) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = loads.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        Runnable task = () -> {
+            long startedAtMs = time.milliseconds();
+            try {
+                V value = loader.load(key);
+                long loadedAtMs = time.milliseconds();
+                stats.recordLoad(loadedAtMs - startedAtMs);
+                if (value != null) {
+                    entries.put(key, new Entry<>(value, loadedAtMs));
+                    evictIfNeeded();
+                } else {
+                    entries.remove(key);
+                }
+                future.complete(value);
+            } catch (Exception ex) {
+                stats.recordLoadFailure();
+                LOGGER.warn("Cannot load value for key '" + key + "'", ex);
+                future.completeExceptionally(ex);
+            } finally {
+                loads.remove(key, future);
+            }
+        };
+
+        if (!async) {
+            task.run();
+            return future;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            loads.remove(key, future);
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Evict the least recently accessed values. Evict a bit more than needed to do it less often.
+     */
+    private void evictIfNeeded() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+
+        synchronized (evictionLock) {
+            int excess = entries.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+            excess += maxSize / 10;
+
+            List<Map.Entry<K, Entry<V>>> candidates = new ArrayList<>(entries.entrySet());
+            candidates.sort(Comparator.comparingLong(e -> e.getValue().accessedAtMs));
+            for (int i = 0; i < excess && i < candidates.size(); i++) {
+                Map.Entry<K, Entry<V>> candidate = candidates.get(i);
+                entries.remove(candidate.getKey(), candidate.getValue());
+            }
+        }
+    }
+
+    /**
+     * Loads the value by the key.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     */
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        /**
+         * Load the value by the key.
+         *
+         * @param key the key
+         * @return the value or {@code null} if it does not exist
+         * @throws Exception if the value cannot be loaded
+         */
+        V load(K key) throws Exception;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAtMs;
+        private volatile long accessedAtMs;
+
+        Entry(V value, long loadedAtMs) {
+            this.value = value;
+            this.loadedAtMs = loadedAtMs;
+            this.accessedAtMs = loadedAtMs;
+        }
+    }
+
+    private static final class CommonExecutorHolder {
+        private static final ExecutorService EXECUTOR =
+                Executors.newFixedThreadPool(2, ThreadFactories.newDaemonNamedThreadFactory("cache-refresh"));
+    }
+}
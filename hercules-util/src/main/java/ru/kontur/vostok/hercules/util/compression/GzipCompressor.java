@@ -0,0 +1,93 @@
+package ru.kontur.vostok.hercules.util.compression;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GZIP compressor implementation.
+ * <p>
+ * Compressed data is the single GZIP member without optional header fields (see RFC 1952).
+ * Source data is copied to the deflater by small pieces, thus direct buffers are supported as well.
+ * <p>
+ * Compressor is thread-safe, since the deflater is created for each compression.
+ */
+public final class GzipCompressor implements Compressor {
+    private static final int HEADER_SIZE = 10;
+    private static final int TRAILER_SIZE = 8;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+
+    public GzipCompressor() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level the compression level from {@code 0} to {@code 9} or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public GzipCompressor(int level) {
+        this.level = level;
+    }
+
+    /**
+     * The maximum compressed data length is calculated as zlib's {@code deflateBound} does
+     * plus the length of GZIP header and trailer.
+     *
+     * @param length the source data length
+     * @return the maximum compressed data length
+     */
+    @Override
+    public int maxCompressedLength(int length) {
+        return length + ((length + 7) >> 3) + ((length + 63) >> 6) + 5 + HEADER_SIZE + TRAILER_SIZE;
+    }
+
+    @Override
+    public void compress(ByteBuffer src, ByteBuffer dest) {
+        final int length = src.remaining();
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(level, true);
+        byte[] input = new byte[Math.min(BUFFER_SIZE, Math.max(length, 1))];
+        byte[] output = new byte[BUFFER_SIZE];
+        try {
+            writeHeader(dest);
+
+            while (src.hasRemaining()) {
+                int size = Math.min(src.remaining(), input.length);
+                src.get(input, 0, size);
+                crc.update(input, 0, size);
+                deflater.setInput(input, 0, size);
+                while (!deflater.needsInput()) {
+                    dest.put(output, 0, deflater.deflate(output));
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                dest.put(output, 0, deflater.deflate(output));
+            }
+
+            writeIntLE((int) crc.getValue(), dest);
+            writeIntLE(length, dest);
+        } finally {
+            deflater.end();
+        }
+        dest.flip();
+    }
+
+    private static void writeHeader(ByteBuffer dest) {
+        dest.put((byte) 0x1f);// Magic number
+        dest.put((byte) 0x8b);
+        dest.put((byte) Deflater.DEFLATED);// Compression method
+        dest.put((byte) 0);// Flags
+        writeIntLE(0, dest);// Modification time
+        dest.put((byte) 0);// Extra flags
+        dest.put((byte) 0);// Operating system
+    }
+
+    private static void writeIntLE(int value, ByteBuffer dest) {
+        dest.put((byte) value);
+        dest.put((byte) (value >>> 8));
+        dest.put((byte) (value >>> 16));
+        dest.put((byte) (value >>> 24));
+    }
+}
@@ -4,6 +4,9 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 /**
  * @author Gregory Koshelev
@@ -35,4 +38,34 @@ public class ByteBufferPoolTest {
         Assert.assertEquals(count, ByteBufferPool.count());
         Assert.assertEquals(totalCapacity, ByteBufferPool.totalCapacity());
     }
+
+    @Test
+    public void shouldPoolBuffersOfTheSameCapacity() {
+        final int n = 8;
+        final int capacity = 12345;
+
+        int count = ByteBufferPool.count();
+        long totalCapacity = ByteBufferPool.totalCapacity();
+
+        ByteBuffer[] buffers = new ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(capacity);
+        }
+        for (ByteBuffer buffer : buffers) {
+            ByteBufferPool.release(buffer);
+        }
+
+        Assert.assertEquals(count + n, ByteBufferPool.count());
+        Assert.assertEquals(totalCapacity + (long) n * capacity, ByteBufferPool.totalCapacity());
+
+        Set<ByteBuffer> acquired = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < n; i++) {
+            acquired.add(ByteBufferPool.acquire(capacity));
+        }
+        for (ByteBuffer buffer : buffers) {
+            Assert.assertTrue(acquired.contains(buffer));
+        }
+        Assert.assertEquals(count, ByteBufferPool.count());
+        Assert.assertEquals(totalCapacity, ByteBufferPool.totalCapacity());
+    }
 }
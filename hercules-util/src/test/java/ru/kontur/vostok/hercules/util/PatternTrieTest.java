@@ -0,0 +1,93 @@
+package ru.kontur.vostok.hercules.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PatternTrieTest {
+    @Test
+    public void shouldMatchLiteralPatterns() {
+        PatternTrie trie = PatternTrie.compile(Arrays.asList("logs_project", "logs_project_test", "metrics"));
+
+        assertTrue(trie.matches("logs_project"));
+        assertTrue(trie.matches("logs_project_test"));
+        assertTrue(trie.matches("metrics"));
+
+        assertFalse(trie.matches("logs_projec"));
+        assertFalse(trie.matches("logs_project_"));
+        assertFalse(trie.matches("metrics_project"));
+        assertFalse(trie.matches(""));
+        assertFalse(trie.matches(null));
+    }
+
+    @Test
+    public void shouldMatchWildcards() {
+        PatternTrie trie = PatternTrie.compile(Arrays.asList("logs_*", "metrics_?", "traces_*_test*"));
+
+        assertTrue(trie.matches("logs_"));
+        assertTrue(trie.matches("logs_project"));
+        assertTrue(trie.matches("metrics_1"));
+        assertTrue(trie.matches("traces__test"));
+        assertTrue(trie.matches("traces_project_test_stream"));
+
+        assertFalse(trie.matches("logs"));
+        assertFalse(trie.matches("metrics_"));
+        assertFalse(trie.matches("metrics_12"));
+        assertFalse(trie.matches("traces_project_tes"));
+        assertFalse(trie.matches("logs_Project"));
+        assertFalse(trie.matches("logs_project-test"));
+    }
+
+    @Test
+    public void shouldNotMatchAnythingIfNoPatterns() {
+        PatternTrie trie = PatternTrie.compile(Collections.emptyList());
+
+        assertFalse(trie.matches(""));
+        assertFalse(trie.matches("logs"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnProhibitedChars() {
+        PatternTrie.compile(Collections.singletonList("logs-project"));
+    }
+
+    @Test
+    public void shouldBeEquivalentToPatternMatchers() {
+        Random random = new Random(42);
+        String patternChars = "ab_*?";
+        String valueChars = "ab_";
+
+        for (int i = 0; i < 100; i++) {
+            List<String> patterns = new ArrayList<>();
+            List<PatternMatcher> matchers = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                String pattern = randomString(random, patternChars, 6);
+                patterns.add(pattern);
+                matchers.add(new PatternMatcher(pattern));
+            }
+            PatternTrie trie = PatternTrie.compile(patterns);
+
+            for (int j = 0; j < 100; j++) {
+                String value = randomString(random, valueChars, 8);
+                assertEquals(patterns + " vs " + value, PatternMatcher.matchesAnyOf(value, matchers), trie.matches(value));
+            }
+        }
+    }
+
+    private static String randomString(Random random, String chars, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(chars.charAt(random.nextInt(chars.length())));
+        }
+        return sb.toString();
+    }
+}
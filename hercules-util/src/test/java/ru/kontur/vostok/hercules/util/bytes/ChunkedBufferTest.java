@@ -0,0 +1,52 @@
+package ru.kontur.vostok.hercules.util.bytes;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class ChunkedBufferTest {
+    @Test
+    public void shouldReadRangesAcrossChunks() throws IOException {
+        ChunkedBuffer buffer = new ChunkedBuffer(4);
+        try {
+            buffer.write("0123456789".getBytes(StandardCharsets.UTF_8));
+            buffer.write('A');
+
+            Assert.assertEquals(11, buffer.size());
+            Assert.assertEquals("0123456789A", readAll(buffer.inputStream(0, 11)));
+            Assert.assertEquals("3456", readAll(buffer.inputStream(3, 7)));
+            Assert.assertEquals("9A", readAll(buffer.inputStream(9, 11)));
+            Assert.assertEquals("", readAll(buffer.inputStream(5, 5)));
+
+            InputStream in = buffer.inputStream(2, 5);
+            Assert.assertEquals('2', in.read());
+            Assert.assertEquals(1, in.skip(1));
+            Assert.assertEquals('4', in.read());
+            Assert.assertEquals(-1, in.read());
+        } finally {
+            buffer.release();
+        }
+        Assert.assertEquals(0, buffer.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldFailOnRangeOutOfBounds() {
+        ChunkedBuffer buffer = new ChunkedBuffer(4);
+        buffer.write(1);
+        buffer.inputStream(0, 2);
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] bytes = new byte[3];
+        int read;
+        while ((read = in.read(bytes)) != -1) {
+            out.write(bytes, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,178 @@
+package ru.kontur.vostok.hercules.util.cache;
+
+import org.junit.Test;
+import ru.kontur.vostok.hercules.util.time.MockTimeSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RefreshAheadCacheTest {
+    @Test
+    public void shouldRefreshAsynchronouslyAndReturnStaleValueMeanwhile() {
+        MockTimeSource time = new MockTimeSource(0, 0);
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicInteger version = new AtomicInteger();
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>(
+                10, 1_000, 10_000, key -> key + version.incrementAndGet(), CacheStatsRecorder.DISABLED, tasks::add, time);
+
+        assertEquals("a1", cache.get("a"));
+        assertEquals(0, tasks.size());
+
+        time.sleep(1_000);
+        assertEquals("a1", cache.get("a"));
+        assertEquals("a1", cache.get("a"));
+        assertEquals(1, tasks.size());
+
+        tasks.remove(0).run();
+        assertEquals("a2", cache.get("a"));
+    }
+
+    @Test
+    public void shouldLoadSynchronouslyIfExpired() {
+        MockTimeSource time = new MockTimeSource(0, 0);
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicInteger version = new AtomicInteger();
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>(
+                10, 1_000, 10_000, key -> key + version.incrementAndGet(), CacheStatsRecorder.DISABLED, tasks::add, time);
+
+        assertEquals("a1", cache.get("a"));
+        time.sleep(10_000);
+        assertEquals("a2", cache.get("a"));
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    public void shouldReturnStaleValueIfLoaderFails() {
+        MockTimeSource time = new MockTimeSource(0, 0);
+        Map<String, String> storage = new HashMap<>();
+        storage.put("a", "a1");
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>(
+                10,
+                1_000,
+                10_000,
+                key -> {
+                    String value = storage.get(key);
+                    if (value == null) {
+                        throw new IllegalStateException("Storage is unavailable");
+                    }
+                    return value;
+                },
+                CacheStatsRecorder.DISABLED,
+                Runnable::run,
+                time);
+
+        assertEquals("a1", cache.get("a"));
+        storage.clear();
+        time.sleep(10_000);
+        assertEquals("a1", cache.get("a"));
+    }
+
+    @Test(expected = CacheLoadException.class)
+    public void shouldThrowIfLoaderFailsAndNoValueIsCached() {
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>(
+                10,
+                1_000,
+                10_000,
+                key -> {
+                    throw new IllegalStateException("Storage is unavailable");
+                },
+                CacheStatsRecorder.DISABLED,
+                Runnable::run,
+                new MockTimeSource(0, 0));
+
+        cache.get("a");
+    }
+
+    @Test
+    public void shouldNotCacheAbsentValues() {
+        AtomicInteger loads = new AtomicInteger();
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>(
+                10, 1_000, 10_000, key -> {
+                    loads.incrementAndGet();
+                    return null;
+                }, CacheStatsRecorder.DISABLED, Runnable::run, new MockTimeSource(0, 0));
+
+        assertNull(cache.get("a"));
+        assertNull(cache.get("a"));
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyAccessedValues() {
+        MockTimeSource time = new MockTimeSource(0, 0);
+        AtomicInteger loads = new AtomicInteger();
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>(
+                2, 1_000, 10_000, key -> {
+                    loads.incrementAndGet();
+                    return key;
+                }, CacheStatsRecorder.DISABLED, Runnable::run, time);
+        cache.get("a");
+        time.sleep(1);
+        cache.get("b");
+        time.sleep(1);
+        cache.get("a");
+        time.sleep(1);
+        cache.get("c");
+        assertEquals(2, cache.size());
+
+        cache.get("a");
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void shouldLoadOnceForConcurrentRequests() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        RefreshAheadCache<String, String> cache = new RefreshAheadCache<>(
+                10,
+                1_000,
+                10_000,
+                key -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    release.await();
+                    return key;
+                },
+                CacheStatsRecorder.DISABLED,
+                Runnable::run,
+                new MockTimeSource(0, 0));
+
+        List<String> results = new ArrayList<>();
+        Thread first = new Thread(() -> {
+            String value = cache.get("a");
+            synchronized (results) {
+                results.add(value);
+            }
+        });
+        first.start();
+        loading.await();
+
+        Thread second = new Thread(() -> {
+            String value = cache.get("a");
+            synchronized (results) {
+                results.add(value);
+            }
+        });
+        second.start();
+        while (second.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        first.join(10_000);
+        second.join(10_000);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, results.size());
+        assertEquals("a", results.get(0));
+        assertEquals("a", results.get(1));
+    }
+}
@@ -3,7 +3,12 @@ package ru.kontur.vostok.hercules.util.compression;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
 
 /**
  * @author Gregory Koshelev
@@ -24,4 +29,48 @@ public class CompressorTest {
 
         Assert.assertEquals(src, result);
     }
+
+    @Test
+    public void shouldCompressGzip() throws IOException {
+        byte[] data = new byte[100_000];
+        Random random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        Compressor compressor = new GzipCompressor();
+        ByteBuffer src = ByteBuffer.allocateDirect(data.length);
+        src.put(data).flip();
+        ByteBuffer dest = ByteBuffer.allocateDirect(compressor.maxCompressedLength(data.length));
+        compressor.compress(src, dest);
+
+        Assert.assertFalse(src.hasRemaining());
+        Assert.assertTrue(dest.remaining() < data.length);
+
+        byte[] compressed = new byte[dest.remaining()];
+        dest.get(compressed);
+        Assert.assertArrayEquals(data, gunzip(compressed));
+    }
+
+    @Test
+    public void shouldCompressEmptyDataGzip() throws IOException {
+        Compressor compressor = new GzipCompressor();
+        ByteBuffer dest = ByteBuffer.allocate(compressor.maxCompressedLength(0));
+        compressor.compress(ByteBuffer.allocate(0), dest);
+
+        byte[] compressed = new byte[dest.remaining()];
+        dest.get(compressed);
+        Assert.assertArrayEquals(new byte[0], gunzip(compressed));
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
 }